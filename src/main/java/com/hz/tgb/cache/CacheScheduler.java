@@ -0,0 +1,68 @@
+package com.hz.tgb.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 缓存包内共享的定时线程池。<br>
+ * 时间轮过期清理、近端缓存失效通知发送等后台任务都在这里执行，缓存实例再多也只占用固定的几个守护线程；
+ * 实例关闭时取消自己的任务即可，不能关闭线程池本身。
+ *
+ * @author hezhao
+ * @Time 2026年10月19日 上午9:12:40
+ */
+final class CacheScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CacheScheduler.class);
+
+    /** 线程数 */
+    private static final int THREADS = 2;
+
+    private static final ScheduledThreadPoolExecutor EXECUTOR = new ScheduledThreadPoolExecutor(THREADS,
+            new ThreadFactory() {
+
+                private final AtomicInteger index = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "cache-scheduler-" + index.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    static {
+        // 取消的任务立即从队列中移除，避免频繁创建、关闭缓存实例时任务堆积
+        EXECUTOR.setRemoveOnCancelPolicy(true);
+    }
+
+    private CacheScheduler() {
+    }
+
+    /**
+     * 按固定间隔执行任务，任务抛出的异常只记录日志，不会中止后续执行
+     *
+     * @param name 任务名，用于日志
+     * @param task 任务
+     * @param delayMillis 间隔,单位毫秒
+     * @return 用于取消任务
+     */
+    static ScheduledFuture<?> scheduleWithFixedDelay(final String name, final Runnable task, long delayMillis) {
+        return EXECUTOR.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    LOG.error("{} error", name, e);
+                }
+            }
+        }, delayMillis, delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,26 @@
+package com.hz.tgb.cache;
+
+/**
+ * 缓存序列化器，用于把缓存对象写入堆外内存或快照文件
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午2:20:16
+ */
+public interface CacheSerializer<V> {
+
+    /**
+     * 序列化
+     *
+     * @param value
+     * @return
+     */
+    byte[] serialize(V value);
+
+    /**
+     * 反序列化
+     *
+     * @param bytes
+     * @return
+     */
+    V deserialize(byte[] bytes);
+}
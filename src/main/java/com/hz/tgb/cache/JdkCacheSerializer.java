@@ -0,0 +1,37 @@
+package com.hz.tgb.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * 基于JDK序列化的缓存序列化器，缓存对象需要实现{@link java.io.Serializable}
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午2:20:16
+ */
+public class JdkCacheSerializer<V> implements CacheSerializer<V> {
+
+    @Override
+    public byte[] serialize(V value) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(value);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not serialize cache value: " + e.getMessage(), e);
+        }
+        return bos.toByteArray();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V deserialize(byte[] bytes) {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (V) ois.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalArgumentException("Could not deserialize cache value: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.hz.tgb.cache;
+
+import com.hz.tgb.data.redis.JedisUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于{@link JedisUtil}(ShardedJedis)的远程缓存操作。<br>
+ * 版本比较脚本要求数据key与版本key在同一个分片：多分片时ShardedJedisPool需要配置key tag
+ * (redis.clients.util.Sharded.DEFAULT_KEY_TAG_PATTERN)，{@link NearCache#versionKeyOf(String)}生成的版本key与数据key使用相同的{tag}；
+ * 单分片时不需要配置。失效通知的发布和订阅都在频道名所在的分片上进行
+ *
+ * @author hezhao
+ * @Time 2026年10月19日 下午4:18:52
+ */
+public class JedisUtilCacheStore implements RemoteCacheStore {
+
+    private final JedisUtil jedisUtil;
+
+    public JedisUtilCacheStore(JedisUtil jedisUtil) {
+        this.jedisUtil = jedisUtil;
+    }
+
+    @Override
+    public String get(String key) {
+        return jedisUtil.get(key);
+    }
+
+    @Override
+    public void set(String key, String value, long seconds) {
+        if (seconds > 0) {
+            jedisUtil.set(key, value, (int) Math.min(seconds, Integer.MAX_VALUE));
+        } else {
+            jedisUtil.set(key, value);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        jedisUtil.del(key);
+    }
+
+    @Override
+    public List<String> multiGet(String... keys) {
+        List<String> values = jedisUtil.multiGet(keys);
+        if (values == null) {
+            // 出错时JedisUtil已记录日志，按不存在处理
+            values = new ArrayList<String>(keys.length);
+            for (int i = 0; i < keys.length; i++) {
+                values.add(null);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public boolean setIfNewer(String key, String versionKey, String value, long version, long seconds) {
+        return jedisUtil.eval(RedisServiceCacheStore.SET_IF_NEWER_SCRIPT, new String[] {key, versionKey}, value,
+                String.valueOf(version), String.valueOf(seconds)) == 1L;
+    }
+
+    @Override
+    public boolean deleteIfNewer(String key, String versionKey, long version, long tombstoneSeconds) {
+        return jedisUtil.eval(RedisServiceCacheStore.DELETE_IF_NEWER_SCRIPT, new String[] {key, versionKey},
+                String.valueOf(version), String.valueOf(tombstoneSeconds)) == 1L;
+    }
+
+    @Override
+    public long increment(String key) {
+        return jedisUtil.incr(key);
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        jedisUtil.publish(channel, message);
+    }
+
+    @Override
+    public void subscribe(String channel, final MessageListener listener) {
+        jedisUtil.subscribe(channel, new JedisUtil.MessageHandler() {
+            @Override
+            public void onMessage(String channel, String message) {
+                listener.onMessage(message);
+            }
+        });
+    }
+}
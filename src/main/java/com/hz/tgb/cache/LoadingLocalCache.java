@@ -0,0 +1,316 @@
+package com.hz.tgb.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 自动加载的本地缓存，用于防止热点key过期时大量请求同时击穿到DB/Redis/HTTP等后端。<br>
+ * 1.缓存未命中时，同一个key的并发请求只会有一个线程调用加载器，其他线程等待该次加载的结果（single-flight）<br>
+ * 2.缓存存活超过 expire * refreshFactor 后，第一个读到它的线程会提交一次异步刷新，刷新完成前继续返回旧值<br>
+ * 3.存储是有容量上限的{@link LocalCacheEngine}：超过最大个数时按LRU淘汰，过期条目由后台时间轮清理<br>
+ * 4.{@link #invalidate(String)}、{@link #put(String, Object)}会作废正在进行的加载，加载完成后不会把旧值写回缓存
+ *
+ * <pre>
+ * LoadingLocalCache&lt;User&gt; cache = new LoadingLocalCache&lt;User&gt;(new LoadingLocalCache.CacheLoader&lt;User&gt;() {
+ *     public User load(String key) throws Exception {
+ *         return userDao.findById(key);
+ *     }
+ * }, 60000L, 0.8);
+ * User user = cache.get("10001");
+ * </pre>
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 上午11:05:42
+ */
+public class LoadingLocalCache<V> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoadingLocalCache.class);
+
+    /** 默认的刷新线程数 */
+    private static final int DEFAULT_REFRESH_THREADS = 2;
+
+    /** 默认的最大缓存个数 */
+    public static final long DEFAULT_MAXIMUM_SIZE = 100000L;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final LocalCacheEngine<V> cacheEngine;
+
+    /** 正在加载中的key，只有仍在其中的加载任务才能把结果写入缓存 */
+    private final ConcurrentHashMap<String, FutureTask<V>> loadingMap = new ConcurrentHashMap<String, FutureTask<V>>();
+
+    /** 写入缓存与作废加载任务之间的互斥锁 */
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private final CacheLoader<V> loader;
+
+    /** 缓存时间,单位毫秒 */
+    private final long expire;
+
+    /** 写入多久之后开始异步刷新,单位毫秒 */
+    private final long refreshAfter;
+
+    private final Executor refreshExecutor;
+
+    /**
+     * @param loader 加载器
+     * @param expire 缓存时间,单位毫秒
+     * @param refreshFactor 存活时间达到缓存时间的该比例后异步刷新，取值(0,1]，1表示不提前刷新
+     */
+    public LoadingLocalCache(CacheLoader<V> loader, long expire, double refreshFactor) {
+        this(loader, expire, refreshFactor, DefaultRefreshExecutor.INSTANCE);
+    }
+
+    /**
+     * @param loader 加载器
+     * @param expire 缓存时间,单位毫秒
+     * @param refreshFactor 存活时间达到缓存时间的该比例后异步刷新，取值(0,1]，1表示不提前刷新
+     * @param refreshExecutor 执行异步刷新的线程池
+     */
+    public LoadingLocalCache(CacheLoader<V> loader, long expire, double refreshFactor, Executor refreshExecutor) {
+        this(loader, DEFAULT_MAXIMUM_SIZE, expire, refreshFactor, refreshExecutor);
+    }
+
+    /**
+     * @param loader 加载器
+     * @param maximumSize 最大缓存个数，超出后淘汰最久未访问的缓存
+     * @param expire 缓存时间,单位毫秒
+     * @param refreshFactor 存活时间达到缓存时间的该比例后异步刷新，取值(0,1]，1表示不提前刷新
+     * @param refreshExecutor 执行异步刷新的线程池
+     */
+    public LoadingLocalCache(CacheLoader<V> loader, long maximumSize, long expire, double refreshFactor,
+                             Executor refreshExecutor) {
+        if (loader == null || refreshExecutor == null) {
+            throw new IllegalArgumentException("loader and refreshExecutor must not be null");
+        }
+        if (maximumSize <= 0 || expire <= 0 || refreshFactor <= 0 || refreshFactor > 1) {
+            throw new IllegalArgumentException("maximumSize and expire must be positive and refreshFactor must be in (0, 1]");
+        }
+        this.cacheEngine = new LocalCacheEngine<V>(maximumSize);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        this.loader = loader;
+        this.expire = expire;
+        this.refreshAfter = (long) (expire * refreshFactor);
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * 查询缓存，未命中或已过期时同步加载
+     *
+     * @param key
+     * @return 加载器返回null时返回null（null值不缓存）
+     */
+    public V get(String key) {
+        LocalCacheObj<V> localCache = cacheEngine.get(key);
+        if (localCache != null) {
+            if (refreshAfter < expire
+                    && System.currentTimeMillis() >= localCache.getExpireTime() - expire + refreshAfter) {
+                refreshAsync(key);
+            }
+            return localCache.getT();
+        }
+        return load(key);
+    }
+
+    /**
+     * 只查询缓存，不触发加载
+     *
+     * @param key
+     * @return 不存在或已过期时返回null
+     */
+    public LocalCacheObj<V> getIfPresent(String key) {
+        return cacheEngine.get(key);
+    }
+
+    /**
+     * 主动写入缓存，正在进行的加载被作废
+     *
+     * @param key
+     * @param value
+     */
+    public void put(String key, V value) {
+        synchronized (lockFor(key)) {
+            loadingMap.remove(key);
+            cacheEngine.put(key, value, expire);
+        }
+    }
+
+    /**
+     * 删除缓存，正在进行的加载被作废：等待它的线程仍会拿到结果，但结果不会写入缓存
+     *
+     * @param key
+     */
+    public void invalidate(String key) {
+        synchronized (lockFor(key)) {
+            loadingMap.remove(key);
+            cacheEngine.remove(key);
+        }
+    }
+
+    /**
+     * 当前缓存个数（包含尚未清理的过期缓存）
+     *
+     * @return
+     */
+    public long size() {
+        return cacheEngine.size();
+    }
+
+    /**
+     * 停止后台过期清理，不再使用时调用
+     */
+    public void shutdown() {
+        cacheEngine.shutdown();
+    }
+
+    /**
+     * 同步加载：已有线程在加载该key时等待其结果
+     */
+    private V load(String key) {
+        FutureTask<V> task = loadingMap.get(key);
+        if (task == null) {
+            FutureTask<V> newTask = newLoadTask(key);
+            task = loadingMap.putIfAbsent(key, newTask);
+            if (task == null) {
+                task = newTask;
+                try {
+                    task.run();
+                } finally {
+                    loadingMap.remove(key, task);
+                }
+            }
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("load cache interrupted, key:" + key, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("load cache error, key:" + key, e.getCause());
+        }
+    }
+
+    /**
+     * 异步刷新：已有线程在加载该key时不重复提交
+     */
+    private void refreshAsync(final String key) {
+        if (loadingMap.containsKey(key)) {
+            return;
+        }
+        final FutureTask<V> task = newLoadTask(key);
+        if (loadingMap.putIfAbsent(key, task) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                        task.get();
+                    } catch (Exception e) {
+                        // 刷新失败时保留旧值，直到其真正过期
+                        LOG.warn("refresh cache error, key:{}", key, e);
+                    } finally {
+                        loadingMap.remove(key, task);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loadingMap.remove(key, task);
+            LOG.warn("refresh cache rejected, key:{}", key);
+        }
+    }
+
+    private FutureTask<V> newLoadTask(String key) {
+        LoadCall call = new LoadCall(key);
+        FutureTask<V> task = new FutureTask<V>(call);
+        call.task = task;
+        return task;
+    }
+
+    /**
+     * 加载结果只有在任务仍是该key当前的加载任务时才写入缓存，期间被invalidate/put作废的结果直接丢弃
+     */
+    private void install(String key, FutureTask<V> task, V value) {
+        synchronized (lockFor(key)) {
+            if (loadingMap.get(key) == task) {
+                cacheEngine.put(key, value, expire);
+            }
+        }
+    }
+
+    private Object lockFor(String key) {
+        return locks[(key.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+    }
+
+    /**
+     * 加载任务的执行体，持有所属的FutureTask用于判断结果是否仍然有效
+     */
+    private final class LoadCall implements Callable<V> {
+
+        private final String key;
+
+        private FutureTask<V> task;
+
+        LoadCall(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public V call() throws Exception {
+            V value = loader.load(key);
+            if (value != null) {
+                install(key, task, value);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * 缓存加载器
+     */
+    public interface CacheLoader<V> {
+
+        /**
+         * 加载key对应的值
+         *
+         * @param key
+         * @return 返回null表示不存在，不会被缓存
+         * @throws Exception
+         */
+        V load(String key) throws Exception;
+    }
+
+    /**
+     * 默认的刷新线程池，所有实例共享，守护线程
+     */
+    private static class DefaultRefreshExecutor {
+
+        private static final ExecutorService INSTANCE = Executors.newFixedThreadPool(DEFAULT_REFRESH_THREADS,
+                new ThreadFactory() {
+
+                    private final AtomicInteger index = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "local-cache-refresh-" + index.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+}
@@ -1,30 +1,35 @@
 package com.hz.tgb.cache;
 
+import com.hz.tgb.datetime.CachedClock;
 import com.hz.tgb.entity.Student;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.File;
 
 /**
  * 自定义本地缓存，可应用于简单的缓存场景。<br>
- * 注意事项：1.多节点部署时，该缓存不共享，建议使用集中式缓存 2.数据刷新时，需要主动设置该缓存过期
+ * 注意事项：1.多节点部署时，该缓存不共享，建议使用集中式缓存 2.数据刷新时，需要主动设置该缓存过期<br>
+ * 底层由{@link LocalCacheEngine}实现：线程安全，超过最大个数时按LRU淘汰，过期缓存由后台时间轮清理
  *
  * @author Yaphis 2015年11月9日 下午2:13:53
  */
 public class LocalCache {
 
-    private static final Map<String, LocalCacheObj<Object>> cacheMap = new HashMap<String, LocalCacheObj<Object>>();
-
     private static final Logger LOG = LoggerFactory.getLogger(LocalCache.class);
 
     /** 默认的缓存时间[7天],单位毫秒 */
     private static final long DEFAULT_EXPIRE = 604800000L;
 
-    /** 默认的最大缓存个数[20万个] */
+    /** 默认的最大缓存个数[20万个]，超出后淘汰最久未访问的缓存 */
     private static final long MAX_COUNT = 200000;
 
+    /** 系统属性{@value CachedClock#COMPONENTS}中包含{@value CachedClock#LOCAL_CACHE}时使用粗粒度时钟 */
+    private static final LocalCacheEngine<Object> cacheEngine = new LocalCacheEngine<Object>(MAX_COUNT,
+            CachedClock.isOptedIn(CachedClock.LOCAL_CACHE));
+
+    private static LocalCacheSnapshot<Object> snapshot;
+
     private LocalCache() {
         // 私有类构造方法
     }
@@ -36,16 +41,19 @@ public class LocalCache {
      * @param t
      */
     public static <T> void insertCache(String key, T t) {
-        LOG.info("insert to cache >>> key:{} value:{}", key, t);
+        insertCache(key, t, DEFAULT_EXPIRE);
+    }
 
-        // 这里简单设计 防止缓存过大导致内存溢出
-        if (cacheMap.size() >= MAX_COUNT) {
-            LOG.error("current cacheMap size:{},has up to limit!", cacheMap.size());
-            return;
-        }
-        long expireTime = System.currentTimeMillis() + DEFAULT_EXPIRE;
-        LocalCacheObj<Object> localCache = new LocalCacheObj<Object>(t, expireTime);
-        cacheMap.put(key, localCache);
+    /**
+     * 插入缓存
+     *
+     * @param key
+     * @param t
+     * @param expire 缓存时间,单位毫秒
+     */
+    public static <T> void insertCache(String key, T t, long expire) {
+        LOG.debug("insert to cache >>> key:{} value:{}", key, t);
+        cacheEngine.put(key, t, expire);
     }
 
     /**
@@ -54,30 +62,50 @@ public class LocalCache {
      * @param key
      */
     public static void deleteCache(String key) {
-        LOG.info("delete from cache >>> key:{}", key);
-        cacheMap.remove(key);
+        LOG.debug("delete from cache >>> key:{}", key);
+        cacheEngine.remove(key);
     }
 
     /**
      * 查询缓存
      *
      * @param key
-     * @return
+     * @return 不存在或已过期时返回null
      */
     public static LocalCacheObj<Object> queryCache(String key) {
-        LocalCacheObj<Object> localCache = cacheMap.get(key);
-        if (null != localCache) {
-            long nowTime = System.currentTimeMillis();
-            if (nowTime > localCache.getExpireTime()) {
-                LOG.info("key:{} has been expired!", key);
-                cacheMap.remove(key);
-                return null; // 缓存已经过期
-            } else {
-                LOG.info("query from cache >>> key:{} value:{}", key, localCache);
-                return localCache;
-            }
+        LocalCacheObj<Object> localCache = cacheEngine.get(key);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("query from cache >>> key:{} value:{}", key, localCache);
         }
-        return null;
+        return localCache;
+    }
+
+    /**
+     * 开启缓存快照：立即从快照文件惰性恢复缓存，之后定期保存快照，JVM退出前也会保存一次。<br>
+     * 缓存对象需要实现{@link java.io.Serializable}，否则不会被保存
+     *
+     * @param path 快照文件路径
+     * @param intervalMillis 保存间隔,单位毫秒
+     * @return 恢复的缓存个数
+     */
+    public static synchronized int enableSnapshot(String path, long intervalMillis) {
+        if (snapshot != null) {
+            snapshot.stop();
+        }
+        snapshot = new LocalCacheSnapshot<Object>(cacheEngine, new File(path), new JdkCacheSerializer<Object>());
+        int count = snapshot.restore();
+        snapshot.start(intervalMillis);
+        LOG.info("local cache snapshot enabled >>> path:{} restored:{}", path, count);
+        return count;
+    }
+
+    /**
+     * 当前缓存个数
+     *
+     * @return
+     */
+    public static long size() {
+        return cacheEngine.size();
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,481 @@
+package com.hz.tgb.cache;
+
+import com.hz.tgb.datetime.CachedClock;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 本地缓存引擎：分段加锁存储 + 单条目过期时间 + LRU容量淘汰 + 时间轮后台过期清理。<br>
+ * 1.按key的hash分成多个段，每段一把锁，只有写入、删除需要加锁，不同段之间的写入互不阻塞<br>
+ * 2.读取不加锁：直接查询段内的ConcurrentHashMap，命中的节点记入段的读缓冲(满了覆盖旧的，允许丢失)，
+ *   读缓冲由写入时或tryLock成功的读取批量回放到访问顺序的LinkedHashMap中，超过段容量时淘汰最久未访问的条目（近似全局LRU）<br>
+ * 3.过期条目除了在读取时惰性删除外，还会由时间轮线程定期清理，不再依赖于被再次读取<br>
+ * 4.可选使用{@link CachedClock}：读写和时间轮清理使用同一个时钟，过期判断不会混用两种时钟
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 上午10:12:30
+ */
+public class LocalCacheEngine<V> {
+
+    /** 默认的分段数 */
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /** 默认的时间轮刻度,单位毫秒 */
+    public static final long DEFAULT_TICK_MILLIS = 1000L;
+
+    /** 默认的时间轮槽数 */
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final Segment<V>[] segments;
+
+    private final int segmentMask;
+
+    private final TimerWheel<V> timerWheel;
+
+    /** 是否使用粗粒度时钟 */
+    private final boolean coarseClock;
+
+    /** 尚未被读取的快照数据，未命中时从这里惰性恢复 */
+    private volatile SnapshotReader<V> snapshotReader;
+
+    /**
+     * @param maximumSize 最大缓存个数
+     */
+    public LocalCacheEngine(long maximumSize) {
+        this(maximumSize, false);
+    }
+
+    /**
+     * @param maximumSize 最大缓存个数
+     * @param coarseClock 是否使用{@link CachedClock}(需要另外调用{@link CachedClock#start()})
+     */
+    public LocalCacheEngine(long maximumSize, boolean coarseClock) {
+        this(maximumSize, DEFAULT_CONCURRENCY_LEVEL, DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE, coarseClock);
+    }
+
+    /**
+     * @param maximumSize 最大缓存个数
+     * @param concurrencyLevel 分段数，会向上取整为2的幂
+     * @param tickMillis 时间轮刻度,单位毫秒
+     * @param wheelSize 时间轮槽数，会向上取整为2的幂
+     */
+    public LocalCacheEngine(long maximumSize, int concurrencyLevel, long tickMillis, int wheelSize) {
+        this(maximumSize, concurrencyLevel, tickMillis, wheelSize, false);
+    }
+
+    /**
+     * @param maximumSize 最大缓存个数
+     * @param concurrencyLevel 分段数，会向上取整为2的幂
+     * @param tickMillis 时间轮刻度,单位毫秒
+     * @param wheelSize 时间轮槽数，会向上取整为2的幂
+     * @param coarseClock 是否使用{@link CachedClock}(需要另外调用{@link CachedClock#start()})
+     */
+    @SuppressWarnings("unchecked")
+    public LocalCacheEngine(long maximumSize, int concurrencyLevel, long tickMillis, int wheelSize,
+            boolean coarseClock) {
+        if (maximumSize <= 0 || concurrencyLevel <= 0 || tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("maximumSize, concurrencyLevel, tickMillis and wheelSize must be positive");
+        }
+        int segmentCount = ceilingPowerOfTwo(concurrencyLevel);
+        // 段数不超过容量，避免每段容量为0
+        while (segmentCount > 1 && segmentCount > maximumSize) {
+            segmentCount >>>= 1;
+        }
+        this.segmentMask = segmentCount - 1;
+        this.segments = new Segment[segmentCount];
+        long segmentCapacity = (maximumSize + segmentCount - 1) / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<V>(segmentCapacity);
+        }
+        this.coarseClock = coarseClock;
+        this.timerWheel = new TimerWheel<V>(this, tickMillis, ceilingPowerOfTwo(wheelSize));
+    }
+
+    /**
+     * 插入缓存，key已存在时覆盖
+     *
+     * @param key
+     * @param value
+     * @param expireMillis 缓存时间,单位毫秒
+     */
+    public void put(String key, V value, long expireMillis) {
+        putExpireAt(key, value, currentTimeMillis() + expireMillis);
+    }
+
+    /**
+     * 插入缓存，key已存在时覆盖
+     *
+     * @param key
+     * @param value
+     * @param expireTime 过期时间点,单位毫秒
+     */
+    public void putExpireAt(String key, V value, long expireTime) {
+        Node<V> node = new Node<V>(key, new LocalCacheObj<V>(value, expireTime));
+        SnapshotReader<V> reader = snapshotReader;
+        if (reader != null) {
+            reader.discard(key);
+        }
+        segmentFor(key).put(node);
+        timerWheel.schedule(node);
+    }
+
+    /**
+     * 查询缓存，已过期的条目会被删除并返回null
+     *
+     * @param key
+     * @return
+     */
+    public LocalCacheObj<V> get(String key) {
+        long now = currentTimeMillis();
+        LocalCacheObj<V> obj = segmentFor(key).get(key, now);
+        if (obj == null && snapshotReader != null) {
+            obj = restore(key, now);
+        }
+        return obj;
+    }
+
+    /**
+     * 删除缓存
+     *
+     * @param key
+     * @return 被删除的缓存对象，不存在时返回null
+     */
+    public LocalCacheObj<V> remove(String key) {
+        SnapshotReader<V> reader = snapshotReader;
+        if (reader != null) {
+            reader.discard(key);
+        }
+        Node<V> node = segmentFor(key).remove(key);
+        return node == null ? null : node.obj;
+    }
+
+    /**
+     * 当前缓存个数（包含尚未被清理的过期条目）
+     *
+     * @return
+     */
+    public long size() {
+        long size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        snapshotReader = null;
+        for (Segment<V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * 停止后台过期清理任务
+     */
+    public void shutdown() {
+        timerWheel.shutdown();
+    }
+
+    /**
+     * 引擎使用的当前时间，时间轮清理也用这个时间
+     */
+    long currentTimeMillis() {
+        return CachedClock.currentTimeMillis(coarseClock);
+    }
+
+    /**
+     * 设置快照数据，之后未命中的key会从快照中惰性恢复
+     */
+    void setSnapshotReader(SnapshotReader<V> snapshotReader) {
+        this.snapshotReader = snapshotReader;
+    }
+
+    SnapshotReader<V> getSnapshotReader() {
+        return snapshotReader;
+    }
+
+    int segmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * 复制一个段中的所有节点，只在复制期间持有该段的锁
+     */
+    void copySegment(int index, List<Node<V>> out) {
+        segments[index].copyTo(out);
+    }
+
+    /**
+     * 从快照中恢复一个key，不覆盖期间新插入的值，也不恢复期间被删除的key
+     */
+    private LocalCacheObj<V> restore(String key, long now) {
+        SnapshotReader<V> reader = snapshotReader;
+        if (reader == null) {
+            return null;
+        }
+        Segment<V> segment = segmentFor(key);
+        // 必须在take之前读取：remove先从快照中丢弃key再增加removals，take之后的删除一定能被发现
+        long removals = segment.removals();
+        LocalCacheObj<V> obj = reader.take(key, now);
+        if (reader.isEmpty()) {
+            snapshotReader = null;
+        }
+        if (obj == null) {
+            return null;
+        }
+        Node<V> node = new Node<V>(key, obj);
+        Node<V> current = segment.restore(node, removals);
+        if (current == node) {
+            // 恢复期间本段有删除，可能删除的就是这个key，按未命中处理
+            return null;
+        }
+        if (current != null) {
+            return current.obj;
+        }
+        timerWheel.schedule(node);
+        return obj;
+    }
+
+    /**
+     * 时间轮回调：仅当节点仍是该key的当前值时才删除，避免误删新插入的值
+     */
+    void expire(Node<V> node) {
+        segmentFor(node.key).removeIfCurrent(node);
+    }
+
+    private Segment<V> segmentFor(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & segmentMask];
+    }
+
+    private static int ceilingPowerOfTwo(int n) {
+        int size = 1;
+        while (size < n && size < (1 << 30)) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    /**
+     * 缓存节点，被覆盖、删除或淘汰时标记为retired，时间轮遇到时直接丢弃
+     */
+    static final class Node<V> {
+
+        final String key;
+
+        final LocalCacheObj<V> obj;
+
+        volatile boolean retired;
+
+        Node(String key, LocalCacheObj<V> obj) {
+            this.key = key;
+            this.obj = obj;
+        }
+    }
+
+    /**
+     * 缓存段：table供无锁读取，lru记录访问顺序，两者只在持有锁时一起修改
+     */
+    private static final class Segment<V> extends ReentrantLock {
+
+        private static final long serialVersionUID = 3427013512937261651L;
+
+        /** 读缓冲大小，2的幂 */
+        private static final int READ_BUFFER_SIZE = 64;
+
+        private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+
+        /** 每记录这么多次读取尝试回放一次读缓冲 */
+        private static final int DRAIN_INTERVAL_MASK = 15;
+
+        private final ConcurrentHashMap<String, Node<V>> table = new ConcurrentHashMap<String, Node<V>>();
+
+        private final LinkedHashMap<String, Node<V>> lru;
+
+        /** 命中的节点，回放时在lru中提升为最近访问 */
+        private final AtomicReferenceArray<Node<V>> readBuffer = new AtomicReferenceArray<Node<V>>(READ_BUFFER_SIZE);
+
+        private final AtomicInteger reads = new AtomicInteger();
+
+        /** 删除、清空的次数，从快照恢复时用于判断期间是否有删除 */
+        private volatile long removals;
+
+        Segment(final long capacity) {
+            this.lru = new LinkedHashMap<String, Node<V>>(16, 0.75f, true) {
+
+                private static final long serialVersionUID = -2867400133614651742L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Node<V>> eldest) {
+                    if (size() > capacity) {
+                        Node<V> node = eldest.getValue();
+                        node.retired = true;
+                        table.remove(node.key, node);
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        void put(Node<V> node) {
+            lock();
+            try {
+                drainReadBuffer();
+                Node<V> old = lru.put(node.key, node);
+                table.put(node.key, node);
+                if (old != null) {
+                    old.retired = true;
+                }
+            } finally {
+                unlock();
+            }
+        }
+
+        Node<V> putIfAbsent(Node<V> node) {
+            lock();
+            try {
+                Node<V> current = table.get(node.key);
+                if (current != null) {
+                    return current;
+                }
+                drainReadBuffer();
+                lru.put(node.key, node);
+                table.put(node.key, node);
+                return null;
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * 从快照恢复：key不存在，并且读取removals之后本段没有删除过时才插入
+         *
+         * @return 插入成功返回null，key已存在返回当前节点，期间有删除时返回传入的节点(不插入)
+         */
+        Node<V> restore(Node<V> node, long removalsBefore) {
+            lock();
+            try {
+                if (removals != removalsBefore) {
+                    return node;
+                }
+                return putIfAbsent(node);
+            } finally {
+                unlock();
+            }
+        }
+
+        long removals() {
+            return removals;
+        }
+
+        LocalCacheObj<V> get(String key, long now) {
+            Node<V> node = table.get(key);
+            if (node == null) {
+                return null;
+            }
+            if (now > node.obj.getExpireTime()) {
+                // 过期是少数情况，加锁删除
+                removeIfCurrent(node);
+                return null;
+            }
+            recordRead(node);
+            return node.obj;
+        }
+
+        Node<V> remove(String key) {
+            lock();
+            try {
+                removals++;
+                Node<V> node = table.remove(key);
+                if (node != null) {
+                    lru.remove(key);
+                    node.retired = true;
+                }
+                return node;
+            } finally {
+                unlock();
+            }
+        }
+
+        void removeIfCurrent(Node<V> node) {
+            lock();
+            try {
+                if (!node.retired && table.remove(node.key, node)) {
+                    lru.remove(node.key);
+                    node.retired = true;
+                }
+            } finally {
+                unlock();
+            }
+        }
+
+        void copyTo(List<Node<V>> out) {
+            lock();
+            try {
+                out.addAll(lru.values());
+            } finally {
+                unlock();
+            }
+        }
+
+        int size() {
+            return table.size();
+        }
+
+        void clear() {
+            lock();
+            try {
+                removals++;
+                for (Node<V> node : lru.values()) {
+                    node.retired = true;
+                }
+                lru.clear();
+                table.clear();
+                for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+                    readBuffer.set(i, null);
+                }
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * 记录一次命中，写入位置被并发读取覆盖时丢失这次记录，只影响淘汰顺序的精确度
+         */
+        private void recordRead(Node<V> node) {
+            int n = reads.getAndIncrement();
+            readBuffer.lazySet(n & READ_BUFFER_MASK, node);
+            if ((n & DRAIN_INTERVAL_MASK) == DRAIN_INTERVAL_MASK && tryLock()) {
+                try {
+                    drainReadBuffer();
+                } finally {
+                    unlock();
+                }
+            }
+        }
+
+        /**
+         * 把读缓冲中的节点提升为最近访问，需要持有锁
+         */
+        private void drainReadBuffer() {
+            for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+                Node<V> node = readBuffer.get(i);
+                if (node != null && readBuffer.compareAndSet(i, node, null) && !node.retired) {
+                    // 访问顺序的LinkedHashMap在get时把key移到队尾
+                    lru.get(node.key);
+                }
+            }
+        }
+    }
+}
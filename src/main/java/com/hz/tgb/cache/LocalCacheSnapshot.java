@@ -0,0 +1,184 @@
+package com.hz.tgb.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地缓存快照，用于重启后预热缓存，避免发布后的前几分钟流量全部打到后端。<br>
+ * 1.保存：逐段复制缓存节点（只在复制该段时持有该段的锁，不阻塞其他段的读写），在锁外序列化并写入临时文件，完成后原子替换快照文件<br>
+ * 2.恢复：内存映射快照文件，只建立未过期key的索引，value在第一次被查询时才反序列化
+ *
+ * <pre>
+ * LocalCacheSnapshot&lt;Object&gt; snapshot = new LocalCacheSnapshot&lt;Object&gt;(engine, new File("/data/cache.snapshot"), new JdkCacheSerializer&lt;Object&gt;());
+ * snapshot.restore();
+ * snapshot.start(60000L);
+ * </pre>
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午3:41:08
+ */
+public class LocalCacheSnapshot<V> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LocalCacheSnapshot.class);
+
+    /** 文件头 "LCSN" */
+    static final int MAGIC = 0x4C43534E;
+
+    static final int VERSION = 1;
+
+    private final LocalCacheEngine<V> engine;
+
+    private final File file;
+
+    private final CacheSerializer<V> serializer;
+
+    private ScheduledExecutorService scheduler;
+
+    private Thread shutdownHook;
+
+    public LocalCacheSnapshot(LocalCacheEngine<V> engine, File file, CacheSerializer<V> serializer) {
+        if (engine == null || file == null || serializer == null) {
+            throw new IllegalArgumentException("engine, file and serializer must not be null");
+        }
+        this.engine = engine;
+        this.file = file;
+        this.serializer = serializer;
+    }
+
+    /**
+     * 保存快照，已过期和无法序列化的缓存会被跳过
+     *
+     * @return 保存的缓存个数
+     * @throws IOException
+     */
+    public synchronized int save() throws IOException {
+        long startTime = System.currentTimeMillis();
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.exists()) {
+            parent.mkdirs();
+        }
+        File tmpFile = new File(parent, file.getName() + ".tmp");
+        int count = 0;
+        List<LocalCacheEngine.Node<V>> nodes = new ArrayList<LocalCacheEngine.Node<V>>();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            // 上次快照中还未被访问过的缓存原样保留，写在前面，以便恢复时被内存中的新值覆盖
+            SnapshotReader<V> reader = engine.getSnapshotReader();
+            if (reader != null) {
+                count += reader.writeRemaining(out, System.currentTimeMillis());
+            }
+            for (int i = 0; i < engine.segmentCount(); i++) {
+                nodes.clear();
+                engine.copySegment(i, nodes);
+                long now = System.currentTimeMillis();
+                for (LocalCacheEngine.Node<V> node : nodes) {
+                    if (now > node.obj.getExpireTime()) {
+                        continue;
+                    }
+                    byte[] valueBytes;
+                    try {
+                        valueBytes = serializer.serialize(node.obj.getT());
+                    } catch (RuntimeException e) {
+                        LOG.warn("skip snapshot of key:{}, {}", node.key, e.getMessage());
+                        continue;
+                    }
+                    byte[] keyBytes = node.key.getBytes(StandardCharsets.UTF_8);
+                    out.writeLong(node.obj.getExpireTime());
+                    out.writeInt(keyBytes.length);
+                    out.write(keyBytes);
+                    out.writeInt(valueBytes.length);
+                    out.write(valueBytes);
+                    count++;
+                }
+            }
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOG.info("local cache snapshot saved >>> file:{} entries:{} cost:{}ms", file, count, System.currentTimeMillis() - startTime);
+        return count;
+    }
+
+    /**
+     * 惰性恢复快照：只建立索引，未命中的key在被查询时才从快照中读取
+     *
+     * @return 快照中未过期的缓存个数，快照文件不存在或已损坏时返回0
+     */
+    public int restore() {
+        if (!file.isFile()) {
+            return 0;
+        }
+        try {
+            SnapshotReader<V> reader = SnapshotReader.open(file, serializer);
+            if (!reader.isEmpty()) {
+                engine.setSnapshotReader(reader);
+            }
+            return reader.size();
+        } catch (IOException e) {
+            LOG.error("restore local cache snapshot error, file:{}", file, e);
+            return 0;
+        }
+    }
+
+    /**
+     * 定期保存快照，并在JVM退出前保存一次
+     *
+     * @param intervalMillis 保存间隔,单位毫秒
+     */
+    public synchronized void start(long intervalMillis) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "local-cache-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        Runnable saveTask = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    save();
+                } catch (Throwable e) {
+                    LOG.error("save local cache snapshot error, file:{}", file, e);
+                }
+            }
+        };
+        scheduler.scheduleWithFixedDelay(saveTask, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        shutdownHook = new Thread(saveTask, "local-cache-snapshot-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * 停止定期保存
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // JVM正在退出
+            }
+            shutdownHook = null;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.hz.tgb.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * 两级近端缓存：本地缓存(L1) + Redis(L2)。<br>
+ * 1.读：先查本地，未命中再查Redis并放入本地<br>
+ * 2.写/删：先写Redis（写穿），再更新本地，然后把失效通知放入队列，由后台任务按批通过Redis pub/sub广播给其他节点<br>
+ * 3.版本号：每次写/删都从Redis取一个全局递增的版本号。Redis中的值保持原样，版本号保存在单独的key中({@link #versionKeyOf(String)})，
+ * 写/删通过Lua脚本比较版本号，只有比Redis中的版本新才生效，并发写入时先取到版本号、后到达Redis的旧写入不会覆盖新值。
+ * 节点收到失效通知后删除本地旧版本，并记住该key的最低有效版本，之后读到的低于该版本的值（例如与删除并发的慢查询结果）
+ * 不会再放入本地，从而保证本地的旧值不会覆盖新值<br>
+ * 4.后台的失效通知发送、本地过期清理都在缓存包共享的定时线程中执行，不为每个实例创建线程<br>
+ * 注意：pub/sub消息可能丢失（如订阅连接断开期间），本地缓存时间就是这种情况下的最长不一致时间；key中不能包含换行符；
+ * Redis集群下数据key与版本key通过hash tag落在同一个slot。基于JedisUtil(ShardedJedis)时使用{@link JedisUtilCacheStore}
+ *
+ * <pre>
+ * NearCache nearCache = new NearCache(new RedisServiceCacheStore(redisService), 10000, 60000L, 3600);
+ * nearCache.start();
+ * nearCache.set("user:1", json);
+ * String value = nearCache.get("user:1");
+ * </pre>
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午4:52:37
+ */
+public class NearCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NearCache.class);
+
+    /** 失效通知频道 */
+    public static final String INVALIDATE_CHANNEL = "near-cache:invalidate";
+
+    /** 全局版本号的key */
+    public static final String VERSION_KEY = "near-cache:version";
+
+    /** 每个key的版本号保存在 {key}:near-cache-version 中 */
+    public static final String VERSION_KEY_SUFFIX = ":near-cache-version";
+
+    /** 删除后版本号墓碑的保留时间(秒)，期间到达的旧写入被拒绝 */
+    private static final long DELETE_TOMBSTONE_SECONDS = 300L;
+
+    /** 默认的失效通知发送间隔,单位毫秒 */
+    private static final long DEFAULT_FLUSH_INTERVAL = 10L;
+
+    /** 每条广播消息最多包含的失效通知个数 */
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final RemoteCacheStore store;
+
+    private final LocalCacheEngine<VersionedValue> localCache;
+
+    /** key -> 最低有效版本，缓存时间与本地缓存一致 */
+    private final LocalCacheEngine<Long> minVersions;
+
+    private final long localExpire;
+
+    private final long remoteExpireSeconds;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private final Queue<String> pendingInvalidations = new ConcurrentLinkedQueue<String>();
+
+    private ScheduledFuture<?> flushTask;
+
+    /**
+     * @param store 远程缓存
+     * @param maxLocalCount 本地最大缓存个数
+     * @param localExpire 本地缓存时间,单位毫秒
+     * @param remoteExpireSeconds Redis过期时间(秒)，小于等于0表示不过期
+     */
+    public NearCache(RemoteCacheStore store, long maxLocalCount, long localExpire, long remoteExpireSeconds) {
+        this.store = store;
+        this.localCache = new LocalCacheEngine<VersionedValue>(maxLocalCount);
+        this.minVersions = new LocalCacheEngine<Long>(maxLocalCount);
+        this.localExpire = localExpire;
+        this.remoteExpireSeconds = remoteExpireSeconds;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * 订阅失效通知，并启动失效通知的批量发送任务
+     */
+    public synchronized void start() {
+        start(DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * 订阅失效通知，并启动失效通知的批量发送任务
+     *
+     * @param flushInterval 失效通知发送间隔,单位毫秒
+     */
+    public synchronized void start(long flushInterval) {
+        if (flushTask != null) {
+            return;
+        }
+        store.subscribe(INVALIDATE_CHANNEL, new RemoteCacheStore.MessageListener() {
+            @Override
+            public void onMessage(String message) {
+                handleInvalidation(message);
+            }
+        });
+        flushTask = CacheScheduler.scheduleWithFixedDelay("publish near cache invalidation", new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, flushInterval);
+    }
+
+    /**
+     * 停止发送失效通知（停止前会把队列中的通知发送完）
+     */
+    public synchronized void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        flush();
+        localCache.shutdown();
+        minVersions.shutdown();
+    }
+
+    /**
+     * 获取key
+     *
+     * @param key
+     * @return 不存在时返回null
+     */
+    public String get(String key) {
+        LocalCacheObj<VersionedValue> local = localCache.get(key);
+        if (local != null) {
+            return local.getT().value;
+        }
+        // 值和版本号一次读出
+        List<String> remote = store.multiGet(key, versionKeyOf(key));
+        String value = remote.get(0);
+        if (value == null) {
+            return null;
+        }
+        putLocal(key, new VersionedValue(parseVersion(remote.get(1)), value));
+        return value;
+    }
+
+    /**
+     * 保存键值对：写Redis、更新本地，并通知其他节点失效。<br>
+     * Redis中已有更新的版本时(并发写入中本次写入落后)，本次写入被丢弃，只清理本地更旧的值
+     *
+     * @param key
+     * @param value
+     * @return 是否写入
+     */
+    public boolean set(String key, String value) {
+        VersionedValue versioned = new VersionedValue(store.increment(VERSION_KEY), value);
+        if (!store.setIfNewer(key, versionKeyOf(key), value, versioned.version, remoteExpireSeconds)) {
+            LOG.debug("near cache set superseded by newer version >>> key:{} version:{}", key, versioned.version);
+            invalidate(key, versioned.version);
+            return false;
+        }
+        putLocal(key, versioned);
+        pendingInvalidations.offer(versioned.version + ":" + key);
+        return true;
+    }
+
+    /**
+     * 删除key：删Redis、删本地，并通知其他节点失效。Redis中已有更新的版本时不删除
+     *
+     * @param key
+     * @return 是否删除
+     */
+    public boolean delete(String key) {
+        long version = store.increment(VERSION_KEY);
+        boolean deleted = store.deleteIfNewer(key, versionKeyOf(key), version, DELETE_TOMBSTONE_SECONDS);
+        invalidate(key, version);
+        if (deleted) {
+            pendingInvalidations.offer(version + ":" + key);
+        }
+        return deleted;
+    }
+
+    /**
+     * 保存key版本号的key：key中没有hash tag时用key本身作为hash tag，保证Redis集群下两个key在同一个slot
+     *
+     * @param key
+     * @return
+     */
+    public static String versionKeyOf(String key) {
+        if (key.indexOf('{') >= 0) {
+            return key + VERSION_KEY_SUFFIX;
+        }
+        return "{" + key + "}" + VERSION_KEY_SUFFIX;
+    }
+
+    /**
+     * 只删除本地缓存
+     *
+     * @param key
+     */
+    public void evictLocal(String key) {
+        localCache.remove(key);
+    }
+
+    /**
+     * 立即发送队列中的失效通知
+     */
+    public void flush() {
+        StringBuilder message = new StringBuilder();
+        int count = 0;
+        String item;
+        while ((item = pendingInvalidations.poll()) != null) {
+            if (count > 0) {
+                message.append('\n');
+            }
+            message.append(item);
+            if (++count >= MAX_BATCH_SIZE) {
+                store.publish(INVALIDATE_CHANNEL, message.toString());
+                message.setLength(0);
+                count = 0;
+            }
+        }
+        if (count > 0) {
+            store.publish(INVALIDATE_CHANNEL, message.toString());
+        }
+    }
+
+    /**
+     * 处理失效通知，每行格式为 version:key
+     */
+    void handleInvalidation(String message) {
+        if (message == null) {
+            return;
+        }
+        for (String line : message.split("\n")) {
+            int index = line.indexOf(':');
+            if (index <= 0) {
+                continue;
+            }
+            try {
+                invalidate(line.substring(index + 1), Long.parseLong(line.substring(0, index)));
+            } catch (NumberFormatException e) {
+                LOG.warn("illegal near cache invalidation:{}", line);
+            }
+        }
+    }
+
+    /**
+     * 版本不低于本地已知的最低有效版本，且比本地当前值新时才放入本地
+     */
+    private void putLocal(String key, VersionedValue versioned) {
+        synchronized (lockFor(key)) {
+            LocalCacheObj<Long> minVersion = minVersions.get(key);
+            if (minVersion != null && versioned.version < minVersion.getT()) {
+                return;
+            }
+            LocalCacheObj<VersionedValue> current = localCache.get(key);
+            if (current != null && current.getT().version > versioned.version) {
+                return;
+            }
+            localCache.put(key, versioned, localExpire);
+        }
+    }
+
+    /**
+     * 删除本地低于该版本的值，并记住该key的最低有效版本
+     */
+    private void invalidate(String key, long version) {
+        synchronized (lockFor(key)) {
+            LocalCacheObj<Long> minVersion = minVersions.get(key);
+            if (minVersion == null || minVersion.getT() < version) {
+                minVersions.put(key, version, localExpire);
+            }
+            LocalCacheObj<VersionedValue> current = localCache.get(key);
+            if (current != null && current.getT().version < version) {
+                localCache.remove(key);
+            }
+        }
+    }
+
+    private Object lockFor(String key) {
+        return locks[(key.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+    }
+
+    /**
+     * 没有版本号的值(不是由NearCache写入的)按版本0处理
+     */
+    private static long parseVersion(String version) {
+        if (version == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(version);
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * 带版本号的本地缓存值
+     */
+    static final class VersionedValue {
+
+        final long version;
+
+        final String value;
+
+        VersionedValue(long version, String value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+}
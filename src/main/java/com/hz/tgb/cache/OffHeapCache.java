@@ -0,0 +1,487 @@
+package com.hz.tgb.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 堆外缓存：缓存对象序列化后写入直接内存（DirectByteBuffer），不占用堆空间，百万级条目也不会加重GC负担。<br>
+ * 1.按key的hash分段，每段一把锁，每段由若干个固定大小的slab组成，写入时在当前slab内顺序追加<br>
+ * 2.当前slab写满后切换到下一个slab，所有slab都用过后回收最早写入的slab（按写入顺序FIFO淘汰）<br>
+ * 3.索引为开放寻址的long[]/int[]数组，只保存hash和记录地址，不产生额外的小对象<br>
+ * 记录格式：[int hash][int keyLen][int valueLen][long expireTime][key bytes][value bytes]
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午2:20:16
+ */
+public class OffHeapCache<V> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OffHeapCache.class);
+
+    /** 默认的分段数 */
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /** 默认的slab大小[4M] */
+    public static final int DEFAULT_SLAB_SIZE = 4 * 1024 * 1024;
+
+    /** 按容量推算时，先把slab缩小到该大小，再减少分段数 */
+    private static final int PREFERRED_MIN_SLAB_SIZE = 256 * 1024;
+
+    /** 按容量推算时slab的最小值 */
+    private static final int MIN_SLAB_SIZE = 4 * 1024;
+
+    /** 记录头长度 */
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 8;
+
+    private final Segment[] segments;
+
+    private final int segmentMask;
+
+    private final CacheSerializer<V> serializer;
+
+    /**
+     * 分段数和slab大小按容量推算：容量足够时为16段、4M的slab；容量较小时先缩小slab，再减少分段数，
+     * 保证 分段数 × 2 × slab大小 不超过容量(容量小于8K时按8K分配)
+     *
+     * @param capacityBytes 最大占用的直接内存,单位字节
+     * @param serializer 序列化器
+     */
+    public OffHeapCache(long capacityBytes, CacheSerializer<V> serializer) {
+        this(capacityBytes, concurrencyLevelFor(capacityBytes), slabSizeFor(capacityBytes), serializer);
+    }
+
+    /**
+     * 每段至少两个slab，因此实际最多占用 max(capacityBytes, 分段数 × 2 × slabSize)
+     *
+     * @param capacityBytes 最大占用的直接内存,单位字节
+     * @param concurrencyLevel 分段数，会向上取整为2的幂
+     * @param slabSize 每个slab的大小,单位字节，也是单条记录的最大长度
+     * @param serializer 序列化器
+     */
+    public OffHeapCache(long capacityBytes, int concurrencyLevel, int slabSize, CacheSerializer<V> serializer) {
+        if (capacityBytes <= 0 || concurrencyLevel <= 0 || slabSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("capacityBytes, concurrencyLevel and slabSize must be positive");
+        }
+        if (serializer == null) {
+            throw new IllegalArgumentException("serializer must not be null");
+        }
+        int segmentCount = 1;
+        while (segmentCount < concurrencyLevel) {
+            segmentCount <<= 1;
+        }
+        // 每段至少两个slab，才能在回收一个slab时保留另一个
+        int slabsPerSegment = (int) Math.max(2, capacityBytes / segmentCount / slabSize);
+        this.segmentMask = segmentCount - 1;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(slabsPerSegment, slabSize);
+        }
+        this.serializer = serializer;
+    }
+
+    /**
+     * 插入缓存，key已存在时覆盖
+     *
+     * @param key
+     * @param value
+     * @param expireMillis 缓存时间,单位毫秒
+     * @return 记录超过slab大小时不缓存，返回false
+     */
+    public boolean put(String key, V value, long expireMillis) {
+        return putExpireAt(key, value, System.currentTimeMillis() + expireMillis);
+    }
+
+    /**
+     * 插入缓存，key已存在时覆盖
+     *
+     * @param key
+     * @param value
+     * @param expireTime 过期时间点,单位毫秒
+     * @return 记录超过slab大小时不缓存，返回false
+     */
+    public boolean putExpireAt(String key, V value, long expireTime) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = serializer.serialize(value);
+        int hash = hash(key);
+        boolean success = segmentFor(hash).put(hash, keyBytes, valueBytes, expireTime);
+        if (!success) {
+            LOG.debug("cache record too large, skip off-heap >>> key:{} size:{}", key, valueBytes.length);
+        }
+        return success;
+    }
+
+    /**
+     * 查询缓存，已过期的条目会被删除并返回null
+     *
+     * @param key
+     * @return
+     */
+    public LocalCacheObj<V> get(String key) {
+        int hash = hash(key);
+        Segment segment = segmentFor(hash);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long[] expireTime = new long[1];
+        byte[] valueBytes = segment.get(hash, keyBytes, System.currentTimeMillis(), expireTime);
+        if (valueBytes == null) {
+            return null;
+        }
+        // 反序列化在锁外进行
+        return new LocalCacheObj<V>(serializer.deserialize(valueBytes), expireTime[0]);
+    }
+
+    /**
+     * 删除缓存
+     *
+     * @param key
+     * @return 存在并被删除时返回true
+     */
+    public boolean remove(String key) {
+        int hash = hash(key);
+        return segmentFor(hash).remove(hash, key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 当前缓存个数（包含尚未被清理的过期条目）
+     *
+     * @return
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * 已分配的直接内存,单位字节
+     *
+     * @return
+     */
+    public long allocatedBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.allocatedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * 清空缓存（已分配的直接内存保留复用）
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * 按容量推算的slab大小
+     */
+    private static int slabSizeFor(long capacityBytes) {
+        return layoutFor(capacityBytes)[1];
+    }
+
+    /**
+     * 按容量推算的分段数
+     */
+    private static int concurrencyLevelFor(long capacityBytes) {
+        return layoutFor(capacityBytes)[0];
+    }
+
+    /**
+     * @return [分段数, slab大小]
+     */
+    private static int[] layoutFor(long capacityBytes) {
+        int segmentCount = DEFAULT_CONCURRENCY_LEVEL;
+        int slabSize = DEFAULT_SLAB_SIZE;
+        while (slabSize > PREFERRED_MIN_SLAB_SIZE && 2L * segmentCount * slabSize > capacityBytes) {
+            slabSize >>= 1;
+        }
+        while (segmentCount > 1 && 2L * segmentCount * slabSize > capacityBytes) {
+            segmentCount >>= 1;
+        }
+        while (slabSize > MIN_SLAB_SIZE && 2L * segmentCount * slabSize > capacityBytes) {
+            slabSize >>= 1;
+        }
+        return new int[] {segmentCount, slabSize};
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[(hash >>> 16) & segmentMask];
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 缓存段：若干slab + 开放寻址索引
+     */
+    private static final class Segment extends ReentrantLock {
+
+        private static final long serialVersionUID = -6407185961349036124L;
+
+        /** 空槽 */
+        private static final long EMPTY = 0L;
+
+        /** 已删除的槽 */
+        private static final long TOMBSTONE = -1L;
+
+        private final ByteBuffer[] slabs;
+
+        /** 每个slab已写入的字节数 */
+        private final int[] slabUsed;
+
+        private final int slabSize;
+
+        private int currentSlab;
+
+        /** 索引：记录地址（(slab + 1) << 32 | offset），0为空槽，-1为已删除 */
+        private long[] addresses;
+
+        private int[] hashes;
+
+        /** 非空槽个数（含已删除） */
+        private int occupied;
+
+        private int size;
+
+        Segment(int slabCount, int slabSize) {
+            this.slabs = new ByteBuffer[slabCount];
+            this.slabUsed = new int[slabCount];
+            this.slabSize = slabSize;
+            this.addresses = new long[64];
+            this.hashes = new int[64];
+        }
+
+        boolean put(int hash, byte[] keyBytes, byte[] valueBytes, long expireTime) {
+            int recordSize = HEADER_SIZE + keyBytes.length + valueBytes.length;
+            if (recordSize > slabSize) {
+                return false;
+            }
+            lock();
+            try {
+                long address = allocate(recordSize);
+                ByteBuffer slab = slabs[slabOf(address)];
+                int offset = offsetOf(address);
+                slab.putInt(offset, hash);
+                slab.putInt(offset + 4, keyBytes.length);
+                slab.putInt(offset + 8, valueBytes.length);
+                slab.putLong(offset + 12, expireTime);
+                ByteBuffer dup = slab.duplicate();
+                dup.position(offset + HEADER_SIZE);
+                dup.put(keyBytes);
+                dup.put(valueBytes);
+
+                int index = find(hash, keyBytes);
+                if (index >= 0) {
+                    addresses[index] = address;
+                } else {
+                    insert(hash, address);
+                }
+                return true;
+            } finally {
+                unlock();
+            }
+        }
+
+        byte[] get(int hash, byte[] keyBytes, long now, long[] expireTime) {
+            lock();
+            try {
+                int index = find(hash, keyBytes);
+                if (index < 0) {
+                    return null;
+                }
+                long address = addresses[index];
+                ByteBuffer slab = slabs[slabOf(address)];
+                int offset = offsetOf(address);
+                long expire = slab.getLong(offset + 12);
+                if (now > expire) {
+                    delete(index);
+                    return null;
+                }
+                byte[] valueBytes = new byte[slab.getInt(offset + 8)];
+                ByteBuffer dup = slab.duplicate();
+                dup.position(offset + HEADER_SIZE + slab.getInt(offset + 4));
+                dup.get(valueBytes);
+                expireTime[0] = expire;
+                return valueBytes;
+            } finally {
+                unlock();
+            }
+        }
+
+        boolean remove(int hash, byte[] keyBytes) {
+            lock();
+            try {
+                int index = find(hash, keyBytes);
+                if (index < 0) {
+                    return false;
+                }
+                delete(index);
+                return true;
+            } finally {
+                unlock();
+            }
+        }
+
+        int size() {
+            lock();
+            try {
+                return size;
+            } finally {
+                unlock();
+            }
+        }
+
+        long allocatedBytes() {
+            lock();
+            try {
+                long bytes = 0;
+                for (ByteBuffer slab : slabs) {
+                    if (slab != null) {
+                        bytes += slab.capacity();
+                    }
+                }
+                return bytes;
+            } finally {
+                unlock();
+            }
+        }
+
+        void clear() {
+            lock();
+            try {
+                for (int i = 0; i < slabUsed.length; i++) {
+                    slabUsed[i] = 0;
+                }
+                currentSlab = 0;
+                addresses = new long[64];
+                hashes = new int[64];
+                occupied = 0;
+                size = 0;
+            } finally {
+                unlock();
+            }
+        }
+
+        /**
+         * 在当前slab中分配空间，当前slab已满时切换到下一个slab，并淘汰其中的旧记录
+         */
+        private long allocate(int recordSize) {
+            if (slabUsed[currentSlab] + recordSize > slabSize) {
+                currentSlab = (currentSlab + 1) % slabs.length;
+                evictSlab(currentSlab);
+            }
+            if (slabs[currentSlab] == null) {
+                slabs[currentSlab] = ByteBuffer.allocateDirect(slabSize);
+            }
+            int offset = slabUsed[currentSlab];
+            slabUsed[currentSlab] += recordSize;
+            return ((long) (currentSlab + 1) << 32) | offset;
+        }
+
+        /**
+         * 回收slab：逐条检查其中的记录，仍被索引引用的从索引中删除
+         */
+        private void evictSlab(int slabIndex) {
+            ByteBuffer slab = slabs[slabIndex];
+            int used = slabUsed[slabIndex];
+            int offset = 0;
+            while (offset < used) {
+                long address = ((long) (slabIndex + 1) << 32) | offset;
+                int hash = slab.getInt(offset);
+                int recordSize = HEADER_SIZE + slab.getInt(offset + 4) + slab.getInt(offset + 8);
+                int mask = addresses.length - 1;
+                for (int i = hash & mask; addresses[i] != EMPTY; i = (i + 1) & mask) {
+                    if (addresses[i] == address) {
+                        delete(i);
+                        break;
+                    }
+                }
+                offset += recordSize;
+            }
+            slabUsed[slabIndex] = 0;
+        }
+
+        private int find(int hash, byte[] keyBytes) {
+            int mask = addresses.length - 1;
+            for (int i = hash & mask; addresses[i] != EMPTY; i = (i + 1) & mask) {
+                if (addresses[i] != TOMBSTONE && hashes[i] == hash && keyEquals(addresses[i], keyBytes)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private boolean keyEquals(long address, byte[] keyBytes) {
+            ByteBuffer slab = slabs[slabOf(address)];
+            int offset = offsetOf(address);
+            if (slab.getInt(offset + 4) != keyBytes.length) {
+                return false;
+            }
+            int keyOffset = offset + HEADER_SIZE;
+            for (int i = 0; i < keyBytes.length; i++) {
+                if (slab.get(keyOffset + i) != keyBytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void insert(int hash, long address) {
+            if (occupied + 1 > addresses.length * 3 / 4) {
+                // 有效条目过多时扩容，否则原大小重建以清理已删除的槽
+                rehash(size + 1 > addresses.length / 2 ? addresses.length << 1 : addresses.length);
+            }
+            int mask = addresses.length - 1;
+            int i = hash & mask;
+            while (addresses[i] != EMPTY && addresses[i] != TOMBSTONE) {
+                i = (i + 1) & mask;
+            }
+            if (addresses[i] == EMPTY) {
+                occupied++;
+            }
+            addresses[i] = address;
+            hashes[i] = hash;
+            size++;
+        }
+
+        private void delete(int index) {
+            addresses[index] = TOMBSTONE;
+            size--;
+        }
+
+        private void rehash(int capacity) {
+            long[] oldAddresses = addresses;
+            int[] oldHashes = hashes;
+            addresses = new long[capacity];
+            hashes = new int[capacity];
+            int mask = capacity - 1;
+            for (int j = 0; j < oldAddresses.length; j++) {
+                if (oldAddresses[j] != EMPTY && oldAddresses[j] != TOMBSTONE) {
+                    int i = oldHashes[j] & mask;
+                    while (addresses[i] != EMPTY) {
+                        i = (i + 1) & mask;
+                    }
+                    addresses[i] = oldAddresses[j];
+                    hashes[i] = oldHashes[j];
+                }
+            }
+            occupied = size;
+        }
+
+        private static int slabOf(long address) {
+            return (int) (address >>> 32) - 1;
+        }
+
+        private static int offsetOf(long address) {
+            return (int) address;
+        }
+    }
+}
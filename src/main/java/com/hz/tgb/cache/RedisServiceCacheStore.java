@@ -0,0 +1,86 @@
+package com.hz.tgb.cache;
+
+import com.hz.tgb.data.redis.RedisService;
+
+import java.util.List;
+
+/**
+ * 基于{@link RedisService}的远程缓存操作
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午4:52:37
+ */
+public class RedisServiceCacheStore implements RemoteCacheStore {
+
+    /** KEYS: 数据key、版本key；ARGV: 值、版本号、过期秒数 */
+    static final String SET_IF_NEWER_SCRIPT = "local current = redis.call('get', KEYS[2]) "
+            + "if current and tonumber(current) >= tonumber(ARGV[2]) then return 0 end "
+            + "if tonumber(ARGV[3]) > 0 then "
+            + "redis.call('set', KEYS[1], ARGV[1], 'EX', ARGV[3]) redis.call('set', KEYS[2], ARGV[2], 'EX', ARGV[3]) "
+            + "else redis.call('set', KEYS[1], ARGV[1]) redis.call('set', KEYS[2], ARGV[2]) end "
+            + "return 1";
+
+    /** KEYS: 数据key、版本key；ARGV: 版本号、墓碑过期秒数 */
+    static final String DELETE_IF_NEWER_SCRIPT = "local current = redis.call('get', KEYS[2]) "
+            + "if current and tonumber(current) >= tonumber(ARGV[1]) then return 0 end "
+            + "redis.call('del', KEYS[1]) redis.call('set', KEYS[2], ARGV[1], 'EX', ARGV[2]) "
+            + "return 1";
+
+    private final RedisService redisService;
+
+    public RedisServiceCacheStore(RedisService redisService) {
+        this.redisService = redisService;
+    }
+
+    @Override
+    public String get(String key) {
+        return redisService.get(key);
+    }
+
+    @Override
+    public void set(String key, String value, long seconds) {
+        redisService.save(key, value, seconds);
+    }
+
+    @Override
+    public void delete(String key) {
+        redisService.delete(key);
+    }
+
+    @Override
+    public List<String> multiGet(String... keys) {
+        return redisService.multiGet(keys);
+    }
+
+    @Override
+    public boolean setIfNewer(String key, String versionKey, String value, long version, long seconds) {
+        return redisService.eval(SET_IF_NEWER_SCRIPT, new String[] {key, versionKey}, value, String.valueOf(version),
+                String.valueOf(seconds)) == 1L;
+    }
+
+    @Override
+    public boolean deleteIfNewer(String key, String versionKey, long version, long tombstoneSeconds) {
+        return redisService.eval(DELETE_IF_NEWER_SCRIPT, new String[] {key, versionKey}, String.valueOf(version),
+                String.valueOf(tombstoneSeconds)) == 1L;
+    }
+
+    @Override
+    public long increment(String key) {
+        return redisService.increment(key, 1);
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        redisService.publish(channel, message);
+    }
+
+    @Override
+    public void subscribe(String channel, final MessageListener listener) {
+        redisService.subscribe(channel, new RedisService.MessageHandler() {
+            @Override
+            public void onMessage(String channel, String message) {
+                listener.onMessage(message);
+            }
+        });
+    }
+}
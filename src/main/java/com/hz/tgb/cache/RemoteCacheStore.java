@@ -0,0 +1,100 @@
+package com.hz.tgb.cache;
+
+import java.util.List;
+
+/**
+ * 近端缓存{@link NearCache}依赖的远程缓存操作，生产环境由Redis实现，测试时可以用内存实现替代
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午4:52:37
+ */
+public interface RemoteCacheStore {
+
+    /**
+     * 获取key
+     *
+     * @param key
+     * @return 不存在时返回null
+     */
+    String get(String key);
+
+    /**
+     * 保存键值对,如果存在的话，会被覆盖
+     *
+     * @param key
+     * @param value
+     * @param seconds 过期时间(秒)，小于等于0表示不过期
+     */
+    void set(String key, String value, long seconds);
+
+    /**
+     * 删除key
+     *
+     * @param key
+     */
+    void delete(String key);
+
+    /**
+     * 一次获取多个key
+     *
+     * @param keys
+     * @return 与keys一一对应，不存在的key为null
+     */
+    List<String> multiGet(String... keys);
+
+    /**
+     * 版本号高于versionKey中保存的版本(或versionKey不存在)时，原子地写入value和版本号，否则不写入
+     *
+     * @param key 数据key
+     * @param versionKey 保存版本号的key
+     * @param value
+     * @param version 本次写入的版本号
+     * @param seconds 过期时间(秒)，同时作用于两个key，小于等于0表示不过期
+     * @return 是否写入
+     */
+    boolean setIfNewer(String key, String versionKey, String value, long version, long seconds);
+
+    /**
+     * 版本号高于versionKey中保存的版本(或versionKey不存在)时，原子地删除key，并把版本号作为墓碑保留tombstoneSeconds秒，
+     * 阻止延迟到达的旧写入
+     *
+     * @param key 数据key
+     * @param versionKey 保存版本号的key
+     * @param version 本次删除的版本号
+     * @param tombstoneSeconds 墓碑的过期时间(秒)
+     * @return 是否删除
+     */
+    boolean deleteIfNewer(String key, String versionKey, long version, long tombstoneSeconds);
+
+    /**
+     * 自增计数器，key不存在时从0开始
+     *
+     * @param key
+     * @return 自增后的值
+     */
+    long increment(String key);
+
+    /**
+     * 发布消息
+     *
+     * @param channel
+     * @param message
+     */
+    void publish(String channel, String message);
+
+    /**
+     * 订阅频道，收到的消息回调给listener
+     *
+     * @param channel
+     * @param listener
+     */
+    void subscribe(String channel, MessageListener listener);
+
+    /**
+     * 消息监听器
+     */
+    interface MessageListener {
+
+        void onMessage(String message);
+    }
+}
@@ -0,0 +1,159 @@
+package com.hz.tgb.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存快照读取器。<br>
+ * 打开时通过内存映射只扫描一遍key和过期时间，为未过期的记录建立 key -> 记录位置 的索引；
+ * value在该key第一次被查询时才反序列化，每条记录只会被取出一次。
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午3:41:08
+ */
+class SnapshotReader<V> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SnapshotReader.class);
+
+    private final MappedByteBuffer buffer;
+
+    private final CacheSerializer<V> serializer;
+
+    /** key -> 记录起始位置 */
+    private final ConcurrentHashMap<String, Integer> offsets = new ConcurrentHashMap<String, Integer>();
+
+    private SnapshotReader(MappedByteBuffer buffer, CacheSerializer<V> serializer) {
+        this.buffer = buffer;
+        this.serializer = serializer;
+    }
+
+    /**
+     * 打开快照文件
+     *
+     * @param file
+     * @param serializer
+     * @return 文件格式不正确时抛出IOException
+     * @throws IOException
+     */
+    static <V> SnapshotReader<V> open(File file, CacheSerializer<V> serializer) throws IOException {
+        MappedByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("snapshot file too large: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        SnapshotReader<V> reader = new SnapshotReader<V>(buffer, serializer);
+        reader.index(System.currentTimeMillis());
+        return reader;
+    }
+
+    private void index(long now) throws IOException {
+        ByteBuffer buf = buffer.duplicate();
+        if (buf.remaining() < 8 || buf.getInt() != LocalCacheSnapshot.MAGIC || buf.getInt() != LocalCacheSnapshot.VERSION) {
+            throw new IOException("not a local cache snapshot");
+        }
+        int expired = 0;
+        try {
+            while (buf.hasRemaining()) {
+                int offset = buf.position();
+                long expireTime = buf.getLong();
+                byte[] keyBytes = new byte[buf.getInt()];
+                buf.get(keyBytes);
+                int valueLength = buf.getInt();
+                buf.position(buf.position() + valueLength);
+                if (now > expireTime) {
+                    expired++;
+                    continue;
+                }
+                offsets.put(new String(keyBytes, StandardCharsets.UTF_8), offset);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("local cache snapshot corrupted", e);
+        }
+        LOG.info("local cache snapshot indexed >>> entries:{} expired:{}", offsets.size(), expired);
+    }
+
+    /**
+     * 取出一个key的缓存，取出后从快照中移除
+     *
+     * @param key
+     * @param now
+     * @return 不存在、已过期或反序列化失败时返回null
+     */
+    LocalCacheObj<V> take(String key, long now) {
+        Integer offset = offsets.remove(key);
+        if (offset == null) {
+            return null;
+        }
+        // 记录格式：[long expireTime][int keyLen][key bytes][int valueLen][value bytes]
+        ByteBuffer buf = buffer.duplicate();
+        long expireTime = buf.getLong(offset);
+        if (now > expireTime) {
+            return null;
+        }
+        int valueOffset = offset + 8 + 4 + buf.getInt(offset + 8);
+        byte[] valueBytes = new byte[buf.getInt(valueOffset)];
+        buf.position(valueOffset + 4);
+        buf.get(valueBytes);
+        try {
+            return new LocalCacheObj<V>(serializer.deserialize(valueBytes), expireTime);
+        } catch (RuntimeException e) {
+            LOG.warn("restore from snapshot error, key:{}", key, e);
+            return null;
+        }
+    }
+
+    /**
+     * 把尚未取出的未过期记录原样写入新的快照
+     *
+     * @param out
+     * @param now
+     * @return 写入的记录个数
+     * @throws IOException
+     */
+    int writeRemaining(DataOutput out, long now) throws IOException {
+        ByteBuffer buf = buffer.duplicate();
+        int count = 0;
+        for (Integer offset : offsets.values()) {
+            if (now > buf.getLong(offset)) {
+                continue;
+            }
+            int valueOffset = offset + 8 + 4 + buf.getInt(offset + 8);
+            byte[] record = new byte[valueOffset + 4 + buf.getInt(valueOffset) - offset];
+            buf.position(offset);
+            buf.get(record);
+            out.write(record);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 丢弃一个key（已被重新写入或删除）
+     *
+     * @param key
+     */
+    void discard(String key) {
+        offsets.remove(key);
+    }
+
+    boolean isEmpty() {
+        return offsets.isEmpty();
+    }
+
+    int size() {
+        return offsets.size();
+    }
+}
@@ -0,0 +1,200 @@
+package com.hz.tgb.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 堆内+堆外两级本地缓存。<br>
+ * 写入只进入堆外层（并使堆内层的旧值失效），读取时先查堆内层，未命中再查堆外层，堆内层按LRU淘汰后仍可从堆外层读取。<br>
+ * 1.只有热点条目才提升到堆内层：每次堆外命中都记入一个近似计数表(两行count-min)，计数达到promoteHits后才反序列化放入堆内层，
+ *   计数表在累计命中数达到表大小的若干倍后整体减半，只反映最近的访问频率<br>
+ * 2.提升与写入/删除互斥：读取堆外值之后如果同一个key(所在的锁分段)被写入或删除过，放弃本次提升，旧值不会覆盖新值<br>
+ * 适合需要缓存百万级小对象、又不希望这些对象长期占用老年代的场景。
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午2:20:16
+ */
+public class TieredLocalCache<V> {
+
+    /** 默认的提升阈值：堆外命中两次后提升 */
+    public static final int DEFAULT_PROMOTE_HITS = 2;
+
+    /** 默认的计数表大小 */
+    private static final int DEFAULT_SKETCH_SIZE = 1 << 16;
+
+    private static final int MIN_SKETCH_SIZE = 1 << 10;
+
+    private static final int MAX_SKETCH_SIZE = 1 << 22;
+
+    /** 累计命中数达到计数表大小的该倍数后，所有计数减半 */
+    private static final int AGING_FACTOR = 8;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final LocalCacheEngine<V> heapTier;
+
+    private final OffHeapCache<V> offHeapTier;
+
+    private final int promoteHits;
+
+    /** 堆外命中次数的近似计数，两行 */
+    private final AtomicIntegerArray sketch;
+
+    private final int sketchMask;
+
+    private final AtomicInteger sketchSamples = new AtomicInteger();
+
+    private final int agingThreshold;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /** 每个锁分段的写入次数，用于判断读取堆外值之后是否有新的写入 */
+    private final AtomicLongArray stamps = new AtomicLongArray(LOCK_STRIPES);
+
+    /**
+     * @param heapMaxCount 堆内层最大缓存个数
+     * @param offHeapCapacityBytes 堆外层最大占用的直接内存,单位字节
+     * @param serializer 序列化器
+     */
+    public TieredLocalCache(long heapMaxCount, long offHeapCapacityBytes, CacheSerializer<V> serializer) {
+        this(new LocalCacheEngine<V>(heapMaxCount), new OffHeapCache<V>(offHeapCapacityBytes, serializer),
+                DEFAULT_PROMOTE_HITS, sketchSizeFor(heapMaxCount));
+    }
+
+    public TieredLocalCache(LocalCacheEngine<V> heapTier, OffHeapCache<V> offHeapTier) {
+        this(heapTier, offHeapTier, DEFAULT_PROMOTE_HITS, DEFAULT_SKETCH_SIZE);
+    }
+
+    /**
+     * @param heapTier 堆内层
+     * @param offHeapTier 堆外层
+     * @param promoteHits 堆外命中多少次后提升到堆内层，1表示每次命中都提升
+     * @param sketchSize 命中计数表大小，会向上取整为2的幂，一般取堆内层容量的2倍左右
+     */
+    public TieredLocalCache(LocalCacheEngine<V> heapTier, OffHeapCache<V> offHeapTier, int promoteHits, int sketchSize) {
+        if (promoteHits <= 0 || sketchSize <= 0) {
+            throw new IllegalArgumentException("promoteHits and sketchSize must be positive");
+        }
+        this.heapTier = heapTier;
+        this.offHeapTier = offHeapTier;
+        this.promoteHits = promoteHits;
+        int size = MIN_SKETCH_SIZE;
+        while (size < sketchSize && size < MAX_SKETCH_SIZE) {
+            size <<= 1;
+        }
+        this.sketch = new AtomicIntegerArray(size * 2);
+        this.sketchMask = size - 1;
+        this.agingThreshold = size * AGING_FACTOR;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * 插入缓存
+     *
+     * @param key
+     * @param value
+     * @param expireMillis 缓存时间,单位毫秒
+     */
+    public void put(String key, V value, long expireMillis) {
+        long expireTime = System.currentTimeMillis() + expireMillis;
+        int stripe = stripeOf(key);
+        synchronized (locks[stripe]) {
+            if (offHeapTier.putExpireAt(key, value, expireTime)) {
+                heapTier.remove(key);
+            } else {
+                // 超过slab大小的大对象只能留在堆内
+                offHeapTier.remove(key);
+                heapTier.putExpireAt(key, value, expireTime);
+            }
+            // 写完之后再增加，读到新stamp的线程一定能读到新值
+            stamps.incrementAndGet(stripe);
+        }
+    }
+
+    /**
+     * 查询缓存
+     *
+     * @param key
+     * @return 不存在或已过期时返回null
+     */
+    public LocalCacheObj<V> get(String key) {
+        LocalCacheObj<V> localCache = heapTier.get(key);
+        if (localCache != null) {
+            return localCache;
+        }
+        int stripe = stripeOf(key);
+        long stamp = stamps.get(stripe);
+        localCache = offHeapTier.get(key);
+        if (localCache != null && recordHit(key)) {
+            synchronized (locks[stripe]) {
+                // 读取之后有写入或删除时放弃提升，避免旧值覆盖新值
+                if (stamps.get(stripe) == stamp) {
+                    heapTier.putExpireAt(key, localCache.getT(), localCache.getExpireTime());
+                }
+            }
+        }
+        return localCache;
+    }
+
+    /**
+     * 删除缓存
+     *
+     * @param key
+     */
+    public void remove(String key) {
+        int stripe = stripeOf(key);
+        synchronized (locks[stripe]) {
+            offHeapTier.remove(key);
+            heapTier.remove(key);
+            stamps.incrementAndGet(stripe);
+        }
+    }
+
+    /**
+     * 停止堆内层的后台过期清理
+     */
+    public void shutdown() {
+        heapTier.shutdown();
+    }
+
+    public LocalCacheEngine<V> getHeapTier() {
+        return heapTier;
+    }
+
+    public OffHeapCache<V> getOffHeapTier() {
+        return offHeapTier;
+    }
+
+    /**
+     * 记录一次堆外命中
+     *
+     * @return 命中次数(近似值)达到提升阈值时返回true
+     */
+    private boolean recordHit(String key) {
+        if (promoteHits == 1) {
+            return true;
+        }
+        int h = key.hashCode();
+        int first = (h ^ (h >>> 16)) & sketchMask;
+        int second = ((h * 0x9E3779B9) >>> 16 ^ h) & sketchMask;
+        int count = Math.min(sketch.incrementAndGet(first), sketch.incrementAndGet(sketchMask + 1 + second));
+        if (sketchSamples.incrementAndGet() == agingThreshold) {
+            for (int i = 0; i < sketch.length(); i++) {
+                sketch.set(i, sketch.get(i) >>> 1);
+            }
+            sketchSamples.set(0);
+        }
+        return count >= promoteHits;
+    }
+
+    private static int stripeOf(String key) {
+        return (key.hashCode() & 0x7fffffff) % LOCK_STRIPES;
+    }
+
+    private static int sketchSizeFor(long heapMaxCount) {
+        return (int) Math.min(MAX_SKETCH_SIZE, Math.max(MIN_SKETCH_SIZE, heapMaxCount * 2));
+    }
+}
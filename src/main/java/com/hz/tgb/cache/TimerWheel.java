@@ -0,0 +1,90 @@
+package com.hz.tgb.cache;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * 缓存过期时间轮。<br>
+ * 按过期时间把节点放入对应的槽，后台线程每个刻度扫描一个槽：已过期的删除，未到期的（还需再转几圈）重新入槽，
+ * 已被覆盖或删除的节点直接丢弃。扫描任务在{@link CacheScheduler}的共享线程中执行，使用与缓存引擎相同的时钟。
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 上午10:12:30
+ */
+class TimerWheel<V> {
+
+    private final LocalCacheEngine<V> engine;
+
+    private final long tickMillis;
+
+    private final int mask;
+
+    private final Queue<LocalCacheEngine.Node<V>>[] slots;
+
+    private final ScheduledFuture<?> task;
+
+    /** 上一次扫描完成的刻度 */
+    private long lastTick;
+
+    @SuppressWarnings("unchecked")
+    TimerWheel(LocalCacheEngine<V> engine, long tickMillis, int wheelSize) {
+        this.engine = engine;
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.slots = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            slots[i] = new ConcurrentLinkedQueue<LocalCacheEngine.Node<V>>();
+        }
+        this.lastTick = engine.currentTimeMillis() / tickMillis - 1;
+        this.task = CacheScheduler.scheduleWithFixedDelay("local cache expire", new Runnable() {
+            @Override
+            public void run() {
+                advance(engine.currentTimeMillis());
+            }
+        }, tickMillis);
+    }
+
+    void schedule(LocalCacheEngine.Node<V> node) {
+        slots[slotOf(node.obj.getExpireTime())].offer(node);
+    }
+
+    void shutdown() {
+        task.cancel(false);
+    }
+
+    private int slotOf(long expireTime) {
+        return (int) ((expireTime / tickMillis) & mask);
+    }
+
+    /**
+     * 扫描上一次刻度之后、当前刻度之前（已完整走过）的所有槽，落后超过一圈时每个槽只扫一次
+     */
+    private void advance(long now) {
+        long doneTick = now / tickMillis - 1;
+        long from = Math.max(lastTick + 1, doneTick - mask);
+        for (long tick = from; tick <= doneTick; tick++) {
+            expireSlot(slots[(int) (tick & mask)], now);
+        }
+        lastTick = doneTick;
+    }
+
+    private void expireSlot(Queue<LocalCacheEngine.Node<V>> slot, long now) {
+        // 只处理扫描开始时已在槽中的节点，重新入槽的节点留到下一圈
+        int count = slot.size();
+        for (int i = 0; i < count; i++) {
+            LocalCacheEngine.Node<V> node = slot.poll();
+            if (node == null) {
+                break;
+            }
+            if (node.retired) {
+                continue;
+            }
+            if (now > node.obj.getExpireTime()) {
+                engine.expire(node);
+            } else {
+                slot.offer(node);
+            }
+        }
+    }
+}
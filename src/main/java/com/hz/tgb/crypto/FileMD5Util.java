@@ -7,29 +7,53 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.nio.MappedByteBuffer;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
-/** 文件MD5
+/** 文件MD5<br>
+ * 线程安全：每个线程持有自己的MessageDigest，读缓冲每次调用时分配(64KB)，可在多线程中同时计算<br>
+ * 1.getFileMD5String/getFileHash 顺序读取文件计算摘要，结果与md5sum/sha256sum一致<br>
+ * 2.getFileHashes 一次读取同时计算多种摘要(如MD5+SHA-256)<br>
+ * 3.getFileTreeHash 把文件按8MB分块并行计算摘要，再对各块摘要计算摘要，适合超大文件；结果与顺序摘要不同，只能与同样方式计算的结果比较
  * Created by jimin on 15/11/29.
  */
 public class FileMD5Util {
 
     private static final Logger log = LoggerFactory.getLogger(FileMD5Util.class);
 
-    protected static char hexDigits[] = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+    public static final String MD5 = "MD5";
 
-    protected static MessageDigest messageDigest = null;
+    public static final String SHA256 = "SHA-256";
 
-    static {
-        try {
-            messageDigest = MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException e) {
-            log.error("{} 初始化失败，MessageDigest不支持MD5!", FileMD5Util.class.getName(), e);
+    /** 树形摘要的分块大小 */
+    public static final int TREE_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    /** 读缓冲大小，每次调用时分配，不随线程常驻 */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    protected static char hexDigits[] = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+
+    /** 每个线程按算法缓存的MessageDigest，取出时重置 */
+    private static final ThreadLocal<Map<String, MessageDigest>> DIGESTS = new ThreadLocal<Map<String, MessageDigest>>() {
+        @Override
+        protected Map<String, MessageDigest> initialValue() {
+            return new HashMap<String, MessageDigest>();
         }
-    }
+    };
 
     public static String getFileMD5WithoutException(File file) {
         try {
@@ -41,35 +65,155 @@ public class FileMD5Util {
     }
 
     public static String getFileMD5String(File file) throws IOException {
-        FileInputStream in = new FileInputStream(file);
-        FileChannel ch = in.getChannel();
-
-        //700000000 bytes are about 670M
-        int maxSize = 700000000;
+        return getFileHash(file, MD5);
+    }
 
-        long startPosition = 0L;
-        long step = file.length() / maxSize;
+    /**
+     * 计算文件摘要
+     *
+     * @param file 文件
+     * @param algorithm 摘要算法，如MD5、SHA-1、SHA-256
+     * @return 16进制小写字符串
+     * @throws IOException
+     */
+    public static String getFileHash(File file, String algorithm) throws IOException {
+        return getFileHashes(file, algorithm).get(algorithm);
+    }
 
-        if (step == 0) {
-            MappedByteBuffer byteBuffer = ch.map(FileChannel.MapMode.READ_ONLY, 0, file.length());
-            messageDigest.update(byteBuffer);
-            return bufferToHex(messageDigest.digest());
+    /**
+     * 一次读取文件同时计算多种摘要
+     *
+     * @param file 文件
+     * @param algorithms 摘要算法，如MD5、SHA-256，重复的算法只计算一次
+     * @return 算法 -> 16进制小写字符串，顺序与参数一致
+     * @throws IOException
+     */
+    public static Map<String, String> getFileHashes(File file, String... algorithms) throws IOException {
+        // 同一个算法在当前线程只有一个MessageDigest，重复时不能各自update
+        Map<String, MessageDigest> digests = new LinkedHashMap<String, MessageDigest>();
+        for (String algorithm : algorithms) {
+            if (!digests.containsKey(algorithm)) {
+                digests.put(algorithm, getDigest(algorithm));
+            }
         }
-
-        for (int i = 0; i < step; i++) {
-            MappedByteBuffer byteBuffer = ch.map(FileChannel.MapMode.READ_ONLY, startPosition, maxSize);
-            messageDigest.update(byteBuffer);
-            startPosition += maxSize;
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel ch = in.getChannel();
+            while (ch.read(buffer) != -1) {
+                buffer.flip();
+                for (MessageDigest digest : digests.values()) {
+                    digest.update(buffer.array(), 0, buffer.limit());
+                }
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            for (MessageDigest digest : digests.values()) {
+                digest.reset();
+            }
+            throw e;
+        } finally {
+            in.close();
         }
+        Map<String, String> hashes = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, MessageDigest> digest : digests.entrySet()) {
+            hashes.put(digest.getKey(), bufferToHex(digest.getValue().digest()));
+        }
+        return hashes;
+    }
+
+    /**
+     * 并行计算文件的树形摘要，线程数为CPU核数
+     *
+     * @see #getFileTreeHash(File, String, int)
+     */
+    public static String getFileTreeHash(File file, String algorithm) throws IOException {
+        return getFileTreeHash(file, algorithm, Runtime.getRuntime().availableProcessors());
+    }
 
-        if (startPosition == file.length()) {
-            return bufferToHex(messageDigest.digest());
+    /**
+     * 并行计算文件的树形摘要：文件按8MB分块，各块由线程池并行读取并计算摘要，
+     * 再按顺序对所有块摘要拼接后的字节计算摘要。文件不超过一块时只有一层，结果等于顺序摘要
+     *
+     * @param file 文件
+     * @param algorithm 摘要算法
+     * @param threads 线程数，每块按64KB分段读取，不占用整块大小的缓冲
+     * @return 16进制小写字符串
+     * @throws IOException
+     */
+    public static String getFileTreeHash(File file, final String algorithm, int threads) throws IOException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be greater than 0");
+        }
+        getDigest(algorithm);
+        final long length = file.length();
+        if (length <= TREE_CHUNK_SIZE) {
+            return getFileHash(file, algorithm);
         }
 
-        MappedByteBuffer byteBuffer = ch.map(FileChannel.MapMode.READ_ONLY, startPosition, file.length() - startPosition);
-        messageDigest.update(byteBuffer);
+        final FileInputStream in = new FileInputStream(file);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger index = new AtomicInteger();
 
-        return bufferToHex(messageDigest.digest());
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "file-hash-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            final FileChannel ch = in.getChannel();
+            List<Future<byte[]>> chunks = new ArrayList<Future<byte[]>>();
+            for (long position = 0; position < length; position += TREE_CHUNK_SIZE) {
+                final long start = position;
+                chunks.add(executor.submit(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws IOException {
+                        return hashChunk(ch, algorithm, start, (int) Math.min(TREE_CHUNK_SIZE, length - start));
+                    }
+                }));
+            }
+            MessageDigest root = getDigest(algorithm);
+            try {
+                for (Future<byte[]> chunk : chunks) {
+                    root.update(chunk.get());
+                }
+            } catch (ExecutionException e) {
+                root.reset();
+                Throwable cause = e.getCause();
+                throw cause instanceof IOException ? (IOException) cause : new IOException("计算文件摘要失败：" + file, cause);
+            } catch (InterruptedException e) {
+                root.reset();
+                Thread.currentThread().interrupt();
+                throw new IOException("计算文件摘要被中断：" + file, e);
+            }
+            return bufferToHex(root.digest());
+        } finally {
+            executor.shutdownNow();
+            in.close();
+        }
+    }
+
+    /**
+     * 按位置分段读取(pread)一块并计算摘要，多个线程共享同一个FileChannel
+     */
+    private static byte[] hashChunk(FileChannel ch, String algorithm, long position, int size) throws IOException {
+        MessageDigest digest = getDigest(algorithm);
+        ByteBuffer buffer = ByteBuffer.allocate(Math.min(BUFFER_SIZE, size));
+        long end = position + size;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int read = ch.read(buffer, position);
+            if (read == -1) {
+                digest.reset();
+                throw new IOException("文件在计算摘要时被截断");
+            }
+            digest.update(buffer.array(), 0, read);
+            position += read;
+        }
+        return digest.digest();
     }
 
     public static String getMD5String(String s) {
@@ -77,10 +221,30 @@ public class FileMD5Util {
     }
 
     public static String getMD5String(byte[] bytes) {
+        MessageDigest messageDigest = getDigest(MD5);
         messageDigest.update(bytes);
         return bufferToHex(messageDigest.digest());
     }
 
+    /**
+     * 当前线程的MessageDigest，已重置(上一次使用异常中断时可能残留未完成的数据)
+     */
+    private static MessageDigest getDigest(String algorithm) {
+        Map<String, MessageDigest> digests = DIGESTS.get();
+        MessageDigest digest = digests.get(algorithm);
+        if (digest == null) {
+            try {
+                digest = MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalArgumentException("MessageDigest不支持" + algorithm, e);
+            }
+            digests.put(algorithm, digest);
+        } else {
+            digest.reset();
+        }
+        return digest;
+    }
+
     private static String bufferToHex(byte bytes[]) {
         return bufferToHex(bytes, 0, bytes.length);
     }
@@ -106,4 +270,4 @@ public class FileMD5Util {
         return s.equals(md5PwdStr);
     }
 
-}
\ No newline at end of file
+}
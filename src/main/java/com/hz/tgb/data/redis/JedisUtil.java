@@ -1,6 +1,7 @@
 package com.hz.tgb.data.redis;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -11,6 +12,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.JedisShardInfo;
 import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
 import redis.clients.jedis.ShardedJedis;
@@ -898,6 +901,151 @@ public class JedisUtil {
         return 0;
     }
 
+    /**
+     * 一次获取多个key，所有key在同一个分片时用一次MGET，否则逐个GET
+     *
+     * @param keys
+     * @return 与keys一一对应，不存在的key为null；出错时返回null
+     */
+    public List<String> multiGet(String... keys) {
+        ShardedJedis shardedJedis = null;
+        try {
+            shardedJedis = shardedJedisPool.getResource();
+            if (sameShard(shardedJedis, keys)) {
+                return shardedJedis.getShard(keys[0]).mget(keys);
+            }
+            List<String> values = new ArrayList<String>(keys.length);
+            for (String key : keys) {
+                values.add(shardedJedis.get(key));
+            }
+            return values;
+        } catch (Exception ex) {
+            logger.error("multiGet error.", ex);
+            returnBrokenResource(shardedJedis);
+        } finally {
+            returnResource(shardedJedis);
+        }
+        return null;
+    }
+
+    /**
+     * 执行返回整数的Lua脚本。<br>
+     * 脚本在keys[0]所在的分片上执行，所有key必须在同一个分片：多分片时连接池需要配置key tag
+     * (如{@link redis.clients.util.Sharded#DEFAULT_KEY_TAG_PATTERN})，并让这些key使用相同的{tag}
+     *
+     * @param script 脚本
+     * @param keys KEYS
+     * @param args ARGV
+     * @return 脚本的返回值，返回nil或出错时为0
+     * @throws IllegalArgumentException keys不在同一个分片
+     */
+    public long eval(String script, String[] keys, String... args) {
+        ShardedJedis shardedJedis = null;
+        try {
+            shardedJedis = shardedJedisPool.getResource();
+            if (!sameShard(shardedJedis, keys)) {
+                throw new IllegalArgumentException("keys must be in the same shard: " + Arrays.toString(keys));
+            }
+            Object result = shardedJedis.getShard(keys[0]).eval(script, Arrays.asList(keys), Arrays.asList(args));
+            return result instanceof Long ? (Long) result : 0L;
+        } catch (IllegalArgumentException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            logger.error("eval error[keys=" + Arrays.toString(keys) + "]" + ex.getMessage(), ex);
+            returnBrokenResource(shardedJedis);
+        } finally {
+            returnResource(shardedJedis);
+        }
+        return 0;
+    }
+
+    /**
+     * 发布消息，发布到channel所在的分片
+     *
+     * @param channel
+     * @param message
+     */
+    public void publish(String channel, String message) {
+        ShardedJedis shardedJedis = null;
+        try {
+            shardedJedis = shardedJedisPool.getResource();
+            shardedJedis.getShard(channel).publish(channel, message);
+        } catch (Exception ex) {
+            logger.error("publish error[channel=" + channel + "]" + ex.getMessage(), ex);
+            returnBrokenResource(shardedJedis);
+        } finally {
+            returnResource(shardedJedis);
+        }
+    }
+
+    /**
+     * 订阅频道<br>
+     * 订阅会独占一个连接并阻塞，这里在守护线程中向channel所在的分片(与publish相同)单独建立连接，
+     * 不占用连接池；连接断开时记录日志并在1秒后重新订阅
+     *
+     * @param channel
+     * @param handler
+     */
+    public void subscribe(final String channel, final MessageHandler handler) {
+        Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Jedis jedis = null;
+                    try {
+                        JedisShardInfo shardInfo;
+                        ShardedJedis shardedJedis = shardedJedisPool.getResource();
+                        try {
+                            shardInfo = shardedJedis.getShardInfo(channel);
+                        } finally {
+                            returnResource(shardedJedis);
+                        }
+                        jedis = new Jedis(shardInfo);
+                        jedis.subscribe(new JedisPubSub() {
+
+                            @Override
+                            public void onMessage(String channel, String message) {
+                                handler.onMessage(channel, message);
+                            }
+                        }, channel);
+                    } catch (Exception ex) {
+                        logger.error("subscribe channel:" + channel + " error, retry later.", ex);
+                    } finally {
+                        if (jedis != null) {
+                            jedis.close();
+                        }
+                    }
+                    try {
+                        Thread.sleep(1000L);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }, "jedis-subscriber-" + channel);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static boolean sameShard(ShardedJedis shardedJedis, String... keys) {
+        JedisShardInfo first = shardedJedis.getShardInfo(keys[0]);
+        for (int i = 1; i < keys.length; i++) {
+            if (shardedJedis.getShardInfo(keys[i]) != first) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 订阅消息处理器
+     */
+    public interface MessageHandler {
+
+        void onMessage(String channel, String message);
+    }
+
     private void returnBrokenResource(ShardedJedis shardedJedis) {
         try {
             shardedJedisPool.returnBrokenResource(shardedJedis);
@@ -1,13 +1,21 @@
 package com.hz.tgb.data.redis;
 
 import com.alibaba.fastjson.JSON;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -18,6 +26,14 @@ import java.util.List;
 @Service
 public class RedisService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(RedisService.class);
+
+    private static final String EXPIRE_IF_VALUE_SCRIPT = "if redis.call('get', KEYS[1]) == ARGV[1] then "
+            + "return redis.call('expire', KEYS[1], ARGV[2]) else return 0 end";
+
+    private static final String DELETE_IF_VALUE_SCRIPT = "if redis.call('get', KEYS[1]) == ARGV[1] then "
+            + "return redis.call('del', KEYS[1]) else return 0 end";
+
     @Autowired
     private RedisTemplate<String, String> redisTemplate;
 
@@ -115,6 +131,82 @@ public class RedisService {
         return result;
     }
 
+    /**
+     * 如果不存在则保存，并设置过期时间(SET key value NX EX seconds，原子操作)
+     * 
+     * @param key
+     * @param value
+     * @param seconds 过期时间(秒)
+     * @return
+     */
+    public boolean saveNX(final String key, final String value, final long seconds) {
+        Boolean result = redisTemplate.execute(new RedisCallback<Boolean>() {
+
+            @Override
+            public Boolean doInRedis(RedisConnection connection) throws DataAccessException {
+                byte[] keyByte = redisTemplate.getStringSerializer().serialize(key);
+                byte[] valueByte = redisTemplate.getStringSerializer().serialize(value);
+                return connection.set(keyByte, valueByte, Expiration.seconds(seconds),
+                        RedisStringCommands.SetOption.SET_IF_ABSENT);
+            }
+        });
+        return Boolean.TRUE.equals(result);
+    }
+
+    /**
+     * key的值等于value时设置过期时间(原子操作)，用于续约分布式锁/租约
+     * 
+     * @param key
+     * @param value
+     * @param seconds 过期时间(秒)
+     * @return key不存在或值不等于value时返回false
+     */
+    public boolean expireIfValue(final String key, final String value, final long seconds) {
+        return eval(EXPIRE_IF_VALUE_SCRIPT, key, value, String.valueOf(seconds)) == 1L;
+    }
+
+    /**
+     * key的值等于value时删除(原子操作)，用于释放分布式锁/租约
+     * 
+     * @param key
+     * @param value
+     * @return 是否删除
+     */
+    public boolean deleteIfValue(final String key, final String value) {
+        return eval(DELETE_IF_VALUE_SCRIPT, key, value) == 1L;
+    }
+
+    private long eval(final String script, final String key, final String... args) {
+        return eval(script, new String[] {key}, args);
+    }
+
+    /**
+     * 执行返回整数的Lua脚本
+     * 
+     * @param script 脚本
+     * @param keys KEYS
+     * @param args ARGV
+     * @return 脚本的返回值，返回nil时为0
+     */
+    public long eval(final String script, final String[] keys, final String... args) {
+        Long result = redisTemplate.execute(new RedisCallback<Long>() {
+
+            @Override
+            public Long doInRedis(RedisConnection connection) throws DataAccessException {
+                byte[][] keysAndArgs = new byte[keys.length + args.length][];
+                for (int i = 0; i < keys.length; i++) {
+                    keysAndArgs[i] = redisTemplate.getStringSerializer().serialize(keys[i]);
+                }
+                for (int i = 0; i < args.length; i++) {
+                    keysAndArgs[keys.length + i] = redisTemplate.getStringSerializer().serialize(args[i]);
+                }
+                return connection.eval(redisTemplate.getStringSerializer().serialize(script), ReturnType.INTEGER,
+                        keys.length, keysAndArgs);
+            }
+        });
+        return result == null ? 0L : result;
+    }
+
     /**
      * 获取key
      * 
@@ -134,6 +226,32 @@ public class RedisService {
         return result;
     }
 
+    /**
+     * 一次获取多个key(MGET)
+     * 
+     * @param keys
+     * @return 与keys一一对应，不存在的key为null
+     */
+    public List<String> multiGet(final String... keys) {
+        return redisTemplate.execute(new RedisCallback<List<String>>() {
+
+            @Override
+            public List<String> doInRedis(RedisConnection connection) throws DataAccessException {
+                byte[][] keyBytes = new byte[keys.length][];
+                for (int i = 0; i < keys.length; i++) {
+                    keyBytes[i] = redisTemplate.getStringSerializer().serialize(keys[i]);
+                }
+                List<byte[]> values = connection.mGet(keyBytes);
+                List<String> result = new ArrayList<String>(keys.length);
+                for (int i = 0; i < keys.length; i++) {
+                    byte[] value = values == null || i >= values.size() ? null : values.get(i);
+                    result.add(value == null ? null : redisTemplate.getStringSerializer().deserialize(value));
+                }
+                return result;
+            }
+        });
+    }
+
     /**
      * 删除key
      * 
@@ -271,4 +389,65 @@ public class RedisService {
         return redisTemplate.opsForValue().increment(key, delta);
     }
 
+    /**
+     * 发布消息
+     * 
+     * @param channel
+     * @param message
+     */
+    public void publish(String channel, String message) {
+        redisTemplate.convertAndSend(channel, message);
+    }
+
+    /**
+     * 订阅频道<br>
+     * 订阅会独占一个连接并阻塞，这里在守护线程中执行，连接断开时记录日志并在1秒后重新订阅
+     * 
+     * @param channel
+     * @param handler
+     */
+    public void subscribe(final String channel, final MessageHandler handler) {
+        Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                final byte[] channelByte = redisTemplate.getStringSerializer().serialize(channel);
+                while (!Thread.currentThread().isInterrupted()) {
+                    RedisConnection connection = null;
+                    try {
+                        connection = redisTemplate.getConnectionFactory().getConnection();
+                        connection.subscribe(new MessageListener() {
+
+                            @Override
+                            public void onMessage(Message message, byte[] pattern) {
+                                handler.onMessage(channel, redisTemplate.getStringSerializer().deserialize(message.getBody()));
+                            }
+                        }, channelByte);
+                    } catch (Exception e) {
+                        LOG.error("subscribe channel:{} error, retry later.", channel, e);
+                    } finally {
+                        if (connection != null) {
+                            connection.close();
+                        }
+                    }
+                    try {
+                        Thread.sleep(1000L);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }, "redis-subscriber-" + channel);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 订阅消息处理器
+     */
+    public interface MessageHandler {
+
+        void onMessage(String channel, String message);
+    }
+
 }
@@ -0,0 +1,191 @@
+package com.hz.tgb.datetime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 无锁的雪花ID生成器，ID格式与{@link Snowflake}完全一致。<br>
+ * 把"上一次时间戳 + 序列号"打包进一个AtomicLong，每次生成ID只需一次CAS，不再有synchronized串行点：<br>
+ * 1.时间前进：序列号从0开始<br>
+ * 2.同一毫秒或时钟回拨：沿用上一次时间戳，序列号自增<br>
+ * 3.序列号用尽：借用下一毫秒（与{@link Snowflake}一致），借用超过maxTimeDifference时短暂park等待时钟追上<br>
+ * 批量接口{@link #nextIds(int, long[])}每次CAS直接预留一整段序列号。
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午5:36:20
+ */
+public class AtomicSnowflake {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AtomicSnowflake.class);
+
+    /**
+     * 起始的时间戳，与{@link Snowflake}相同。
+     */
+    private static final long START_TIMESTAMP = 1511435554743L;
+
+    private static final long SEQUENCE_BITS = 12;
+
+    private static final long MACHINE_ID_BITS = 5;
+
+    private static final long DATACENTER_ID_BITS = 5;
+
+    private static final long MAX_DATACENTER_ID = -1L ^ (-1L << DATACENTER_ID_BITS);
+
+    private static final long MAX_MACHINE_ID = -1L ^ (-1L << MACHINE_ID_BITS);
+
+    private static final long MAX_SEQUENCE = -1L ^ (-1L << SEQUENCE_BITS);
+
+    private static final long MACHINE_LEFT = SEQUENCE_BITS;
+
+    private static final long DATACENTER_LEFT = SEQUENCE_BITS + MACHINE_ID_BITS;
+
+    private static final long TIMESTAMP_LEFT = DATACENTER_LEFT + DATACENTER_ID_BITS;
+
+    /** 等待时钟追上时每次park的时长 */
+    private static final long PARK_NANOS = 100000L;
+
+    /**
+     * 数据中心标识和服务器标识，已移位。
+     */
+    private final long workerBits;
+
+    /**
+     * 最多允许借用的未来毫秒数。
+     */
+    private final long maxTimeDifference;
+
+    /**
+     * 高位为上一次时间戳（相对START_TIMESTAMP），低SEQUENCE_BITS位为上一次使用的序列号。
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * 因借用未来毫秒过多而等待时钟追上的次数。
+     */
+    private final AtomicLong clockWaits = new AtomicLong();
+
+    public AtomicSnowflake(long datacenterId, long machineId) {
+        this(datacenterId, machineId, 5000L);
+    }
+
+    public AtomicSnowflake(long datacenterId, long machineId, long maxTimeDifference) {
+        if (datacenterId > MAX_DATACENTER_ID || datacenterId < 0) {
+            String msg = String.format("datacenterId can't be greater than %d or less than 0", MAX_DATACENTER_ID);
+            throw new IllegalArgumentException(msg);
+        }
+        if (machineId > MAX_MACHINE_ID || machineId < 0) {
+            String msg = String.format("machineId can't be greater than %d or less than 0", MAX_MACHINE_ID);
+            throw new IllegalArgumentException(msg);
+        }
+        this.workerBits = datacenterId << DATACENTER_LEFT | machineId << MACHINE_LEFT;
+        this.maxTimeDifference = maxTimeDifference;
+    }
+
+    /**
+     * 产生下一个ID。
+     *
+     * @return
+     */
+    public long nextId() {
+        for (;;) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long timestamp = getTimestamp() - START_TIMESTAMP;
+            long next;
+            if (timestamp > lastTimestamp) {
+                next = timestamp << SEQUENCE_BITS;
+            } else {
+                if (timestamp < lastTimestamp && !waitIfTooFarAhead(lastTimestamp, timestamp)) {
+                    continue;
+                }
+                if ((current & MAX_SEQUENCE) < MAX_SEQUENCE) {
+                    next = current + 1;
+                } else {
+                    next = (lastTimestamp + 1) << SEQUENCE_BITS;
+                }
+            }
+            if (state.compareAndSet(current, next)) {
+                return toId(next);
+            }
+        }
+    }
+
+    /**
+     * 批量产生n个ID，写入out[0, n)。每次CAS预留当前毫秒内剩余的一整段序列号，ID单调递增。
+     *
+     * @param n
+     * @param out
+     */
+    public void nextIds(int n, long[] out) {
+        if (n < 0 || n > out.length) {
+            throw new IllegalArgumentException("n must be between 0 and out.length");
+        }
+        int filled = 0;
+        while (filled < n) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long timestamp = getTimestamp() - START_TIMESTAMP;
+            long first;
+            if (timestamp > lastTimestamp) {
+                first = timestamp << SEQUENCE_BITS;
+            } else {
+                if (timestamp < lastTimestamp && !waitIfTooFarAhead(lastTimestamp, timestamp)) {
+                    continue;
+                }
+                if ((current & MAX_SEQUENCE) < MAX_SEQUENCE) {
+                    first = current + 1;
+                } else {
+                    first = (lastTimestamp + 1) << SEQUENCE_BITS;
+                }
+            }
+            // 同一毫秒内剩余的序列号个数
+            long available = MAX_SEQUENCE - (first & MAX_SEQUENCE) + 1;
+            int count = (int) Math.min(available, n - filled);
+            long last = first + count - 1;
+            if (state.compareAndSet(current, last)) {
+                for (long s = first; s <= last; s++) {
+                    out[filled++] = toId(s);
+                }
+            }
+        }
+    }
+
+    /**
+     * 因借用未来毫秒过多（时钟回拨或序列号长期用尽）而等待时钟追上的次数，可用于监控。
+     *
+     * @return
+     */
+    public long getClockWaitCount() {
+        return clockWaits.get();
+    }
+
+    /**
+     * 当前时间落后于上一次时间戳（时钟回拨或借用了未来的毫秒）时调用，借用超过maxTimeDifference时park等待。
+     *
+     * @return 是否可以继续沿用上一次时间戳
+     */
+    private boolean waitIfTooFarAhead(long lastTimestamp, long timestamp) {
+        if (lastTimestamp - timestamp < maxTimeDifference) {
+            return true;
+        }
+        if (clockWaits.getAndIncrement() % 1000 == 0) {
+            LOGGER.warn("The difference between last timestamp and current timestamp is great or equal to {} millis.",
+                    maxTimeDifference);
+        }
+        LockSupport.parkNanos(PARK_NANOS);
+        return false;
+    }
+
+    private long toId(long packed) {
+        return (packed >>> SEQUENCE_BITS) << TIMESTAMP_LEFT // 时间戳。
+                | workerBits // 数据中心标识、机器标识。
+                | (packed & MAX_SEQUENCE); // 序列号。
+    }
+
+    private long getTimestamp() {
+        return System.currentTimeMillis();
+    }
+}
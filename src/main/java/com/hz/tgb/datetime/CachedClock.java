@@ -0,0 +1,239 @@
+package com.hz.tgb.datetime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 共享的粗粒度时钟。<br>
+ * 调用{@link #start(long)}后，由一个守护线程按指定精度刷新当前时间，{@link #currentTimeMillis()}只是读取一个volatile变量，
+ * 在时钟源较慢(如虚拟机/容器中的hpet、xen时钟源)时比System.currentTimeMillis()快得多；没有启动时直接返回System.currentTimeMillis()。<br>
+ * {@link #format(String)}缓存当前秒的格式化结果，同一秒内的调用不再重复格式化(含毫秒等秒以下字段的pattern不缓存)。<br>
+ * 粗粒度时钟按组件开启：只有系统属性{@value #COMPONENTS}中列出的组件(如{@value #LOCAL_CACHE}、{@value #DUBBO_LOG})
+ * 才会读取本时钟，其余代码不受start影响；计时({@link com.hz.tgb.tool.StopWatch})、雪花ID、订单号始终使用精确时间。
+ *
+ * <pre>
+ * -Dcached_clock.components=local_cache,dubbo_log
+ * CachedClock.start(1);
+ * long now = CachedClock.currentTimeMillis();
+ * String time = CachedClock.format("yyyy-MM-dd HH:mm:ss");
+ * </pre>
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午7:48:26
+ */
+public class CachedClock {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CachedClock.class);
+
+    /** 默认精度,单位毫秒 */
+    public static final long DEFAULT_RESOLUTION = 1L;
+
+    /** 使用粗粒度时钟的组件列表的系统属性，逗号分隔 */
+    public static final String COMPONENTS = "cached_clock.components";
+
+    /** 组件：本地缓存{@link com.hz.tgb.cache.LocalCache} */
+    public static final String LOCAL_CACHE = "local_cache";
+
+    /** 组件：Dubbo日志过滤器的耗时统计 */
+    public static final String DUBBO_LOG = "dubbo_log";
+
+    /** pattern中表示秒以下精度的字段：S毫秒、n纳秒、N当天纳秒数、A当天毫秒数 */
+    private static final String SUB_SECOND_LETTERS = "SnNA";
+
+    private static volatile Ticker ticker;
+
+    /** pattern -> 当前秒的格式化结果 */
+    private static final ConcurrentMap<String, Formatted> FORMATTED = new ConcurrentHashMap<String, Formatted>();
+
+    private CachedClock() {
+    }
+
+    /**
+     * 以默认精度(1毫秒)启动时钟线程
+     */
+    public static void start() {
+        start(DEFAULT_RESOLUTION);
+    }
+
+    /**
+     * 启动时钟线程，已经启动时按新的精度重新启动
+     *
+     * @param resolutionMillis 刷新间隔,单位毫秒
+     */
+    public static synchronized void start(long resolutionMillis) {
+        if (resolutionMillis <= 0) {
+            throw new IllegalArgumentException("resolutionMillis must be greater than 0");
+        }
+        stop();
+        Ticker newTicker = new Ticker(resolutionMillis);
+        newTicker.start();
+        ticker = newTicker;
+        LOG.info("cached clock started, resolution:{}ms", resolutionMillis);
+    }
+
+    /**
+     * 停止时钟线程，之后{@link #currentTimeMillis()}直接返回System.currentTimeMillis()
+     */
+    public static synchronized void stop() {
+        Ticker old = ticker;
+        if (old != null) {
+            ticker = null;
+            old.running = false;
+            LockSupport.unpark(old);
+        }
+    }
+
+    /**
+     * 时钟线程是否已启动
+     *
+     * @return
+     */
+    public static boolean isStarted() {
+        return ticker != null;
+    }
+
+    /**
+     * 当前时间(毫秒)，启动后最多落后一个精度周期
+     *
+     * @return
+     */
+    public static long currentTimeMillis() {
+        Ticker current = ticker;
+        return current == null ? System.currentTimeMillis() : current.now;
+    }
+
+    /**
+     * 组件是否在系统属性{@value #COMPONENTS}中开启了粗粒度时钟，组件一般在初始化时读取一次
+     *
+     * @param component 组件名，如{@value #LOCAL_CACHE}
+     * @return
+     */
+    public static boolean isOptedIn(String component) {
+        String components = System.getProperty(COMPONENTS);
+        if (components == null) {
+            return false;
+        }
+        for (String name : components.split(",")) {
+            if (name.trim().equals(component)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 当前时间(毫秒)
+     *
+     * @param coarse 是否使用粗粒度时钟，为false时直接返回System.currentTimeMillis()
+     * @return
+     */
+    public static long currentTimeMillis(boolean coarse) {
+        return coarse ? currentTimeMillis() : System.currentTimeMillis();
+    }
+
+    /**
+     * 当前时间
+     *
+     * @return
+     */
+    public static Date currentDate() {
+        return new Date(currentTimeMillis());
+    }
+
+    /**
+     * 按pattern格式化当前时间，同一秒内返回缓存的结果；pattern含毫秒等秒以下字段时每次重新格式化
+     *
+     * @param pattern 如yyyy-MM-dd HH:mm:ss
+     * @return
+     */
+    public static String format(String pattern) {
+        long millis = currentTimeMillis();
+        long second = millis / 1000;
+        Formatted formatted = FORMATTED.get(pattern);
+        if (formatted != null && formatted.second == second && !formatted.subSecond) {
+            return formatted.value;
+        }
+        if (formatted == null) {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern).withZone(ZoneId.systemDefault());
+            formatted = new Formatted(formatter, hasSubSecondField(pattern), second, null);
+        }
+        if (formatted.subSecond) {
+            FORMATTED.putIfAbsent(pattern, formatted);
+            return formatted.formatter.format(Instant.ofEpochMilli(millis));
+        }
+        formatted = new Formatted(formatted.formatter, false, second,
+                formatted.formatter.format(Instant.ofEpochSecond(second)));
+        FORMATTED.put(pattern, formatted);
+        return formatted.value;
+    }
+
+    /**
+     * pattern中(单引号之外)是否有秒以下精度的字段
+     */
+    private static boolean hasSubSecondField(String pattern) {
+        boolean quoted = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (!quoted && SUB_SECOND_LETTERS.indexOf(c) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 刷新当前时间的守护线程
+     */
+    private static final class Ticker extends Thread {
+
+        private final long resolutionNanos;
+
+        private volatile long now = System.currentTimeMillis();
+
+        private volatile boolean running = true;
+
+        Ticker(long resolutionMillis) {
+            super("cached-clock");
+            setDaemon(true);
+            this.resolutionNanos = TimeUnit.MILLISECONDS.toNanos(resolutionMillis);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                now = System.currentTimeMillis();
+                LockSupport.parkNanos(resolutionNanos);
+            }
+        }
+    }
+
+    private static final class Formatted {
+
+        final DateTimeFormatter formatter;
+
+        /** 有秒以下字段，不缓存格式化结果 */
+        final boolean subSecond;
+
+        final long second;
+
+        final String value;
+
+        Formatted(DateTimeFormatter formatter, boolean subSecond, long second, String value) {
+            this.formatter = formatter;
+            this.subSecond = subSecond;
+            this.second = second;
+            this.value = value;
+        }
+    }
+}
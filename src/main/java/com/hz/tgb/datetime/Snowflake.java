@@ -1,5 +1,6 @@
 package com.hz.tgb.datetime;
 
+import com.hz.tgb.id.WorkerIdLease;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -80,6 +81,11 @@ public class Snowflake {
      */
     private long maxTimeDifference = 5000L;
 
+    /**
+     * 机器ID租约，不为null时数据中心标识和服务器标识取自租约。
+     */
+    private WorkerIdLease lease;
+
     public Snowflake(long datacenterId, long machineId) {
 	// Normalize parameters.
 
@@ -105,12 +111,30 @@ public class Snowflake {
 	this.maxTimeDifference = maxTimeDifference;
     }
 
+    /**
+     * 数据中心标识和服务器标识取自租约，租约失效后{@link #nextId()}抛出IllegalStateException，不再生成ID。
+     *
+     * @param lease
+     */
+    public Snowflake(WorkerIdLease lease) {
+	this(0, 0);
+
+	this.lease = lease;
+    }
+
     /**
      * 产生下一个ID。
      *
      * @return
      */
     public synchronized long nextId() {
+	if (this.lease != null) {
+	    // 租约失效后其他节点可能已经占用了同一个机器ID。
+	    int workerId = this.lease.checkWorkerId();
+	    this.datacenterId = workerId >>> MACHINE_ID_BITS;
+	    this.machineId = workerId & MAX_MACHINE_ID;
+	}
+
 	long currentTimestamp = this.getTimestamp();
 	if (currentTimestamp < this.lastTimestamp) {
 	    String msg = "Clock moved backwards.";
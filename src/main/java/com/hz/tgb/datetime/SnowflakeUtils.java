@@ -1,5 +1,6 @@
 package com.hz.tgb.datetime;
 
+import com.hz.tgb.id.WorkerIdLease;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.HashMap;
@@ -9,13 +10,36 @@ public class SnowflakeUtils {
 
     private static final Map<String, Snowflake> snowflakeCache = new HashMap<>();
 
-    public static Snowflake getInstance(long datacenterId, long machineId, String target) {
-        if (StringUtils.isEmpty(target)) {
-            String msg = "\"target\" is empty.";
-            throw new IllegalArgumentException(msg);
-        } else {
-            target = StringUtils.normalizeSpace(target);
+    /**
+     * 使用{@link WorkerIdLease#getDefault()}自动分配的数据中心标识和服务器标识，集群中每个节点不重复，租约失效后不再生成ID；
+     * 没有设置默认租约时使用固定的数据中心标识0和服务器标识0，只适用于单节点部署。默认租约需要在第一次调用之前设置
+     *
+     * @param target
+     * @return
+     */
+    public static Snowflake getInstance(String target) {
+        WorkerIdLease lease = WorkerIdLease.getDefaultIfPresent();
+        if (lease == null) {
+            return getInstance(0, 0, target);
         }
+        target = normalize(target);
+        Snowflake snowflake = snowflakeCache.get(target);
+        if (snowflake == null) {
+            synchronized (snowflakeCache) {
+                if (snowflakeCache.get(target) == null) {
+                    snowflake = new Snowflake(lease);
+                    snowflakeCache.put(target, snowflake);
+                } else {
+                    snowflake = snowflakeCache.get(target);
+                }
+            }
+        }
+
+        return snowflake;
+    }
+
+    public static Snowflake getInstance(long datacenterId, long machineId, String target) {
+        target = normalize(target);
 
         Snowflake snowflake = snowflakeCache.get(target);
         if (snowflake == null) {
@@ -31,4 +55,12 @@ public class SnowflakeUtils {
 
         return snowflake;
     }
+
+    private static String normalize(String target) {
+        if (StringUtils.isEmpty(target)) {
+            String msg = "\"target\" is empty.";
+            throw new IllegalArgumentException(msg);
+        }
+        return StringUtils.normalizeSpace(target);
+    }
 }
\ No newline at end of file
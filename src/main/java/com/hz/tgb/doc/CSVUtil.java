@@ -1,123 +1,195 @@
 package com.hz.tgb.doc;
 
-import com.csvreader.CsvReader;
-import com.csvreader.CsvWriter;
-import com.hz.tgb.file.EncodingDetect;
-
 import java.io.*;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * .csv文件的读取和写入
+ * .csv文件的读取和写入，基于{@link CsvReader}、{@link CsvWriter}流式处理
  * Created by hezhao on 2017/9/25 11:19.
  */
 public class CSVUtil {
-    /*
-    JAR - http://central.maven.org/maven2/net/sourceforge/javacsv/javacsv/2.0/javacsv-2.0.jar
-
-    MAVEN:
-    <dependency>
-        <groupId>net.sourceforge.javacsv</groupId>
-        <artifactId>javacsv</artifactId>
-        <version>2.0</version>
-    </dependency>
 
-    API - http://javacsv.sourceforge.net/
-    */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
 
     /**
-     * 写CSV文件
-     * @param out 输出流
+     * 写CSV文件，UTF-8编码，BOM写在文件开头
+     * @param out 输出流，写完后关闭
      * @param csvHeaders 表头
      * @param csvContents 内容
      */
-    public static void writeCSV(OutputStream out, String[] csvHeaders, List<String[]> csvContents) {
+    public static void writeCSV(OutputStream out, String[] csvHeaders, Iterable<String[]> csvContents) {
         try {
-            // 创建CSV写对象 例如:CsvWriter(文件路径，分隔符，编码格式);
-            CsvWriter csvWriter = new CsvWriter(out, ',', Charset.forName("UTF-8"));
-            if(csvHeaders != null && csvHeaders.length > 0) {
-                // 写表头
-                csvWriter.writeRecord(csvHeaders);
-            }
-            // 写内容
-            for (String[] csvContent : csvContents) {
-                csvWriter.writeRecord(csvContent);
+            // BOM必须在所有记录之前写入，Excel才能识别为UTF-8
+            CsvWriter csvWriter = CsvWriter.open(out, UTF_8, true);
+            try {
+                if(csvHeaders != null && csvHeaders.length > 0) {
+                    // 写表头
+                    csvWriter.writeRecord(csvHeaders);
+                }
+                // 写内容
+                for (String[] csvContent : csvContents) {
+                    csvWriter.writeRecord(csvContent);
+                }
+            } finally {
+                csvWriter.close();
             }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
 
-            //在文件中增加BOM，详细说明可以Google,该处的byte[] 可以针对不同编码进行修改
-            out.write(new byte[] { (byte) 0xEF, (byte) 0xBB,(byte) 0xBF });
+    /**
+     * 写CSV文件，UTF-8编码，BOM写在文件开头
+     * @param out 输出流，写完后关闭
+     * @param csvHeaders 表头
+     * @param csvContents 内容
+     */
+    public static void writeCSV(OutputStream out, String[] csvHeaders, List<String[]> csvContents) {
+        writeCSV(out, csvHeaders, (Iterable<String[]>) csvContents);
+    }
 
-            csvWriter.flush();
+    /**
+     * 把JavaBean写为CSV文件，UTF-8编码，表头为属性名
+     * @param out 输出流，写完后关闭
+     * @param type JavaBean类型
+     * @param beans 内容
+     * @see CsvBeanBinder
+     */
+    public static <T> void writeBeans(OutputStream out, Class<T> type, Iterable<? extends T> beans) throws IOException {
+        CsvBeanBinder<T> binder = CsvBeanBinder.of(type);
+        CsvWriter csvWriter = CsvWriter.open(out, UTF_8, true);
+        try {
+            csvWriter.writeRecord(binder.getHeaders());
+            for (T bean : beans) {
+                binder.write(csvWriter, bean);
+            }
+        } finally {
             csvWriter.close();
-//              System.out.println("--------CSV文件已经写入--------");
-        } catch (Exception e) {
-            e.printStackTrace();
         }
     }
 
     /**
-     * 读CSV文件
+     * 读CSV文件，不带引号的字段去掉首尾空白
      * @param csvFilePath 文件路径
      * @param readHeader 是否读取表头
      * @return
      */
     public static List<String[]> readCSV(String csvFilePath,boolean readHeader) {
-        List<String[]> list = new ArrayList<>();
+        final List<String[]> list = new ArrayList<>();
         try {
-            File file = new File(csvFilePath);
-            if (!file.exists() || file.length() == 0) {
-                return list;
-            }
-            String fileEncode = EncodingDetect.getJavaEncode(csvFilePath);
-
-            // 创建CSV读对象 例如:CsvReader(文件路径，分隔符，编码格式);
-            CsvReader reader = new CsvReader(csvFilePath, ',', Charset.forName(fileEncode));
-            list =  _readCSV(reader,readHeader);
-        } catch (FileNotFoundException e) {
+            forEachRecord(csvFilePath, readHeader, new CsvReader.RecordHandler() {
+                @Override
+                public void handle(CsvRecord record) {
+                    list.add(trimUnquoted(record));
+                }
+            });
+        } catch (IOException e) {
             e.printStackTrace();
         }
         return list;
     }
 
     /**
-     * 读CSV文件
-     * @param input 输入流
+     * 读CSV文件，不带引号的字段去掉首尾空白
+     * @param input 输入流，UTF-8编码
      * @param readHeader 是否读取表头
      * @return
      */
     public static List<String[]> readCSV(InputStream input, boolean readHeader) {
-        // 创建CSV读对象 例如:CsvReader(文件路径，分隔符，编码格式);
-        CsvReader reader = new CsvReader(input, ',', Charset.forName("UTF-8"));
-        return _readCSV(reader,readHeader);
+        List<String[]> list = new ArrayList<>();
+        CsvReader reader = new CsvReader(new InputStreamReader(input, UTF_8));
+        try {
+            // 跳过表头
+            if(!readHeader){
+                reader.readRecord();
+            }
+            CsvRecord record;
+            while ((record = reader.readRecord()) != null) {
+                list.add(trimUnquoted(record));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            closeQuietly(reader);
+        }
+        return list;
     }
 
-    private static List<String[]> _readCSV(CsvReader reader,boolean readHeader) {
-        // 用来保存数据
-        ArrayList<String[]> csvFileList = new ArrayList<String[]>();
+    /**
+     * 逐条读取CSV文件，不把整个文件读入内存。文件不存在或为空时不回调
+     * @param csvFilePath 文件路径，编码自动检测
+     * @param readHeader 是否回调表头
+     * @param handler 记录回调，记录对象回调返回后失效
+     * @return 回调的记录数
+     */
+    public static long forEachRecord(String csvFilePath, boolean readHeader, CsvReader.RecordHandler handler)
+            throws IOException {
+        File file = new File(csvFilePath);
+        if (!file.exists() || file.length() == 0) {
+            return 0;
+        }
+        CsvReader reader = CsvReader.open(file);
         try {
-            // 跳过表头 如果需要表头的话，这句可以忽略
+            // 跳过表头
             if(!readHeader){
-                reader.readHeaders();
+                reader.readRecord();
             }
-            // 逐行读入除表头的数据
-            while (reader.readRecord()) {
-//                System.out.println(reader.getRawRecord());
-                csvFileList.add(reader.getValues());
+            return reader.forEach(handler);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * 读CSV文件为JavaBean，表头与属性名相同(不区分大小写)的列写入属性
+     * @param csvFilePath 文件路径，编码自动检测
+     * @param type JavaBean类型
+     * @see CsvBeanBinder
+     */
+    public static <T> List<T> readBeans(String csvFilePath, Class<T> type) throws IOException {
+        List<T> list = new ArrayList<>();
+        File file = new File(csvFilePath);
+        if (!file.exists() || file.length() == 0) {
+            return list;
+        }
+        CsvReader reader = CsvReader.open(file);
+        try {
+            String[] headers = reader.readHeaders();
+            if (headers == null) {
+                return list;
             }
+            CsvBeanBinder.Mapping<T> mapping = CsvBeanBinder.of(type).bind(headers);
+            CsvRecord record;
+            while ((record = reader.readRecord()) != null) {
+                list.add(mapping.toBean(record));
+            }
+        } finally {
             reader.close();
+        }
+        return list;
+    }
 
-//            // 遍历读取的CSV文件
-//            for (int row = 0; row < csvFileList.size(); row++) {
-//                // 取得第row行第0列的数据
-//                String cell = csvFileList.get(row)[0];
-//                System.out.println("------------>"+cell);
-//            }
-        } catch (Exception e) {
-            e.printStackTrace();
+    /**
+     * 复制所有字段，不带引号的字段去掉首尾空白，与原来基于javacsv(TrimWhitespace)读取的结果一致
+     */
+    private static String[] trimUnquoted(CsvRecord record) {
+        String[] values = record.toArray();
+        for (int i = 0; i < values.length; i++) {
+            if (!record.isQuoted(i)) {
+                values[i] = values[i].trim();
+            }
+        }
+        return values;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // ignore
         }
-        return csvFileList;
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,330 @@
+package com.hz.tgb.doc;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * CSV记录与JavaBean的绑定。<br>
+ * 每个类型只在第一次使用时通过Introspector查找一次属性的getter/setter并缓存，之后按列直接调用缓存的Method；
+ * 读取时表头与属性名相同(不区分大小写)的列写入属性，写入时按字段声明顺序输出所有可读属性<br>
+ * 支持的属性类型：String、基本类型及其包装类、BigDecimal、BigInteger；空字段不写入基本类型，包装类写入null
+ *
+ * <pre>
+ * CsvBeanBinder&lt;SettleDto&gt; binder = CsvBeanBinder.of(SettleDto.class);
+ * CsvBeanBinder.Mapping&lt;SettleDto&gt; mapping = binder.bind(reader.readHeaders());
+ * SettleDto dto = mapping.toBean(reader.readRecord());
+ * </pre>
+ *
+ * @author hezhao
+ * @Time 2026年10月19日 上午4:12:36
+ */
+public final class CsvBeanBinder<T> {
+
+    private static final ConcurrentMap<Class<?>, CsvBeanBinder<?>> BINDERS = new ConcurrentHashMap<Class<?>, CsvBeanBinder<?>>();
+
+    private final Class<T> type;
+
+    private final Constructor<T> constructor;
+
+    /** 可写属性，属性名小写 -> 属性 */
+    private final Map<String, Property> writable = new HashMap<String, Property>();
+
+    /** 可读属性，按字段声明顺序 */
+    private final Property[] readable;
+
+    private final String[] headers;
+
+    private CsvBeanBinder(Class<T> type) {
+        this.type = type;
+        try {
+            this.constructor = type.getDeclaredConstructor();
+            this.constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(type.getName() + " 没有无参构造方法", e);
+        }
+        Map<String, PropertyDescriptor> descriptors = new LinkedHashMap<String, PropertyDescriptor>();
+        try {
+            for (PropertyDescriptor descriptor : Introspector.getBeanInfo(type, Object.class).getPropertyDescriptors()) {
+                descriptors.put(descriptor.getName(), descriptor);
+            }
+        } catch (IntrospectionException e) {
+            throw new IllegalArgumentException("无法获取 " + type.getName() + " 的属性", e);
+        }
+
+        // 按字段声明顺序(父类在前)排列，没有对应字段的属性排在最后
+        List<String> names = new ArrayList<String>();
+        List<Class<?>> classes = new ArrayList<Class<?>>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            classes.add(0, c);
+        }
+        for (Class<?> c : classes) {
+            for (Field field : c.getDeclaredFields()) {
+                if (descriptors.containsKey(field.getName()) && !names.contains(field.getName())) {
+                    names.add(field.getName());
+                }
+            }
+        }
+        for (String name : descriptors.keySet()) {
+            if (!names.contains(name)) {
+                names.add(name);
+            }
+        }
+
+        List<Property> readableList = new ArrayList<Property>();
+        for (String name : names) {
+            PropertyDescriptor descriptor = descriptors.get(name);
+            Property property = new Property(name, descriptor.getPropertyType(), descriptor.getReadMethod(),
+                    descriptor.getWriteMethod());
+            if (property.read != null) {
+                readableList.add(property);
+            }
+            if (property.write != null && property.kind != Kind.UNSUPPORTED) {
+                writable.put(name.toLowerCase(Locale.ENGLISH), property);
+            }
+        }
+        this.readable = readableList.toArray(new Property[readableList.size()]);
+        this.headers = new String[readable.length];
+        for (int i = 0; i < readable.length; i++) {
+            headers[i] = readable[i].name;
+        }
+    }
+
+    /**
+     * 得到类型的绑定，每个类型只解析一次
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> CsvBeanBinder<T> of(Class<T> type) {
+        CsvBeanBinder<?> binder = BINDERS.get(type);
+        if (binder == null) {
+            binder = new CsvBeanBinder<T>(type);
+            CsvBeanBinder<?> previous = BINDERS.putIfAbsent(type, binder);
+            if (previous != null) {
+                binder = previous;
+            }
+        }
+        return (CsvBeanBinder<T>) binder;
+    }
+
+    /**
+     * 写入时的表头，即所有可读属性名
+     */
+    public String[] getHeaders() {
+        return headers.clone();
+    }
+
+    /**
+     * 按表头确定每一列对应的属性
+     *
+     * @param headers 表头，没有对应属性的列忽略
+     */
+    public Mapping<T> bind(String[] headers) {
+        Property[] columns = new Property[headers.length];
+        for (int i = 0; i < headers.length; i++) {
+            String header = headers[i] == null ? "" : headers[i].trim();
+            columns[i] = writable.get(header.toLowerCase(Locale.ENGLISH));
+        }
+        return new Mapping<T>(this, columns);
+    }
+
+    /**
+     * 按{@link #getHeaders()}的顺序写入一条记录
+     */
+    public void write(CsvWriter writer, T bean) throws IOException {
+        for (Property property : readable) {
+            Object value = invoke(property.read, bean);
+            if (value == null) {
+                writer.writeField(null);
+            } else if (value instanceof BigDecimal) {
+                writer.writeField(((BigDecimal) value).toPlainString());
+            } else if (value instanceof CharSequence) {
+                writer.writeField((CharSequence) value);
+            } else {
+                writer.writeField(value.toString());
+            }
+        }
+        writer.endRecord();
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    private T newInstance() {
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException e) {
+            throw new IllegalStateException("无法创建 " + type.getName(), e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("无法创建 " + type.getName(), e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("无法创建 " + type.getName(), e.getCause());
+        }
+    }
+
+    private static Object invoke(Method method, Object bean, Object... args) {
+        try {
+            return method.invoke(bean, args);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("调用 " + method + " 失败", e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("调用 " + method + " 失败", e.getCause());
+        }
+    }
+
+    /**
+     * 表头与属性的对应关系，绑定后可以重复使用
+     */
+    public static final class Mapping<T> {
+
+        private final CsvBeanBinder<T> binder;
+
+        /** 每一列对应的属性，为null表示忽略该列 */
+        private final Property[] columns;
+
+        private Mapping(CsvBeanBinder<T> binder, Property[] columns) {
+            this.binder = binder;
+            this.columns = columns;
+        }
+
+        /**
+         * 把记录转为JavaBean，字段多于表头的部分忽略
+         *
+         * @throws IllegalArgumentException 字段不能转换为属性的类型
+         */
+        public T toBean(CsvRecord record) {
+            T bean = binder.newInstance();
+            int size = Math.min(record.size(), columns.length);
+            for (int i = 0; i < size; i++) {
+                Property property = columns[i];
+                if (property == null) {
+                    continue;
+                }
+                Object value;
+                try {
+                    value = property.convert(record, i);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("第" + record.getNumber() + "条记录第" + (i + 1) + "列 ["
+                            + record.get(i) + "] 不能转换为 " + property.type.getSimpleName(), e);
+                }
+                if (value != null) {
+                    invoke(property.write, bean, value);
+                }
+            }
+            return bean;
+        }
+    }
+
+    private enum Kind {
+        STRING, INT, LONG, SHORT, BYTE, DOUBLE, FLOAT, BOOLEAN, CHAR, BIG_DECIMAL, BIG_INTEGER, UNSUPPORTED
+    }
+
+    private static final class Property {
+
+        private final String name;
+
+        private final Class<?> type;
+
+        private final Method read;
+
+        private final Method write;
+
+        private final Kind kind;
+
+        Property(String name, Class<?> type, Method read, Method write) {
+            this.name = name;
+            this.type = type;
+            this.read = read;
+            this.write = write;
+            this.kind = kindOf(type);
+            if (read != null) {
+                read.setAccessible(true);
+            }
+            if (write != null) {
+                write.setAccessible(true);
+            }
+        }
+
+        /**
+         * 第index列转换为属性类型，空字段返回null
+         */
+        Object convert(CsvRecord record, int index) {
+            if (kind == Kind.STRING) {
+                return record.getString(index);
+            }
+            if (record.isEmpty(index)) {
+                return null;
+            }
+            String value = record.getString(index).trim();
+            if (value.isEmpty()) {
+                return null;
+            }
+            switch (kind) {
+                case INT:
+                    return Integer.valueOf(value);
+                case LONG:
+                    return Long.valueOf(value);
+                case SHORT:
+                    return Short.valueOf(value);
+                case BYTE:
+                    return Byte.valueOf(value);
+                case DOUBLE:
+                    return Double.valueOf(value);
+                case FLOAT:
+                    return Float.valueOf(value);
+                case BOOLEAN:
+                    return Boolean.valueOf(value);
+                case CHAR:
+                    return value.charAt(0);
+                case BIG_DECIMAL:
+                    return new BigDecimal(value);
+                case BIG_INTEGER:
+                    return new BigInteger(value);
+                default:
+                    return null;
+            }
+        }
+
+        private static Kind kindOf(Class<?> type) {
+            if (type == String.class || type == CharSequence.class) {
+                return Kind.STRING;
+            } else if (type == int.class || type == Integer.class) {
+                return Kind.INT;
+            } else if (type == long.class || type == Long.class) {
+                return Kind.LONG;
+            } else if (type == short.class || type == Short.class) {
+                return Kind.SHORT;
+            } else if (type == byte.class || type == Byte.class) {
+                return Kind.BYTE;
+            } else if (type == double.class || type == Double.class) {
+                return Kind.DOUBLE;
+            } else if (type == float.class || type == Float.class) {
+                return Kind.FLOAT;
+            } else if (type == boolean.class || type == Boolean.class) {
+                return Kind.BOOLEAN;
+            } else if (type == char.class || type == Character.class) {
+                return Kind.CHAR;
+            } else if (type == BigDecimal.class) {
+                return Kind.BIG_DECIMAL;
+            } else if (type == BigInteger.class) {
+                return Kind.BIG_INTEGER;
+            }
+            return Kind.UNSUPPORTED;
+        }
+    }
+}
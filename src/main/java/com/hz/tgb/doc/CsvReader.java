@@ -0,0 +1,554 @@
+package com.hz.tgb.doc;
+
+import com.hz.tgb.file.EncodingDetect;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 流式读取CSV文件(RFC 4180)，内存占用与文件大小无关<br>
+ * 1.在复用的字符缓冲区上解析，字段是指向缓冲区的视图，不为每个字段创建String；带引号字段的""直接在缓冲区中还原<br>
+ * 2.支持引号中的分隔符和换行；\r、\n、\r\n都视为换行，跳过空行，开头的BOM会被去掉<br>
+ * 3.{@link #forEach(RecordHandler)}逐条回调，{@link #stream()}、{@link #stream(Class)}转为Stream，
+ *   {@link #forEachParallel(File, Charset, boolean, int, RecordHandler)}把大文件按记录边界切分后多线程解析<br>
+ * 非线程安全，用完需要关闭。
+ *
+ * <pre>
+ * try (CsvReader reader = CsvReader.open(file)) {
+ *     reader.readHeaders();
+ *     CsvRecord record;
+ *     while ((record = reader.readRecord()) != null) {
+ *         CharSequence orderNo = record.get(0);
+ *     }
+ * }
+ * </pre>
+ *
+ * @author hezhao
+ * @Time 2026年10月19日 上午3:41:07
+ */
+public class CsvReader implements Closeable {
+
+    /** 默认分隔符 */
+    public static final char DEFAULT_DELIMITER = ',';
+
+    private static final char QUOTE = '"';
+
+    private static final char BOM = '\uFEFF';
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+
+    private final char delimiter;
+
+    /** 解析缓冲区，单条记录超过缓冲区大小时扩容 */
+    char[] buffer;
+
+    /** buffer中[position, limit)是还没有解析的字符 */
+    private int position;
+
+    private int limit;
+
+    private boolean eof;
+
+    private boolean started;
+
+    private final CsvRecord record = new CsvRecord(this);
+
+    private long count;
+
+    public CsvReader(Reader reader) {
+        this(reader, DEFAULT_DELIMITER);
+    }
+
+    /**
+     * @param reader 字符流
+     * @param delimiter 分隔符，不能是引号和换行符
+     */
+    public CsvReader(Reader reader, char delimiter) {
+        if (delimiter == QUOTE || delimiter == '\r' || delimiter == '\n') {
+            throw new IllegalArgumentException("illegal delimiter: " + delimiter);
+        }
+        this.reader = reader;
+        this.delimiter = delimiter;
+        this.buffer = new char[DEFAULT_BUFFER_SIZE];
+    }
+
+    /**
+     * 按检测到的编码打开文件
+     */
+    public static CsvReader open(File file) throws IOException {
+        return new CsvReader(EncodingDetect.getReader(file.getPath()));
+    }
+
+    /**
+     * 按指定编码打开文件
+     */
+    public static CsvReader open(File file, Charset charset) throws IOException {
+        return new CsvReader(new InputStreamReader(new FileInputStream(file), charset));
+    }
+
+    /**
+     * 读取一条记录作为表头
+     *
+     * @return 没有记录时返回null
+     */
+    public String[] readHeaders() throws IOException {
+        CsvRecord headers = readRecord();
+        return headers == null ? null : headers.toArray();
+    }
+
+    /**
+     * 读取下一条记录
+     *
+     * @return 复用的记录对象，读取下一条记录后失效；没有更多记录时返回null
+     */
+    public CsvRecord readRecord() throws IOException {
+        if (!started) {
+            started = true;
+            fill(0);
+            if (limit > 0 && buffer[0] == BOM) {
+                position = 1;
+            }
+        }
+        record.size = 0;
+
+        // 跳过空行，包括上一条记录\r\n中的\n
+        int i = position;
+        while (true) {
+            if (i >= limit) {
+                if (eof) {
+                    position = i;
+                    return null;
+                }
+                i -= fill(i);
+                continue;
+            }
+            char c = buffer[i];
+            if (c != '\r' && c != '\n') {
+                break;
+            }
+            i++;
+        }
+
+        int start = i;
+        int fieldStart = i;
+        // 带引号字段还原""后写入的位置
+        int write = i;
+        boolean fieldBegin = true;
+        boolean quoted = false;
+        boolean inQuotes = false;
+        while (true) {
+            if (i >= limit || (inQuotes && buffer[i] == QUOTE && i + 1 >= limit && !eof)) {
+                if (!eof) {
+                    // 记录不完整，整理缓冲区后继续读取
+                    int shift = fill(start);
+                    start -= shift;
+                    i -= shift;
+                    fieldStart -= shift;
+                    write -= shift;
+                    continue;
+                }
+                if (i >= limit) {
+                    if (fieldBegin) {
+                        record.add(i, i, false);
+                    } else {
+                        record.add(fieldStart, quoted ? write : i, quoted);
+                    }
+                    break;
+                }
+            }
+            char c = buffer[i];
+            if (fieldBegin) {
+                fieldBegin = false;
+                if (c == QUOTE) {
+                    quoted = true;
+                    inQuotes = true;
+                    i++;
+                    fieldStart = i;
+                    write = i;
+                    continue;
+                }
+                quoted = false;
+                fieldStart = i;
+            }
+            if (inQuotes) {
+                if (c == QUOTE) {
+                    if (i + 1 < limit && buffer[i + 1] == QUOTE) {
+                        buffer[write++] = QUOTE;
+                        i += 2;
+                    } else {
+                        inQuotes = false;
+                        i++;
+                    }
+                } else {
+                    buffer[write++] = c;
+                    i++;
+                }
+            } else if (c == delimiter) {
+                record.add(fieldStart, quoted ? write : i, quoted);
+                fieldBegin = true;
+                i++;
+            } else if (c == '\r' || c == '\n') {
+                record.add(fieldStart, quoted ? write : i, quoted);
+                i++;
+                break;
+            } else {
+                // 结束引号后的字符原样保留
+                if (quoted) {
+                    buffer[write++] = c;
+                }
+                i++;
+            }
+        }
+        position = i;
+        record.number = ++count;
+        return record;
+    }
+
+    /**
+     * 逐条回调剩余的记录
+     *
+     * @return 记录数
+     */
+    public long forEach(RecordHandler handler) throws IOException {
+        long records = 0;
+        CsvRecord next;
+        while ((next = readRecord()) != null) {
+            handler.handle(next);
+            records++;
+        }
+        return records;
+    }
+
+    /**
+     * 剩余记录的Stream，每条记录复制为String[]；关闭Stream时关闭CsvReader
+     */
+    public Stream<String[]> stream() {
+        Iterator<String[]> iterator = new Iterator<String[]>() {
+
+            private String[] next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        CsvRecord record = readRecord();
+                        next = record == null ? null : record.toArray();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public String[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String[] result = next;
+                next = null;
+                return result;
+            }
+        };
+        return toStream(iterator);
+    }
+
+    /**
+     * 读取表头，剩余记录按表头绑定为JavaBean的Stream；关闭Stream时关闭CsvReader
+     *
+     * @param type JavaBean类型，表头与属性名相同(不区分大小写)的列写入属性
+     * @see CsvBeanBinder
+     */
+    public <T> Stream<T> stream(Class<T> type) throws IOException {
+        String[] headers = readHeaders();
+        final CsvBeanBinder.Mapping<T> mapping = CsvBeanBinder.of(type).bind(headers == null ? new String[0] : headers);
+        Iterator<T> iterator = new Iterator<T>() {
+
+            private T next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        CsvRecord record = readRecord();
+                        next = record == null ? null : mapping.toBean(record);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T result = next;
+                next = null;
+                return result;
+            }
+        };
+        return toStream(iterator);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private <E> Stream<E> toStream(Iterator<E> iterator) {
+        Spliterator<E> spliterator = Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 保留buffer中from之后的字符并读入更多字符：from之前的字符丢弃，缓冲区已满时扩容
+     *
+     * @return 字符前移的位数
+     */
+    private int fill(int from) throws IOException {
+        if (from > 0) {
+            System.arraycopy(buffer, from, buffer, 0, limit - from);
+            limit -= from;
+            position = Math.max(0, position - from);
+            record.shift(from);
+        } else if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int n = reader.read(buffer, limit, buffer.length - limit);
+        if (n < 0) {
+            eof = true;
+        } else {
+            limit += n;
+        }
+        return from;
+    }
+
+    /**
+     * 多线程解析CSV文件，分隔符为逗号
+     *
+     * @see #forEachParallel(File, Charset, char, boolean, int, RecordHandler)
+     */
+    public static long forEachParallel(File file, Charset charset, boolean skipHeader, int threads,
+                                       RecordHandler handler) throws IOException {
+        return forEachParallel(file, charset, DEFAULT_DELIMITER, skipHeader, threads, handler);
+    }
+
+    /**
+     * 多线程解析CSV文件：按{@link #split(File, int)}切分为threads块，每块由一个线程解析并回调。
+     * 同一块内的记录按顺序回调，不同块之间并行，handler需要线程安全；记录的序号是块内的序号
+     *
+     * @param file CSV文件
+     * @param charset 编码，必须兼容ASCII(如UTF-8、GBK)
+     * @param delimiter 分隔符
+     * @param skipHeader 是否跳过第一条记录(表头)
+     * @param threads 线程数
+     * @param handler 记录回调
+     * @return 记录数
+     */
+    public static long forEachParallel(final File file, final Charset charset, final char delimiter,
+                                       final boolean skipHeader, int threads, final RecordHandler handler)
+            throws IOException {
+        checkAsciiCompatible(charset);
+        final long[] bounds = split(file, threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger index = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "csv-reader-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            List<Future<Long>> futures = new ArrayList<Future<Long>>(bounds.length - 1);
+            for (int i = 0; i < bounds.length - 1; i++) {
+                final int chunk = i;
+                futures.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws IOException {
+                        FileInputStream in = new FileInputStream(file);
+                        in.getChannel().position(bounds[chunk]);
+                        CsvReader reader = new CsvReader(new InputStreamReader(
+                                new BoundedInputStream(in, bounds[chunk + 1] - bounds[chunk]), charset), delimiter);
+                        try {
+                            if (skipHeader && chunk == 0) {
+                                reader.readRecord();
+                            }
+                            return reader.forEach(handler);
+                        } finally {
+                            reader.close();
+                        }
+                    }
+                }));
+            }
+            long records = 0;
+            for (Future<Long> future : futures) {
+                try {
+                    records += future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new IOException("解析CSV文件失败：" + file, cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("解析CSV文件被中断：" + file, e);
+                }
+            }
+            return records;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 按记录边界把文件切分为大约chunks块。<br>
+     * 顺序扫描一遍字节(不解码)，记录引号内外的状态，在每个目标位置之后第一个不在引号内的\n处切分，
+     * 因此引号中的换行不会被切开；只适用于兼容ASCII的编码(UTF-8、GBK等多字节字符中不会出现'"'和'\n')
+     *
+     * @return 各块的开始位置，最后一个元素是文件大小；块数可能少于chunks
+     */
+    public static long[] split(File file, int chunks) throws IOException {
+        if (chunks <= 0) {
+            throw new IllegalArgumentException("chunks must be greater than 0");
+        }
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            long length = channel.size();
+            long[] bounds = new long[chunks + 1];
+            int size = 1;
+            int next = 1;
+            long target = length * next / chunks;
+            boolean inQuotes = false;
+            ByteBuffer buffer = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE * 16);
+            long offset = 0;
+            while (next < chunks && channel.read(buffer) != -1) {
+                buffer.flip();
+                byte[] array = buffer.array();
+                int end = buffer.limit();
+                for (int i = 0; i < end && next < chunks; i++) {
+                    byte b = array[i];
+                    if (b == QUOTE) {
+                        inQuotes = !inQuotes;
+                    } else if (b == '\n' && !inQuotes && offset + i >= target) {
+                        long bound = offset + i + 1;
+                        if (bound < length) {
+                            bounds[size++] = bound;
+                        }
+                        while (next < chunks && length * next / chunks < bound) {
+                            next++;
+                        }
+                        target = length * next / chunks;
+                    }
+                }
+                offset += end;
+                buffer.clear();
+            }
+            bounds[size++] = length;
+            return Arrays.copyOf(bounds, size);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void checkAsciiCompatible(Charset charset) {
+        byte[] bytes = "\n\",".getBytes(charset);
+        if (bytes.length != 3 || bytes[0] != '\n' || bytes[1] != QUOTE || bytes[2] != ',') {
+            throw new IllegalArgumentException("并行解析只支持兼容ASCII的编码: " + charset);
+        }
+    }
+
+    /**
+     * 记录回调
+     */
+    public interface RecordHandler {
+
+        /**
+         * @param record 复用的记录对象，回调返回后失效
+         */
+        void handle(CsvRecord record);
+    }
+
+    /**
+     * 只读取length个字节的输入流
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.hz.tgb.doc;
+
+import java.util.Arrays;
+
+/**
+ * CsvReader读出的一条记录。<br>
+ * 字段是直接指向CsvReader字符缓冲区的视图({@link CharSequence})，不复制字符；
+ * 记录对象和字段对象都会被复用，读取下一条记录后失效，需要保留时用{@link #getString(int)}或{@link #toArray()}复制
+ *
+ * @author hezhao
+ * @Time 2026年10月19日 上午3:20:41
+ */
+public final class CsvRecord {
+
+    private final CsvReader reader;
+
+    /** 每个字段在缓冲区中的开始、结束位置 */
+    int[] starts = new int[16];
+
+    int[] ends = new int[16];
+
+    /** 每个字段是否带引号 */
+    boolean[] quoted = new boolean[16];
+
+    int size;
+
+    long number;
+
+    /** 按列复用的字段视图 */
+    private Field[] fields = new Field[0];
+
+    CsvRecord(CsvReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 字段数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 记录序号，从1开始(包括表头)
+     */
+    public long getNumber() {
+        return number;
+    }
+
+    /**
+     * 第index个字段的视图，读取下一条记录后失效
+     *
+     * @param index 从0开始
+     */
+    public CharSequence get(int index) {
+        checkIndex(index);
+        if (index >= fields.length) {
+            int length = fields.length;
+            fields = Arrays.copyOf(fields, Math.max(index + 1, size));
+            for (int i = length; i < fields.length; i++) {
+                fields[i] = new Field(i);
+            }
+        }
+        return fields[index];
+    }
+
+    /**
+     * 第index个字段的字符串
+     *
+     * @param index 从0开始
+     */
+    public String getString(int index) {
+        checkIndex(index);
+        return new String(reader.buffer, starts[index], ends[index] - starts[index]);
+    }
+
+    /**
+     * 第index个字段的长度
+     */
+    public int length(int index) {
+        checkIndex(index);
+        return ends[index] - starts[index];
+    }
+
+    /**
+     * 第index个字段是否为空字符串
+     */
+    public boolean isEmpty(int index) {
+        return length(index) == 0;
+    }
+
+    /**
+     * 第index个字段是否带引号，带引号的字段可能包含分隔符、换行和首尾空白
+     */
+    public boolean isQuoted(int index) {
+        checkIndex(index);
+        return quoted[index];
+    }
+
+    /**
+     * 复制所有字段
+     */
+    public String[] toArray() {
+        String[] values = new String[size];
+        char[] buffer = reader.buffer;
+        for (int i = 0; i < size; i++) {
+            values[i] = new String(buffer, starts[i], ends[i] - starts[i]);
+        }
+        return values;
+    }
+
+    void add(int start, int end, boolean quote) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+            quoted = Arrays.copyOf(quoted, size * 2);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        quoted[size] = quote;
+        size++;
+    }
+
+    /**
+     * 缓冲区整理后字段位置前移shift
+     */
+    void shift(int shift) {
+        for (int i = 0; i < size; i++) {
+            starts[i] -= shift;
+            ends[i] -= shift;
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    /**
+     * 字段视图，按列复用，总是指向当前记录的同一列
+     */
+    private final class Field implements CharSequence {
+
+        private final int index;
+
+        Field(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int length() {
+            return ends[index] - starts[index];
+        }
+
+        @Override
+        public char charAt(int i) {
+            if (i < 0 || i >= length()) {
+                throw new IndexOutOfBoundsException("index: " + i + ", length: " + length());
+            }
+            return reader.buffer[starts[index] + i];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length() || start > end) {
+                throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + length());
+            }
+            return new String(reader.buffer, starts[index] + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(reader.buffer, starts[index], length());
+        }
+    }
+}
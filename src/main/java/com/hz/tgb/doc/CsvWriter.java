@@ -0,0 +1,230 @@
+package com.hz.tgb.doc;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * 流式写入CSV文件(RFC 4180)，逐条写出，不需要先把所有记录放在内存中<br>
+ * 1.字段包含分隔符、引号或换行时加引号，引号写为""；记录以\r\n结尾<br>
+ * 2.字符先写入复用的缓冲区，满了再写出；{@link #open(OutputStream, Charset, boolean)}在写任何记录之前写入BOM，
+ *   Excel打开UTF-8文件时不会乱码<br>
+ * 非线程安全，用完需要关闭。
+ *
+ * <pre>
+ * try (CsvWriter writer = CsvWriter.open(out, Charset.forName("UTF-8"), true)) {
+ *     writer.writeRecord("订单号", "金额");
+ *     writer.writeField(orderNo).writeField(amount).endRecord();
+ * }
+ * </pre>
+ *
+ * @author hezhao
+ * @Time 2026年10月19日 上午4:35:52
+ */
+public class CsvWriter implements Closeable, Flushable {
+
+    private static final char QUOTE = '"';
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final Writer writer;
+
+    private final char delimiter;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    private int count;
+
+    /** 当前记录还没有写入字段 */
+    private boolean recordBegin = true;
+
+    /** 当前记录的字段数 */
+    private int fields;
+
+    /** 当前记录最后一个字段为空 */
+    private boolean lastEmpty;
+
+    public CsvWriter(Writer writer) {
+        this(writer, CsvReader.DEFAULT_DELIMITER);
+    }
+
+    /**
+     * @param writer 字符流
+     * @param delimiter 分隔符，不能是引号和换行符
+     */
+    public CsvWriter(Writer writer, char delimiter) {
+        if (delimiter == QUOTE || delimiter == '\r' || delimiter == '\n') {
+            throw new IllegalArgumentException("illegal delimiter: " + delimiter);
+        }
+        this.writer = writer;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * 按指定编码写入输出流
+     *
+     * @param out 输出流，关闭CsvWriter时关闭
+     * @param charset 编码
+     * @param bom 是否先写入BOM(只对UTF编码有意义)
+     */
+    public static CsvWriter open(OutputStream out, Charset charset, boolean bom) throws IOException {
+        Writer writer = new OutputStreamWriter(out, charset);
+        if (bom) {
+            writer.write('\uFEFF');
+        }
+        return new CsvWriter(writer);
+    }
+
+    /**
+     * 按指定编码写入文件，文件已存在时覆盖
+     *
+     * @param bom 是否先写入BOM(只对UTF编码有意义)
+     */
+    public static CsvWriter open(File file, Charset charset, boolean bom) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            return open(out, charset, bom);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 写入一条记录
+     *
+     * @param values 字段，null写为空字段
+     */
+    public CsvWriter writeRecord(CharSequence... values) throws IOException {
+        for (CharSequence value : values) {
+            writeField(value);
+        }
+        return endRecord();
+    }
+
+    /**
+     * 写入一条记录
+     *
+     * @param values 字段，null写为空字段
+     */
+    public CsvWriter writeRecord(Iterable<? extends CharSequence> values) throws IOException {
+        for (CharSequence value : values) {
+            writeField(value);
+        }
+        return endRecord();
+    }
+
+    /**
+     * 在当前记录中写入一个字段
+     *
+     * @param value 字段，null写为空字段
+     */
+    public CsvWriter writeField(CharSequence value) throws IOException {
+        if (recordBegin) {
+            recordBegin = false;
+        } else {
+            append(delimiter);
+        }
+        fields++;
+        int length = value == null ? 0 : value.length();
+        lastEmpty = length == 0;
+        if (length == 0) {
+            return this;
+        }
+        if (!needsQuote(value, length)) {
+            append(value, length);
+            return this;
+        }
+        append(QUOTE);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == QUOTE) {
+                append(QUOTE);
+            }
+            append(c);
+        }
+        append(QUOTE);
+        return this;
+    }
+
+    /**
+     * 结束当前记录
+     */
+    public CsvWriter endRecord() throws IOException {
+        // 只有一个空字段时写为""，否则是空行，读取时会被跳过
+        if (fields == 1 && lastEmpty) {
+            append(QUOTE);
+            append(QUOTE);
+        }
+        fields = 0;
+        append('\r');
+        append('\n');
+        recordBegin = true;
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            writer.close();
+        }
+    }
+
+    private boolean needsQuote(CharSequence value, int length) {
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == delimiter || c == QUOTE || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void append(char c) throws IOException {
+        if (count == buffer.length) {
+            flushBuffer();
+        }
+        buffer[count++] = c;
+    }
+
+    private void append(CharSequence value, int length) throws IOException {
+        if (value instanceof String) {
+            String s = (String) value;
+            int offset = 0;
+            while (offset < length) {
+                if (count == buffer.length) {
+                    flushBuffer();
+                }
+                int n = Math.min(length - offset, buffer.length - count);
+                s.getChars(offset, offset + n, buffer, count);
+                count += n;
+                offset += n;
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                append(value.charAt(i));
+            }
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            writer.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.hz.tgb.dubbo.filter;
 
 import com.alibaba.dubbo.rpc.*;
 import com.alibaba.fastjson.JSON;
+import com.hz.tgb.datetime.CachedClock;
 import com.hz.tgb.exception.CommonRuntimeException;
 import com.hz.tgb.response.Response;
 import com.hz.tgb.response.ResponseBuilder;
@@ -22,9 +23,12 @@ public class LogbackJsonLogFilter implements Filter {
 
     private static final Logger LOG = LoggerFactory.getLogger(LogbackJsonLogFilter.class);
 
+    /** 是否开启了粗粒度时钟 */
+    private static final boolean COARSE_CLOCK = CachedClock.isOptedIn(CachedClock.DUBBO_LOG);
+
     @Override
     public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
-        long startTime = System.currentTimeMillis();
+        long startTime = CachedClock.currentTimeMillis(COARSE_CLOCK);
         Result result = null;
         boolean needClearFlag = true;
         Result newResult = null;
@@ -57,7 +61,7 @@ public class LogbackJsonLogFilter implements Filter {
                 }
                 String resultStr = JSON.toJSONString(resultObj);
                 String paramStr = JSON.toJSONString(invocation.getArguments());
-                long costTime = System.currentTimeMillis() - startTime;
+                long costTime = CachedClock.currentTimeMillis(COARSE_CLOCK) - startTime;
                 if (null == throwable) {
                     // 没有抛出异常的情况 判断需要打印的日志级别
                     if (isWarnLog(resultObj)) {
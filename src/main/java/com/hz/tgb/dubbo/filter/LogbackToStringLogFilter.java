@@ -2,6 +2,7 @@ package com.hz.tgb.dubbo.filter;
 
 import ch.qos.logback.classic.Level;
 import com.alibaba.dubbo.rpc.*;
+import com.hz.tgb.datetime.CachedClock;
 import com.hz.tgb.exception.CommonRuntimeException;
 import com.hz.tgb.response.Response;
 import com.hz.tgb.response.ResponseBuilder;
@@ -24,9 +25,12 @@ public class LogbackToStringLogFilter implements Filter {
 
     private static final Logger LOG = LoggerFactory.getLogger(LogbackToStringLogFilter.class);
 
+    /** 是否开启了粗粒度时钟 */
+    private static final boolean COARSE_CLOCK = CachedClock.isOptedIn(CachedClock.DUBBO_LOG);
+
     @Override
     public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
-        long startTime = System.currentTimeMillis();
+        long startTime = CachedClock.currentTimeMillis(COARSE_CLOCK);
         Result result = null;
         boolean needClearFlag = true;
         Result newResult = null;
@@ -59,7 +63,7 @@ public class LogbackToStringLogFilter implements Filter {
                 }
                 String resultStr = resultObj == null ? null : resultObj.toString().trim().replace("\n", "").replace("\r", "").replace("\t", "");
                 String paramStr = Arrays.toString(invocation.getArguments()).trim().replace("\n", "").replace("\r", "").replace("\t", "");
-                long costTime = System.currentTimeMillis() - startTime;
+                long costTime = CachedClock.currentTimeMillis(COARSE_CLOCK) - startTime;
                 if (null == throwable) {
                     // 没有抛出异常的情况 判断需要打印的日志级别
                     Level level = getLogLevel(resultObj);
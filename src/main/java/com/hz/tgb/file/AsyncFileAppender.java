@@ -0,0 +1,521 @@
+package com.hz.tgb.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 异步批量写入的日志文件，{@link FileLog}基于本类<br>
+ * 1.调用线程只把日志放入无锁的有界环形队列，不做任何IO；队列满时{@link #append(String)}等待，{@link #tryAppend(String)}直接返回false<br>
+ * 2.单个写线程从队列中批量取出，格式化后写入一直打开的FileChannel，每批只调用一次write<br>
+ * 3.按日期滚动(目录/yyyy-MM-dd.txt)，单个文件超过maxFileSize时滚动为yyyy-MM-dd.1.txt、yyyy-MM-dd.2.txt...<br>
+ * 4.刷盘策略见{@link SyncPolicy}。<br>
+ * 5.关闭后不再有写线程，之后写入的日志由调用线程同步写入文件，不会抛出异常或丢失；关闭前一刻放入队列、写线程已来不及处理的日志同样由调用线程补写。<br>
+ * 每行格式与原来的FileLog相同：时间(yyyy/MM/dd E HH:mm:ss:S)、Tab、内容，使用系统默认编码。
+ *
+ * <pre>
+ * AsyncFileAppender appender = new AsyncFileAppender(new File("logs"));
+ * appender.append("发送成功");
+ * appender.close();
+ * </pre>
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午11:38:05
+ */
+public class AsyncFileAppender implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncFileAppender.class);
+
+    /** 默认队列容量 */
+    public static final int DEFAULT_CAPACITY = 64 * 1024;
+
+    /** 默认单个文件最大字节数 */
+    public static final long DEFAULT_MAX_FILE_SIZE = 256L * 1024 * 1024;
+
+    /** PERIODIC策略的刷盘间隔 */
+    private static final long SYNC_INTERVAL_MILLIS = 1000;
+
+    /** 写线程空闲时的最长等待时间 */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final int BATCH_BUFFER_SIZE = 256 * 1024;
+
+    private static final byte[] LINE_SEPARATOR = System.getProperty("line.separator").getBytes();
+
+    /**
+     * 刷盘策略
+     */
+    public enum SyncPolicy {
+        /** 不主动刷盘，由操作系统决定，进程崩溃不丢数据，但宕机可能丢失最近的日志 */
+        NEVER,
+        /** 最多每秒刷盘一次 */
+        PERIODIC,
+        /** 每批写入后都刷盘，最安全也最慢 */
+        EVERY_BATCH
+    }
+
+    private final File dir;
+
+    private final long maxFileSize;
+
+    private final SyncPolicy syncPolicy;
+
+    private final Charset charset = Charset.defaultCharset();
+
+    private final RingBuffer<Event> queue;
+
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    /** 写线程正在等待新的日志，放入日志后需要唤醒 */
+    private volatile boolean idle;
+
+    /** 已经写入文件的日志序号，用于flush */
+    private volatile long written;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    // 以下字段只由写线程访问
+    private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_BUFFER_SIZE);
+
+    private final SimpleDateFormat lineFormat = new SimpleDateFormat("yyyy/MM/dd E HH:mm:ss:S");
+
+    private final SimpleDateFormat fileFormat = new SimpleDateFormat("yyyy-MM-dd");
+
+    private FileChannel channel;
+
+    private String day;
+
+    private int index;
+
+    private long fileSize;
+
+    /** 当前文件的日期结束时间 */
+    private long nextDay;
+
+    private long lastSync;
+
+    private boolean dirty;
+
+    /**
+     * 使用默认的队列容量、文件大小，每秒最多刷盘一次
+     *
+     * @param dir 日志目录，不存在时自动创建
+     */
+    public AsyncFileAppender(File dir) {
+        this(dir, DEFAULT_CAPACITY, DEFAULT_MAX_FILE_SIZE, SyncPolicy.PERIODIC);
+    }
+
+    /**
+     * @param dir 日志目录，不存在时自动创建
+     * @param capacity 队列容量，向上取整为2的幂
+     * @param maxFileSize 单个文件最大字节数
+     * @param syncPolicy 刷盘策略
+     */
+    public AsyncFileAppender(File dir, int capacity, long maxFileSize, SyncPolicy syncPolicy) {
+        if (capacity <= 0 || maxFileSize <= 0) {
+            throw new IllegalArgumentException("capacity and maxFileSize must be greater than 0");
+        }
+        this.dir = dir;
+        this.maxFileSize = maxFileSize;
+        this.syncPolicy = syncPolicy;
+        this.queue = new RingBuffer<Event>(capacity);
+        this.writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "async-file-appender-" + dir.getName());
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * 写入一行日志，队列满时等待写线程腾出空间
+     *
+     * @param txt 内容
+     */
+    public void append(String txt) {
+        Event event = new Event(System.currentTimeMillis(), txt);
+        while (!offer(event)) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(10000);
+        }
+    }
+
+    /**
+     * 写入一行日志，队列满时丢弃
+     *
+     * @param txt 内容
+     * @return 是否放入队列
+     */
+    public boolean tryAppend(String txt) {
+        if (offer(new Event(System.currentTimeMillis(), txt))) {
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    private boolean offer(Event event) {
+        if (!running) {
+            writeAfterClose(event);
+            return true;
+        }
+        if (!queue.offer(event)) {
+            return false;
+        }
+        if (!running) {
+            // 放入队列的同时被关闭，写线程可能已经退出
+            writeAfterClose(null);
+        } else if (idle) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    /**
+     * 关闭后由调用线程同步写入：等待写线程退出，写完队列中剩余的日志和event后关闭文件
+     *
+     * @param event 为null时只写队列中剩余的日志
+     */
+    private void writeAfterClose(Event event) {
+        awaitWriter();
+        synchronized (this) {
+            try {
+                Event late;
+                while ((late = queue.poll()) != null) {
+                    write(late);
+                }
+                if (event != null) {
+                    write(event);
+                }
+                writeBatch();
+            } catch (RuntimeException e) {
+                LOG.error("write log error, dir:{}", dir, e);
+            } finally {
+                written = queue.consumerIndex();
+                closeChannel();
+            }
+        }
+    }
+
+    /**
+     * 等待写线程退出，不响应中断(退出后再恢复中断状态)，避免与写线程同时写文件
+     */
+    private void awaitWriter() {
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 等待调用前放入的日志都写入文件(不一定刷盘)
+     */
+    public void flush() {
+        long target = queue.producerIndex();
+        while (written < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(100000);
+        }
+    }
+
+    /**
+     * 因队列满被{@link #tryAppend(String)}丢弃的日志数
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * 写完队列中剩余的日志并关闭文件，关闭后的写入由调用线程同步完成
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        // 写线程退出前最后一次检查之后才放入队列的日志
+        writeAfterClose(null);
+    }
+
+    private void writeLoop() {
+        while (true) {
+            Event event = queue.poll();
+            if (event != null) {
+                try {
+                    write(event);
+                } catch (RuntimeException e) {
+                    // 写线程不能退出，否则调用方会一直等待
+                    LOG.error("write log error, dir:{}", dir, e);
+                }
+                continue;
+            }
+            // 队列已空，写入这一批
+            writeBatch();
+            written = queue.consumerIndex();
+            if (!running && queue.isEmpty()) {
+                break;
+            }
+            idle = true;
+            if (queue.isEmpty() && running) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            idle = false;
+            if (syncPolicy == SyncPolicy.PERIODIC && dirty
+                    && System.currentTimeMillis() - lastSync >= SYNC_INTERVAL_MILLIS) {
+                sync();
+            }
+        }
+        if (syncPolicy != SyncPolicy.NEVER && dirty) {
+            sync();
+        }
+        closeChannel();
+    }
+
+    private void write(Event event) {
+        byte[] line = (lineFormat.format(new Date(event.time)) + "\t" + event.text).getBytes(charset);
+        int length = line.length + LINE_SEPARATOR.length;
+        if (channel == null || event.time >= nextDay || fileSize + batch.position() + length > maxFileSize) {
+            writeBatch();
+            roll(event.time, length);
+        }
+        if (length > batch.remaining()) {
+            writeBatch();
+        }
+        if (length > batch.remaining()) {
+            // 超过缓冲区的长日志直接写入
+            writeFully(ByteBuffer.wrap(line));
+            writeFully(ByteBuffer.wrap(LINE_SEPARATOR));
+            return;
+        }
+        batch.put(line).put(LINE_SEPARATOR);
+    }
+
+    private void writeBatch() {
+        if (batch.position() == 0) {
+            return;
+        }
+        batch.flip();
+        writeFully(batch);
+        batch.clear();
+        if (syncPolicy == SyncPolicy.EVERY_BATCH || (syncPolicy == SyncPolicy.PERIODIC
+                && System.currentTimeMillis() - lastSync >= SYNC_INTERVAL_MILLIS)) {
+            sync();
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) {
+        if (channel == null) {
+            roll(System.currentTimeMillis(), buffer.remaining());
+            if (channel == null) {
+                // 打开文件失败，丢弃这一批
+                buffer.position(buffer.limit());
+                return;
+            }
+        }
+        try {
+            while (buffer.hasRemaining()) {
+                fileSize += channel.write(buffer);
+            }
+            dirty = true;
+        } catch (IOException e) {
+            LOG.error("write log error, dir:{}", dir, e);
+            buffer.position(buffer.limit());
+            closeChannel();
+        }
+    }
+
+    /**
+     * 切换到time对应日期的文件，当前文件放不下length字节时使用下一个序号
+     */
+    private void roll(long time, int length) {
+        String newDay = fileFormat.format(new Date(time));
+        if (!newDay.equals(day)) {
+            day = newDay;
+            index = lastIndex(newDay);
+            nextDay = nextDay(time);
+        } else if (channel != null) {
+            index++;
+        }
+        closeChannel();
+        try {
+            Files.createDirectories(dir.toPath());
+            while (true) {
+                Path file = dir.toPath().resolve(index == 0 ? day + ".txt" : day + "." + index + ".txt");
+                long size = Files.exists(file) ? Files.size(file) : 0;
+                if (size > 0 && size + length > maxFileSize) {
+                    index++;
+                    continue;
+                }
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+                fileSize = channel.size();
+                break;
+            }
+        } catch (IOException e) {
+            LOG.error("open log file error, dir:{}", dir, e);
+            channel = null;
+        }
+    }
+
+    /**
+     * 当天已有的最大滚动序号
+     */
+    private int lastIndex(String day) {
+        int last = 0;
+        while (new File(dir, day + "." + (last + 1) + ".txt").exists()) {
+            last++;
+        }
+        return last;
+    }
+
+    private static long nextDay(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        return calendar.getTimeInMillis();
+    }
+
+    private void sync() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            LOG.error("sync log file error, dir:{}", dir, e);
+        }
+        dirty = false;
+        lastSync = System.currentTimeMillis();
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            if (dirty && syncPolicy != SyncPolicy.NEVER) {
+                channel.force(false);
+            }
+            channel.close();
+        } catch (IOException e) {
+            LOG.error("close log file error, dir:{}", dir, e);
+        }
+        channel = null;
+        dirty = false;
+    }
+
+    private static final class Event {
+
+        private final long time;
+
+        private final String text;
+
+        Event(long time, String text) {
+            this.time = time;
+            this.text = text;
+        }
+    }
+
+    /**
+     * 多生产者、单消费者的有界无锁队列(Dmitry Vyukov的有界队列算法)。
+     * 每个槽位有一个序号：等于生产者位置时可写，等于生产者位置+1时可读，读完后加上容量留给下一轮
+     */
+    private static final class RingBuffer<E> {
+
+        private final int mask;
+
+        private final AtomicReferenceArray<E> elements;
+
+        private final AtomicLongArray sequences;
+
+        private final AtomicLong tail = new AtomicLong();
+
+        /** 只由消费者线程修改 */
+        private volatile long head;
+
+        RingBuffer(int capacity) {
+            int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+            this.mask = size - 1;
+            this.elements = new AtomicReferenceArray<E>(size);
+            this.sequences = new AtomicLongArray(size);
+            for (int i = 0; i < size; i++) {
+                sequences.set(i, i);
+            }
+        }
+
+        boolean offer(E element) {
+            while (true) {
+                long position = tail.get();
+                int index = (int) position & mask;
+                long sequence = sequences.get(index);
+                if (sequence == position) {
+                    if (tail.compareAndSet(position, position + 1)) {
+                        elements.lazySet(index, element);
+                        // volatile写：之后对running的读取不能重排到发布之前，关闭时才能看到这条日志
+                        sequences.set(index, position + 1);
+                        return true;
+                    }
+                } else if (sequence < position) {
+                    // 该槽位还没有被消费，队列已满
+                    return false;
+                }
+            }
+        }
+
+        E poll() {
+            long position = head;
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                return null;
+            }
+            E element = elements.get(index);
+            elements.lazySet(index, null);
+            sequences.lazySet(index, position + mask + 1);
+            head = position + 1;
+            return element;
+        }
+
+        boolean isEmpty() {
+            return sequences.get((int) head & mask) != head + 1;
+        }
+
+        long producerIndex() {
+            return tail.get();
+        }
+
+        long consumerIndex() {
+            return head;
+        }
+    }
+}
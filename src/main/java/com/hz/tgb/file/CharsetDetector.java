@@ -0,0 +1,781 @@
+package com.hz.tgb.file;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 单遍扫描的文件编码检测器，评分规则与{@link EncodingDetect}(BytesEncodingDetect)相同<br>
+ * 1.所有候选编码在同一遍扫描中计分，连续的ASCII字节走快速路径，只计数不做任何判断<br>
+ * 2.只读取前sampleBudget个字节(默认64KB)，已有足够多的非ASCII字节且某个编码的得分达到决定性置信度时提前结束<br>
+ * 3.支持InputStream、ByteBuffer、byte[]，检测GB级别的大文件也只读取开头的一小部分<br>
+ * 线程安全，可以共享一个实例。
+ *
+ * <pre>
+ * String charset = new CharsetDetector().detect(new File("upload.csv"));
+ * </pre>
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午8:21:36
+ */
+public class CharsetDetector {
+
+    /** 默认采样字节数 */
+    public static final int DEFAULT_SAMPLE_BUDGET = 64 * 1024;
+
+    /** 得分达到该值可以提前结束 */
+    private static final int DECISIVE_SCORE = 95;
+
+    /** 提前结束前至少需要扫描的非ASCII字节数 */
+    private static final int DECISIVE_EVIDENCE = 2048;
+
+    /** 每扫描多少字节检查一次是否可以提前结束 */
+    private static final int CHECK_INTERVAL = 4096;
+
+    /** 读取InputStream的缓冲区大小 */
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    /** 扫描某个位置最多需要向后看的字节数 */
+    private static final int LOOKAHEAD = 3;
+
+    private static final byte ESC = 0x1B;
+
+    private final int sampleBudget;
+
+    public CharsetDetector() {
+        this(DEFAULT_SAMPLE_BUDGET);
+    }
+
+    /**
+     * @param sampleBudget 最多读取的字节数，小于等于0表示读取全部
+     */
+    public CharsetDetector(int sampleBudget) {
+        this.sampleBudget = sampleBudget;
+    }
+
+    /**
+     * 检测文件编码
+     *
+     * @param file
+     * @return Java编码名，如GB2312、UTF-8、ASCII，无法识别时返回ISO8859_1
+     * @throws IOException
+     */
+    public String detect(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            return detect(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * 检测输入流的编码，最多读取sampleBudget个字节，不关闭输入流
+     *
+     * @param in
+     * @return Java编码名
+     * @throws IOException
+     */
+    public String detect(InputStream in) throws IOException {
+        return Encoding.javaname[detectEncoding(in)];
+    }
+
+    /**
+     * 检测buffer中[position, limit)的编码，不改变buffer的position
+     *
+     * @param buffer
+     * @return Java编码名
+     */
+    public String detect(ByteBuffer buffer) {
+        return Encoding.javaname[detectEncoding(buffer)];
+    }
+
+    /**
+     * 检测字节数组的编码
+     *
+     * @param bytes
+     * @return Java编码名
+     */
+    public String detect(byte[] bytes) {
+        return Encoding.javaname[detectEncoding(bytes, 0, bytes.length, true)];
+    }
+
+    /**
+     * @return 编码序号，见{@link Encoding}
+     */
+    int detectEncoding(InputStream in) throws IOException {
+        Scan scan = new Scan();
+        byte[] buf = new byte[READ_BUFFER_SIZE + LOOKAHEAD];
+        int count = 0;
+        long remaining = sampleBudget > 0 ? sampleBudget : Long.MAX_VALUE;
+        boolean eof = false;
+        while (!eof) {
+            int len = (int) Math.min(buf.length - count, remaining);
+            int read = len > 0 ? in.read(buf, count, len) : -1;
+            if (read < 0) {
+                eof = true;
+            } else {
+                count += read;
+                remaining -= read;
+                if (remaining <= 0) {
+                    eof = true;
+                }
+            }
+            int consumed = scan.scan(buf, count, eof);
+            if (!eof && scan.isDecisive()) {
+                break;
+            }
+            // 保留还没有扫描的字节(最多LOOKAHEAD个)
+            System.arraycopy(buf, consumed, buf, 0, count - consumed);
+            scan.shift(consumed);
+            count -= consumed;
+        }
+        return scan.result();
+    }
+
+    /**
+     * @return 编码序号，见{@link Encoding}
+     */
+    int detectEncoding(ByteBuffer buffer) {
+        ByteBuffer view = buffer.duplicate();
+        int len = view.remaining();
+        if (sampleBudget > 0 && len > sampleBudget) {
+            len = sampleBudget;
+        }
+        if (view.hasArray()) {
+            return detectEncoding(view.array(), view.arrayOffset() + view.position(), len, true);
+        }
+        byte[] bytes = new byte[len];
+        view.get(bytes);
+        return detectEncoding(bytes, 0, len, true);
+    }
+
+    /**
+     * @param earlyExit 是否允许达到决定性置信度时提前结束
+     * @return 编码序号，见{@link Encoding}
+     */
+    int detectEncoding(byte[] bytes, int offset, int length, boolean earlyExit) {
+        if (sampleBudget > 0 && length > sampleBudget) {
+            length = sampleBudget;
+        }
+        Scan scan = new Scan();
+        if (offset == 0 && !earlyExit) {
+            scan.scan(bytes, length, true);
+            return scan.result();
+        }
+        // 分段扫描，以便检查是否可以提前结束；为了不复制数据，在原数组上移动扫描窗口
+        scan.base = offset;
+        int end = offset + length;
+        while (true) {
+            int limit = Math.min(end, scan.base + scan.position + CHECK_INTERVAL);
+            boolean eof = limit == end;
+            scan.scanWindow(bytes, limit, eof, end);
+            if (eof || (earlyExit && scan.isDecisive())) {
+                break;
+            }
+        }
+        return scan.result();
+    }
+
+    /**
+     * 一次扫描的状态。各编码的评分规则来自BytesEncodingDetect原来的xxx_probability方法，
+     * 每组规则记录下一个要处理的位置(next)，这样所有规则可以在同一次循环中推进
+     */
+    private static final class Scan {
+
+        private static final int OUT = 0;
+
+        private static final int IN_GB = 1;
+
+        private static final int IN_CNS = 2;
+
+        private static final int STOP = Integer.MAX_VALUE;
+
+        /** 扫描窗口在数组中的起始下标 */
+        int base;
+
+        /** 已经扫描到的位置(相对base) */
+        int position;
+
+        /** 已扫描的总字节数 */
+        long total;
+
+        /** 非ASCII字节数 */
+        long highBytes;
+
+        boolean utf16Bom;
+
+        boolean firstBytesChecked;
+
+        // 双字节编码(GB2312/GBK/GB18030/Big5/EUC-KR/CP949/EUC-JP)共用的扫描位置
+        int pairNext;
+
+        int dbChars = 1;
+
+        int gbChars = 1;
+
+        long gbFreq;
+
+        long gbTotal = 1;
+
+        int gbkChars;
+
+        long gbkFreq;
+
+        long gbkTotal;
+
+        int gb18030Chars;
+
+        int big5Chars = 1;
+
+        long big5Freq;
+
+        long big5Total = 1;
+
+        int krChars = 1;
+
+        long krFreq;
+
+        long krTotal = 1;
+
+        int cp949Chars = 1;
+
+        long cp949Freq;
+
+        long cp949Total = 1;
+
+        int eucJpChars = 1;
+
+        long eucJpFreq;
+
+        long eucJpTotal = 1;
+
+        // EUC-TW
+        int twNext;
+
+        int twDbChars = 1;
+
+        int twChars = 1;
+
+        long twFreq;
+
+        long twTotal = 1;
+
+        // Shift-JIS
+        int sjisNext;
+
+        int sjisDbChars = 1;
+
+        int sjisChars = 1;
+
+        long sjisFreq;
+
+        long sjisTotal = 1;
+
+        // UTF-8
+        int utf8Next;
+
+        long utf8Ascii;
+
+        long utf8Good;
+
+        // HZ
+        int hzNext;
+
+        boolean hzIn;
+
+        int hzStart;
+
+        long hzFreq;
+
+        long hzTotal = 1;
+
+        // ISO-2022-CN
+        int isoNext;
+
+        int isoState = OUT;
+
+        int isoDbChars = 1;
+
+        int isoChars = 1;
+
+        long isoFreq;
+
+        long isoTotal = 1;
+
+        // ISO-2022-KR/JP、ASCII
+        boolean iso2022Kr;
+
+        boolean iso2022Jp;
+
+        long asciiPenalty;
+
+        /**
+         * 扫描buf[position, count)，返回可以丢弃的字节数(这些位置已经扫描完，且不再被任何规则引用)
+         */
+        int scan(byte[] buf, int count, boolean eof) {
+            base = 0;
+            scanWindow(buf, count, eof, count);
+            int consumed = position;
+            int min = Math.min(Math.min(Math.min(pairNext, twNext), Math.min(sjisNext, utf8Next)),
+                    Math.min(hzNext, isoNext));
+            return Math.min(consumed, min);
+        }
+
+        /**
+         * 丢弃前n个字节后调整各扫描位置
+         */
+        void shift(int n) {
+            position -= n;
+            pairNext = shift(pairNext, n);
+            twNext = shift(twNext, n);
+            sjisNext = shift(sjisNext, n);
+            utf8Next = shift(utf8Next, n);
+            hzNext = shift(hzNext, n);
+            isoNext = shift(isoNext, n);
+        }
+
+        private static int shift(int next, int n) {
+            return next == STOP ? STOP : next - n;
+        }
+
+        /**
+         * 扫描到limit(数组下标)为止；不是最后一段时，每个位置都保证能向后看LOOKAHEAD个字节
+         *
+         * @param b 数据
+         * @param limit 本次扫描的数据结束位置(数组下标，不含)
+         * @param eof limit之后是否还有数据
+         * @param end 数据的结束位置(数组下标，不含)，向后看不能超过该位置
+         */
+        void scanWindow(byte[] b, int limit, boolean eof, int end) {
+            if (!firstBytesChecked && (end - base >= 2 || eof)) {
+                firstBytesChecked = true;
+                if (end - base >= 2) {
+                    utf16Bom = (b[base] == (byte) 0xFE && b[base + 1] == (byte) 0xFF)
+                            || (b[base] == (byte) 0xFF && b[base + 1] == (byte) 0xFE);
+                }
+            }
+            int stop = eof ? limit - base : Math.min(limit - base, end - base - LOOKAHEAD);
+            int n = end - base;
+            int i = position;
+            while (i < stop) {
+                byte c = b[base + i];
+                // ASCII快速路径：所有规则都停在i，且处于初始状态
+                if (c >= 0 && c != '~' && c != ESC && pairNext == i && twNext == i && sjisNext == i
+                        && utf8Next == i && hzNext == i && isoNext == i && !hzIn && isoState == OUT) {
+                    int j = i + 1;
+                    while (j < stop) {
+                        byte d = b[base + j];
+                        if (d < 0 || d == '~' || d == ESC) {
+                            break;
+                        }
+                        j++;
+                    }
+                    utf8Ascii += j - i;
+                    pairNext = twNext = sjisNext = utf8Next = hzNext = isoNext = j;
+                    i = j;
+                    continue;
+                }
+                if (c < 0) {
+                    highBytes++;
+                    asciiPenalty++;
+                } else if (c == ESC) {
+                    asciiPenalty++;
+                    if (i + 3 < n && b[base + i + 1] == '$' && b[base + i + 2] == ')' && b[base + i + 3] == 'C') {
+                        iso2022Kr = true;
+                    }
+                    if (i + 2 < n && b[base + i + 1] == '$' && b[base + i + 2] == 'B') {
+                        iso2022Jp = true;
+                    }
+                }
+                if (pairNext == i) {
+                    pairNext = scanPair(b, i, n);
+                }
+                if (twNext == i) {
+                    twNext = scanEucTw(b, i, n);
+                }
+                if (sjisNext == i) {
+                    sjisNext = scanSjis(b, i, n);
+                }
+                if (utf8Next == i) {
+                    utf8Next = scanUtf8(b, i, n);
+                }
+                if (hzNext == i) {
+                    hzNext = scanHz(b, i, n);
+                }
+                if (isoNext == i) {
+                    isoNext = scanIso2022Cn(b, i, n);
+                }
+                i++;
+            }
+            total += i - position;
+            position = i;
+        }
+
+        /**
+         * 双字节编码：gb2312/gbk/gb18030/big5/euc_kr/cp949/euc_jp_probability
+         */
+        private int scanPair(byte[] b, int i, int n) {
+            if (i + 1 >= n) {
+                return STOP;
+            }
+            byte c = b[base + i];
+            if (c >= 0) {
+                return i + 1;
+            }
+            byte d = b[base + i + 1];
+            dbChars++;
+            int row;
+            int column;
+            // GB2312，GBK和GB18030的第一段规则与之相同
+            if ((byte) 0xA1 <= c && c <= (byte) 0xF7 && (byte) 0xA1 <= d && d <= (byte) 0xFE) {
+                gbChars++;
+                gbTotal += 500;
+                row = c + 256 - 0xA1;
+                column = d + 256 - 0xA1;
+                int freq = FrequencyTable.GB2312.get(row, column);
+                if (freq != 0) {
+                    gbFreq += freq;
+                } else if (15 <= row && row < 55) {
+                    gbFreq += 200;
+                }
+            } else if ((byte) 0x81 <= c && c <= (byte) 0xFE
+                    && (((byte) 0x80 <= d && d <= (byte) 0xFE) || ((byte) 0x40 <= d && d <= (byte) 0x7E))) {
+                // GBK、GB18030扩展区
+                gbkChars++;
+                gbkTotal += 500;
+                row = c + 256 - 0x81;
+                if (0x40 <= d && d <= 0x7E) {
+                    column = d - 0x40;
+                } else {
+                    column = d + 256 - 0x40;
+                }
+                gbkFreq += FrequencyTable.GBK.get(row, column);
+            } else if ((byte) 0x81 <= c && c <= (byte) 0xFE && i + 3 < n && (byte) 0x30 <= d && d <= (byte) 0x39
+                    && (byte) 0x81 <= b[base + i + 2] && b[base + i + 2] <= (byte) 0xFE
+                    && (byte) 0x30 <= b[base + i + 3] && b[base + i + 3] <= (byte) 0x39) {
+                // GB18030四字节
+                gb18030Chars++;
+            }
+            // Big5
+            if ((byte) 0xA1 <= c && c <= (byte) 0xF9
+                    && (((byte) 0x40 <= d && d <= (byte) 0x7E) || ((byte) 0xA1 <= d && d <= (byte) 0xFE))) {
+                big5Chars++;
+                big5Total += 500;
+                row = c + 256 - 0xA1;
+                if (0x40 <= d && d <= 0x7E) {
+                    column = d - 0x40;
+                } else {
+                    column = d + 256 - 0x61;
+                }
+                int freq = FrequencyTable.BIG5.get(row, column);
+                if (freq != 0) {
+                    big5Freq += freq;
+                } else if (3 <= row && row <= 37) {
+                    big5Freq += 200;
+                }
+            }
+            // EUC-KR、EUC-JP
+            if ((byte) 0xA1 <= c && c <= (byte) 0xFE && (byte) 0xA1 <= d && d <= (byte) 0xFE) {
+                row = c + 256 - 0xA1;
+                column = d + 256 - 0xA1;
+                krChars++;
+                krTotal += 500;
+                krFreq += FrequencyTable.EUC_KR.get(row, column);
+                eucJpChars++;
+                eucJpTotal += 500;
+                eucJpFreq += FrequencyTable.JIS.get(row, column);
+            }
+            // CP949
+            if ((byte) 0x81 <= c && c <= (byte) 0xFE && ((byte) 0x41 <= d && d <= (byte) 0x5A
+                    || (byte) 0x61 <= d && d <= (byte) 0x7A || (byte) 0x81 <= d && d <= (byte) 0xFE)) {
+                cp949Chars++;
+                cp949Total += 500;
+                if ((byte) 0xA1 <= c && c <= (byte) 0xFE && (byte) 0xA1 <= d && d <= (byte) 0xFE) {
+                    cp949Freq += FrequencyTable.EUC_KR.get(c + 256 - 0xA1, d + 256 - 0xA1);
+                }
+            }
+            return i + 2;
+        }
+
+        /**
+         * euc_tw_probability
+         */
+        private int scanEucTw(byte[] b, int i, int n) {
+            if (i + 1 >= n) {
+                return STOP;
+            }
+            byte c = b[base + i];
+            if (c >= 0) {
+                return i + 1;
+            }
+            byte d = b[base + i + 1];
+            twDbChars++;
+            if (i + 3 < n && (byte) 0x8E == c && (byte) 0xA1 <= d && d <= (byte) 0xB0
+                    && (byte) 0xA1 <= b[base + i + 2] && b[base + i + 2] <= (byte) 0xFE
+                    && (byte) 0xA1 <= b[base + i + 3] && b[base + i + 3] <= (byte) 0xFE) {
+                // Planes 1 - 16
+                twChars++;
+                return i + 4;
+            } else if ((byte) 0xA1 <= c && c <= (byte) 0xFE && (byte) 0xA1 <= d && d <= (byte) 0xFE) {
+                twChars++;
+                twTotal += 500;
+                int row = c + 256 - 0xA1;
+                int column = d + 256 - 0xA1;
+                int freq = FrequencyTable.EUC_TW.get(row, column);
+                if (freq != 0) {
+                    twFreq += freq;
+                } else if (35 <= row && row <= 92) {
+                    twFreq += 150;
+                }
+                return i + 2;
+            }
+            return i + 1;
+        }
+
+        /**
+         * sjis_probability
+         */
+        private int scanSjis(byte[] b, int i, int n) {
+            if (i + 1 >= n) {
+                return STOP;
+            }
+            byte c = b[base + i];
+            if (c >= 0) {
+                return i + 1;
+            }
+            byte d = b[base + i + 1];
+            sjisDbChars++;
+            if ((((byte) 0x81 <= c && c <= (byte) 0x9F) || ((byte) 0xE0 <= c && c <= (byte) 0xEF))
+                    && (((byte) 0x40 <= d && d <= (byte) 0x7E) || ((byte) 0x80 <= d && d <= (byte) 0xFC))) {
+                sjisChars++;
+                sjisTotal += 500;
+                int row = c + 256;
+                int column = d + 256;
+                int adjust = column < 0x9f ? 1 : 0;
+                if (row < 0xa0) {
+                    row = ((row - 0x70) << 1) - adjust;
+                } else {
+                    row = ((row - 0xb0) << 1) - adjust;
+                }
+                row -= 0x20;
+                // 原实现中列号固定为0x20
+                sjisFreq += FrequencyTable.JIS.get(row, 0x20);
+                return i + 2;
+            }
+            return i + 1;
+        }
+
+        /**
+         * utf8_probability
+         */
+        private int scanUtf8(byte[] b, int i, int n) {
+            byte c = b[base + i];
+            if (c >= 0) {
+                utf8Ascii++;
+            } else if (-64 <= c && c <= -33 && i + 1 < n && b[base + i + 1] <= -65) {
+                utf8Good += 2;
+                return i + 2;
+            } else if (-32 <= c && c <= -17 && i + 2 < n && b[base + i + 1] <= -65 && b[base + i + 2] <= -65) {
+                utf8Good += 3;
+                return i + 3;
+            }
+            return i + 1;
+        }
+
+        /**
+         * hz_probability
+         */
+        private int scanHz(byte[] b, int i, int n) {
+            byte c = b[base + i];
+            if (!hzIn) {
+                if (c == '~' && i + 1 < n) {
+                    byte d = b[base + i + 1];
+                    if (d == '{') {
+                        hzStart++;
+                        hzIn = true;
+                        return i + 2;
+                    } else if (d == '}' || d == '~') {
+                        return i + 2;
+                    }
+                }
+                return i + 1;
+            }
+            if (i + 1 >= n) {
+                return STOP;
+            }
+            byte d = b[base + i + 1];
+            if (c == 0x0A || c == 0x0D) {
+                hzIn = false;
+                return i + 1;
+            } else if (c == '~' && d == '}') {
+                hzIn = false;
+            } else if (0x21 <= c && c <= 0x77 && 0x21 <= d && d <= 0x77) {
+                hzTotal += 500;
+                int row = c - 0x21;
+                int column = d - 0x21;
+                int freq = FrequencyTable.GB2312.get(row, column);
+                if (freq != 0) {
+                    hzFreq += freq;
+                } else if (15 <= row && row < 55) {
+                    hzFreq += 200;
+                }
+            }
+            return i + 2;
+        }
+
+        /**
+         * iso_2022_cn_probability
+         */
+        private int scanIso2022Cn(byte[] b, int i, int n) {
+            byte c = b[base + i];
+            if (isoState == OUT) {
+                if (i + 1 >= n) {
+                    return STOP;
+                }
+                if (c == ESC && i + 3 < n) {
+                    if (b[base + i + 1] == 0x24 && b[base + i + 2] == 0x29 && b[base + i + 3] == 0x41) {
+                        isoState = IN_GB;
+                        return i + 4;
+                    } else if (b[base + i + 1] == 0x24 && b[base + i + 2] == 0x29 && b[base + i + 3] == 0x47) {
+                        isoState = IN_CNS;
+                        return i + 4;
+                    }
+                    return skipAsciiDesignator(b, i, n);
+                }
+                return i + 1;
+            }
+            if (c == ESC) {
+                isoState = OUT;
+                return skipAsciiDesignator(b, i, n);
+            }
+            isoDbChars++;
+            if (i + 1 < n) {
+                byte d = b[base + i + 1];
+                int row = c - 0x21;
+                int column = d - 0x21;
+                if (isoState == IN_GB && 0x21 <= c && c <= 0x77 && 0x21 <= d && d <= 0x77) {
+                    isoChars++;
+                    isoTotal += 500;
+                    int freq = FrequencyTable.GB2312.get(row, column);
+                    if (freq != 0) {
+                        isoFreq += freq;
+                    } else if (15 <= row && row < 55) {
+                        isoFreq += 200;
+                    }
+                    return i + 2;
+                } else if (isoState == IN_CNS && 0x21 <= c && c <= 0x7E && 0x21 <= d && d <= 0x7E) {
+                    isoChars++;
+                    isoTotal += 500;
+                    int freq = FrequencyTable.EUC_TW.get(row, column);
+                    if (freq != 0) {
+                        isoFreq += freq;
+                    } else if (35 <= row && row <= 92) {
+                        isoFreq += 150;
+                    }
+                    return i + 2;
+                }
+            }
+            return i + 1;
+        }
+
+        /**
+         * ESC ( B 切换回ASCII
+         */
+        private int skipAsciiDesignator(byte[] b, int i, int n) {
+            if (i + 2 < n && b[base + i + 1] == 0x28 && b[base + i + 2] == 0x42) {
+                return i + 3;
+            }
+            return i + 1;
+        }
+
+        /**
+         * 有足够多的非ASCII字节且某个编码的得分达到决定性置信度，或者有UTF-16 BOM
+         */
+        boolean isDecisive() {
+            if (utf16Bom) {
+                return true;
+            }
+            if (highBytes < DECISIVE_EVIDENCE) {
+                return false;
+            }
+            int[] scores = scores();
+            for (int score : scores) {
+                if (score >= DECISIVE_SCORE) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int[] scores() {
+            int[] scores = new int[Encoding.TOTALTYPES];
+            scores[Encoding.GB2312] = probability(gbChars, dbChars, gbFreq, gbTotal);
+            int gbkAll = gbChars + gbkChars;
+            scores[Encoding.GBK] = probability(gbkAll, dbChars, gbFreq + gbkFreq, gbTotal + gbkTotal) - 1;
+            scores[Encoding.GB18030] = probability(gbkAll + gb18030Chars, dbChars, gbFreq + gbkFreq, gbTotal + gbkTotal) - 1;
+            float hzRange;
+            if (hzStart > 4) {
+                hzRange = 50;
+            } else if (hzStart > 1) {
+                hzRange = 41;
+            } else if (hzStart > 0) {
+                hzRange = 39;
+            } else {
+                hzRange = 0;
+            }
+            scores[Encoding.HZ] = (int) (hzRange + 50 * ((float) hzFreq / (float) hzTotal));
+            scores[Encoding.BIG5] = probability(big5Chars, dbChars, big5Freq, big5Total);
+            scores[Encoding.CNS11643] = probability(twChars, twDbChars, twFreq, twTotal);
+            scores[Encoding.ISO2022CN] = probability(isoChars, isoDbChars, isoFreq, isoTotal);
+            scores[Encoding.UTF8] = utf8Score();
+            scores[Encoding.UNICODE] = utf16Bom ? 100 : 0;
+            scores[Encoding.EUC_KR] = probability(krChars, dbChars, krFreq, krTotal);
+            scores[Encoding.CP949] = probability(cp949Chars, dbChars, cp949Freq, cp949Total);
+            scores[Encoding.ISO2022KR] = iso2022Kr ? 100 : 0;
+            scores[Encoding.ASCII] = asciiPenalty >= 15 ? 0 : (int) (75 - 5 * asciiPenalty);
+            scores[Encoding.SJIS] = probability(sjisChars, sjisDbChars, sjisFreq, sjisTotal) - 1;
+            scores[Encoding.EUC_JP] = probability(eucJpChars, dbChars, eucJpFreq, eucJpTotal);
+            scores[Encoding.ISO2022JP] = iso2022Jp ? 100 : 0;
+            return scores;
+        }
+
+        private int utf8Score() {
+            if (utf8Ascii == total) {
+                return 0;
+            }
+            int score = (int) (100 * ((float) utf8Good / (float) (total - utf8Ascii)));
+            // 低于98时认为是巧合，允许少量不合法的字节
+            if (score > 98) {
+                return score;
+            } else if (score > 95 && utf8Good > 30) {
+                return score;
+            }
+            return 0;
+        }
+
+        private static int probability(int chars, int dbChars, long freq, long totalFreq) {
+            float rangeval = 50 * ((float) chars / (float) dbChars);
+            float freqval = 50 * ((float) freq / (float) totalFreq);
+            return (int) (rangeval + freqval);
+        }
+
+        /**
+         * 得分最高(相同时取序号小的)且超过50的编码，否则返回OTHER
+         */
+        int result() {
+            int[] scores = scores();
+            int maxscore = 0;
+            int guess = Encoding.OTHER;
+            for (int index = 0; index < Encoding.TOTALTYPES; index++) {
+                if (scores[index] > maxscore) {
+                    guess = index;
+                    maxscore = scores[index];
+                }
+            }
+            return maxscore <= 50 ? Encoding.OTHER : guess;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.hz.tgb.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 逐行读取并拆分由分隔符组成的文本，内存占用与文件大小无关<br>
+ * 1.字符缓冲区复用，直接在缓冲区上查找换行、trim；分隔符预编译，单个普通字符的分隔符(如","、"\\|")直接在缓冲区上拆分<br>
+ * 2.与{@link FileUtil#readTextForList(java.io.File, String)}规则相同：\r、\n、\r\n都视为换行，每行去掉首尾空白，跳过空行，
+ * 拆分规则同String.split(regex)；开头的BOM会被去掉<br>
+ * 非线程安全，用完需要关闭。
+ *
+ * <pre>
+ * try (Stream&lt;String[]&gt; rows = FileUtil.readTextForStream(file, ",")) {
+ *     rows.forEach(...);
+ * }
+ * </pre>
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午10:06:12
+ */
+public class DelimitedTextReader implements Iterator<String[]>, Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final char BOM = '\uFEFF';
+
+    private final Reader reader;
+
+    private final Pattern delimiter;
+
+    /** 分隔符为单个普通字符时直接在缓冲区上拆分，不经过正则，为0表示需要正则 */
+    private final char fastDelimiter;
+
+    private char[] buffer;
+
+    /** buffer中[position, limit)是还没有处理的字符 */
+    private int position;
+
+    private int limit;
+
+    private boolean eof;
+
+    private boolean started;
+
+    private String[] next;
+
+    /** 拆分时复用的字段列表 */
+    private final List<String> fields = new ArrayList<String>();
+
+    /**
+     * @param reader 字符流
+     * @param regex 分隔符(正则表达式)
+     */
+    public DelimitedTextReader(Reader reader, String regex) {
+        this(reader, Pattern.compile(regex));
+    }
+
+    /**
+     * @param reader 字符流
+     * @param delimiter 分隔符
+     */
+    public DelimitedTextReader(Reader reader, Pattern delimiter) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+        this.fastDelimiter = delimiter.flags() == 0 ? literalChar(delimiter.pattern()) : 0;
+        this.buffer = new char[DEFAULT_BUFFER_SIZE];
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readNext();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public String[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String[] result = next;
+        next = null;
+        return result;
+    }
+
+    /**
+     * 转为顺序流，关闭流时关闭本对象
+     *
+     * @return
+     */
+    public Stream<String[]> stream() {
+        Spliterator<String[]> spliterator = Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * 读取下一个非空行并拆分，没有更多行时返回null
+     */
+    private String[] readNext() throws IOException {
+        while (true) {
+            int end = findLineEnd();
+            if (end < 0) {
+                if (eof) {
+                    if (position >= limit) {
+                        return null;
+                    }
+                    end = limit;
+                } else {
+                    fill();
+                    continue;
+                }
+            }
+            int start = position;
+            // 跳过换行符，\r\n算一个
+            position = end;
+            if (position < limit) {
+                if (buffer[position] == '\r' && position + 1 < limit && buffer[position + 1] == '\n') {
+                    position += 2;
+                } else {
+                    position++;
+                }
+            }
+            String[] fields = split(start, end);
+            if (fields != null) {
+                return fields;
+            }
+        }
+    }
+
+    /**
+     * 从position开始查找换行符。行尾为\r且它是缓冲区最后一个字符时，需要先读入后面的内容，判断是否为\r\n
+     *
+     * @return 换行符的位置，没有找到返回-1
+     */
+    private int findLineEnd() {
+        char[] buf = buffer;
+        for (int i = position; i < limit; i++) {
+            char c = buf[i];
+            if (c == '\n') {
+                return i;
+            }
+            if (c == '\r') {
+                return i + 1 < limit || eof ? i : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 去掉首尾空白后拆分[start, end)，空行返回null
+     */
+    private String[] split(int start, int end) {
+        char[] buf = buffer;
+        while (start < end && buf[start] <= ' ') {
+            start++;
+        }
+        while (end > start && buf[end - 1] <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+        if (fastDelimiter == 0) {
+            return delimiter.split(new String(buf, start, end - start));
+        }
+        // 同String.split：去掉末尾的空字符串
+        List<String> fields = this.fields;
+        fields.clear();
+        int from = start;
+        for (int i = start; i < end; i++) {
+            if (buf[i] == fastDelimiter) {
+                fields.add(new String(buf, from, i - from));
+                from = i + 1;
+            }
+        }
+        fields.add(new String(buf, from, end - from));
+        int size = fields.size();
+        while (size > 0 && fields.get(size - 1).isEmpty()) {
+            size--;
+        }
+        return fields.subList(0, size).toArray(new String[size]);
+    }
+
+    /**
+     * 与String.split的快速路径条件相同：单个非元字符，或者转义的非字母数字字符
+     *
+     * @return 对应的字符，不满足条件时返回0
+     */
+    private static char literalChar(String regex) {
+        if (regex.length() == 1 && ".$|()[{^?*+\\".indexOf(regex.charAt(0)) == -1) {
+            return regex.charAt(0);
+        }
+        if (regex.length() == 2 && regex.charAt(0) == '\\') {
+            char c = regex.charAt(1);
+            if (((c - '0') | ('9' - c)) < 0 && ((c - 'a') | ('z' - c)) < 0 && ((c - 'A') | ('Z' - c)) < 0
+                    && (c < Character.MIN_HIGH_SURROGATE || c > Character.MAX_LOW_SURROGATE)) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 把未处理的字符移到缓冲区开头并继续读取，一行放不下时扩大缓冲区
+     */
+    private void fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            char[] larger = new char[buffer.length * 2];
+            System.arraycopy(buffer, 0, larger, 0, limit);
+            buffer = larger;
+        }
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+            return;
+        }
+        if (!started && read > 0) {
+            started = true;
+            if (buffer[limit] == BOM) {
+                position = 1;
+            }
+        }
+        limit += read;
+    }
+}
@@ -0,0 +1,608 @@
+package com.hz.tgb.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于清单(manifest)的增量目录同步<br>
+ * 1.清单记录上次同步时每个文件的相对路径、大小、修改时间以及可选的MD5，保存为二进制文件<br>
+ * 2.按目录拆分为ForkJoin任务并行扫描，每个文件只读取一次属性；大小、修改时间都没变的文件直接视为未变化，不读取内容<br>
+ * 3.开启校验和时，只有大小相同而修改时间变化的文件才计算MD5与清单比较，内容没变则只更新清单<br>
+ * 4.只复制新增、修改的文件，删除源目录中已经不存在的文件；全部处理后才写入新的清单，失败的文件下次同步时重试<br>
+ * 清单只反映上次同步时源目录的状态，目标目录被其他程序修改不会被发现，删除清单即可强制全量同步。
+ *
+ * <pre>
+ * DirectorySync.Changes changes = new DirectorySync().sync(new File("/data/www"), new File("/backup/www"));
+ * </pre>
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午10:41:26
+ */
+public class DirectorySync {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DirectorySync.class);
+
+    /** 同步到目录时，清单默认保存在目标目录下的这个文件中 */
+    public static final String MANIFEST_NAME = ".tgb-sync.manifest";
+
+    private static final int MANIFEST_MAGIC = 0x7467626D;
+
+    private static final int MANIFEST_VERSION = 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int parallelism;
+
+    private final boolean checksum;
+
+    /**
+     * 并行度为CPU核数，不计算校验和
+     */
+    public DirectorySync() {
+        this(Runtime.getRuntime().availableProcessors(), false);
+    }
+
+    /**
+     * @param parallelism 并行度，文件复制以IO为主，可以大于CPU核数
+     * @param checksum 是否在清单中记录MD5，用于识别修改时间变化而内容没变的文件
+     */
+    public DirectorySync(int parallelism, boolean checksum) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be greater than 0");
+        }
+        this.parallelism = parallelism;
+        this.checksum = checksum;
+    }
+
+    /**
+     * 增量同步目录，清单保存在目标目录下的{@link #MANIFEST_NAME}
+     *
+     * @param sourceDir 源目录
+     * @param targetDir 目标目录，不能在源目录中
+     * @return 本次同步的变化
+     * @throws IOException 读取源目录或写入清单失败；单个文件复制、删除失败记录在{@link Changes#getFailed()}中
+     */
+    public Changes sync(File sourceDir, File targetDir) throws IOException {
+        return sync(sourceDir, targetDir, new File(targetDir, MANIFEST_NAME));
+    }
+
+    /**
+     * 增量同步目录
+     *
+     * @param sourceDir 源目录
+     * @param targetDir 目标目录，不能在源目录中
+     * @param manifestFile 清单文件，不存在时全量同步
+     * @return 本次同步的变化
+     * @throws IOException 读取源目录或写入清单失败；单个文件复制、删除失败记录在{@link Changes#getFailed()}中
+     */
+    public Changes sync(File sourceDir, File targetDir, File manifestFile) throws IOException {
+        final Path source = sourceDir.toPath().toAbsolutePath().normalize();
+        final Path target = targetDir.toPath().toAbsolutePath().normalize();
+        if (target.startsWith(source)) {
+            throw new IllegalArgumentException("target dir can't be inside source dir: " + target);
+        }
+        final Changes changes = diff(sourceDir, manifestFile);
+        Files.createDirectories(target);
+
+        List<String> copies = new ArrayList<String>(changes.added.size() + changes.modified.size());
+        copies.addAll(changes.added);
+        copies.addAll(changes.modified);
+        final AtomicLong bytes = new AtomicLong();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new PathTask(copies, 0, copies.size(), new PathAction() {
+                @Override
+                public void apply(String path) throws IOException {
+                    Path to = target.resolve(path);
+                    Files.createDirectories(to.getParent());
+                    bytes.addAndGet(FileCopier.copyFile(source.resolve(path).toFile(), to.toFile(), null));
+                }
+            }, changes));
+        } finally {
+            pool.shutdown();
+        }
+        for (String path : changes.deleted) {
+            try {
+                Path file = target.resolve(path);
+                Files.deleteIfExists(file);
+                deleteEmptyParents(file.getParent(), target);
+            } catch (IOException e) {
+                changes.fail(path, e);
+            }
+        }
+        changes.bytesCopied = bytes.get();
+        changes.commit();
+        changes.elapsedMillis = System.currentTimeMillis() - changes.startTime;
+        LOG.info("sync {} --> {}: {}", source, target, changes);
+        return changes;
+    }
+
+    /**
+     * 扫描目录并与清单比较，不修改任何文件。处理完变化的文件后调用{@link Changes#commit()}保存新的清单
+     *
+     * @param dir 目录
+     * @param manifestFile 清单文件，不存在时所有文件都视为新增；清单在目录中时自身不计入
+     * @return 变化
+     * @throws IOException
+     */
+    public Changes diff(File dir, File manifestFile) throws IOException {
+        long startTime = System.currentTimeMillis();
+        Path root = dir.toPath().toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            throw new IllegalArgumentException("not a directory: " + dir);
+        }
+        Path manifest = manifestFile.toPath().toAbsolutePath().normalize();
+        Map<String, Entry> previous = readManifest(manifest);
+        Changes changes = new Changes(manifest, previous, startTime);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new ScanTask(root, "", changes));
+        } finally {
+            pool.shutdown();
+        }
+        for (String path : previous.keySet()) {
+            if (!changes.current.containsKey(path)) {
+                changes.deleted.add(path);
+            }
+        }
+        changes.sort();
+        changes.elapsedMillis = System.currentTimeMillis() - startTime;
+        LOG.debug("diff {}: {}", root, changes);
+        return changes;
+    }
+
+    private static void deleteEmptyParents(Path dir, Path root) {
+        while (dir != null && !dir.equals(root) && dir.startsWith(root)) {
+            File[] children = dir.toFile().listFiles();
+            if (children == null || children.length > 0 || !dir.toFile().delete()) {
+                return;
+            }
+            dir = dir.getParent();
+        }
+    }
+
+    /**
+     * 读取清单，格式(大端)：魔数、版本、文件数，之后按路径排序的每个文件为
+     * 与上一个路径相同前缀的长度(short)、剩余部分(writeUTF)、大小、修改时间(毫秒)、MD5长度(byte)、MD5
+     */
+    private static Map<String, Entry> readManifest(Path manifest) throws IOException {
+        if (!Files.isRegularFile(manifest)) {
+            return new HashMap<String, Entry>();
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(manifest), BUFFER_SIZE));
+        try {
+            if (in.readInt() != MANIFEST_MAGIC || in.readInt() != MANIFEST_VERSION) {
+                throw new IOException("invalid manifest file: " + manifest);
+            }
+            int count = in.readInt();
+            Map<String, Entry> entries = new HashMap<String, Entry>(Math.max(16, count * 4 / 3 + 1));
+            String last = "";
+            for (int i = 0; i < count; i++) {
+                int prefix = in.readUnsignedShort();
+                String path = last.substring(0, prefix) + in.readUTF();
+                long size = in.readLong();
+                long modified = in.readLong();
+                byte[] hash = null;
+                int hashLength = in.readUnsignedByte();
+                if (hashLength > 0) {
+                    hash = new byte[hashLength];
+                    in.readFully(hash);
+                }
+                entries.put(path, new Entry(size, modified, hash));
+                last = path;
+            }
+            return entries;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * 先写临时文件再原子替换，写入中断不会留下损坏的清单
+     */
+    private static void writeManifest(Path manifest, Map<String, Entry> entries) throws IOException {
+        Files.createDirectories(manifest.getParent());
+        Path temp = Files.createTempFile(manifest.getParent(), manifest.getFileName().toString(), ".tmp");
+        boolean success = false;
+        try {
+            String[] paths = entries.keySet().toArray(new String[entries.size()]);
+            Arrays.sort(paths);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temp, StandardOpenOption.TRUNCATE_EXISTING), BUFFER_SIZE));
+            try {
+                out.writeInt(MANIFEST_MAGIC);
+                out.writeInt(MANIFEST_VERSION);
+                out.writeInt(paths.length);
+                String last = "";
+                for (String path : paths) {
+                    Entry entry = entries.get(path);
+                    int prefix = commonPrefix(last, path);
+                    out.writeShort(prefix);
+                    out.writeUTF(path.substring(prefix));
+                    out.writeLong(entry.size);
+                    out.writeLong(entry.modified);
+                    if (entry.hash == null) {
+                        out.writeByte(0);
+                    } else {
+                        out.writeByte(entry.hash.length);
+                        out.write(entry.hash);
+                    }
+                    last = path;
+                }
+            } finally {
+                out.close();
+            }
+            Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            success = true;
+        } finally {
+            if (!success) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private static int commonPrefix(String a, String b) {
+        int max = Math.min(Math.min(a.length(), b.length()), 0xFFFF);
+        int i = 0;
+        while (i < max && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static byte[] md5(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        } finally {
+            channel.close();
+        }
+        return digest.digest();
+    }
+
+    /**
+     * 清单中的一个文件，不可变
+     */
+    private static final class Entry {
+
+        private final long size;
+
+        private final long modified;
+
+        private final byte[] hash;
+
+        Entry(long size, long modified, byte[] hash) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * 扫描一个目录：子目录拆分为子任务，文件在当前任务中与清单比较
+     */
+    private class ScanTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+
+        /** dir相对于根目录的路径，以/结尾，根目录为空串 */
+        private final String prefix;
+
+        private final Changes changes;
+
+        ScanTask(Path dir, String prefix, Changes changes) {
+            this.dir = dir;
+            this.prefix = prefix;
+            this.changes = changes;
+        }
+
+        @Override
+        protected void compute() {
+            List<ScanTask> subTasks = new ArrayList<ScanTask>();
+            try {
+                DirectoryStream<Path> stream = Files.newDirectoryStream(dir);
+                try {
+                    for (Path path : stream) {
+                        BasicFileAttributes attrs;
+                        try {
+                            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                        } catch (IOException e) {
+                            // 扫描过程中被删除，或者是失效的符号链接
+                            LOG.debug("read attributes error, file:{}", path, e);
+                            continue;
+                        }
+                        String name = prefix + path.getFileName().toString();
+                        if (attrs.isDirectory()) {
+                            ScanTask task = new ScanTask(path, name + "/", changes);
+                            task.fork();
+                            subTasks.add(task);
+                        } else if (attrs.isRegularFile() && !path.equals(changes.manifest)) {
+                            compare(path, name, attrs);
+                        }
+                    }
+                } finally {
+                    stream.close();
+                }
+            } catch (IOException e) {
+                changes.scanError(dir, e);
+            }
+            for (ScanTask task : subTasks) {
+                task.join();
+            }
+        }
+
+        private void compare(Path file, String path, BasicFileAttributes attrs) {
+            long size = attrs.size();
+            long modified = attrs.lastModifiedTime().toMillis();
+            Entry old = changes.previous.get(path);
+            if (old != null && old.size == size && old.modified == modified) {
+                changes.current.put(path, old);
+                changes.unchanged.incrementAndGet();
+                return;
+            }
+            byte[] hash = null;
+            if (checksum) {
+                try {
+                    hash = md5(file);
+                } catch (IOException e) {
+                    LOG.warn("checksum error, file:{}", file, e);
+                }
+            }
+            changes.current.put(path, new Entry(size, modified, hash));
+            if (old == null) {
+                changes.addedQueue.add(path);
+            } else if (hash != null && old.size == size && Arrays.equals(hash, old.hash)) {
+                // 只有修改时间变了
+                changes.unchanged.incrementAndGet();
+                changes.touched.incrementAndGet();
+            } else {
+                changes.modifiedQueue.add(path);
+            }
+        }
+    }
+
+    /**
+     * 对单个文件的处理
+     */
+    private interface PathAction {
+
+        void apply(String path) throws IOException;
+    }
+
+    /**
+     * 处理paths[from, to)，按二分拆分，空闲线程可以窃取另一半；失败的文件记录到changes中
+     */
+    private static class PathTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> paths;
+
+        private final int from;
+
+        private final int to;
+
+        private final PathAction action;
+
+        private final Changes changes;
+
+        PathTask(List<String> paths, int from, int to, PathAction action, Changes changes) {
+            this.paths = paths;
+            this.from = from;
+            this.to = to;
+            this.action = action;
+            this.changes = changes;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int i = from; i < to; i++) {
+                    String path = paths.get(i);
+                    try {
+                        action.apply(path);
+                    } catch (Exception e) {
+                        changes.fail(path, e);
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            PathTask right = new PathTask(paths, middle, to, action, changes);
+            right.fork();
+            new PathTask(paths, from, middle, action, changes).compute();
+            right.join();
+        }
+    }
+
+    /**
+     * 目录与清单比较的结果，路径都是以/分隔的相对路径并已排序
+     */
+    public static class Changes {
+
+        private final Path manifest;
+
+        private final Map<String, Entry> previous;
+
+        private final Map<String, Entry> current = new ConcurrentHashMap<String, Entry>();
+
+        private final Queue<String> addedQueue = new ConcurrentLinkedQueue<String>();
+
+        private final Queue<String> modifiedQueue = new ConcurrentLinkedQueue<String>();
+
+        private final AtomicInteger unchanged = new AtomicInteger();
+
+        /** 修改时间变化而MD5相同的文件数 */
+        private final AtomicInteger touched = new AtomicInteger();
+
+        private final Map<String, String> failed = Collections.synchronizedMap(new TreeMap<String, String>());
+
+        private final long startTime;
+
+        private List<String> added;
+
+        private List<String> modified;
+
+        private final List<String> deleted = new ArrayList<String>();
+
+        private long bytesCopied;
+
+        private long elapsedMillis;
+
+        private boolean committed;
+
+        private Changes(Path manifest, Map<String, Entry> previous, long startTime) {
+            this.manifest = manifest;
+            this.previous = previous;
+            this.startTime = startTime;
+        }
+
+        /**
+         * 把新的清单写入清单文件。标记为失败的文件在清单中保留原来的记录，下次同步时会再次处理
+         *
+         * @throws IOException
+         */
+        public synchronized void commit() throws IOException {
+            if (committed) {
+                return;
+            }
+            if (!added.isEmpty() || !modified.isEmpty() || !deleted.isEmpty() || touched.get() > 0
+                    || !Files.exists(manifest)) {
+                writeManifest(manifest, current);
+            }
+            committed = true;
+        }
+
+        /**
+         * 标记处理失败的文件，需要在{@link #commit()}之前调用
+         */
+        void fail(String path, Exception e) {
+            LOG.warn("sync file error, file:{}", path, e);
+            failed.put(path, e.toString());
+            Entry old = previous.get(path);
+            if (old == null) {
+                current.remove(path);
+            } else {
+                current.put(path, old);
+            }
+        }
+
+        private void scanError(Path dir, IOException e) {
+            LOG.warn("list directory error, dir:{}", dir, e);
+            failed.put(dir.toString(), e.toString());
+        }
+
+        private void sort() {
+            added = new ArrayList<String>(addedQueue);
+            modified = new ArrayList<String>(modifiedQueue);
+            Collections.sort(added);
+            Collections.sort(modified);
+            Collections.sort(deleted);
+            if (!failed.isEmpty() && !deleted.isEmpty()) {
+                // 有目录读取失败时不能判断其中的文件是否被删除，本次不删除
+                LOG.warn("skip {} deletions because of scan errors: {}", deleted.size(), failed.keySet());
+                for (String path : deleted) {
+                    current.put(path, previous.get(path));
+                }
+                deleted.clear();
+            }
+        }
+
+        /**
+         * 新增的文件
+         */
+        public List<String> getAdded() {
+            return Collections.unmodifiableList(added);
+        }
+
+        /**
+         * 修改的文件
+         */
+        public List<String> getModified() {
+            return Collections.unmodifiableList(modified);
+        }
+
+        /**
+         * 删除的文件
+         */
+        public List<String> getDeleted() {
+            return Collections.unmodifiableList(deleted);
+        }
+
+        /**
+         * 没有变化的文件数
+         */
+        public int getUnchanged() {
+            return unchanged.get();
+        }
+
+        /**
+         * 失败的文件或目录 -> 原因
+         */
+        public Map<String, String> getFailed() {
+            return Collections.unmodifiableMap(failed);
+        }
+
+        /**
+         * 同步时复制的字节数
+         */
+        public long getBytesCopied() {
+            return bytesCopied;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "files:" + current.size() + ", added:" + added.size() + ", modified:" + modified.size()
+                    + ", deleted:" + deleted.size() + ", unchanged:" + unchanged.get() + ", touched:" + touched.get()
+                    + ", failed:" + failed.size() + ", copied:" + bytesCopied + "B, elapsed:" + elapsedMillis + "ms";
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package com.hz.tgb.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 查找目录下内容相同的文件，逐步缩小候选范围，大部分文件不需要完整读取<br>
+ * 1.并行扫描目录，按文件大小分组，大小唯一的文件直接排除<br>
+ * 2.大小相同的文件计算开头、结尾各64KB的MD5再分组；不超过128KB的文件此时已经读完，结果就是最终结果<br>
+ * 3.仍然相同的文件才按64MB分段内存映射计算完整的MD5<br>
+ * 每一步都在ForkJoin线程池中并行。空文件、符号链接不参与比较。
+ *
+ * <pre>
+ * DuplicateFinder.Result result = new DuplicateFinder().find(Paths.get("/data/upload"));
+ * </pre>
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午11:12:40
+ */
+public class DuplicateFinder {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DuplicateFinder.class);
+
+    /** 开头、结尾各读取的字节数 */
+    private static final int SAMPLE_SIZE = 64 * 1024;
+
+    /** 计算完整MD5时每次映射的字节数 */
+    private static final long MAP_SEGMENT = 64L * 1024 * 1024;
+
+    /** 每个线程复用的读取缓冲区 */
+    private static final ThreadLocal<ByteBuffer> SAMPLE_BUFFER = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(SAMPLE_SIZE);
+        }
+    };
+
+    private final int parallelism;
+
+    /**
+     * 并行度为CPU核数
+     */
+    public DuplicateFinder() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism 并行度
+     */
+    public DuplicateFinder(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be greater than 0");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * 查找目录(包括子目录)下的重复文件
+     *
+     * @param dir 目录
+     * @return 查找结果
+     */
+    public Result find(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            throw new IllegalArgumentException("not a directory: " + dir);
+        }
+        long startTime = System.currentTimeMillis();
+        Result result = new Result();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Queue<Candidate> files = new ConcurrentLinkedQueue<Candidate>();
+            pool.invoke(new ScanTask(dir, files));
+            result.files = files.size();
+
+            List<List<Candidate>> groups = new ArrayList<List<Candidate>>(groupBySize(files).values());
+            List<Candidate> sampled = ties(groups);
+            result.sampled = sampled.size();
+            pool.invoke(new HashTask(sampled, 0, sampled.size(), false, result));
+
+            List<List<Candidate>> duplicates = new ArrayList<List<Candidate>>();
+            List<List<Candidate>> ties = new ArrayList<List<Candidate>>();
+            List<Candidate> full = new ArrayList<Candidate>();
+            for (List<Candidate> group : groupByHash(groups)) {
+                if (group.get(0).size <= 2L * SAMPLE_SIZE) {
+                    // 开头、结尾两段已经覆盖整个文件
+                    duplicates.add(group);
+                } else {
+                    ties.add(group);
+                    full.addAll(group);
+                }
+            }
+            result.fullyHashed = full.size();
+            pool.invoke(new HashTask(full, 0, full.size(), true, result));
+            duplicates.addAll(groupByHash(ties));
+            result.setGroups(duplicates);
+        } finally {
+            pool.shutdown();
+        }
+        result.elapsedMillis = System.currentTimeMillis() - startTime;
+        LOG.info("find duplicates in {}: {}", dir, result);
+        return result;
+    }
+
+    private static Map<Long, List<Candidate>> groupBySize(Iterable<Candidate> files) {
+        Map<Long, List<Candidate>> bySize = new HashMap<Long, List<Candidate>>();
+        for (Candidate file : files) {
+            List<Candidate> group = bySize.get(file.size);
+            if (group == null) {
+                group = new ArrayList<Candidate>(2);
+                bySize.put(file.size, group);
+            }
+            group.add(file);
+        }
+        return bySize;
+    }
+
+    /**
+     * 只保留不止一个文件的组，返回其中所有的文件
+     */
+    private static List<Candidate> ties(List<List<Candidate>> groups) {
+        List<Candidate> files = new ArrayList<Candidate>();
+        for (int i = groups.size() - 1; i >= 0; i--) {
+            if (groups.get(i).size() < 2) {
+                groups.remove(i);
+            } else {
+                files.addAll(groups.get(i));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * 在每个组(组内文件大小相同)内按hash再分组，只返回不止一个文件的组；读取失败(hash为null)的文件被排除
+     */
+    private static List<List<Candidate>> groupByHash(List<List<Candidate>> groups) {
+        List<List<Candidate>> result = new ArrayList<List<Candidate>>();
+        for (List<Candidate> group : groups) {
+            Map<ByteBuffer, List<Candidate>> byHash = new LinkedHashMap<ByteBuffer, List<Candidate>>();
+            for (Candidate file : group) {
+                if (file.hash == null) {
+                    continue;
+                }
+                ByteBuffer key = ByteBuffer.wrap(file.hash);
+                List<Candidate> same = byHash.get(key);
+                if (same == null) {
+                    same = new ArrayList<Candidate>(2);
+                    byHash.put(key, same);
+                }
+                same.add(file);
+            }
+            for (List<Candidate> same : byHash.values()) {
+                if (same.size() > 1) {
+                    result.add(same);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 开头、结尾各SAMPLE_SIZE字节的MD5，文件不超过2 * SAMPLE_SIZE时为整个文件的MD5
+     *
+     * @return 读取的字节数
+     */
+    private static long sampleHash(Candidate file) throws IOException {
+        MessageDigest digest = md5();
+        ByteBuffer buffer = SAMPLE_BUFFER.get();
+        FileChannel channel = FileChannel.open(file.path, StandardOpenOption.READ);
+        long read = 0;
+        try {
+            long size = file.size;
+            if (size <= 2L * SAMPLE_SIZE) {
+                read += update(digest, channel, buffer, 0, size);
+            } else {
+                read += update(digest, channel, buffer, 0, SAMPLE_SIZE);
+                read += update(digest, channel, buffer, size - SAMPLE_SIZE, SAMPLE_SIZE);
+            }
+        } finally {
+            channel.close();
+        }
+        file.hash = digest.digest();
+        return read;
+    }
+
+    private static long update(MessageDigest digest, FileChannel channel, ByteBuffer buffer, long position,
+            long length) throws IOException {
+        long read = 0;
+        while (read < length) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), length - read));
+            int count = channel.read(buffer, position + read);
+            if (count < 0) {
+                break;
+            }
+            buffer.flip();
+            digest.update(buffer);
+            read += count;
+        }
+        return read;
+    }
+
+    /**
+     * 整个文件的MD5，按MAP_SEGMENT分段映射
+     *
+     * @return 读取的字节数
+     */
+    private static long fullHash(Candidate file) throws IOException {
+        MessageDigest digest = md5();
+        FileChannel channel = FileChannel.open(file.path, StandardOpenOption.READ);
+        long size;
+        try {
+            size = Math.min(channel.size(), file.size);
+            for (long position = 0; position < size; position += MAP_SEGMENT) {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAP_SEGMENT, size - position));
+                digest.update(segment);
+            }
+        } finally {
+            channel.close();
+        }
+        file.hash = digest.digest();
+        return size;
+    }
+
+    /**
+     * 扫描时找到的一个文件
+     */
+    private static final class Candidate {
+
+        private final Path path;
+
+        private final long size;
+
+        /** 当前阶段的MD5，读取失败时为null */
+        private byte[] hash;
+
+        Candidate(Path path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+    }
+
+    /**
+     * 扫描一个目录：子目录拆分为子任务
+     */
+    private static class ScanTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+
+        private final Queue<Candidate> files;
+
+        ScanTask(Path dir, Queue<Candidate> files) {
+            this.dir = dir;
+            this.files = files;
+        }
+
+        @Override
+        protected void compute() {
+            List<ScanTask> subTasks = new ArrayList<ScanTask>();
+            try {
+                DirectoryStream<Path> stream = Files.newDirectoryStream(dir);
+                try {
+                    for (Path path : stream) {
+                        BasicFileAttributes attrs;
+                        try {
+                            attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        } catch (IOException e) {
+                            LOG.debug("read attributes error, file:{}", path, e);
+                            continue;
+                        }
+                        if (attrs.isDirectory()) {
+                            ScanTask task = new ScanTask(path, files);
+                            task.fork();
+                            subTasks.add(task);
+                        } else if (attrs.isRegularFile() && attrs.size() > 0) {
+                            files.add(new Candidate(path, attrs.size()));
+                        }
+                    }
+                } finally {
+                    stream.close();
+                }
+            } catch (IOException e) {
+                LOG.warn("list directory error, dir:{}", dir, e);
+            }
+            for (ScanTask task : subTasks) {
+                task.join();
+            }
+        }
+    }
+
+    /**
+     * 计算files[from, to)的MD5，按二分拆分，空闲线程可以窃取另一半
+     */
+    private static class HashTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Candidate> files;
+
+        private final int from;
+
+        private final int to;
+
+        private final boolean full;
+
+        private final Result result;
+
+        HashTask(List<Candidate> files, int from, int to, boolean full, Result result) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+            this.full = full;
+            this.result = result;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                for (int i = from; i < to; i++) {
+                    Candidate file = files.get(i);
+                    try {
+                        result.bytesRead.addAndGet(full ? fullHash(file) : sampleHash(file));
+                    } catch (IOException e) {
+                        // 扫描后被删除或没有读权限，不再参与比较
+                        file.hash = null;
+                        LOG.warn("hash file error, file:{}", file.path, e);
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            HashTask right = new HashTask(files, middle, to, full, result);
+            right.fork();
+            new HashTask(files, from, middle, full, result).compute();
+            right.join();
+        }
+    }
+
+    /**
+     * 查找结果
+     */
+    public static class Result {
+
+        /** 扫描到的非空文件数 */
+        private int files;
+
+        /** 大小与其他文件相同、读取了开头结尾的文件数 */
+        private int sampled;
+
+        /** 读取了完整内容的文件数 */
+        private int fullyHashed;
+
+        private final AtomicLong bytesRead = new AtomicLong();
+
+        private long elapsedMillis;
+
+        private List<List<Path>> groups = Collections.emptyList();
+
+        /** 每组只保留一个文件可以节省的字节数 */
+        private long wastedBytes;
+
+        private void setGroups(List<List<Candidate>> duplicates) {
+            // 按可节省的空间从大到小排序
+            Collections.sort(duplicates, new Comparator<List<Candidate>>() {
+                @Override
+                public int compare(List<Candidate> o1, List<Candidate> o2) {
+                    long w1 = o1.get(0).size * (o1.size() - 1);
+                    long w2 = o2.get(0).size * (o2.size() - 1);
+                    return w1 != w2 ? (w1 > w2 ? -1 : 1) : o1.get(0).path.compareTo(o2.get(0).path);
+                }
+            });
+            List<List<Path>> result = new ArrayList<List<Path>>(duplicates.size());
+            for (List<Candidate> group : duplicates) {
+                List<Path> paths = new ArrayList<Path>(group.size());
+                for (Candidate file : group) {
+                    paths.add(file.path);
+                }
+                Collections.sort(paths);
+                result.add(Collections.unmodifiableList(paths));
+                wastedBytes += group.get(0).size * (group.size() - 1);
+            }
+            groups = Collections.unmodifiableList(result);
+        }
+
+        /**
+         * 重复文件的分组，每组内容相同，组内按路径排序
+         */
+        public List<List<Path>> getGroups() {
+            return groups;
+        }
+
+        public int getFiles() {
+            return files;
+        }
+
+        public int getSampled() {
+            return sampled;
+        }
+
+        public int getFullyHashed() {
+            return fullyHashed;
+        }
+
+        public long getBytesRead() {
+            return bytesRead.get();
+        }
+
+        public long getWastedBytes() {
+            return wastedBytes;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "files:" + files + ", sampled:" + sampled + ", fullyHashed:" + fullyHashed + ", groups:"
+                    + groups.size() + ", wasted:" + wastedBytes + "B, read:" + bytesRead.get() + "B, elapsed:"
+                    + elapsedMillis + "ms";
+        }
+    }
+}
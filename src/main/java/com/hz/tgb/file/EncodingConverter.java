@@ -0,0 +1,519 @@
+package com.hz.tgb.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 批量转换目录下文本文件的编码(如把历史GBK、Big5文件统一转为UTF-8)<br>
+ * 1.按目录拆分为ForkJoin任务，子目录、文件并行处理<br>
+ * 2.输入文件使用内存映射，编码只根据开头一部分检测({@link CharsetDetector})，解码、编码都是流式的，不会把整个文件读成字符串<br>
+ * 3.先写到同目录下的临时文件，成功后原子地重命名覆盖原文件，转换失败(如含有不合法的字节)时原文件保持不变；
+ * 重命名之前先关闭原文件并释放映射，否则Windows上无法覆盖仍被映射的文件<br>
+ * 已经是目标编码、纯ASCII(目标编码兼容ASCII时)的文件跳过；无法识别编码的文件跳过，或按指定的编码(如ISO-8859-1)转换。
+ *
+ * <pre>
+ * EncodingConverter.Report report = new EncodingConverter("UTF-8").convert("/data/legacy", "txt", "csv");
+ * </pre>
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午9:24:15
+ */
+public class EncodingConverter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EncodingConverter.class);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final String ASCII = "ASCII";
+
+    /** 无法识别编码的文件在{@link Report#getCharsets()}中的名称，与ISO8859_1区分 */
+    public static final String UNKNOWN = "UNKNOWN";
+
+    private final Charset target;
+
+    private final int parallelism;
+
+    /** 无法识别编码时按该编码转换，为null时跳过 */
+    private final Charset unknownCharset;
+
+    /** 目标编码是否兼容ASCII，兼容时纯ASCII文件不需要转换 */
+    private final boolean asciiCompatible;
+
+    /**
+     * 并行度为CPU核数
+     *
+     * @param targetCharset 目标编码
+     */
+    public EncodingConverter(String targetCharset) {
+        this(targetCharset, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param targetCharset 目标编码
+     * @param parallelism 并行度
+     */
+    public EncodingConverter(String targetCharset, int parallelism) {
+        this(targetCharset, parallelism, null);
+    }
+
+    /**
+     * @param targetCharset 目标编码
+     * @param parallelism 并行度
+     * @param unknownCharset 无法识别编码(检测结果为{@link Encoding#OTHER})的文件按该编码转换，如已知历史文件都是Latin-1时
+     *            指定ISO-8859-1；为null时跳过这些文件
+     */
+    public EncodingConverter(String targetCharset, int parallelism, String unknownCharset) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be greater than 0");
+        }
+        this.target = Charset.forName(targetCharset);
+        this.parallelism = parallelism;
+        this.unknownCharset = unknownCharset == null ? null : Charset.forName(unknownCharset);
+        this.asciiCompatible = Arrays.equals("az~".getBytes(target), new byte[] {'a', 'z', '~'});
+    }
+
+    /**
+     * 转换目录(包括子目录)下的文件
+     *
+     * @param dir 目录
+     * @param suffixes 只转换这些后缀(不区分大小写，不含点)的文件，为空时转换所有文件
+     * @return 转换结果汇总
+     */
+    public Report convert(String dir, String... suffixes) {
+        Path root = Paths.get(dir);
+        if (!Files.isDirectory(root)) {
+            throw new IllegalArgumentException("not a directory: " + dir);
+        }
+        List<String> suffixList = new ArrayList<String>();
+        for (String suffix : suffixes) {
+            suffixList.add("." + suffix.toLowerCase(Locale.ENGLISH));
+        }
+        long startTime = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Report report;
+        try {
+            report = pool.invoke(new DirectoryTask(root, suffixList));
+        } finally {
+            pool.shutdown();
+        }
+        report.elapsedMillis = System.currentTimeMillis() - startTime;
+        LOG.info("convert {} to {}: {}", dir, target.name(), report);
+        return report;
+    }
+
+    /**
+     * 转换单个文件
+     *
+     * @param file
+     * @return 转换结果
+     */
+    public Report convertFile(String file) {
+        Report report = new Report();
+        convert(Paths.get(file), report);
+        return report;
+    }
+
+    private void convert(Path file, Report report) {
+        report.files++;
+        try {
+            transcode(file, report);
+        } catch (Exception e) {
+            report.failed.put(file.toString(), e.toString());
+            LOG.warn("convert file error, file:{}", file, e);
+        }
+    }
+
+    private void transcode(Path file, Report report) throws IOException {
+        Path temp = null;
+        String source;
+        long size;
+        long written;
+        FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            size = in.size();
+            if (size == 0) {
+                report.skip(ASCII);
+                return;
+            }
+            MappedByteBuffer bytes = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            try {
+                // 检测结果OTHER表示无法识别，不能按它的Java编码名ISO8859_1判断，否则真正的Latin-1文件也会被当作无法识别
+                int encoding = new CharsetDetector().detectEncoding(bytes);
+                Charset charset;
+                if (encoding != Encoding.OTHER) {
+                    source = Encoding.javaname[encoding];
+                    if ((ASCII.equals(source) && asciiCompatible) || Charset.forName(source).equals(target)) {
+                        report.skip(source);
+                        return;
+                    }
+                    charset = decodeCharset(source);
+                } else if (unknownCharset != null) {
+                    source = UNKNOWN;
+                    charset = unknownCharset;
+                    if (charset.equals(target)) {
+                        report.skip(source);
+                        return;
+                    }
+                } else {
+                    report.unknown++;
+                    report.count(UNKNOWN);
+                    return;
+                }
+                temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+                boolean success = false;
+                try {
+                    written = write(bytes, charset, temp);
+                    copyPermissions(file, temp);
+                    success = true;
+                } finally {
+                    if (!success) {
+                        Files.deleteIfExists(temp);
+                    }
+                }
+            } finally {
+                unmap(bytes);
+            }
+        } finally {
+            in.close();
+        }
+        // 原文件已关闭、映射已释放
+        boolean success = false;
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            success = true;
+        } finally {
+            if (!success) {
+                Files.deleteIfExists(temp);
+            }
+        }
+        report.converted++;
+        report.count(source);
+        report.bytesRead += size;
+        report.bytesWritten += written;
+    }
+
+    /**
+     * 流式解码、编码到临时文件，遇到不合法或无法映射的字符时抛出CharacterCodingException
+     *
+     * @return 写入的字节数
+     */
+    private long write(ByteBuffer bytes, Charset source, Path temp) throws IOException {
+        CharsetDecoder decoder = source.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CharsetEncoder encoder = target.newEncoder().onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        ByteBuffer out = ByteBuffer.allocate((int) (BUFFER_SIZE * encoder.maxBytesPerChar()) + 16);
+        FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        long written = 0;
+        try {
+            boolean decoded = false;
+            boolean flushed = false;
+            boolean finished = false;
+            while (!finished) {
+                if (!decoded) {
+                    CoderResult result = check(decoder.decode(bytes, chars, true));
+                    decoded = result.isUnderflow();
+                }
+                if (decoded && !flushed) {
+                    flushed = check(decoder.flush(chars)).isUnderflow();
+                }
+                chars.flip();
+                CoderResult result = check(encoder.encode(chars, out, flushed));
+                if (flushed && result.isUnderflow()) {
+                    finished = check(encoder.flush(out)).isUnderflow();
+                }
+                chars.compact();
+                written += drain(out, channel);
+            }
+        } finally {
+            channel.close();
+        }
+        return written;
+    }
+
+    /**
+     * GB2312文本中常混有GBK字符，按GBK解码
+     */
+    private static Charset decodeCharset(String source) {
+        return Charset.forName("GB2312".equals(source) ? "GBK" : source);
+    }
+
+    /**
+     * 释放映射(尽力而为)。映射默认要等到缓冲区被GC回收时才释放，Windows上在此之前无法覆盖或删除原文件；
+     * 调用之后不能再访问buffer
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            try {
+                // JDK 9+
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            } catch (NoSuchMethodException e) {
+                // JDK 8
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+        } catch (Exception e) {
+            LOG.debug("unmap buffer error", e);
+        }
+    }
+
+    private static void copyPermissions(Path source, Path target) throws IOException {
+        if (source.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(source));
+        }
+    }
+
+    private static CoderResult check(CoderResult result) throws CharacterCodingException {
+        if (result.isError()) {
+            result.throwException();
+        }
+        return result;
+    }
+
+    private static long drain(ByteBuffer out, FileChannel channel) throws IOException {
+        out.flip();
+        long written = 0;
+        while (out.hasRemaining()) {
+            written += channel.write(out);
+        }
+        out.clear();
+        return written;
+    }
+
+    /**
+     * 处理一个目录：子目录拆分为子任务，文件逐个转换
+     */
+    private class DirectoryTask extends RecursiveTask<Report> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+
+        private final List<String> suffixes;
+
+        DirectoryTask(Path dir, List<String> suffixes) {
+            this.dir = dir;
+            this.suffixes = suffixes;
+        }
+
+        @Override
+        protected Report compute() {
+            Report report = new Report();
+            List<DirectoryTask> subTasks = new ArrayList<DirectoryTask>();
+            List<Path> files = new ArrayList<Path>();
+            try {
+                DirectoryStream<Path> stream = Files.newDirectoryStream(dir);
+                try {
+                    for (Path path : stream) {
+                        if (Files.isDirectory(path)) {
+                            DirectoryTask task = new DirectoryTask(path, suffixes);
+                            task.fork();
+                            subTasks.add(task);
+                        } else if (Files.isRegularFile(path) && accept(path)) {
+                            files.add(path);
+                        }
+                    }
+                } finally {
+                    stream.close();
+                }
+            } catch (IOException e) {
+                report.failed.put(dir.toString(), e.toString());
+                LOG.warn("list directory error, dir:{}", dir, e);
+            }
+            report.merge(new FileTask(files, 0, files.size()).compute());
+            for (DirectoryTask task : subTasks) {
+                report.merge(task.join());
+            }
+            return report;
+        }
+
+        private boolean accept(Path path) {
+            if (suffixes.isEmpty()) {
+                return true;
+            }
+            String name = path.getFileName().toString().toLowerCase(Locale.ENGLISH);
+            for (String suffix : suffixes) {
+                if (name.endsWith(suffix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 转换files[from, to)，按二分拆分，空闲线程可以窃取另一半
+     */
+    private class FileTask extends RecursiveTask<Report> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> files;
+
+        private final int from;
+
+        private final int to;
+
+        FileTask(List<Path> files, int from, int to) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Report compute() {
+            if (to - from <= 1) {
+                Report report = new Report();
+                for (int i = from; i < to; i++) {
+                    convert(files.get(i), report);
+                }
+                return report;
+            }
+            int middle = (from + to) >>> 1;
+            FileTask right = new FileTask(files, middle, to);
+            right.fork();
+            Report report = new FileTask(files, from, middle).compute();
+            report.merge(right.join());
+            return report;
+        }
+    }
+
+    /**
+     * 转换结果汇总
+     */
+    public static class Report {
+
+        /** 处理的文件数 */
+        private int files;
+
+        /** 转换成功的文件数 */
+        private int converted;
+
+        /** 已经是目标编码而跳过的文件数 */
+        private int skipped;
+
+        /** 无法识别编码而跳过的文件数 */
+        private int unknown;
+
+        /** 转换成功的文件读取、写入的字节数 */
+        private long bytesRead;
+
+        private long bytesWritten;
+
+        private long elapsedMillis;
+
+        /** 检测到的编码 -> 文件数 */
+        private final Map<String, Integer> charsets = new TreeMap<String, Integer>();
+
+        /** 失败的文件 -> 原因 */
+        private final Map<String, String> failed = new LinkedHashMap<String, String>();
+
+        private void skip(String charset) {
+            skipped++;
+            count(charset);
+        }
+
+        private void count(String charset) {
+            Integer count = charsets.get(charset);
+            charsets.put(charset, count == null ? 1 : count + 1);
+        }
+
+        private void merge(Report other) {
+            files += other.files;
+            converted += other.converted;
+            skipped += other.skipped;
+            unknown += other.unknown;
+            bytesRead += other.bytesRead;
+            bytesWritten += other.bytesWritten;
+            for (Map.Entry<String, Integer> entry : other.charsets.entrySet()) {
+                Integer count = charsets.get(entry.getKey());
+                charsets.put(entry.getKey(), count == null ? entry.getValue() : count + entry.getValue());
+            }
+            failed.putAll(other.failed);
+        }
+
+        public int getFiles() {
+            return files;
+        }
+
+        public int getConverted() {
+            return converted;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
+
+        public int getUnknown() {
+            return unknown;
+        }
+
+        public long getBytesRead() {
+            return bytesRead;
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public Map<String, Integer> getCharsets() {
+            return Collections.unmodifiableMap(charsets);
+        }
+
+        public Map<String, String> getFailed() {
+            return Collections.unmodifiableMap(failed);
+        }
+
+        @Override
+        public String toString() {
+            double seconds = Math.max(elapsedMillis, 1) / 1000.0;
+            return "files:" + files + ", converted:" + converted + ", skipped:" + skipped + ", unknown:" + unknown
+                    + ", failed:" + failed.size() + ", charsets:" + charsets + ", read:" + bytesRead + "B, written:"
+                    + bytesWritten + "B, elapsed:" + elapsedMillis + "ms, " + String.format("%.1f", files / seconds)
+                    + " files/s";
+        }
+    }
+}
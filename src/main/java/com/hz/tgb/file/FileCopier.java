@@ -0,0 +1,301 @@
+package com.hz.tgb.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 零拷贝的文件、目录复制，{@link FileUtil}的copyFile、copyDir、copy都基于本类<br>
+ * 1.文件内容通过FileChannel.transferTo复制(Linux下为sendfile)，数据不经过Java堆<br>
+ * 2.默认只复制内容；preserveAttributes为true时尽量保留修改时间、访问时间以及POSIX权限，
+ * 文件系统不支持(如vfat、CIFS)时只记录日志。注意源文件只读时目标文件也会变为只读，之后不能再覆盖<br>
+ * 3.目录复制先遍历创建目录，再由固定大小、队列有界的线程池并行复制文件，队列满时由调用线程自己复制；
+ * 任何一个文件失败时取消其余文件<br>
+ * 4.可以传入{@link ProgressListener}获取进度。
+ *
+ * <pre>
+ * FileCopier.copyDir(new File("/data/db"), new File("/backup/db"), 8, true, new FileCopier.ProgressListener() {...});
+ * </pre>
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午9:47:30
+ */
+public class FileCopier {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileCopier.class);
+
+    /** 默认复制线程数 */
+    public static final int DEFAULT_THREADS = 4;
+
+    /** 单次transferTo的最大字节数，Windows下一次超过64MB会失败 */
+    private static final long MAX_TRANSFER = (64 * 1024 * 1024) - (32 * 1024);
+
+    private FileCopier() {
+    }
+
+    /**
+     * 复制进度回调
+     */
+    public interface ProgressListener {
+
+        /**
+         * 每复制一段数据(最多64MB)回调一次。目录复制时由多个线程并发调用，实现需要线程安全且尽量轻量
+         *
+         * @param file 正在复制的源文件
+         * @param copiedBytes 已经复制的字节数
+         * @param totalBytes 需要复制的总字节数
+         */
+        void onProgress(File file, long copiedBytes, long totalBytes);
+    }
+
+    /**
+     * 复制文件内容，目标文件存在时覆盖
+     *
+     * @param source 源文件
+     * @param target 目标文件
+     * @param listener 进度回调，可以为null
+     * @return 复制的字节数
+     * @throws IOException
+     */
+    public static long copyFile(File source, File target, ProgressListener listener) throws IOException {
+        return copyFile(source, target, false, listener);
+    }
+
+    /**
+     * 复制文件，目标文件存在时覆盖
+     *
+     * @param source 源文件
+     * @param target 目标文件
+     * @param preserveAttributes 是否保留修改时间、访问时间以及POSIX权限
+     * @param listener 进度回调，可以为null
+     * @return 复制的字节数
+     * @throws IOException
+     */
+    public static long copyFile(File source, File target, boolean preserveAttributes, ProgressListener listener)
+            throws IOException {
+        long copied = copyFile(source.toPath(), target.toPath(), listener, new AtomicLong(), source.length());
+        if (preserveAttributes) {
+            copyAttributes(source.toPath(), target.toPath());
+        }
+        return copied;
+    }
+
+    /**
+     * 复制目录(包括子目录)中文件的内容，目标目录中已存在的文件被覆盖
+     *
+     * @param sourceDir 源目录
+     * @param targetDir 目标目录，不能在源目录中
+     * @param threads 复制线程数
+     * @param listener 进度回调，可以为null
+     * @return 复制的字节数
+     * @throws IOException 任何一个文件复制失败
+     */
+    public static long copyDir(File sourceDir, File targetDir, int threads, ProgressListener listener)
+            throws IOException {
+        return copyDir(sourceDir, targetDir, threads, false, listener);
+    }
+
+    /**
+     * 复制目录(包括子目录)，目标目录中已存在的文件被覆盖
+     *
+     * @param sourceDir 源目录
+     * @param targetDir 目标目录，不能在源目录中
+     * @param threads 复制线程数
+     * @param preserveAttributes 是否保留文件、目录的修改时间、访问时间以及POSIX权限
+     * @param listener 进度回调，可以为null
+     * @return 复制的字节数
+     * @throws IOException 任何一个文件复制失败，此时其余文件不再复制
+     */
+    public static long copyDir(File sourceDir, File targetDir, int threads, final boolean preserveAttributes,
+            final ProgressListener listener) throws IOException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be greater than 0");
+        }
+        final Path source = sourceDir.toPath().toAbsolutePath().normalize();
+        final Path target = targetDir.toPath().toAbsolutePath().normalize();
+        if (target.startsWith(source)) {
+            throw new IllegalArgumentException("target dir can't be inside source dir: " + target);
+        }
+        final List<Path> dirs = new ArrayList<Path>();
+        final List<Path> files = new ArrayList<Path>();
+        final long[] totalBytes = new long[1];
+        Files.walkFileTree(source, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                        Files.createDirectories(target.resolve(source.relativize(dir)));
+                        dirs.add(dir);
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (attrs.isRegularFile()) {
+                            files.add(file);
+                            totalBytes[0] += attrs.size();
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+
+        final long total = totalBytes[0];
+        final AtomicLong copied = new AtomicLong();
+        final AtomicBoolean failed = new AtomicBoolean();
+        ThreadPoolExecutor executor = newExecutor(threads);
+        List<Future<Long>> futures = new ArrayList<Future<Long>>(files.size());
+        try {
+            for (final Path file : files) {
+                if (failed.get()) {
+                    break;
+                }
+                futures.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws IOException {
+                        if (failed.get()) {
+                            return 0L;
+                        }
+                        try {
+                            Path to = target.resolve(source.relativize(file));
+                            long bytes = copyFile(file, to, listener, copied, total);
+                            if (preserveAttributes) {
+                                copyAttributes(file, to);
+                            }
+                            return bytes;
+                        } catch (IOException e) {
+                            failed.set(true);
+                            throw e;
+                        } catch (RuntimeException e) {
+                            failed.set(true);
+                            throw e;
+                        }
+                    }
+                }));
+            }
+            Throwable error = null;
+            for (Future<Long> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (error == null) {
+                        error = e.getCause();
+                        // 已经失败，剩下的文件不再复制；shutdownNow只会移出队列中的任务，不会结束它们的Future，需要逐个取消
+                        for (Future<Long> other : futures) {
+                            other.cancel(true);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("copy dir interrupted: " + source, e);
+                } catch (CancellationException e) {
+                    // 失败后取消的任务
+                }
+            }
+            if (error != null) {
+                if (error instanceof IOException) {
+                    throw (IOException) error;
+                }
+                throw new IOException("copy dir error: " + source, error);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (preserveAttributes) {
+            // 目录的时间在其中的文件复制完成后再设置，从最深的目录开始
+            for (int i = dirs.size() - 1; i >= 0; i--) {
+                Path dir = dirs.get(i);
+                copyAttributes(dir, target.resolve(source.relativize(dir)));
+            }
+        }
+        LOG.debug("copy dir {} --> {}, files:{}, bytes:{}", source, target, files.size(), copied.get());
+        return copied.get();
+    }
+
+    private static long copyFile(Path source, Path target, ProgressListener listener, AtomicLong copied,
+            long total) throws IOException {
+        long position = 0;
+        FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+        try {
+            FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            try {
+                long size = in.size();
+                while (position < size) {
+                    long count = in.transferTo(position, Math.min(MAX_TRANSFER, size - position), out);
+                    if (count <= 0) {
+                        // 复制过程中源文件被截断
+                        break;
+                    }
+                    position += count;
+                    long current = copied.addAndGet(count);
+                    if (listener != null) {
+                        listener.onProgress(source.toFile(), current, total);
+                    }
+                }
+            } finally {
+                out.close();
+            }
+        } finally {
+            in.close();
+        }
+        return position;
+    }
+
+    /**
+     * 复制修改时间、访问时间、创建时间(文件系统支持时)以及POSIX权限。尽力而为：目标文件系统不支持(如vfat、CIFS)时只记录日志
+     */
+    private static void copyAttributes(Path source, Path target) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(source, BasicFileAttributes.class);
+            Files.getFileAttributeView(target, BasicFileAttributeView.class).setTimes(attrs.lastModifiedTime(),
+                    attrs.lastAccessTime(), attrs.creationTime());
+            if (source.getFileSystem().supportedFileAttributeViews().contains("posix")
+                    && target.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(source));
+            }
+        } catch (IOException e) {
+            LOG.warn("copy file attributes error, {} --> {}: {}", source, target, e.toString());
+        } catch (UnsupportedOperationException e) {
+            LOG.warn("copy file attributes error, {} --> {}: {}", source, target, e.toString());
+        }
+    }
+
+    private static ThreadPoolExecutor newExecutor(int threads) {
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(threads * 4), new ThreadFactory() {
+                    private final AtomicInteger index = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "file-copy-" + index.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
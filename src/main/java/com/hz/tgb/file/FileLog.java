@@ -4,8 +4,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 
 /**
  * 文件日志读写
@@ -75,7 +73,8 @@ public class FileLog {
 	}
 
 	/**
-	 * 写入日志
+	 * 写入日志。调用线程只把日志放入队列，由{@link AsyncFileAppender}的写线程批量写入
+	 * 项目根路径/logs/yyyy-MM-dd.txt，进程退出时写完剩余日志
 	 * 
 	 * @author hezhao
 	 * @Time 2017年3月14日 上午11:16:48
@@ -83,51 +82,31 @@ public class FileLog {
 	 *            文本
 	 */
 	public static void writeLog(String txt) {
+		AppenderHolder.APPENDER.append(txt);
+	}
 
-		SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-		// 2017/3/13 星期一 15:16:47 正在初始化...已完成
-		SimpleDateFormat sdf_1 = new SimpleDateFormat("yyyy/MM/dd E HH:mm:ss:S");
-		String now = sdf.format(new Date());// 当前时间
-
-		// 完整文件路径
-		String fileName = relativelyPath + "/" + dirname + "/" + now + ".txt";
-		// 完整文件夹路径
-		String dirFullName = relativelyPath + "/" + dirname;
-
-		File file = new File(fileName);
-		File dirFile = new File(dirFullName);
-
-		// 确保文件夹、文件都存在
-		judeDirExists(dirFile);
-		judeFileExists(file);
-
-		FileWriter fw = null;
-		BufferedWriter writer = null;
-		try {
-			// 打开一个写文件器，构造函数中的第二个参数true表示以追加形式写文件
-			fw = new FileWriter(file, true);
-			writer = new BufferedWriter(fw);
-
-			// 获取当前时间
-			String now_1 = sdf_1.format(new Date());// 当前时间
-			String content = now_1 + "	" + txt;
-
-			writer.write(content);
-			writer.newLine();// 换行
-			writer.flush();
-
-			System.out.println("正在写入日志...");
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-		} catch (IOException e) {
-			e.printStackTrace();
-		} finally {
-			try {
-				writer.close();
-				fw.close();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
+	/**
+	 * 等待已经调用writeLog的日志都写入文件
+	 */
+	public static void flush() {
+		AppenderHolder.APPENDER.flush();
+	}
+
+	/**
+	 * 第一次写日志时才启动写线程
+	 */
+	private static class AppenderHolder {
+
+		private static final AsyncFileAppender APPENDER = new AsyncFileAppender(
+				new File(relativelyPath, dirname));
+
+		static {
+			Runtime.getRuntime().addShutdownHook(new Thread("file-log-shutdown") {
+				@Override
+				public void run() {
+					APPENDER.close();
+				}
+			});
 		}
 	}
 	
@@ -43,7 +43,13 @@ public enum FileType {
         return value;  
     }  
   
+    /** 
+     * 修改魔数，FileTypeJudge随之重建前缀树. 
+     *  
+     * @param value 16进制魔数 
+     */  
     public void setValue(String value) {  
         this.value = value;  
+        FileTypeJudge.reload();  
     }  
 }  
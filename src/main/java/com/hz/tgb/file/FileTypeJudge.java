@@ -1,77 +1,219 @@
 package com.hz.tgb.file;
 
-import com.hz.tgb.common.ByteUtil;
-
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
- * 文件类型
+ * 文件类型<br>
+ * 根据文件头(魔数)判断文件类型：由FileType的魔数构建一棵按字节匹配的前缀树，直接在byte[]/ByteBuffer上逐字节查找，
+ * 不转换16进制字符串，不产生临时对象；多个魔数都匹配时取最长的一个
  *
  * create by hezhao on 2017-08-16
  */
 public final class FileTypeJudge {
 
+    /** 每个线程读取文件头的缓冲 */
+    private static final ThreadLocal<byte[]> HEAD = new ThreadLocal<byte[]>();
+
+    private static volatile MagicTrie trie = new MagicTrie(FileType.values());
+
     private FileTypeJudge() {
         // 私有类构造方法
     }
 
     /**
-     * 得到文件头
+     * 判断文件类型，读取文件头后关闭流
      *
-     * @param inputStream 文件路径
-     * @return 文件头
-     * @throws IOException
+     * @param inputStream 文件
+     * @return 文件类型，无法识别时返回null
      */
-    private static String getFileContent(InputStream inputStream) throws IOException {
-
-        byte[] b = new byte[28];
-
-        //InputStream inputStream = null;  
+    public static FileType getType(InputStream inputStream) throws IOException {
+        try {
+            byte[] head = getHeadBuffer();
+            return getType(head, 0, readHead(inputStream, head));
+        } finally {
+            inputStream.close();
+        }
+    }
 
+    /**
+     * 判断文件类型，不消耗也不关闭流：通过mark/reset读取文件头，判断后流仍从原位置开始读取，
+     * 上传等场景可以先判断类型再继续读取(保存)整个流
+     *
+     * @param inputStream 支持mark/reset的流，如BufferedInputStream
+     * @return 文件类型，无法识别时返回null
+     * @throws IllegalArgumentException 流不支持mark/reset
+     */
+    public static FileType sniff(InputStream inputStream) throws IOException {
+        if (!inputStream.markSupported()) {
+            throw new IllegalArgumentException("流不支持mark/reset，请使用BufferedInputStream包装");
+        }
+        byte[] head = getHeadBuffer();
+        inputStream.mark(head.length);
         try {
-            //inputStream = new FileInputStream(filePath);  
-            inputStream.read(b, 0, 28);
-        } catch (IOException e) {
-            e.printStackTrace();
-            throw e;
+            return getType(head, 0, readHead(inputStream, head));
         } finally {
-            if (inputStream != null) {
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    e.printStackTrace();
-                    throw e;
-                }
-            }
+            inputStream.reset();
         }
-        return ByteUtil.bytesToHexString(b);
     }
 
     /**
      * 判断文件类型
      *
-     * @param inputStream 文件
-     * @return 文件类型
+     * @param head 文件头
+     * @return 文件类型，无法识别时返回null
      */
-    public static FileType getType(InputStream inputStream) throws IOException {
+    public static FileType getType(byte[] head) {
+        return getType(head, 0, head.length);
+    }
+
+    /**
+     * 判断文件类型
+     *
+     * @param head 包含文件头的数组
+     * @param offset 文件头的开始位置
+     * @param length 文件头的长度
+     * @return 文件类型，无法识别时返回null
+     */
+    public static FileType getType(byte[] head, int offset, int length) {
+        MagicTrie t = trie;
+        int[] next = t.next;
+        FileType[] types = t.types;
+        FileType type = null;
+        int node = 0;
+        for (int i = offset, end = offset + Math.min(length, t.depth); i < end; i++) {
+            node = next[(node << 8) | (head[i] & 0xFF)];
+            if (node == 0) {
+                break;
+            }
+            if (types[node] != null) {
+                type = types[node];
+            }
+        }
+        return type;
+    }
+
+    /**
+     * 判断文件类型，从position开始按绝对位置读取，不改变ByteBuffer的position
+     *
+     * @param head 文件头
+     * @return 文件类型，无法识别时返回null
+     */
+    public static FileType getType(ByteBuffer head) {
+        MagicTrie t = trie;
+        int[] next = t.next;
+        FileType[] types = t.types;
+        FileType type = null;
+        int node = 0;
+        for (int i = head.position(), end = i + Math.min(head.remaining(), t.depth); i < end; i++) {
+            node = next[(node << 8) | (head.get(i) & 0xFF)];
+            if (node == 0) {
+                break;
+            }
+            if (types[node] != null) {
+                type = types[node];
+            }
+        }
+        return type;
+    }
+
+    /**
+     * 判断文件类型需要读取的文件头长度，即最长魔数的字节数
+     */
+    public static int getMaxMagicLength() {
+        return trie.depth;
+    }
 
-        String fileHead = getFileContent(inputStream);
+    /**
+     * FileType的魔数修改后重建前缀树
+     */
+    static void reload() {
+        trie = new MagicTrie(FileType.values());
+    }
 
-        if (fileHead == null || fileHead.length() == 0) {
-            return null;
+    private static byte[] getHeadBuffer() {
+        int depth = trie.depth;
+        byte[] head = HEAD.get();
+        if (head == null || head.length != depth) {
+            head = new byte[depth];
+            HEAD.set(head);
         }
+        return head;
+    }
 
-        fileHead = fileHead.toUpperCase();
+    /**
+     * 读取文件头，直到读满或流结束
+     *
+     * @return 读取的字节数
+     */
+    private static int readHead(InputStream inputStream, byte[] head) throws IOException {
+        int length = 0;
+        int n;
+        while (length < head.length && (n = inputStream.read(head, length, head.length - length)) != -1) {
+            length += n;
+        }
+        return length;
+    }
+
+    /**
+     * 魔数前缀树：节点i读入字节b后转到next[i * 256 + b]，0表示无法继续匹配(根节点不会被转入)；
+     * types[i]为以节点i结尾的魔数对应的文件类型
+     */
+    private static final class MagicTrie {
+
+        private final int[] next;
+
+        private final FileType[] types;
 
-        FileType[] fileTypes = FileType.values();
+        /** 最长魔数的字节数 */
+        private final int depth;
 
-        for (FileType type : fileTypes) {
-            if (fileHead.startsWith(type.getValue())) {
-                return type;
+        MagicTrie(FileType[] fileTypes) {
+            int capacity = 1;
+            for (FileType type : fileTypes) {
+                capacity += type.getValue().length() / 2;
             }
+            int[] next = new int[capacity << 8];
+            FileType[] types = new FileType[capacity];
+            int size = 1;
+            int depth = 0;
+            for (FileType type : fileTypes) {
+                byte[] magic = parseHex(type.getValue());
+                int node = 0;
+                for (byte b : magic) {
+                    int index = (node << 8) | (b & 0xFF);
+                    if (next[index] == 0) {
+                        next[index] = size++;
+                    }
+                    node = next[index];
+                }
+                // 与FileType声明顺序靠前的魔数相同时保留靠前的
+                if (node != 0 && types[node] == null) {
+                    types[node] = type;
+                }
+                depth = Math.max(depth, magic.length);
+            }
+            this.next = Arrays.copyOf(next, size << 8);
+            this.types = Arrays.copyOf(types, size);
+            this.depth = depth;
         }
 
-        return null;
+        private static byte[] parseHex(String hex) {
+            if (hex == null || (hex.length() & 1) != 0) {
+                throw new IllegalArgumentException("魔数不是有效的16进制字符串：" + hex);
+            }
+            byte[] bytes = new byte[hex.length() / 2];
+            for (int i = 0; i < bytes.length; i++) {
+                int high = Character.digit(hex.charAt(i * 2), 16);
+                int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+                if (high < 0 || low < 0) {
+                    throw new IllegalArgumentException("魔数不是有效的16进制字符串：" + hex);
+                }
+                bytes[i] = (byte) ((high << 4) | low);
+            }
+            return bytes;
+        }
     }
 }
@@ -1,7 +1,6 @@
 package com.hz.tgb.file;
 
 import com.hz.tgb.common.StringUtil;
-import org.apache.commons.io.input.BOMInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -9,9 +8,15 @@ import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * java文件操作工具类<br>
@@ -29,6 +34,11 @@ public class FileUtil {
 	 */
 	public static final String separator = "/";
 
+	/**
+	 * readFileByBytes能读取的最大文件，部分JVM数组长度不能达到Integer.MAX_VALUE
+	 */
+	private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
 	private FileUtil() {
 		// 私有类构造方法
 	}
@@ -57,7 +67,7 @@ public class FileUtil {
     }
 
 	/**
-	 * 使用NIO进行快速的文件拷贝
+	 * 使用NIO进行快速的文件拷贝(transferTo零拷贝)，只复制内容
 	 * @author hezhao
 	 * @Time   2017年8月1日 上午11:38:27
 	 * @param in 源文件
@@ -65,28 +75,7 @@ public class FileUtil {
 	 * @throws IOException
 	 */
 	public static void fileCopy(File in, File out) throws IOException {
-		FileChannel inChannel = new FileInputStream(in).getChannel();
-		FileChannel outChannel = new FileOutputStream(out).getChannel();
-		try {
-			// inChannel.transferTo(0, inChannel.size(), outChannel); //
-			// original -- apparently has trouble copying large files on Windows
-
-			// magic number for Windows, 64Mb - 32Kb)
-			int maxCount = (64 * 1024 * 1024) - (32 * 1024);
-			long size = inChannel.size();
-			long position = 0;
-			while (position < size) {
-				position += inChannel
-						.transferTo(position, maxCount, outChannel);
-			}
-		} finally {
-			if (inChannel != null) {
-				inChannel.close();
-			}
-			if (outChannel != null) {
-				outChannel.close();
-			}
-		}
+		FileCopier.copyFile(in, out, null);
 	}
 
 	/**
@@ -103,31 +92,7 @@ public class FileUtil {
 					+ sourceFile.getPath() + "文件！");
 			return false;
 		}
-		if (!targetFile.exists()) {
-			targetFile.createNewFile();
-		}
-		// 新建文件输入流并对它进行缓冲
-		InputStream input = new FileInputStream(sourceFile);
-		BufferedInputStream inBuff = new BufferedInputStream(input);
-
-		// 新建文件输出流并对它进行缓冲
-		OutputStream output = new FileOutputStream(targetFile);
-		BufferedOutputStream outBuff = new BufferedOutputStream(output);
-
-		// 缓冲数组
-		byte[] b = new byte[1024 * 5];
-		int len;
-		while ((len = inBuff.read(b)) != -1) {
-			outBuff.write(b, 0, len);
-		}
-		// 刷新此缓冲的输出流
-		outBuff.flush();
-
-		// 关闭流
-		inBuff.close();
-		outBuff.close();
-		output.close();
-		input.close();
+		FileCopier.copyFile(sourceFile, targetFile, null);
 		return true;
 	}
 
@@ -283,64 +248,62 @@ public class FileUtil {
 
 	/**
 	 *
-	 * 拷贝文件夹中的所有文件到另外一个文件夹
+	 * 拷贝文件夹中的所有文件到另外一个文件夹，使用{@link FileCopier#DEFAULT_THREADS}个线程并行复制
 	 *
 	 * @param srcDirector
 	 *            源文件夹
 	 *
 	 * @param desDirector
-	 *            目标文件夹
+	 *            目标文件夹，不能在源文件夹中
 	 */
 
 	public static void copyDir(String srcDirector, String desDirector)
 			throws IOException {
+		copyDir(srcDirector, desDirector, null);
+	}
 
-		(new File(desDirector)).mkdirs();
-
-		File[] file = (new File(srcDirector)).listFiles();
-
-		for (int i = 0; i < file.length; i++) {
-
-			if (file[i].isFile()) {
-
-				logger.debug("拷贝：" + file[i].getAbsolutePath() + "-->"
-						+ desDirector + "/" + file[i].getName());
-
-				FileInputStream input = new FileInputStream(file[i]);
-
-				FileOutputStream output = new FileOutputStream(desDirector
-						+ "/" + file[i].getName());
-
-				byte[] b = new byte[1024 * 5];
-
-				int len;
-
-				while ((len = input.read(b)) != -1) {
-
-					output.write(b, 0, len);
-
-				}
-
-				output.flush();
-
-				output.close();
-
-				input.close();
-
-			}
-
-			if (file[i].isDirectory()) {
-
-				logger.debug("拷贝：" + file[i].getAbsolutePath() + "-->"
-						+ desDirector + "/" + file[i].getName());
-
-				copyDir(srcDirector + "/" + file[i].getName(), desDirector
-						+ "/" + file[i].getName());
-
-			}
+	/**
+	 * 拷贝文件夹中的所有文件到另外一个文件夹，并回调复制进度
+	 *
+	 * @param srcDirector
+	 *            源文件夹
+	 * @param desDirector
+	 *            目标文件夹，不能在源文件夹中
+	 * @param listener
+	 *            进度回调，会被多个线程并发调用
+	 * @return 复制的字节数
+	 */
+	public static long copyDir(String srcDirector, String desDirector,
+			FileCopier.ProgressListener listener) throws IOException {
+		return FileCopier.copyDir(new File(srcDirector), new File(desDirector),
+				FileCopier.DEFAULT_THREADS, listener);
+	}
 
-		}
+	/**
+	 * 增量同步文件夹：只复制上次同步后新增、修改的文件，并删除源文件夹中已不存在的文件。
+	 * 清单保存在目标文件夹的{@link DirectorySync#MANIFEST_NAME}中，第一次同步为全量复制
+	 *
+	 * @param srcDirector
+	 *            源文件夹
+	 * @param desDirector
+	 *            目标文件夹，不能在源文件夹中
+	 * @return 本次同步的变化
+	 */
+	public static DirectorySync.Changes syncDir(String srcDirector, String desDirector)
+			throws IOException {
+		return new DirectorySync().sync(new File(srcDirector), new File(desDirector));
+	}
 
+	/**
+	 * 查找文件夹(包括子文件夹)下内容相同的文件。先按大小、再按开头结尾各64KB的MD5筛选，
+	 * 只有仍然相同的文件才计算完整的MD5，详见{@link DuplicateFinder}
+	 *
+	 * @param dir
+	 *            文件夹
+	 * @return 重复文件的分组，每组内容相同，按可节省的空间从大到小排序
+	 */
+	public static List<List<Path>> findDuplicates(Path dir) {
+		return new DuplicateFinder().find(dir).getGroups();
 	}
 
 	/**
@@ -357,48 +320,13 @@ public class FileUtil {
 	public static void copy(String source, String target, boolean isFolder)
 			throws Exception {
 		if (isFolder) {
-			(new File(target)).mkdirs();
-			File a = new File(source);
-			String[] file = a.list();
-			File temp = null;
-			for (int i = 0; i < file.length; i++) {
-				if (source.endsWith(File.separator)) {
-					temp = new File(source + file[i]);
-				} else {
-					temp = new File(source + File.separator + file[i]);
-				}
-				if (temp.isFile()) {
-					FileInputStream input = new FileInputStream(temp);
-					FileOutputStream output = new FileOutputStream(target + "/"
-							+ (temp.getName()).toString());
-					byte[] b = new byte[1024];
-					int len;
-					while ((len = input.read(b)) != -1) {
-						output.write(b, 0, len);
-					}
-					output.flush();
-					output.close();
-					input.close();
-				}
-				if (temp.isDirectory()) {
-					copy(source + "/" + file[i], target + "/" + file[i], true);
-				}
-			}
+			copyDir(source, target);
 		} else {
-			int byteread = 0;
 			File oldfile = new File(source);
 			if (oldfile.exists()) {
-				InputStream inStream = new FileInputStream(source);
 				File file = new File(target);
 				file.getParentFile().mkdirs();
-				file.createNewFile();
-				FileOutputStream fs = new FileOutputStream(file);
-				byte[] buffer = new byte[1024];
-				while ((byteread = inStream.read(buffer)) != -1) {
-					fs.write(buffer, 0, byteread);
-				}
-				inStream.close();
-				fs.close();
+				FileCopier.copyFile(oldfile, file, null);
 			}
 		}
 	}
@@ -655,38 +583,65 @@ public class FileUtil {
 	 * @return
 	 */
 	public static byte[] readFileByBytes(File file) throws IOException {
-		byte[] data = null;
 		if (file == null || !file.exists()) {
 			String filePath = (file != null && file.getPath().trim().length() > 0)
 					? file.getPath() : "filePath 为空";
 			throw new FileNotFoundException(filePath);
-		} else {
-			ByteArrayOutputStream bos = new ByteArrayOutputStream((int) file.length());
-			BufferedInputStream in = null;
-
-			try {
-				in = new BufferedInputStream(new FileInputStream(file));
-				short bufSize = 1024;
-				byte[] buffer = new byte[bufSize];
-				int len1;
-				while (-1 != (len1 = in.read(buffer, 0, bufSize))) {
-					bos.write(buffer, 0, len1);
-				}
+		}
+		FileChannel channel = new FileInputStream(file).getChannel();
+		try {
+			long size = channel.size();
+			if (size > MAX_ARRAY_SIZE) {
+				throw new IOException("文件过大(" + size + "字节)，请使用mapFile：" + file.getPath());
+			}
+			// 按文件大小一次分配，读取过程中文件变大时多出的部分忽略
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+			}
+			if (buffer.hasRemaining()) {
+				return Arrays.copyOf(buffer.array(), buffer.position());
+			}
+			return buffer.array();
+		} finally {
+			channel.close();
+		}
+	}
 
-				data = bos.toByteArray();
-			} finally {
-				try {
-					if (in != null) {
-						in.close();
-					}
-				} catch (IOException e) {
-					e.printStackTrace();
-				}
+	/**
+	 * 以只读内存映射的方式读取整个文件，数据不进入Java堆，适用于大文件的随机读取。
+	 * 单个映射最大2GB，更大的文件请使用{@link #mapFile(File, long, long)}分段映射
+	 *
+	 * @param file 源文件
+	 * @return
+	 * @throws IOException
+	 */
+	public static MappedByteBuffer mapFile(File file) throws IOException {
+		long size = file.length();
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("文件超过2GB，请分段映射：" + file.getPath());
+		}
+		return mapFile(file, 0, size);
+	}
 
-				bos.close();
-			}
+	/**
+	 * 以只读内存映射的方式读取文件的一段，文件关闭后映射仍然有效
+	 *
+	 * @param file 源文件
+	 * @param position 起始位置
+	 * @param size 映射的字节数，不能超过Integer.MAX_VALUE
+	 * @return
+	 * @throws IOException
+	 */
+	public static MappedByteBuffer mapFile(File file, long position, long size) throws IOException {
+		if (!file.exists()) {
+			throw new FileNotFoundException(file.getPath());
+		}
+		FileChannel channel = new FileInputStream(file).getChannel();
+		try {
+			return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+		} finally {
+			channel.close();
 		}
-		return data;
 	}
 
     /**
@@ -943,28 +898,16 @@ public class FileUtil {
      */
     public static List<String[]> readTextForList(File file, String regex) throws IOException {
         List<String[]> list = new ArrayList<>();
-
-        if (file == null || !file.exists()) {
-            String filePath = (file != null && file.getPath().trim().length() > 0)
-                    ? file.getPath() : "filePath 为空";
-            logger.error("FileUtil.readTextForList.FileNotFoundException :找不到" + filePath + "文件！");
-            throw new FileNotFoundException(filePath);
-        }
-
-        //获取文件编码
-        String fileEncode = EncodingDetect.getJavaEncode(file.getAbsolutePath());
-        FileInputStream fis = new FileInputStream(file);
-        BufferedReader br = new BufferedReader(new InputStreamReader(new BOMInputStream(fis), fileEncode));
-        String temp = "";
-        while ((temp = br.readLine()) != null) {
-            //去除空行，空格
-            if(temp != null && temp.trim().length() > 0) {
-                list.add(temp.trim().split(regex));
+        DelimitedTextReader reader = openDelimitedText(file, regex, "readTextForList");
+        try {
+            while (reader.hasNext()) {
+                list.add(reader.next());
             }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            reader.close();
         }
-        br.close();
-        fis.close();
-
         return list;
     }
 
@@ -982,6 +925,45 @@ public class FileUtil {
         return readTextForList(file, regex);
     }
 
+    /**
+     * 逐行读取文件内容，返回按regex拆分后的流，规则与{@link #readTextForList(File, String)}相同。
+     * 读取时才解析，内存占用与文件大小无关，适用于GB级的日志、对账文件
+     * 自动识别文件编码，使用完需要关闭流
+     *
+     * @param file 源文件
+     * @param regex 分隔符
+     * @return
+     * @throws IOException
+     */
+    public static Stream<String[]> readTextForStream(File file, String regex) throws IOException {
+        return openDelimitedText(file, regex, "readTextForStream").stream();
+    }
+
+    /**
+     * 逐行读取文件内容，返回按regex拆分后的流，使用完需要关闭流
+     *
+     * @param filePath 源文件路径
+     * @param regex 分隔符
+     * @return
+     * @throws IOException
+     */
+    public static Stream<String[]> readTextForStream(String filePath, String regex) throws IOException {
+        File file = new File(filePath);
+        return readTextForStream(file, regex);
+    }
+
+    private static DelimitedTextReader openDelimitedText(File file, String regex, String method) throws IOException {
+        if (file == null || !file.exists()) {
+            String filePath = (file != null && file.getPath().trim().length() > 0)
+                    ? file.getPath() : "filePath 为空";
+            logger.error("FileUtil." + method + ".FileNotFoundException :找不到" + filePath + "文件！");
+            throw new FileNotFoundException(filePath);
+        }
+        Pattern pattern = Pattern.compile(regex);
+        //自动识别文件编码
+        return new DelimitedTextReader(EncodingDetect.getReader(file.getAbsolutePath()), pattern);
+    }
+
 	/**
 	 * 读取对象，返回一个对象
 	 *
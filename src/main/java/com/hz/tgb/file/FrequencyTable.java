@@ -0,0 +1,165 @@
+package com.hz.tgb.file;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 编码检测用的常用字频率表，保存在classpath下的encoding.freq中，第一次查询某个表时才解析该表<br>
+ * 文件格式(大端)：依次为各个表，每个表为 表名(writeUTF)、行数、列数、非零项个数，之后每个非零项为 下标(行*列数+列)、频率，均为short。
+ * 解析后保存为一维short数组。<br>
+ * 类初始化时读入文件(约10KB)并校验各个表的位置，文件缺失或损坏时记录错误日志，所有表按空表处理(频率均为0)，
+ * 编码检测退化为只按字节结构评分，不会在检测过程中抛出异常。
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午8:52:07
+ */
+final class FrequencyTable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FrequencyTable.class);
+
+    private static final String RESOURCE = "encoding.freq";
+
+    private static final short[] EMPTY = new short[0];
+
+    /** encoding.freq的内容，加载失败时为空数组 */
+    private static final byte[] DATA;
+
+    /** 表名 -> 表头在DATA中的位置 */
+    private static final Map<String, Integer> OFFSETS;
+
+    static {
+        byte[] data = new byte[0];
+        Map<String, Integer> offsets = Collections.emptyMap();
+        try {
+            data = read();
+            offsets = index(data);
+        } catch (IOException e) {
+            LOG.error("load " + RESOURCE + " error, charset detection without frequency tables", e);
+        }
+        DATA = data;
+        OFFSETS = offsets;
+    }
+
+    static final FrequencyTable GB2312 = new FrequencyTable("gb2312");
+
+    static final FrequencyTable GBK = new FrequencyTable("gbk");
+
+    static final FrequencyTable BIG5 = new FrequencyTable("big5");
+
+    static final FrequencyTable EUC_TW = new FrequencyTable("euc_tw");
+
+    static final FrequencyTable EUC_KR = new FrequencyTable("euc_kr");
+
+    static final FrequencyTable JIS = new FrequencyTable("jis");
+
+    private final String name;
+
+    private int columns;
+
+    private volatile short[] freq;
+
+    private FrequencyTable(String name) {
+        this.name = name;
+        if (!OFFSETS.isEmpty() && !OFFSETS.containsKey(name)) {
+            LOG.error("frequency table {} not found in {}, use empty table", name, RESOURCE);
+        }
+    }
+
+    /**
+     * 频率，0表示不是常用字；行列超出范围时返回0
+     */
+    int get(int row, int column) {
+        short[] f = freq;
+        if (f == null) {
+            f = load();
+        }
+        if (row < 0 || column < 0 || column >= columns) {
+            return 0;
+        }
+        int index = row * columns + column;
+        return index < f.length ? f[index] : 0;
+    }
+
+    private short[] load() {
+        synchronized (FrequencyTable.class) {
+            if (freq != null) {
+                return freq;
+            }
+            Integer offset = OFFSETS.get(name);
+            if (offset == null) {
+                freq = EMPTY;
+                return EMPTY;
+            }
+            try {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(DATA, offset, DATA.length - offset));
+                in.readUTF();
+                int rows = in.readUnsignedShort();
+                int cols = in.readUnsignedShort();
+                int count = in.readUnsignedShort();
+                short[] table = new short[rows * cols];
+                for (int i = 0; i < count; i++) {
+                    int index = in.readUnsignedShort();
+                    table[index] = in.readShort();
+                }
+                columns = cols;
+                freq = table;
+                return table;
+            } catch (IOException e) {
+                // 类初始化时已校验过长度，不会发生
+                throw new IllegalStateException("load frequency table error: " + name, e);
+            }
+        }
+    }
+
+    private static byte[] read() throws IOException {
+        InputStream in = FrequencyTable.class.getResourceAsStream(RESOURCE);
+        if (in == null) {
+            throw new IOException("frequency table not found in classpath: "
+                    + FrequencyTable.class.getPackage().getName().replace('.', '/') + "/" + RESOURCE);
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+            byte[] buf = new byte[4096];
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                out.write(buf, 0, len);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * 校验文件格式并记录每个表的位置，下标越界的表视为文件损坏
+     */
+    private static Map<String, Integer> index(byte[] data) throws IOException {
+        Map<String, Integer> offsets = new HashMap<String, Integer>();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int position = 0;
+        while (position < data.length) {
+            String tableName = in.readUTF();
+            int rows = in.readUnsignedShort();
+            int cols = in.readUnsignedShort();
+            int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                if (in.readUnsignedShort() >= rows * cols) {
+                    throw new IOException(RESOURCE + " is corrupted, table: " + tableName);
+                }
+                in.readShort();
+            }
+            offsets.put(tableName, position);
+            position = data.length - in.available();
+        }
+        return offsets;
+    }
+}
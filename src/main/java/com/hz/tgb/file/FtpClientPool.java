@@ -0,0 +1,372 @@
+package com.hz.tgb.file;
+
+import org.apache.commons.net.ftp.FTP;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPReply;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FTP连接池。<br>
+ * 1.连接登录后放回池中复用，不再每次传输都连接、登录、断开；同时借出的连接数不超过maxTotal，超过时等待<br>
+ * 2.借出时空闲超过validateAfterMillis的连接先发送NOOP校验，失效的连接丢弃后重新创建<br>
+ * 3.后台线程定时对空闲连接发送NOOP保活，避免被服务器或防火墙因空闲断开；空闲超过maxIdleMillis的连接关闭<br>
+ * 借出的连接已登录，二进制、被动模式，工作目录为登录后的主目录；归还前不要改变这些设置(切换过工作目录要先切换回来)，
+ * 传输出错的连接用{@link #invalidate(FTPClient)}丢弃。
+ *
+ * <pre>
+ * FtpClientPool pool = new FtpClientPool("10.0.0.1", 21, "user", "password", 8);
+ * FTPClient ftp = pool.borrow();
+ * try {
+ *     ftp.storeFile("/upload/a.txt", in);
+ *     pool.release(ftp);
+ * } catch (IOException e) {
+ *     pool.invalidate(ftp);
+ *     throw e;
+ * }
+ * </pre>
+ *
+ * @author hezhao
+ * @Time 2026年10月19日 上午1:32:10
+ */
+public class FtpClientPool implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FtpClientPool.class);
+
+    /** 默认空闲连接保活间隔(毫秒) */
+    public static final long DEFAULT_KEEP_ALIVE_MILLIS = 30 * 1000L;
+
+    /** 默认连接、读取超时(毫秒) */
+    public static final int DEFAULT_TIMEOUT_MILLIS = 30 * 1000;
+
+    /** 默认等待空闲连接的超时(毫秒) */
+    public static final long DEFAULT_BORROW_TIMEOUT_MILLIS = 60 * 1000L;
+
+    private final String host;
+
+    private final int port;
+
+    private final String userName;
+
+    private final String password;
+
+    private final int maxTotal;
+
+    private final long keepAliveMillis;
+
+    private final int timeoutMillis;
+
+    /** 空闲超过该时间的连接借出前先校验 */
+    private final long validateAfterMillis;
+
+    /** 空闲超过该时间的连接关闭 */
+    private final long maxIdleMillis;
+
+    /** 空闲连接，最近归还的在队首 */
+    private final BlockingDeque<Idle> idle = new LinkedBlockingDeque<Idle>();
+
+    /** 可以借出的连接数 */
+    private final Semaphore permits;
+
+    private final ScheduledExecutorService keepAlive;
+
+    private volatile String controlEncoding;
+
+    private volatile boolean closed;
+
+    /** 最近一次借出或归还连接的时间 */
+    private volatile long lastUsedTime = System.currentTimeMillis();
+
+    /**
+     * @param host ftp服务器hostname（IP）
+     * @param port ftp服务器端口
+     * @param userName ftp服务器登录名
+     * @param password ftp服务器登录密码
+     * @param maxTotal 最大连接数
+     */
+    public FtpClientPool(String host, int port, String userName, String password, int maxTotal) {
+        this(host, port, userName, password, maxTotal, DEFAULT_KEEP_ALIVE_MILLIS, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param host ftp服务器hostname（IP）
+     * @param port ftp服务器端口
+     * @param userName ftp服务器登录名
+     * @param password ftp服务器登录密码
+     * @param maxTotal 最大连接数
+     * @param keepAliveMillis 空闲连接保活间隔(毫秒)，空闲超过10倍该时间的连接关闭
+     * @param timeoutMillis 连接、读取超时(毫秒)
+     */
+    public FtpClientPool(String host, int port, String userName, String password, int maxTotal,
+                         long keepAliveMillis, int timeoutMillis) {
+        if (maxTotal <= 0) {
+            throw new IllegalArgumentException("maxTotal must be greater than 0");
+        }
+        if (keepAliveMillis <= 0) {
+            throw new IllegalArgumentException("keepAliveMillis must be greater than 0");
+        }
+        this.host = host;
+        this.port = port;
+        this.userName = userName;
+        this.password = password;
+        this.maxTotal = maxTotal;
+        this.keepAliveMillis = keepAliveMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.validateAfterMillis = Math.min(keepAliveMillis, 5000L);
+        this.maxIdleMillis = keepAliveMillis * 10;
+        this.permits = new Semaphore(maxTotal, true);
+        this.keepAlive = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ftp-keep-alive-" + FtpClientPool.this.host);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.keepAlive.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                keepAlive();
+            }
+        }, keepAliveMillis, keepAliveMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 借出一个已登录的连接，没有空闲连接且已达到最大连接数时最多等待60秒
+     *
+     * @throws IOException 等待超时、连接或登录失败
+     */
+    public FTPClient borrow() throws IOException {
+        return borrow(DEFAULT_BORROW_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * 借出一个已登录的连接
+     *
+     * @param timeoutMillis 没有空闲连接且已达到最大连接数时的最长等待时间(毫秒)
+     * @throws IOException 等待超时、连接或登录失败
+     */
+    public FTPClient borrow(long timeoutMillis) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("FtpClientPool is closed");
+        }
+        lastUsedTime = System.currentTimeMillis();
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IOException("等待FTP连接超时：" + host + ":" + port + "，最大连接数" + maxTotal);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待FTP连接被中断", e);
+        }
+        try {
+            Idle entry;
+            while ((entry = idle.pollFirst()) != null) {
+                if (System.currentTimeMillis() - entry.lastActive < validateAfterMillis || validate(entry.client)) {
+                    return entry.client;
+                }
+                destroy(entry.client);
+            }
+            return create();
+        } catch (IOException e) {
+            permits.release();
+            throw e;
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 归还连接
+     */
+    public void release(FTPClient client) {
+        lastUsedTime = System.currentTimeMillis();
+        if (closed || !client.isConnected()) {
+            destroy(client);
+        } else {
+            idle.offerFirst(new Idle(client, System.currentTimeMillis()));
+        }
+        permits.release();
+    }
+
+    /**
+     * 丢弃出错的连接(如传输中断)，不再放回池中
+     */
+    public void invalidate(FTPClient client) {
+        destroy(client);
+        permits.release();
+    }
+
+    /**
+     * 控制连接的编码，文件名含中文时需要与服务器一致(如GBK)，只对之后新建的连接生效
+     */
+    public void setControlEncoding(String controlEncoding) {
+        this.controlEncoding = controlEncoding;
+    }
+
+    /**
+     * 当前空闲连接数
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * 当前借出的连接数
+     */
+    public int getActiveCount() {
+        return maxTotal - permits.availablePermits();
+    }
+
+    /**
+     * 最近一次借出或归还连接的时间(毫秒)
+     */
+    public long getLastUsedTime() {
+        return lastUsedTime;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * 关闭池和所有空闲连接，借出的连接归还时关闭
+     */
+    @Override
+    public void close() {
+        closed = true;
+        keepAlive.shutdownNow();
+        Idle entry;
+        while ((entry = idle.pollFirst()) != null) {
+            destroy(entry.client);
+        }
+    }
+
+    private FTPClient create() throws IOException {
+        FTPClient client = new FTPClient();
+        if (controlEncoding != null) {
+            client.setControlEncoding(controlEncoding);
+        }
+        client.setConnectTimeout(timeoutMillis);
+        client.setDefaultTimeout(timeoutMillis);
+        client.setDataTimeout(timeoutMillis);
+        // 长时间传输时在控制连接上发送NOOP，避免控制连接被防火墙断开
+        client.setControlKeepAliveTimeout(Math.max(1L, keepAliveMillis / 1000));
+        try {
+            client.connect(host, port);
+            if (!FTPReply.isPositiveCompletion(client.getReplyCode())) {
+                throw new IOException("链接FTP服务器失败:[" + client.getReplyCode() + "] " + client.getReplyString());
+            }
+            if (!client.login(userName, password)) {
+                throw new IOException("登录FTP服务器失败:[" + client.getReplyCode() + "] " + client.getReplyString());
+            }
+            client.enterLocalPassiveMode();
+            // 设置FTPClient的传输模式为二进制（默认是ASCII）
+            if (!client.setFileType(FTP.BINARY_FILE_TYPE)) {
+                throw new IOException("设置二进制传输失败:[" + client.getReplyCode() + "] " + client.getReplyString());
+            }
+            client.setBufferSize(64 * 1024);
+            LOG.debug("创建FTP连接 {}@{}:{}", userName, host, port);
+            return client;
+        } catch (IOException e) {
+            destroy(client);
+            throw e;
+        }
+    }
+
+    private boolean validate(FTPClient client) {
+        try {
+            return client.isConnected() && client.sendNoOp();
+        } catch (IOException e) {
+            LOG.debug("FTP连接已失效 {}:{}", host, port, e);
+            return false;
+        }
+    }
+
+    private void destroy(FTPClient client) {
+        if (client.isConnected()) {
+            try {
+                client.logout();
+            } catch (IOException e) {
+                // 连接已断开
+            }
+            try {
+                client.disconnect();
+            } catch (IOException e) {
+                LOG.warn("关闭FTP服务器连接失败!", e);
+            }
+        }
+    }
+
+    /**
+     * 对空闲的连接发送NOOP保活，关闭空闲太久或已失效的连接。<br>
+     * 从最早归还的一端逐个取出检查，保活后放回最近归还的一端，每个连接每次只检查一遍；
+     * 检查时占用一个借出名额，保证连接总数不超过maxTotal
+     */
+    private void keepAlive() {
+        int count = idle.size();
+        for (int i = 0; i < count && permits.tryAcquire(); i++) {
+            try {
+                Idle entry = idle.pollLast();
+                if (entry == null) {
+                    return;
+                }
+                long now = System.currentTimeMillis();
+                if (now - entry.since > maxIdleMillis) {
+                    destroy(entry.client);
+                } else if (now - entry.lastActive < keepAliveMillis / 2) {
+                    idle.offerFirst(entry);
+                } else if (validate(entry.client)) {
+                    entry.lastActive = System.currentTimeMillis();
+                    idle.offerFirst(entry);
+                } else {
+                    destroy(entry.client);
+                }
+            } catch (RuntimeException e) {
+                LOG.warn("FTP连接保活失败", e);
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private static final class Idle {
+
+        private final FTPClient client;
+
+        /** 归还的时间 */
+        private final long since;
+
+        /** 最后一次与服务器通信的时间 */
+        private long lastActive;
+
+        Idle(FTPClient client, long since) {
+            this.client = client;
+            this.since = since;
+            this.lastActive = since;
+        }
+    }
+}
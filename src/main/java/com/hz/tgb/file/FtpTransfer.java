@@ -0,0 +1,572 @@
+package com.hz.tgb.file;
+
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPReply;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于FTP连接池的文件传输，支持断点续传和多文件并行传输。<br>
+ * 1.上传先写入"远程路径.part"，完成后重命名为远程路径，下载先写入"本地路径.part"，完成后重命名，对方不会读到不完整的文件<br>
+ * 2.传输中断时(连接断开、超时)丢弃该连接，换一个连接从.part文件已有的长度处通过REST断点续传，最多重试retries次；
+ *   进程重启后再次传输同一个文件也会从断点处继续<br>
+ * 3.开始写.part之前先在旁边写入"路径.part.id"记录源文件的标识：上传为本地文件的大小和修改时间，下载为远程文件的大小和MDTM时间。
+ *   续传前标识不一致(源文件已修改)或无法确认(没有.id文件、服务器不支持MDTM)时删除.part重新传输，不会拼接出新旧混合的文件<br>
+ * 4.uploadAll/downloadAll由线程池并行传输，并行数不超过线程数和连接池的最大连接数，单个文件失败不影响其他文件<br>
+ * 远程路径必须是绝对路径(以/开头)，连接池中的连接会被其他传输复用，不能依赖工作目录。
+ *
+ * <pre>
+ * FtpTransfer transfer = new FtpTransfer(new FtpClientPool("10.0.0.1", 21, "user", "password", 8));
+ * Map&lt;File, String&gt; files = new LinkedHashMap&lt;File, String&gt;();
+ * files.put(new File("/data/settle/20261018.txt"), "/bank/settle/20261018.txt");
+ * FtpTransfer.Result result = transfer.uploadAll(files);
+ * </pre>
+ *
+ * @author hezhao
+ * @Time 2026年10月19日 上午1:58:36
+ */
+public class FtpTransfer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FtpTransfer.class);
+
+    /** 传输中的文件后缀 */
+    public static final String PART_SUFFIX = ".part";
+
+    /** .part对应的源文件标识的后缀，完整文件名为"路径.part.id" */
+    public static final String ID_SUFFIX = ".id";
+
+    /** 默认重试次数 */
+    public static final int DEFAULT_RETRIES = 3;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final FtpClientPool pool;
+
+    private final int threads;
+
+    private final int retries;
+
+    /** 已经确认存在的远程目录，避免每个文件都逐级创建目录 */
+    private final Set<String> directories = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * 并行数为连接池的最大连接数，失败重试3次
+     */
+    public FtpTransfer(FtpClientPool pool) {
+        this(pool, pool.getMaxTotal(), DEFAULT_RETRIES);
+    }
+
+    /**
+     * @param pool 连接池
+     * @param threads 多文件传输的并行数
+     * @param retries 传输中断后的重试次数
+     */
+    public FtpTransfer(FtpClientPool pool, int threads, int retries) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be greater than 0");
+        }
+        if (retries < 0) {
+            throw new IllegalArgumentException("retries can't be negative");
+        }
+        this.pool = pool;
+        this.threads = threads;
+        this.retries = retries;
+    }
+
+    /**
+     * 上传文件，远程文件已存在时覆盖
+     *
+     * @param local 本地文件
+     * @param remotePath 远程文件的绝对路径
+     * @return 本次实际传输的字节数，从断点续传时小于文件大小
+     * @throws IOException 重试后仍然失败
+     */
+    public long upload(final File local, final String remotePath) throws IOException {
+        checkRemotePath(remotePath);
+        if (!local.isFile()) {
+            throw new FileNotFoundException(local.getPath());
+        }
+        return execute(remotePath, new Transfer() {
+            @Override
+            public long transfer(FTPClient client) throws IOException {
+                return upload(client, local, remotePath);
+            }
+        });
+    }
+
+    /**
+     * 下载文件，本地文件已存在时覆盖
+     *
+     * @param remotePath 远程文件的绝对路径
+     * @param local 本地文件
+     * @return 本次实际传输的字节数，从断点续传时小于文件大小
+     * @throws IOException 重试后仍然失败
+     */
+    public long download(final String remotePath, final File local) throws IOException {
+        checkRemotePath(remotePath);
+        return execute(remotePath, new Transfer() {
+            @Override
+            public long transfer(FTPClient client) throws IOException {
+                return download(client, remotePath, local);
+            }
+        });
+    }
+
+    /**
+     * 并行上传多个文件
+     *
+     * @param files 本地文件 -> 远程文件的绝对路径
+     * @return 传输结果，失败的文件以本地路径为键
+     */
+    public Result uploadAll(Map<File, String> files) {
+        Result result = new Result();
+        List<Task> tasks = new ArrayList<Task>(files.size());
+        for (final Map.Entry<File, String> file : files.entrySet()) {
+            tasks.add(new Task(file.getKey().getPath(), result) {
+                @Override
+                long transfer() throws IOException {
+                    return upload(file.getKey(), file.getValue());
+                }
+            });
+        }
+        return runAll(tasks, result);
+    }
+
+    /**
+     * 并行下载多个文件
+     *
+     * @param files 远程文件的绝对路径 -> 本地文件
+     * @return 传输结果，失败的文件以远程路径为键
+     */
+    public Result downloadAll(Map<String, File> files) {
+        Result result = new Result();
+        List<Task> tasks = new ArrayList<Task>(files.size());
+        for (final Map.Entry<String, File> file : files.entrySet()) {
+            tasks.add(new Task(file.getKey(), result) {
+                @Override
+                long transfer() throws IOException {
+                    return download(file.getKey(), file.getValue());
+                }
+            });
+        }
+        return runAll(tasks, result);
+    }
+
+    /**
+     * 借出连接执行传输；出错的连接丢弃，换一个连接重试
+     */
+    private long execute(String path, Transfer transfer) throws IOException {
+        IOException error = null;
+        for (int attempt = 0; attempt <= retries; attempt++) {
+            if (attempt > 0) {
+                LOG.warn("传输 {} 失败，第{}次重试: {}", path, attempt, error.getMessage());
+                try {
+                    Thread.sleep(Math.min(1000L * attempt, 10000L));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("传输被中断：" + path, e);
+                }
+            }
+            FTPClient client;
+            try {
+                client = pool.borrow();
+            } catch (IOException e) {
+                // 连接或登录失败也重试
+                error = e;
+                continue;
+            }
+            boolean success = false;
+            try {
+                long bytes = transfer.transfer(client);
+                success = true;
+                return bytes;
+            } catch (IOException e) {
+                error = e;
+            } finally {
+                if (success) {
+                    pool.release(client);
+                } else {
+                    pool.invalidate(client);
+                }
+            }
+        }
+        throw error;
+    }
+
+    private long upload(FTPClient client, File local, String remotePath) throws IOException {
+        String part = remotePath + PART_SUFFIX;
+        String id = part + ID_SUFFIX;
+        int slash = remotePath.lastIndexOf('/');
+        if (slash > 0) {
+            makeDirectories(client, remotePath.substring(0, slash), directories);
+        }
+        long length = local.length();
+        String identity = length + " " + local.lastModified();
+        long offset = getRemoteSize(client, part);
+        if (offset >= 0 && (offset > length || !identity.equals(readRemote(client, id)))) {
+            // 断点不是当前的本地文件上传的，丢弃
+            LOG.info("{} 的源文件已改变，重新上传", remotePath);
+            if (!client.deleteFile(part)) {
+                throw replyException("删除FTP文件失败: " + part, client);
+            }
+            offset = -1;
+        }
+        if (offset < 0) {
+            writeRemote(client, id, identity);
+        }
+        long bytes = 0;
+        if (offset < length) {
+            offset = Math.max(offset, 0);
+            FileInputStream in = new FileInputStream(local);
+            try {
+                if (offset > 0) {
+                    in.getChannel().position(offset);
+                    // REST + STOR：服务器从offset处继续写入
+                    client.setRestartOffset(offset);
+                    LOG.debug("从 {} 字节处续传 {}", offset, remotePath);
+                }
+                if (!client.storeFile(part, in)) {
+                    throw replyException("上传文件到FTP服务器失败: " + remotePath, client);
+                }
+            } finally {
+                client.setRestartOffset(0);
+                in.close();
+            }
+            bytes = length - offset;
+            long size = getRemoteSize(client, part);
+            if (size >= 0 && size != length) {
+                throw new IOException("上传后文件大小不一致: " + remotePath + ", 本地" + length + ", 远程" + size);
+            }
+        }
+        if (!client.rename(part, remotePath)) {
+            // 部分服务器重命名时不覆盖已存在的文件
+            client.deleteFile(remotePath);
+            if (!client.rename(part, remotePath)) {
+                throw replyException("重命名FTP文件失败: " + part, client);
+            }
+        }
+        // 文件已经完整，.id删除失败不影响结果
+        client.deleteFile(id);
+        return bytes;
+    }
+
+    private long download(FTPClient client, String remotePath, File local) throws IOException {
+        long length = getRemoteSize(client, remotePath);
+        if (length < 0) {
+            throw replyException("FTP文件不存在: " + remotePath, client);
+        }
+        // 服务器不支持MDTM时无法确认断点来自同一个文件，每次都从头下载
+        String time = client.getModificationTime(remotePath);
+        String identity = time == null ? null : length + " " + time.trim();
+        File parent = local.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+            throw new IOException("创建目录失败：" + parent);
+        }
+        File part = new File(local.getPath() + PART_SUFFIX);
+        File id = new File(part.getPath() + ID_SUFFIX);
+        long offset = part.length();
+        if (part.exists() && (offset > length || identity == null || !identity.equals(readLocal(id)))) {
+            // 断点不是当前的远程文件下载的，丢弃
+            LOG.info("{} 的源文件已改变或无法确认，重新下载", remotePath);
+            Files.delete(part.toPath());
+            offset = 0;
+        }
+        if (!part.exists()) {
+            if (identity == null) {
+                Files.deleteIfExists(id.toPath());
+            } else {
+                Files.write(id.toPath(), identity.getBytes(UTF_8));
+            }
+        }
+        long bytes = 0;
+        if (offset < length || !part.exists()) {
+            OutputStream out = new FileOutputStream(part, offset > 0);
+            try {
+                if (offset > 0) {
+                    client.setRestartOffset(offset);
+                    LOG.debug("从 {} 字节处续传 {}", offset, remotePath);
+                }
+                InputStream in = client.retrieveFileStream(remotePath);
+                if (in == null) {
+                    throw replyException("从FTP服务器下载文件失败: " + remotePath, client);
+                }
+                try {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    int n;
+                    while ((n = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, n);
+                        bytes += n;
+                    }
+                } finally {
+                    in.close();
+                }
+                if (!client.completePendingCommand()) {
+                    throw replyException("从FTP服务器下载文件失败: " + remotePath, client);
+                }
+            } finally {
+                client.setRestartOffset(0);
+                out.close();
+            }
+            if (part.length() != length) {
+                throw new IOException("下载后文件大小不一致: " + remotePath + ", 远程" + length + ", 本地" + part.length());
+            }
+        }
+        Files.move(part.toPath(), local.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(id.toPath());
+        return bytes;
+    }
+
+    private Result runAll(List<Task> tasks, Result result) {
+        int parallelism = Math.max(1, Math.min(threads, Math.min(pool.getMaxTotal(), tasks.size())));
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(parallelism * 4), new ThreadFactory() {
+                    private final AtomicInteger index = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "ftp-transfer-" + index.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>(tasks.size());
+            for (Task task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // Task已经记录了失败
+                    LOG.error("传输任务异常", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        result.elapsedMillis = System.currentTimeMillis() - result.startTime;
+        LOG.info("{}", result);
+        return result;
+    }
+
+    /**
+     * 逐级创建远程目录，已存在的目录跳过；创建后工作目录不变
+     *
+     * @param client 已登录的连接
+     * @param directory 目录的绝对路径
+     * @param created 已经确认存在的目录，可以为null
+     */
+    static void makeDirectories(FTPClient client, String directory, Set<String> created) throws IOException {
+        if (created != null && created.contains(directory)) {
+            return;
+        }
+        String home = null;
+        StringBuilder path = new StringBuilder();
+        for (String name : directory.split("/")) {
+            if (name.isEmpty()) {
+                continue;
+            }
+            path.append('/').append(name);
+            String dir = path.toString();
+            if (created != null && created.contains(dir)) {
+                continue;
+            }
+            if (!client.makeDirectory(dir)) {
+                // 目录已存在时MKD失败，再用CWD确认目录存在；第一次CWD之前记下工作目录，结束后切换回去
+                if (home == null && (home = client.printWorkingDirectory()) == null) {
+                    throw replyException("获取FTP工作目录失败", client);
+                }
+                if (!client.changeWorkingDirectory(dir)) {
+                    throw replyException("创建FTP目录失败: " + dir, client);
+                }
+            }
+            if (created != null) {
+                created.add(dir);
+            }
+        }
+        // 出错时连接会被丢弃，不需要恢复工作目录
+        if (home != null && !client.changeWorkingDirectory(home)) {
+            throw replyException("恢复FTP工作目录失败: " + home, client);
+        }
+    }
+
+    /**
+     * 通过SIZE命令得到远程文件大小，文件不存在时返回-1
+     */
+    static long getRemoteSize(FTPClient client, String path) throws IOException {
+        int reply = client.sendCommand("SIZE", path);
+        if (!FTPReply.isPositiveCompletion(reply)) {
+            return -1;
+        }
+        String[] parts = client.getReplyString().trim().split("\\s+");
+        try {
+            return Long.parseLong(parts[parts.length - 1]);
+        } catch (NumberFormatException e) {
+            throw replyException("无法解析SIZE的返回: " + path, client);
+        }
+    }
+
+    /**
+     * 读取远程的小文件，文件不存在时返回null
+     */
+    private static String readRemote(FTPClient client, String path) throws IOException {
+        InputStream in = client.retrieveFileStream(path);
+        if (in == null) {
+            return null;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            byte[] buffer = new byte[256];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        } finally {
+            in.close();
+        }
+        if (!client.completePendingCommand()) {
+            throw replyException("从FTP服务器下载文件失败: " + path, client);
+        }
+        return new String(out.toByteArray(), UTF_8).trim();
+    }
+
+    private static void writeRemote(FTPClient client, String path, String content) throws IOException {
+        if (!client.storeFile(path, new ByteArrayInputStream(content.getBytes(UTF_8)))) {
+            throw replyException("上传文件到FTP服务器失败: " + path, client);
+        }
+    }
+
+    /**
+     * 读取本地的小文件，文件不存在时返回null
+     */
+    private static String readLocal(File file) throws IOException {
+        return file.isFile() ? new String(Files.readAllBytes(file.toPath()), UTF_8).trim() : null;
+    }
+
+    private static IOException replyException(String message, FTPClient client) {
+        return new IOException(message + " [" + client.getReplyCode() + "] " + client.getReplyString().trim());
+    }
+
+    private static void checkRemotePath(String remotePath) {
+        if (remotePath == null || !remotePath.startsWith("/") || remotePath.endsWith("/")) {
+            throw new IllegalArgumentException("远程路径必须是以/开头的文件路径: " + remotePath);
+        }
+    }
+
+    private interface Transfer {
+
+        long transfer(FTPClient client) throws IOException;
+    }
+
+    private abstract static class Task implements Runnable {
+
+        private final String path;
+
+        private final Result result;
+
+        Task(String path, Result result) {
+            this.path = path;
+            this.result = result;
+        }
+
+        abstract long transfer() throws IOException;
+
+        @Override
+        public void run() {
+            try {
+                result.bytes.addAndGet(transfer());
+                result.succeeded.incrementAndGet();
+            } catch (IOException e) {
+                LOG.error("传输 {} 失败", path, e);
+                result.failed.put(path, String.valueOf(e.getMessage()));
+            } catch (RuntimeException e) {
+                LOG.error("传输 {} 失败", path, e);
+                result.failed.put(path, String.valueOf(e));
+            }
+        }
+    }
+
+    /**
+     * 多文件传输的结果
+     */
+    public static class Result {
+
+        private final long startTime = System.currentTimeMillis();
+
+        private final AtomicInteger succeeded = new AtomicInteger();
+
+        private final AtomicLong bytes = new AtomicLong();
+
+        private final Map<String, String> failed = Collections.synchronizedMap(new TreeMap<String, String>());
+
+        private long elapsedMillis;
+
+        private Result() {
+        }
+
+        /**
+         * 成功的文件数
+         */
+        public int getSucceeded() {
+            return succeeded.get();
+        }
+
+        /**
+         * 实际传输的字节数，不含断点之前已传输的部分
+         */
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        /**
+         * 失败的文件 -> 原因
+         */
+        public Map<String, String> getFailed() {
+            return failed;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "FtpTransfer.Result{succeeded=" + succeeded + ", failed=" + failed.size() + ", bytes=" + bytes
+                    + ", elapsedMillis=" + elapsedMillis + "}";
+        }
+    }
+}
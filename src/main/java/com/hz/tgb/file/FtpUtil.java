@@ -1,9 +1,9 @@
 package com.hz.tgb.file;
 
+import com.hz.tgb.common.CommonUtil;
 import net.coobird.thumbnailator.Thumbnails;
 import net.coobird.thumbnailator.geometry.Positions;
 import org.apache.commons.net.ftp.FTPClient;
-import org.apache.commons.net.ftp.FTPReply;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,6 +14,10 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Ftp工具类
@@ -25,7 +29,110 @@ public class FtpUtil {
 	private static final Logger logger = LoggerFactory.getLogger(FtpUtil.class);
 
 	/**
-	 * 向FTP服务器上传文件。
+	 * ftpUpload/ftpDel使用的连接池，按 登录名@服务器:端口#密码摘要 缓存，修改密码后使用新的连接池
+	 */
+	private static final ConcurrentMap<String, FtpClientPool> POOLS = new ConcurrentHashMap<String, FtpClientPool>();
+
+	/**
+	 * ftpUpload/ftpDel每个服务器的最大连接数
+	 */
+	public static final int DEFAULT_POOL_SIZE = 8;
+
+	/**
+	 * 连接池超过该时间(毫秒)没有借出、归还连接时关闭并移除，同时停止它的保活线程
+	 */
+	public static final long POOL_IDLE_MILLIS = 10 * 60 * 1000L;
+
+	/**
+	 * 检查空闲连接池的最小间隔(毫秒)
+	 */
+	private static final long EVICT_INTERVAL_MILLIS = 60 * 1000L;
+
+	private static volatile long lastEvictTime = System.currentTimeMillis();
+
+	static {
+		// 进程退出时关闭所有连接池，向服务器发送QUIT
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				closeAll();
+			}
+		}, "ftp-pool-shutdown"));
+	}
+
+	/**
+	 * 得到FTP服务器的连接池，同一服务器、登录名、密码共用一个池，不需要关闭。
+	 * 可以用于{@link FtpTransfer}并行、断点续传多个文件。<br>
+	 * 超过{@link #POOL_IDLE_MILLIS}没有使用的池会被关闭，需要长期持有连接池时请自己创建{@link FtpClientPool}并负责关闭
+	 *
+	 * @param ftpUrl
+	 *        ftp服务器hostname（IP）
+	 * @param ftpPort
+	 *        ftp服务器端口
+	 * @param userName
+	 *        ftp服务器登录名
+	 * @param password
+	 *        ftp服务器登录密码，匿名登录时可以为null
+	 * @return 连接池
+	 */
+	public static FtpClientPool getPool(final String ftpUrl, final int ftpPort, final String userName,
+										final String password) {
+		evictIdlePools();
+		// 密码不同的调用不能共用连接，只保存摘要，密码不会出现在key中
+		final String key = userName + "@" + ftpUrl + ":" + ftpPort + "#"
+				+ (password == null ? "" : CommonUtil.getHexSign(password, "UTF-8", "SHA-256", true));
+		FtpClientPool pool = POOLS.get(key);
+		if (pool == null || pool.isClosed()) {
+			synchronized (POOLS) {
+				pool = POOLS.get(key);
+				if (pool == null || pool.isClosed()) {
+					pool = new FtpClientPool(ftpUrl, ftpPort, userName, password, DEFAULT_POOL_SIZE);
+					POOLS.put(key, pool);
+				}
+			}
+		}
+		return pool;
+	}
+
+	/**
+	 * 关闭并移除getPool创建的所有连接池，之后调用getPool会重新创建
+	 */
+	public static void closeAll() {
+		synchronized (POOLS) {
+			for (FtpClientPool pool : POOLS.values()) {
+				pool.close();
+			}
+			POOLS.clear();
+		}
+	}
+
+	/**
+	 * 关闭超过POOL_IDLE_MILLIS没有使用、且没有借出连接的连接池，最多每分钟检查一次
+	 */
+	private static void evictIdlePools() {
+		long now = System.currentTimeMillis();
+		if (now - lastEvictTime < EVICT_INTERVAL_MILLIS) {
+			return;
+		}
+		synchronized (POOLS) {
+			if (now - lastEvictTime < EVICT_INTERVAL_MILLIS) {
+				return;
+			}
+			lastEvictTime = now;
+			Iterator<Map.Entry<String, FtpClientPool>> iterator = POOLS.entrySet().iterator();
+			while (iterator.hasNext()) {
+				FtpClientPool pool = iterator.next().getValue();
+				if (pool.getActiveCount() == 0 && now - pool.getLastUsedTime() > POOL_IDLE_MILLIS) {
+					iterator.remove();
+					pool.close();
+					logger.info("close idle ftp pool {}:{}", pool.getHost(), pool.getPort());
+				}
+			}
+		}
+	}
+
+	/**
+	 * 向FTP服务器上传文件。连接从连接池借出，用完归还，不再每次连接、登录、断开
 	 *
 	 * @param ftpUrl
 	 *        ftp服务器hostname（IP）
@@ -40,94 +147,47 @@ public class FtpUtil {
 	 * @param fileName
 	 *        上传的文件名称
 	 * @param input
-	 *        上传的文件输入流
+	 *        上传的文件输入流，上传后关闭
 	 * @return boolean 上传成功与否
 	 */
 	public static boolean ftpUpload(final String ftpUrl, final int ftpPort, final String userName,
 									final String password, final String uploadPath, final String fileName, final InputStream input) {
 		boolean uploadResult = false;
-		final FTPClient ftp = new FTPClient();
+		final FtpClientPool pool = getPool(ftpUrl, ftpPort, userName, password);
+		FTPClient ftp = null;
+		boolean broken = true;
 		try {
-			int reply;
-
-			// 连接FTP服务器
-			ftp.connect(ftpUrl, ftpPort);
-
-			// 如果采用默认端口，可以使用ftp.connect(url)的方式直接连接FTP服务器
-			// 登录
-			ftp.login(userName, password);
-
-			ftp.enterLocalPassiveMode();
-			// 设置FTPClient的传输模式为二进制（默认是ASCII）
-			ftp.setFileType(FTPClient.BINARY_FILE_TYPE);
-			reply = ftp.getReplyCode();
-
-			if (!FTPReply.isPositiveCompletion(reply)) {
-				logger.error("链接FTP服务器失败:[" + reply + "]");
-				logger.error("ftpUrl:" + ftpUrl + " ftpPort:" + ftpPort + " userName:" + userName + " password:"
-						+ password + " uploadPath:" + uploadPath + " fileName:" + fileName);
-				final StringBuilder sb = new StringBuilder();
-				if (ftp.getReplyStrings() != null) {
-					for (final String s : ftp.getReplyStrings()) {
-						sb.append(s);
-					}
-				}
-				logger.error(ftp.getReplyString() + " " + sb.toString());
-				ftp.disconnect();
-			} else {
-
-				final String[] paths = uploadPath.split("/");
-
-				final StringBuffer sb = new StringBuffer();
-				sb.append("/");
-				// 循环每级目录
-				for (int i = 0; i < paths.length; i++) {
-					if (!paths[i].equals("")) {
-						sb.append(paths[i] + "/");
-
-						// 重新拼成目录，
-						final String path = sb.toString();
-
-						System.out.println(path + "path");
-						// 切换工作目录，如果返回false表示该目录不存在，同时检查每级目录是否已经创建
-						if (!ftp.changeWorkingDirectory(path)) {
-							logger.debug("上传路径不存在。开始创建该路径目录...---第" + i + "次创建---...");
-							// 创建目录
-
-							if (ftp.makeDirectory(path)) {
-								// 切换到新生成的工作目录
-								ftp.changeWorkingDirectory(path);
-								logger.debug("创建目录成功。");
-							} else {
-								logger.debug("创建目录失败！");
-								return uploadResult;
-							}
-						}
-					}
-				}
+			ftp = pool.borrow();
 
-				final boolean result = ftp.storeFile(fileName, input);
+			// 连接池中的连接会被复用，使用绝对路径，不切换工作目录
+			final String path = "/" + uploadPath.replaceAll("^/+|/+$", "");
+			FtpTransfer.makeDirectories(ftp, path, null);
 
-				if (result) {
-					logger.debug("上传文件到FTP服务器成功。");
-				} else {
-					logger.debug("上传文件到FTP服务器失败!");
-				}
+			uploadResult = ftp.storeFile(path.endsWith("/") ? path + fileName : path + "/" + fileName, input);
 
-				input.close();
-				ftp.logout();
-				uploadResult = true;
+			if (uploadResult) {
+				logger.debug("上传文件到FTP服务器成功。");
+			} else {
+				logger.error("上传文件到FTP服务器失败! [" + ftp.getReplyCode() + "] " + ftp.getReplyString()
+						+ " uploadPath:" + uploadPath + " fileName:" + fileName);
 			}
+			broken = false;
 		} catch (final IOException e) {
-			logger.error("上传文件到FTP服务器失败!", e);
+			logger.error("上传文件到FTP服务器失败! ftpUrl:" + ftpUrl + " ftpPort:" + ftpPort + " userName:" + userName
+					+ " uploadPath:" + uploadPath + " fileName:" + fileName, e);
 		} finally {
-			if (ftp.isConnected()) {
-				try {
-					ftp.disconnect();
-				} catch (final IOException ioe) {
-					logger.error("关闭FTP服务器连接失败!", ioe);
+			if (ftp != null) {
+				if (broken) {
+					pool.invalidate(ftp);
+				} else {
+					pool.release(ftp);
 				}
 			}
+			try {
+				input.close();
+			} catch (final IOException ioe) {
+				logger.error("关闭上传文件输入流失败!", ioe);
+			}
 		}
 
 		return uploadResult;
@@ -135,7 +195,7 @@ public class FtpUtil {
 
 
 	/**
-	 * 在FTP服务器删除文件。
+	 * 在FTP服务器删除文件。连接从连接池借出，用完归还
 	 *
 	 * @param ftpUrl
 	 *        ftp服务器hostname（IP）
@@ -146,52 +206,28 @@ public class FtpUtil {
 	 * @param password
 	 *        ftp服务器登录密码
 	 * @param filePath
-	 *        文件的路径
-	 * @return boolean 上传成功与否
+	 *        文件的路径，相对路径相对于登录后的主目录
+	 * @return boolean 删除成功与否
 	 */
 	public static boolean ftpDel(final String ftpUrl, final int ftpPort, final String userName,
 								 final String password, final String filePath) {
 		boolean uploadResult = false;
-		final FTPClient ftp = new FTPClient();
+		final FtpClientPool pool = getPool(ftpUrl, ftpPort, userName, password);
+		FTPClient ftp = null;
+		boolean broken = true;
 		try {
-			int reply;
-
-			// 连接FTP服务器
-			ftp.connect(ftpUrl, ftpPort);
-
-			// 如果采用默认端口，可以使用ftp.connect(url)的方式直接连接FTP服务器
-			// 登录
-			ftp.login(userName, password);
-
-			ftp.enterLocalPassiveMode();
-			// 设置FTPClient的传输模式为二进制（默认是ASCII）
-			ftp.setFileType(FTPClient.BINARY_FILE_TYPE);
-			reply = ftp.getReplyCode();
-
-			if (!FTPReply.isPositiveCompletion(reply)) {
-				logger.error("链接FTP服务器失败:[" + reply + "]");
-				logger.error("ftpUrl:" + ftpUrl + " ftpPort:" + ftpPort + " userName:" + userName + " password:"
-						+ password + " filePath:" + filePath);
-				final StringBuilder sb = new StringBuilder();
-				if (ftp.getReplyStrings() != null) {
-					for (final String s : ftp.getReplyStrings()) {
-						sb.append(s);
-					}
-				}
-				logger.error(ftp.getReplyString() + " " + sb.toString());
-				ftp.disconnect();
-			} else {
-				//删除文件
-				uploadResult = ftp.deleteFile(filePath);
-			}
+			ftp = pool.borrow();
+			//删除文件
+			uploadResult = ftp.deleteFile(filePath);
+			broken = false;
 		} catch (final IOException e) {
 			logger.error("删除文件失败!文件："+filePath, e);
 		} finally {
-			if (ftp.isConnected()) {
-				try {
-					ftp.disconnect();
-				} catch (final IOException ioe) {
-					logger.error("关闭FTP服务器连接失败!", ioe);
+			if (ftp != null) {
+				if (broken) {
+					pool.invalidate(ftp);
+				} else {
+					pool.release(ftp);
 				}
 			}
 		}
@@ -2,17 +2,44 @@ package com.hz.tgb.file;
 
 import com.hz.tgb.common.ArrayUtil;
 import com.hz.tgb.common.EncodingUtil;
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.parallel.InputStreamSupplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
 
 /**
  * <p>zip 工具类</p> 
  *
  * <p>注意：此类中用到的压缩类ZipEntry等都来自于org.apache.tools包而非java.util包</p>
- * <p>依赖：ant-1.7.1.jar</p> 
+ * <p>依赖：ant-1.7.1.jar，并行压缩(zipParallel)依赖commons-compress</p> 
  * 
  * @author hezhao
  * @Time   2017年7月28日 下午3:23:41
@@ -30,6 +57,25 @@ public class ZipUtil {
      * 文件读取缓冲区大小 
      */  
     private static final int CACHE_SIZE = 1024;
+
+    /**
+     * 增量压缩包中记录已删除文件(UTF-8，每行一个相对路径)的条目
+     */
+    public static final String DELETED_ENTRY = ".deleted";
+
+    /**
+     * 并行压缩时直接存储、不再deflate的后缀(小写)
+     */
+    private static final Set<String> COMPRESSED_SUFFIXES = new HashSet<String>(Arrays.asList("jpg", "jpeg",
+            "png", "gif", "webp", "pdf", "zip", "rar", "7z", "gz", "tgz", "bz2", "xz", "jar", "apk", "docx", "xlsx",
+            "pptx", "mp3", "mp4", "avi", "mov", "mkv"));
+
+    private static final InputStreamSupplier EMPTY_INPUT = new InputStreamSupplier() {
+        @Override
+        public InputStream get() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+    };
     
     private ZipUtil(){
     	// 私有类构造方法
@@ -97,6 +143,191 @@ public class ZipUtil {
         logger.debug("压缩 "+ ArrayUtil.join(sourceFolders)+" 完成！");
     }
       
+    /**
+     * <p>
+     * 多线程压缩文件，线程数为CPU核数
+     * </p>
+     *
+     * @param sourceFolder 需压缩文件 或者 文件夹 路径
+     * @param zipFilePath 压缩文件输出路径
+     * @throws Exception
+     * @see #zipParallel(String[], String, int)
+     */
+    public static void zipParallel(String sourceFolder, String zipFilePath) throws Exception {
+        File file = new File(sourceFolder).getAbsoluteFile();
+        zipParallel(new File[] {file}, file.isDirectory() ? file : file.getParentFile(), zipFilePath,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * <p>
+     * 多线程压缩一组文件夹或文件，条目名称与{@link #zip(String[], String)}相同<br>
+     * 1.每个文件由线程池中的线程独立压缩到临时文件，全部完成后按顺序拼接为一个zip，不重复压缩<br>
+     * 2.jpg、png、pdf、zip等本身已压缩的格式直接存储(STORED)，不再deflate<br>
+     * 3.文件名使用GBK编码，超过4GB时自动使用zip64
+     * </p>
+     *
+     * @param sourceFolders 一组 压缩文件夹 或 文件
+     * @param zipFilePath 压缩文件输出路径
+     * @param threads 压缩线程数
+     * @throws Exception
+     */
+    public static void zipParallel(String[] sourceFolders, String zipFilePath, int threads) throws Exception {
+        File[] files = new File[sourceFolders.length];
+        for (int i = 0; i < sourceFolders.length; i++) {
+            files[i] = new File(sourceFolders[i]);
+        }
+        zipParallel(files, null, zipFilePath, threads);
+    }
+
+    /**
+     * @param baseDir 条目名称相对的目录，为null时相对于每个文件的上级目录
+     */
+    private static void zipParallel(File[] sources, File baseDir, String zipFilePath, int threads) throws Exception {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be greater than 0");
+        }
+        logger.debug("开始并行压缩 " + ArrayUtil.join(sources) + " 到 [" + zipFilePath + "]，线程数：" + threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger index = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "zip-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        // writeTo结束时会关闭线程池
+        ParallelScatterZipCreator creator = new ParallelScatterZipCreator(executor);
+        try {
+            for (File source : sources) {
+                File base = baseDir != null ? baseDir : source.getAbsoluteFile().getParentFile();
+                addEntries(creator, source, base.getAbsolutePath().length() + 1, source == baseDir);
+            }
+            ZipArchiveOutputStream zos = new ZipArchiveOutputStream(new File(zipFilePath));
+            try {
+                // 解决中文文件名乱码
+                zos.setEncoding(CHINESE_CHARSET);
+                zos.setUseZip64(Zip64Mode.AsNeeded);
+                creator.writeTo(zos);
+            } finally {
+                zos.close();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.debug("并行压缩完成：" + creator.getStatisticsMessage());
+    }
+
+    /**
+     * 按深度优先的顺序提交条目，skipSelf为true时不为file本身(压缩的根目录)生成条目
+     */
+    private static void addEntries(ParallelScatterZipCreator creator, File file, int baseLength, boolean skipSelf) {
+        String name = file.getAbsolutePath().substring(Math.min(baseLength, file.getAbsolutePath().length()))
+                .replace('\\', '/');
+        if (file.isDirectory()) {
+            if (!skipSelf) {
+                ZipArchiveEntry entry = new ZipArchiveEntry(name + "/");
+                entry.setMethod(ZipEntry.STORED);
+                entry.setTime(file.lastModified());
+                creator.addArchiveEntry(entry, EMPTY_INPUT);
+            }
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    addEntries(creator, child, baseLength, false);
+                }
+            }
+            return;
+        }
+        final File source = file;
+        ZipArchiveEntry entry = new ZipArchiveEntry(name);
+        entry.setMethod(isCompressed(name) ? ZipEntry.STORED : ZipEntry.DEFLATED);
+        entry.setTime(file.lastModified());
+        entry.setSize(file.length());
+        creator.addArchiveEntry(entry, new InputStreamSupplier() {
+            @Override
+            public InputStream get() {
+                try {
+                    return new FileInputStream(source);
+                } catch (FileNotFoundException e) {
+                    throw new IllegalStateException("读取文件失败：" + source, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 是否为本身已经压缩过的格式，这些文件deflate几乎不能减小体积
+     */
+    private static boolean isCompressed(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot != -1 && COMPRESSED_SUFFIXES.contains(name.substring(dot + 1).toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * <p>
+     * 增量压缩：只压缩与清单相比新增、修改的文件，源目录中已删除的文件列在{@link #DELETED_ENTRY}中，
+     * 成功后更新清单。清单不存在时压缩全部文件
+     * </p>
+     *
+     * @param sourceFolder 需压缩的文件夹
+     * @param zipFilePath 压缩文件输出路径
+     * @param manifestPath 清单文件路径
+     * @return 本次的变化
+     * @throws IOException
+     */
+    public static DirectorySync.Changes zipIncremental(String sourceFolder, String zipFilePath, String manifestPath)
+            throws IOException {
+        logger.debug("开始增量压缩 [" + sourceFolder + "] 到 [" + zipFilePath + "]");
+        File dir = new File(sourceFolder);
+        DirectorySync.Changes changes = new DirectorySync().diff(dir, new File(manifestPath));
+        List<String> paths = new ArrayList<String>(changes.getAdded());
+        paths.addAll(changes.getModified());
+        Collections.sort(paths);
+
+        org.apache.tools.zip.ZipOutputStream zos = new org.apache.tools.zip.ZipOutputStream(
+                new BufferedOutputStream(new FileOutputStream(zipFilePath)));
+        try {
+            // 解决中文文件名乱码
+            zos.setEncoding(CHINESE_CHARSET);
+            byte[] cache = new byte[CACHE_SIZE * 64];
+            for (String path : paths) {
+                InputStream is;
+                try {
+                    is = new FileInputStream(new File(dir, path));
+                } catch (FileNotFoundException e) {
+                    // 扫描之后被删除
+                    changes.fail(path, e);
+                    continue;
+                }
+                try {
+                    zos.putNextEntry(new org.apache.tools.zip.ZipEntry(path));
+                    int nRead;
+                    while ((nRead = is.read(cache)) != -1) {
+                        zos.write(cache, 0, nRead);
+                    }
+                    zos.closeEntry();
+                } finally {
+                    is.close();
+                }
+            }
+            if (!changes.getDeleted().isEmpty()) {
+                zos.putNextEntry(new org.apache.tools.zip.ZipEntry(DELETED_ENTRY));
+                for (String path : changes.getDeleted()) {
+                    zos.write((path + "\n").getBytes("UTF-8"));
+                }
+                zos.closeEntry();
+            }
+        } finally {
+            zos.close();
+        }
+        changes.commit();
+        logger.debug("增量压缩 [" + sourceFolder + "] 完成：" + changes);
+        return changes;
+    }
+
     /** 
      * <p> 
      * 递归压缩文件 
@@ -155,161 +386,276 @@ public class ZipUtil {
     }  
       
     /**
-	 * 解压zip文件
+	 * 解压zip文件，多线程并行解压，线程数为CPU核数
 	 * 
 	 * @param zipFileName
 	 *            待解压的zip文件路径，例如：c:\\a.zip
 	 * 
 	 * @param outputDirectory
 	 *            解压目标文件夹,例如：c:\\a\
+	 * @throws IOException 条目路径在目标文件夹之外(zip slip)或解压失败
 	 */
 	public static void unZip(String zipFileName, String outputDirectory)
-			throws Exception {
-		logger.debug("开始解压 ["+zipFileName+"] 到 ["+outputDirectory+"]");
-		org.apache.tools.zip.ZipFile zipFile = new org.apache.tools.zip.ZipFile(zipFileName);
-
-		try {
-
-			Enumeration<?> e = zipFile.getEntries();
-
-			org.apache.tools.zip.ZipEntry zipEntry = null;
-
-			createDirectory(outputDirectory, "");
-
-			while (e.hasMoreElements()) {
-
-				zipEntry = (org.apache.tools.zip.ZipEntry) e.nextElement();
-
-				logger.debug("解压：" + zipEntry.getName());
-
-				if (zipEntry.isDirectory()) {
-
-					String name = zipEntry.getName();
-
-					name = name.substring(0, name.length() - 1);
-
-					File f = new File(outputDirectory + File.separator + name);
-
-					f.mkdir();
+			throws IOException {
+		unZip(zipFileName, outputDirectory, null);
+	}
 
-					logger.debug("创建目录：" + outputDirectory + File.separator + name);
+	/**
+	 * 解压zip文件中名称与glob匹配的条目，多线程并行解压，线程数为CPU核数
+	 *
+	 * @param zipFileName
+	 *            待解压的zip文件路径
+	 * @param outputDirectory
+	 *            解压目标文件夹
+	 * @param glob
+	 *            条目名称的匹配规则，如"img/**.jpg"：*匹配除/以外的任意字符，**匹配任意字符，?匹配除/以外的单个字符，
+	 *            {a,b}匹配其中之一；为null时解压全部
+	 * @return 解压的文件数
+	 * @throws IOException 条目路径在目标文件夹之外(zip slip)或解压失败
+	 */
+	public static int unZip(String zipFileName, String outputDirectory, String glob)
+			throws IOException {
+		return unZip(zipFileName, outputDirectory, glob, Runtime.getRuntime().availableProcessors());
+	}
 
+	/**
+	 * 解压zip文件中名称与glob匹配的条目<br>
+	 * 1.通过中央目录随机访问，只读取需要的条目，不扫描整个文件<br>
+	 * 2.先检查所有条目，全部合法后才创建目录，再由线程池并行解压文件；读取zip文件是串行的，解压缩(inflate)和写文件是并行的<br>
+	 * 3.每个条目的目标路径规范化后必须在目标文件夹之内，否则抛出异常，不创建任何目录也不解压任何文件
+	 *
+	 * @param zipFileName
+	 *            待解压的zip文件路径
+	 * @param outputDirectory
+	 *            解压目标文件夹
+	 * @param glob
+	 *            条目名称的匹配规则，为null时解压全部
+	 * @param threads
+	 *            解压线程数
+	 * @return 解压的文件数
+	 * @throws IOException 条目路径在目标文件夹之外(zip slip)或解压失败
+	 */
+	public static int unZip(String zipFileName, String outputDirectory, String glob, int threads)
+			throws IOException {
+		if (threads <= 0) {
+			throw new IllegalArgumentException("threads must be greater than 0");
+		}
+		logger.debug("开始解压 [" + zipFileName + "] 到 [" + outputDirectory + "]");
+		Pattern pattern = glob == null ? null : Pattern.compile(globToRegex(glob));
+		File outputDir = new File(outputDirectory).getCanonicalFile();
+		final org.apache.tools.zip.ZipFile zipFile = new org.apache.tools.zip.ZipFile(zipFileName, CHINESE_CHARSET);
+		try {
+			// 先检查所有条目的路径，有非法条目时不在磁盘上留下任何目录或文件
+			Map<org.apache.tools.zip.ZipEntry, File> files = new LinkedHashMap<org.apache.tools.zip.ZipEntry, File>();
+			Set<File> dirs = new LinkedHashSet<File>();
+			Enumeration<org.apache.tools.zip.ZipEntry> entries = zipFile.getEntriesInPhysicalOrder();
+			while (entries.hasMoreElements()) {
+				org.apache.tools.zip.ZipEntry entry = entries.nextElement();
+				if (pattern != null && !pattern.matcher(entry.getName()).matches()) {
+					continue;
+				}
+				File target = resolveEntry(outputDir, entry.getName());
+				if (entry.isDirectory()) {
+					dirs.add(target);
 				} else {
+					dirs.add(target.getParentFile());
+					files.put(entry, target);
+				}
+			}
+			for (File dir : dirs) {
+				mkdirs(dir);
+			}
 
-					String fileName = zipEntry.getName();
-
-					fileName = fileName.replace('\\', '/');
-
-					if (fileName.indexOf("/") != -1) {
-
-						createDirectory(outputDirectory, fileName.substring(0,
-								fileName.lastIndexOf("/")));
-
-						fileName = fileName.substring(
-								fileName.lastIndexOf("/") + 1,
-								fileName.length());
-
-					}
-
-					File f = new File(outputDirectory + File.separator
-							+ zipEntry.getName());
-
-					f.createNewFile();
-
-					InputStream in = zipFile.getInputStream(zipEntry);
-
-					FileOutputStream out = new FileOutputStream(f);
-
-					byte[] by = new byte[1024];
-
-					int c;
-
-					while ((c = in.read(by)) != -1) {
-
-						out.write(by, 0, c);
-
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<Runnable>(threads * 4), new ThreadFactory() {
+						private final AtomicInteger index = new AtomicInteger();
+
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r, "unzip-" + index.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
+						}
+					}, new ThreadPoolExecutor.CallerRunsPolicy());
+			try {
+				List<Future<?>> futures = new ArrayList<Future<?>>(files.size());
+				for (final Map.Entry<org.apache.tools.zip.ZipEntry, File> file : files.entrySet()) {
+					futures.add(executor.submit(new Callable<Void>() {
+						@Override
+						public Void call() throws IOException {
+							extract(zipFile, file.getKey(), file.getValue());
+							return null;
+						}
+					}));
+				}
+				for (Future<?> future : futures) {
+					try {
+						future.get();
+					} catch (ExecutionException e) {
+						Throwable cause = e.getCause();
+						throw cause instanceof IOException ? (IOException) cause
+								: new IOException("解压失败：" + zipFileName, cause);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new IOException("解压被中断：" + zipFileName, e);
 					}
-
-					in.close();
-
-					out.close();
-
 				}
-
+			} finally {
+				executor.shutdownNow();
 			}
-			logger.debug("解压 ["+zipFileName+"] 完成！");
-
-		} catch (Exception ex) {
-
-			System.out.println(ex.getMessage());
-
+			logger.debug("解压 [" + zipFileName + "] 完成，文件数：" + files.size());
+			return files.size();
 		} finally {
 			zipFile.close();
 		}
-
 	}
 
 	/**
-	 * 创建目录
-	 * @author hezhao
-	 * @Time   2017年7月28日 下午7:10:05
-	 * @param directory
-	 * @param subDirectory
+	 * 列出zip文件中的所有条目名称(按中央目录的顺序)，目录以/结尾
+	 *
+	 * @param zipFileName
+	 *            zip文件路径
+	 * @return
+	 * @throws IOException
 	 */
-	private static void createDirectory(String directory, String subDirectory) {
-
-		String dir[];
-
-		File fl = new File(directory);
-
+	public static List<String> listEntries(String zipFileName) throws IOException {
+		org.apache.tools.zip.ZipFile zipFile = new org.apache.tools.zip.ZipFile(zipFileName, CHINESE_CHARSET);
 		try {
+			List<String> names = new ArrayList<String>();
+			Enumeration<org.apache.tools.zip.ZipEntry> entries = zipFile.getEntries();
+			while (entries.hasMoreElements()) {
+				names.add(entries.nextElement().getName());
+			}
+			return names;
+		} finally {
+			zipFile.close();
+		}
+	}
 
-			if (subDirectory == "" && fl.exists() != true) {
-
-				fl.mkdir();
-
-			} else if (subDirectory != "") {
-
-				dir = subDirectory.replace('\\', '/').split("/");
-
-				for (int i = 0; i < dir.length; i++) {
-
-					File subFile = new File(directory + File.separator + dir[i]);
-
-					if (subFile.exists() == false)
-
-						subFile.mkdir();
-
-					directory += File.separator + dir[i];
-
+	/**
+	 * 打开zip文件中的一个条目，只读取该条目的数据。关闭返回的流时关闭zip文件
+	 *
+	 * @param zipFileName
+	 *            zip文件路径
+	 * @param entryName
+	 *            条目名称
+	 * @return 条目内容，条目不存在时返回null
+	 * @throws IOException
+	 */
+	public static InputStream openEntry(String zipFileName, String entryName) throws IOException {
+		final org.apache.tools.zip.ZipFile zipFile = new org.apache.tools.zip.ZipFile(zipFileName, CHINESE_CHARSET);
+		boolean success = false;
+		try {
+			org.apache.tools.zip.ZipEntry entry = zipFile.getEntry(entryName);
+			if (entry == null || entry.isDirectory()) {
+				return null;
+			}
+			InputStream in = new FilterInputStream(zipFile.getInputStream(entry)) {
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						zipFile.close();
+					}
 				}
-
+			};
+			success = true;
+			return in;
+		} finally {
+			if (!success) {
+				zipFile.close();
 			}
+		}
+	}
 
-		} catch (Exception ex) {
+	/**
+	 * 条目在目标文件夹中的路径，规范化后不在目标文件夹中(如"../../etc/passwd"、绝对路径)时抛出异常
+	 */
+	private static File resolveEntry(File outputDir, String name) throws IOException {
+		File target = new File(outputDir, name.replace('\\', '/')).getCanonicalFile();
+		if (!target.toPath().startsWith(outputDir.toPath()) || target.equals(outputDir)) {
+			throw new IOException("非法的zip条目路径：" + name);
+		}
+		return target;
+	}
 
-			System.out.println(ex.getMessage());
+	private static void mkdirs(File dir) throws IOException {
+		if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+			throw new IOException("创建目录失败：" + dir);
+		}
+	}
 
+	private static void extract(org.apache.tools.zip.ZipFile zipFile, org.apache.tools.zip.ZipEntry entry,
+			File target) throws IOException {
+		InputStream in = zipFile.getInputStream(entry);
+		try {
+			OutputStream out = new FileOutputStream(target);
+			try {
+				byte[] cache = new byte[CACHE_SIZE * 64];
+				int c;
+				while ((c = in.read(cache)) != -1) {
+					out.write(cache, 0, c);
+				}
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
 		}
+		if (entry.getTime() > 0) {
+			target.setLastModified(entry.getTime());
+		}
+	}
 
-	}  
+	/**
+	 * glob转为正则表达式：**匹配任意字符，*匹配除/以外的任意字符，?匹配除/以外的单个字符，{a,b}匹配其中之一
+	 */
+	private static String globToRegex(String glob) {
+		StringBuilder regex = new StringBuilder();
+		boolean inGroup = false;
+		for (int i = 0; i < glob.length(); i++) {
+			char c = glob.charAt(i);
+			if (c == '*') {
+				if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+					regex.append(".*");
+					i++;
+				} else {
+					regex.append("[^/]*");
+				}
+			} else if (c == '?') {
+				regex.append("[^/]");
+			} else if (c == '{' && !inGroup) {
+				regex.append("(?:");
+				inGroup = true;
+			} else if (c == '}' && inGroup) {
+				regex.append(')');
+				inGroup = false;
+			} else if (c == ',' && inGroup) {
+				regex.append('|');
+			} else {
+				regex.append(Pattern.quote(String.valueOf(c)));
+			}
+		}
+		return regex.toString();
+	}
 	
 	/**
-	 * 无需解压直接读取Zip文件和文件内容
+	 * 无需解压直接读取Zip文件和文件内容，通过中央目录逐个打开条目
 	 * @author hezhao
 	 * @Time   2017年7月28日 下午3:23:10
 	 * @param file 文件
 	 * @throws Exception
 	 */
 	public static void readZipFile(String file) throws Exception {
-		java.util.zip.ZipFile zipFile = new java.util.zip.ZipFile(file);
-
-		InputStream in = new BufferedInputStream(new FileInputStream(file));
-		java.util.zip.ZipInputStream zin = new java.util.zip.ZipInputStream(in);
-		java.util.zip.ZipEntry ze;
-		while ((ze = zin.getNextEntry()) != null) {
-			if (ze.isDirectory()) {
-			} else {
+		org.apache.tools.zip.ZipFile zipFile = new org.apache.tools.zip.ZipFile(file, CHINESE_CHARSET);
+		try {
+			Enumeration<org.apache.tools.zip.ZipEntry> entries = zipFile.getEntries();
+			while (entries.hasMoreElements()) {
+				org.apache.tools.zip.ZipEntry ze = entries.nextElement();
+				if (ze.isDirectory()) {
+					continue;
+				}
 				logger.info("file - " + ze.getName() + " : "
 						+ ze.getSize() + " bytes");
 				long size = ze.getSize();
@@ -325,8 +671,9 @@ public class ZipUtil {
 				}
 				System.out.println();
 			}
+		} finally {
+			zipFile.close();
 		}
-		zin.closeEntry();
 	}
 	
 	
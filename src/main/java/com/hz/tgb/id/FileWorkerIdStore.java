@@ -0,0 +1,114 @@
+package com.hz.tgb.id;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基于本地文件锁的机器ID租约存储，每个机器ID对应目录下的一个锁文件，持有文件锁即持有租约(进程退出时由操作系统释放)<br>
+ * 只能保证共享该目录的进程之间不重复，一般作为Redis不可用时的兜底
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午7:03:18
+ */
+public class FileWorkerIdStore implements WorkerIdStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileWorkerIdStore.class);
+
+    private final File dir;
+
+    /** workerId -> 持有的文件锁 */
+    private final Map<Integer, Holder> holders = new HashMap<Integer, Holder>();
+
+    public FileWorkerIdStore(File dir) {
+        this.dir = dir;
+    }
+
+    @Override
+    public synchronized boolean tryAcquire(int workerId, String owner, long ttlSeconds) {
+        if (holders.containsKey(workerId)) {
+            return false;
+        }
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IllegalStateException("can not create worker id dir:" + dir);
+        }
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(new File(dir, "worker-" + workerId + ".lock"), "rw");
+            FileChannel channel = file.getChannel();
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                file.close();
+                return false;
+            }
+            channel.truncate(0);
+            channel.write(ByteBuffer.wrap(owner.getBytes(StandardCharsets.UTF_8)), 0);
+            holders.put(workerId, new Holder(owner, file, lock));
+            return true;
+        } catch (OverlappingFileLockException e) {
+            // 同一进程内的其他实例已经持有
+            close(file);
+            return false;
+        } catch (IOException e) {
+            close(file);
+            throw new IllegalStateException("lock worker id file error, workerId:" + workerId, e);
+        }
+    }
+
+    @Override
+    public synchronized boolean renew(int workerId, String owner, long ttlSeconds) {
+        Holder holder = holders.get(workerId);
+        return holder != null && holder.owner.equals(owner) && holder.lock.isValid();
+    }
+
+    @Override
+    public synchronized void release(int workerId, String owner) {
+        Holder holder = holders.get(workerId);
+        if (holder == null || !holder.owner.equals(owner)) {
+            return;
+        }
+        holders.remove(workerId);
+        try {
+            holder.lock.release();
+        } catch (IOException e) {
+            LOG.warn("release worker id file lock error, workerId:{}", workerId, e);
+        }
+        close(holder.file);
+    }
+
+    private static void close(RandomAccessFile file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            LOG.warn("close worker id file error", e);
+        }
+    }
+
+    private static final class Holder {
+
+        final String owner;
+
+        final RandomAccessFile file;
+
+        final FileLock lock;
+
+        Holder(String owner, RandomAccessFile file, FileLock lock) {
+            this.owner = owner;
+            this.file = file;
+            this.lock = lock;
+        }
+    }
+}
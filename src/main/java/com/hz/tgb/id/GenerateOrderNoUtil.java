@@ -27,7 +27,7 @@ public class GenerateOrderNoUtil {
         if (length <= 0) {
             return result;
         }
-        SnowFlake snowFlake = SnowFlakeUtils.getInstance(0, length, name);
+        SnowFlake snowFlake = SnowFlakeUtils.getInstance(name);
         // 雪花算法生成的随机id
         long snowRandowmId = snowFlake.nextId();
         String snowRandowmIdStr = String.valueOf(snowRandowmId);
@@ -77,13 +77,36 @@ public class GenerateOrderNoUtil {
 class SnowFlakeUtils {
     private static final Map<String, SnowFlake> snowFlakeCache = new HashMap<>();
 
-    public static SnowFlake getInstance(long datacenterId, long machineId, String target) {
-        if (StringUtil.isEmpty(target)) {
-            String msg = "\"target\" is empty.";
-            throw new IllegalArgumentException(msg);
-        } else {
-            target = StringUtil.trimToEmpty(target);
+    /**
+     * 使用{@link WorkerIdLease#getDefault()}自动分配的数据中心标识和服务器标识，集群中每个节点不重复，租约失效后不再生成ID；
+     * 没有设置默认租约时使用固定的数据中心标识0和服务器标识0，只适用于单节点部署。默认租约需要在第一次调用之前设置
+     *
+     * @param target
+     * @return
+     */
+    public static SnowFlake getInstance(String target) {
+        WorkerIdLease lease = WorkerIdLease.getDefaultIfPresent();
+        if (lease == null) {
+            return getInstance(0, 0, target);
         }
+        target = normalize(target);
+        SnowFlake snowFlake = snowFlakeCache.get(target);
+        if (snowFlake == null) {
+            synchronized (snowFlakeCache) {
+                if (snowFlakeCache.get(target) == null) {
+                    snowFlake = new SnowFlake(lease);
+                    snowFlakeCache.put(target, snowFlake);
+                } else {
+                    snowFlake = snowFlakeCache.get(target);
+                }
+            }
+        }
+
+        return snowFlake;
+    }
+
+    public static SnowFlake getInstance(long datacenterId, long machineId, String target) {
+        target = normalize(target);
 
         SnowFlake snowFlake = snowFlakeCache.get(target);
         if (snowFlake == null) {
@@ -99,8 +122,15 @@ class SnowFlakeUtils {
 
         return snowFlake;
     }
-}
 
+    private static String normalize(String target) {
+        if (StringUtil.isEmpty(target)) {
+            String msg = "\"target\" is empty.";
+            throw new IllegalArgumentException(msg);
+        }
+        return StringUtil.trimToEmpty(target);
+    }
+}
 
 /**
  * （1）校对服务器时间时，服务器时间可能会往前或往后跳跃。
@@ -179,6 +209,11 @@ class SnowFlake {
      */
     private long maxTimeDifference = 5000L;
 
+    /**
+     * 机器ID租约，不为null时数据中心标识和服务器标识取自租约。
+     */
+    private WorkerIdLease lease;
+
     public SnowFlake(long datacenterId, long machineId) {
         // Normalize parameters.
 
@@ -204,12 +239,30 @@ class SnowFlake {
         this.maxTimeDifference = maxTimeDifference;
     }
 
+    /**
+     * 数据中心标识和服务器标识取自租约，租约失效后{@link #nextId()}抛出IllegalStateException，不再生成ID。
+     *
+     * @param lease
+     */
+    public SnowFlake(WorkerIdLease lease) {
+        this(0, 0);
+
+        this.lease = lease;
+    }
+
     /**
      * 产生下一个ID。
      *
      * @return
      */
     public synchronized long nextId() {
+        if (this.lease != null) {
+            // 租约失效后其他节点可能已经占用了同一个机器ID。
+            int workerId = this.lease.checkWorkerId();
+            this.datacenterId = workerId >>> MACHINE_ID_BITS;
+            this.machineId = workerId & MAX_MACHINE_ID;
+        }
+
         long currentTimestamp = this.getTimestamp();
         if (currentTimestamp < this.lastTimestamp) {
             String msg = "Clock moved backwards.";
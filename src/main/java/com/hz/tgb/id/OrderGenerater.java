@@ -8,12 +8,12 @@ import org.slf4j.LoggerFactory;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Random;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Calendar;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * 订单号生成器
@@ -27,34 +27,138 @@ public class OrderGenerater {
 
     private static final Logger LOG = LoggerFactory.getLogger(OrderGenerater.class);
 
-    private volatile static int serialNo = 0;
+    /**
+     * 自增序列位数的系统属性，取值2~6，默认2(原格式)
+     */
+    public static final String ORDER_SEQUENCE_DIGITS = "order.sequence_digits";
+
+    private static final int DEFAULT_SEQUENCE_DIGITS = 2;
+
+    /**
+     * 时间戳(yyMMddHHmmssSSS)位数
+     */
+    private static final int DATETIME_DIGITS = 15;
+
+    private static final int MACHINE_DIGITS = 2;
+
+    /**
+     * 随机数 + 自增序列的位数，与原格式(2位随机数 + 2位自增序列)一致
+     */
+    private static final int TAIL_DIGITS = 4;
+
+    private static final int SEQUENCE_DIGITS;
+
+    private static final int RANDOM_DIGITS;
+
+    private static final int RANDOM_RANGE;
+
+    private static final int LENGTH;
+
+    /**
+     * 序列号分段数，每个线程固定使用一个分段，分段stripe只分配 seq % STRIPES == stripe 的序列号
+     */
+    private static final int STRIPES;
+
+    /**
+     * 每个分段每毫秒可分配的序列号个数
+     */
+    private static final long PER_STRIPE;
+
+    /**
+     * 分段状态：高位为毫秒数，低COUNTER_BITS位为该毫秒内已分配的个数
+     */
+    private static final int COUNTER_BITS = 20;
+
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
 
-    private static final String FORMATSTRING = "yyMMddHHmmssSSS";
+    /**
+     * 每个分段占用的long个数，避免伪共享
+     */
+    private static final int PADDING = 16;
+
+    private static final AtomicLongArray SEQUENCES;
 
     /**
-     * 使用公平锁防止饥饿
+     * 分段序列号用尽时最多借用的未来毫秒数
      */
-    private static final Lock lock = new ReentrantLock(true);
+    private static final long MAX_BORROW_MILLIS = 1000L;
+
+    private static final long PARK_NANOS = 100000L;
+
+    /**
+     * 借用超过MAX_BORROW_MILLIS时最多等待时钟追上的时间，超过后认为时钟回拨，继续借用下一毫秒
+     */
+    private static final long MAX_WAIT_NANOS = 5000000L;
+
+    /**
+     * 因时钟回拨而不再等待的次数，用于限制告警日志
+     */
+    private static final AtomicLong CLOCK_BACKWARDS = new AtomicLong();
+
+    /**
+     * 机器名的最后两位数字，为null时每次取随机数
+     */
+    private static final char[] MACHINE_NUMBER = getNumberFromMechine();
+
+    private static final AtomicInteger THREAD_INDEX = new AtomicInteger();
 
-    private static final int TIMEOUTSECODES = 3;
+    private static final ThreadLocal<Context> CONTEXT = new ThreadLocal<Context>() {
+        @Override
+        protected Context initialValue() {
+            return new Context((THREAD_INDEX.getAndIncrement() & Integer.MAX_VALUE) % STRIPES);
+        }
+    };
+
+    static {
+        int digits = Integer.getInteger(ORDER_SEQUENCE_DIGITS, DEFAULT_SEQUENCE_DIGITS);
+        if (digits < 2 || digits > 6) {
+            LOG.warn("{}:{} is illegal, use default:{}", ORDER_SEQUENCE_DIGITS, digits, DEFAULT_SEQUENCE_DIGITS);
+            digits = DEFAULT_SEQUENCE_DIGITS;
+        }
+        SEQUENCE_DIGITS = digits;
+        RANDOM_DIGITS = Math.max(0, TAIL_DIGITS - digits);
+        RANDOM_RANGE = (int) pow10(RANDOM_DIGITS);
+        LENGTH = DATETIME_DIGITS + MACHINE_DIGITS + RANDOM_DIGITS + SEQUENCE_DIGITS;
+
+        long range = pow10(SEQUENCE_DIGITS);
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1) << 1;
+        STRIPES = (int) Math.min(Math.min(stripes, 64), range);
+        PER_STRIPE = range / STRIPES;
+        SEQUENCES = new AtomicLongArray(STRIPES * PADDING);
+    }
 
     private OrderGenerater() {
         // 私有类构造方法
     }
 
     /**
-     * 生成订单号，生成规则：时间戳 + 机器IP最后两位 + 2位随机数 + 两位自增序列 <br>
-     * 采用可重入锁减小锁持有的粒度，提高系统在高并发情况下的性能
+     * 生成订单号，生成规则：时间戳 + 机器IP最后两位 + 随机数 + 自增序列，随机数与自增序列共4位 <br>
+     * 自增序列位数可通过系统属性{@value #ORDER_SEQUENCE_DIGITS}调整：默认2位，即原来的2位随机数 + 2位自增序列；
+     * 设为4时不再有随机数、订单号长度不变，超过4位时订单号相应变长；每毫秒最多生成10^位数个订单号。<br>
+     * 每个线程使用固定的序列号分段，分段之间没有竞争；同一分段用尽时借用下一毫秒，保证同一JVM内不重复；
+     * 时钟回拨超过1秒时最多等待5毫秒，之后继续借用，订单号中的时间会领先于系统时间直到时钟追上
      *
      * @return
      */
     public static String generateOrder() {
-        StringBuilder builder = new StringBuilder();
-        builder.append(getDateTime(FORMATSTRING))
-                .append(getNumberFromMechine())
-                .append(getRandomNum())
-                .append(getIncrement());
-        return builder.toString();
+        Context context = CONTEXT.get();
+        long sequence = nextSequence(context);
+        char[] buf = context.buf;
+        getDateTime(context, buf);
+        int offset = DATETIME_DIGITS;
+        if (MACHINE_NUMBER != null) {
+            buf[offset] = MACHINE_NUMBER[0];
+            buf[offset + 1] = MACHINE_NUMBER[1];
+        } else {
+            writeDigits(buf, offset, MACHINE_DIGITS, ThreadLocalRandom.current().nextInt(100));
+        }
+        offset += MACHINE_DIGITS;
+        if (RANDOM_DIGITS > 0) {
+            writeDigits(buf, offset, RANDOM_DIGITS, ThreadLocalRandom.current().nextInt(RANDOM_RANGE));
+            offset += RANDOM_DIGITS;
+        }
+        writeDigits(buf, offset, SEQUENCE_DIGITS, sequence);
+        return new String(buf);
     }
 
     /**
@@ -71,69 +175,97 @@ public class OrderGenerater {
     }
 
     /**
-     * 获取系统当前时间
+     * 把context.millis按yyMMddHHmmssSSS写入buf[0, 15)，yyMMddHHmmss部分每秒只计算一次
      *
-     * @param formatStr
-     * @return
+     * @param context
+     * @param buf
      */
-    private static String getDateTime(String formatStr) {
-        SimpleDateFormat format = new SimpleDateFormat(formatStr);
-        return format.format(new Date());
+    private static void getDateTime(Context context, char[] buf) {
+        long millis = context.millis;
+        long second = millis / 1000;
+        if (second != context.second) {
+            Calendar calendar = context.calendar;
+            calendar.setTimeInMillis(millis);
+            writeDigits(buf, 0, 2, calendar.get(Calendar.YEAR) % 100);
+            writeDigits(buf, 2, 2, calendar.get(Calendar.MONTH) + 1);
+            writeDigits(buf, 4, 2, calendar.get(Calendar.DAY_OF_MONTH));
+            writeDigits(buf, 6, 2, calendar.get(Calendar.HOUR_OF_DAY));
+            writeDigits(buf, 8, 2, calendar.get(Calendar.MINUTE));
+            writeDigits(buf, 10, 2, calendar.get(Calendar.SECOND));
+            context.second = second;
+        }
+        writeDigits(buf, 12, 3, millis % 1000);
     }
 
     /**
-     * 获取自增序列
+     * 获取当前线程所在分段的下一个自增序列，并把序列所属的毫秒数记录到context.millis
      *
+     * @param context
      * @return
      */
-    private static String getIncrement() {
-        int tempSerialNo = 0;
-        try {
-            if (lock.tryLock(TIMEOUTSECODES, TimeUnit.SECONDS)) {
-                if (serialNo >= 99) {
-                    serialNo = 0;
-                } else {
-                    serialNo = serialNo + 1;
-                }
-                tempSerialNo = serialNo;
+    private static long nextSequence(Context context) {
+        int index = context.stripe * PADDING;
+        long waitStart = 0;
+        boolean waiting = false;
+        for (;;) {
+            long current = SEQUENCES.get(index);
+            long lastMillis = current >>> COUNTER_BITS;
+            long now = System.currentTimeMillis();
+            long next;
+            if (now > lastMillis) {
+                next = now << COUNTER_BITS;
+            } else if ((current & COUNTER_MASK) + 1 < PER_STRIPE) {
+                // 同一毫秒或时钟回拨，沿用上一次的毫秒数
+                next = current + 1;
+            } else if (lastMillis - now < MAX_BORROW_MILLIS) {
+                // 分段序列号用尽，借用下一毫秒
+                next = (lastMillis + 1) << COUNTER_BITS;
             } else {
-                // 指定时间内没有获取到锁，存在激烈的锁竞争或者性能问题，直接报错
-                LOG.error("can not get lock in:{} seconds!", TIMEOUTSECODES);
-                throw new RuntimeException("generateOrder can not get lock!");
+                if (!waiting) {
+                    waiting = true;
+                    waitStart = System.nanoTime();
+                }
+                if (System.nanoTime() - waitStart < MAX_WAIT_NANOS) {
+                    LockSupport.parkNanos(PARK_NANOS);
+                    continue;
+                }
+                // 时钟回拨，不再等待时钟追上
+                if (CLOCK_BACKWARDS.getAndIncrement() % 1000 == 0) {
+                    LOG.warn("Clock moved backwards, last millis:{}, current millis:{}", lastMillis, now);
+                }
+                next = (lastMillis + 1) << COUNTER_BITS;
+            }
+            if (SEQUENCES.compareAndSet(index, current, next)) {
+                context.millis = next >>> COUNTER_BITS;
+                return (next & COUNTER_MASK) * STRIPES + context.stripe;
             }
-        } catch (Exception e) {
-            LOG.error("tryLock throws Exception:", e);
-            throw new RuntimeException("tryLock throws Exception!");
-        } finally {
-            lock.unlock();
-        }
-        if (tempSerialNo < 10) {
-            return "0" + tempSerialNo;
-        } else {
-            return "" + tempSerialNo;
         }
     }
 
     /**
-     * 返回两位随机整数
-     *
-     * @return
+     * 把value按len位十进制(左补0)写入buf[offset, offset + len)
      */
-    private static String getRandomNum() {
-        int num = new Random().nextInt(100);
-        if (num < 10) {
-            return "0" + num;
-        } else {
-            return num + "";
+    private static void writeDigits(char[] buf, int offset, int len, long value) {
+        for (int i = offset + len - 1; i >= offset; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static long pow10(int n) {
+        long value = 1;
+        for (int i = 0; i < n; i++) {
+            value *= 10;
         }
+        return value;
     }
 
     /**
      * 获取IP的最后两位数字
      *
-     * @return
+     * @return 机器名不合法时返回null
      */
-    private static String getNumberFromMechine() {
+    private static char[] getNumberFromMechine() {
         String hostName = "";
         try {
             hostName = getHostName();
@@ -142,16 +274,16 @@ public class OrderGenerater {
         }
         if (StringUtils.isBlank(hostName) || hostName.length() < 2) {
             // 机器名为空
-            LOG.warn("hostName:{} is illegal!return randomNum!", hostName);
-            return getRandomNum();
+            LOG.warn("hostName:{} is illegal!use randomNum!", hostName);
+            return null;
         } else {
             // 得到了机器名
             String number = hostName.substring(hostName.length() - 2, hostName.length());
             if (ValidateUtil.isPoInteger(number)) {
-                return number;
+                return number.toCharArray();
             } else {
-                LOG.warn("number:{} is not number!return randomNum!", number);
-                return getRandomNum();
+                LOG.warn("number:{} is not number!use randomNum!", number);
+                return null;
             }
         }
     }
@@ -169,4 +301,24 @@ public class OrderGenerater {
         }
         return "";
     }
-}
\ No newline at end of file
+
+    /**
+     * 线程私有的状态：所属分段、输出缓冲区、按秒缓存的时间戳
+     */
+    private static final class Context {
+
+        final int stripe;
+
+        final char[] buf = new char[LENGTH];
+
+        final Calendar calendar = Calendar.getInstance();
+
+        long second = -1;
+
+        long millis;
+
+        Context(int stripe) {
+            this.stripe = stripe;
+        }
+    }
+}
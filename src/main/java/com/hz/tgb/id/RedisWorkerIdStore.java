@@ -0,0 +1,48 @@
+package com.hz.tgb.id;
+
+import com.hz.tgb.data.redis.RedisService;
+
+/**
+ * 基于{@link RedisService}的机器ID租约存储，每个机器ID对应一个key，值为租约持有者<br>
+ * 占用使用 SET key owner NX EX ttl，续约和释放用Lua脚本先比较持有者，保证不会误续/误删其他节点的租约
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午7:03:18
+ */
+public class RedisWorkerIdStore implements WorkerIdStore {
+
+    /** 默认的key前缀 */
+    public static final String DEFAULT_KEY_PREFIX = "snowflake:worker:";
+
+    private final RedisService redisService;
+
+    private final String keyPrefix;
+
+    public RedisWorkerIdStore(RedisService redisService) {
+        this(redisService, DEFAULT_KEY_PREFIX);
+    }
+
+    /**
+     * @param redisService
+     * @param keyPrefix key前缀，不同应用可以使用不同的前缀，各自拥有0~1023的机器ID
+     */
+    public RedisWorkerIdStore(RedisService redisService, String keyPrefix) {
+        this.redisService = redisService;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public boolean tryAcquire(int workerId, String owner, long ttlSeconds) {
+        return redisService.saveNX(keyPrefix + workerId, owner, ttlSeconds);
+    }
+
+    @Override
+    public boolean renew(int workerId, String owner, long ttlSeconds) {
+        return redisService.expireIfValue(keyPrefix + workerId, owner, ttlSeconds);
+    }
+
+    @Override
+    public void release(int workerId, String owner) {
+        redisService.deleteIfValue(keyPrefix + workerId, owner);
+    }
+}
@@ -0,0 +1,404 @@
+package com.hz.tgb.id;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 号段模式的ID分配器（双缓冲）。<br>
+ * 1.每个业务标识(biz_tag)在数据库中对应一行，每次在一个事务里把max_id加上step，得到号段[max_id - step + 1, max_id]<br>
+ * 2.号段在内存中用AtomicLong自增分配，不访问数据库<br>
+ * 3.当前号段使用到prefetchRatio（默认20%）时，由后台线程异步租用下一个号段；当前号段用完时直接切换，调用方不需要等待数据库；
+ * 预取超时后改为同步租用，超时的预取结果即使之后返回也会被丢弃，不会切换到比当前号段更小的号段；
+ * 预取失败后当前号段不再重复预取，用完时直接同步租用，同步租用最多尝试3次<br>
+ * 同一个节点生成的ID严格递增，多个节点之间趋势递增；节点重启时未使用完的号段会被丢弃（ID不连续，但不会重复）。
+ *
+ * <pre>
+ * CREATE TABLE id_segment (
+ *     biz_tag     VARCHAR(128) NOT NULL PRIMARY KEY,
+ *     max_id      BIGINT       NOT NULL,
+ *     step        INT          NOT NULL,
+ *     update_time TIMESTAMP
+ * );
+ * INSERT INTO id_segment(biz_tag, max_id, step) VALUES ('order', 0, 10000);
+ *
+ * SegmentIdAllocator allocator = new SegmentIdAllocator(dataSource);
+ * long id = allocator.nextId("order");
+ * </pre>
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午6:12:45
+ */
+public class SegmentIdAllocator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SegmentIdAllocator.class);
+
+    /** 默认表名 */
+    public static final String DEFAULT_TABLE = "id_segment";
+
+    /** 默认在号段使用到20%时预取下一个号段 */
+    private static final double DEFAULT_PREFETCH_RATIO = 0.2;
+
+    /** 当前号段用完、预取还没完成时，最多等待的时间,单位毫秒 */
+    private static final long WAIT_PREFETCH_MILLIS = 3000L;
+
+    /** 同步租用号段的最多尝试次数 */
+    private static final int MAX_LEASE_ATTEMPTS = 3;
+
+    /** 同步租用失败后重试的间隔,单位毫秒 */
+    private static final long LEASE_RETRY_INTERVAL_MILLIS = 100L;
+
+    /** 异步预取号段的公共线程池 */
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newFixedThreadPool(2, new ThreadFactory() {
+        private final AtomicLong index = new AtomicLong();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "segment-id-prefetch-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final DataSource dataSource;
+
+    private final String url;
+
+    private final String user;
+
+    private final String password;
+
+    private final String updateSql;
+
+    private final String selectSql;
+
+    private final double prefetchRatio;
+
+    private final ExecutorService executor;
+
+    private final ConcurrentMap<String, SegmentBuffer> buffers = new ConcurrentHashMap<String, SegmentBuffer>();
+
+    /**
+     * 从连接池获取连接
+     *
+     * @param dataSource
+     */
+    public SegmentIdAllocator(DataSource dataSource) {
+        this(dataSource, null, null, null, DEFAULT_TABLE, DEFAULT_PREFETCH_RATIO, DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * 通过JDBC获取连接（需要先加载驱动）
+     *
+     * @param url
+     * @param user
+     * @param password
+     */
+    public SegmentIdAllocator(String url, String user, String password) {
+        this(null, url, user, password, DEFAULT_TABLE, DEFAULT_PREFETCH_RATIO, DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * @param dataSource 连接池，为null时通过url、user、password获取连接
+     * @param url
+     * @param user
+     * @param password
+     * @param table 号段表名
+     * @param prefetchRatio 号段使用到该比例时预取下一个号段，取值(0, 1)，建议0.1~0.2
+     * @param executor 异步预取号段的线程池
+     */
+    public SegmentIdAllocator(DataSource dataSource, String url, String user, String password, String table,
+            double prefetchRatio, ExecutorService executor) {
+        if (dataSource == null && url == null) {
+            throw new IllegalArgumentException("dataSource and url can't be both null");
+        }
+        if (prefetchRatio <= 0 || prefetchRatio >= 1) {
+            throw new IllegalArgumentException("prefetchRatio must be between 0 and 1");
+        }
+        this.dataSource = dataSource;
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.updateSql = "UPDATE " + table + " SET max_id = max_id + step, update_time = CURRENT_TIMESTAMP WHERE biz_tag = ?";
+        this.selectSql = "SELECT max_id, step FROM " + table + " WHERE biz_tag = ?";
+        this.prefetchRatio = prefetchRatio;
+        this.executor = executor;
+    }
+
+    /**
+     * 获取下一个ID
+     *
+     * @param bizTag 业务标识
+     * @return
+     */
+    public long nextId(String bizTag) {
+        SegmentBuffer buffer = getBuffer(bizTag);
+        for (;;) {
+            Segment segment = buffer.current;
+            long id = segment.value.getAndIncrement();
+            if (id <= segment.max) {
+                if (id >= segment.prefetchAt && buffer.next == null && !buffer.prefetchFailed
+                        && buffer.loading.compareAndSet(false, true)) {
+                    prefetch(buffer);
+                }
+                return id;
+            }
+            switchSegment(buffer, segment);
+        }
+    }
+
+    /**
+     * 当前号段剩余可分配的ID个数，可用于监控
+     *
+     * @param bizTag
+     * @return 没有使用过该业务标识时返回0
+     */
+    public long remaining(String bizTag) {
+        SegmentBuffer buffer = buffers.get(bizTag);
+        if (buffer == null) {
+            return 0;
+        }
+        Segment segment = buffer.current;
+        return Math.max(0, segment.max - segment.value.get() + 1);
+    }
+
+    /**
+     * 从数据库租用一个号段，可由子类覆盖改为其他存储
+     *
+     * @param bizTag
+     * @return
+     * @throws SQLException
+     */
+    protected Segment lease(String bizTag) throws SQLException {
+        Connection conn = getConnection();
+        PreparedStatement update = null;
+        PreparedStatement select = null;
+        ResultSet rs = null;
+        boolean autoCommit = conn.getAutoCommit();
+        try {
+            conn.setAutoCommit(false);
+            update = conn.prepareStatement(updateSql);
+            update.setString(1, bizTag);
+            if (update.executeUpdate() == 0) {
+                conn.rollback();
+                throw new IllegalStateException("biz_tag:" + bizTag + " not exists");
+            }
+            select = conn.prepareStatement(selectSql);
+            select.setString(1, bizTag);
+            rs = select.executeQuery();
+            if (!rs.next()) {
+                conn.rollback();
+                throw new IllegalStateException("biz_tag:" + bizTag + " not exists");
+            }
+            long maxId = rs.getLong(1);
+            int step = rs.getInt(2);
+            conn.commit();
+            LOG.info("lease id segment, bizTag:{}, max_id:{}, step:{}", bizTag, maxId, step);
+            return new Segment(maxId - step + 1, maxId, prefetchRatio);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            close(rs);
+            close(select);
+            close(update);
+            try {
+                conn.setAutoCommit(autoCommit);
+            } catch (SQLException e) {
+                LOG.warn("restore autoCommit error", e);
+            }
+            close(conn);
+        }
+    }
+
+    private Connection getConnection() throws SQLException {
+        if (dataSource != null) {
+            return dataSource.getConnection();
+        }
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    private SegmentBuffer getBuffer(String bizTag) {
+        SegmentBuffer buffer = buffers.get(bizTag);
+        if (buffer != null) {
+            return buffer;
+        }
+        synchronized (buffers) {
+            buffer = buffers.get(bizTag);
+            if (buffer == null) {
+                buffer = new SegmentBuffer(bizTag, leaseWithRetry(bizTag));
+                buffers.put(bizTag, buffer);
+            }
+            return buffer;
+        }
+    }
+
+    /**
+     * 同步租用号段，失败时间隔重试，最多尝试MAX_LEASE_ATTEMPTS次
+     */
+    private Segment leaseWithRetry(String bizTag) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return lease(bizTag);
+            } catch (SQLException e) {
+                if (attempt >= MAX_LEASE_ATTEMPTS) {
+                    LOG.error("lease id segment error, bizTag:" + bizTag + ", attempts:" + attempt, e);
+                    throw new RuntimeException("lease id segment error, bizTag:" + bizTag, e);
+                }
+                LOG.warn("lease id segment error, retry later, bizTag:" + bizTag + ", attempt:" + attempt, e);
+            }
+            try {
+                Thread.sleep(LEASE_RETRY_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("lease id segment interrupted, bizTag:" + bizTag, e);
+            }
+        }
+    }
+
+    private void prefetch(final SegmentBuffer buffer) {
+        // 同步租用会增加代数，之前发起的预取结果作废
+        final long generation = buffer.generation;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Segment segment = null;
+                try {
+                    segment = lease(buffer.bizTag);
+                } catch (Throwable e) {
+                    LOG.error("prefetch id segment error, bizTag:" + buffer.bizTag, e);
+                }
+                buffer.lock.lock();
+                try {
+                    if (generation != buffer.generation) {
+                        if (segment != null) {
+                            LOG.warn("discard stale id segment prefetch, bizTag:{}, max_id:{}", buffer.bizTag, segment.max);
+                        }
+                    } else if (segment != null) {
+                        buffer.next = segment;
+                    } else {
+                        // 当前号段不再预取，用完时直接同步租用
+                        buffer.prefetchFailed = true;
+                    }
+                    buffer.loading.set(false);
+                    buffer.loaded.signalAll();
+                } finally {
+                    buffer.lock.unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * 当前号段用完时切换到预取的号段；预取还没完成时等待，预取失败时同步租用
+     */
+    private void switchSegment(SegmentBuffer buffer, Segment exhausted) {
+        buffer.lock.lock();
+        try {
+            if (buffer.current != exhausted) {
+                // 其他线程已经切换
+                return;
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WAIT_PREFETCH_MILLIS);
+            while (buffer.next == null && buffer.loading.get()) {
+                long nanos = deadline - System.nanoTime();
+                if (nanos <= 0) {
+                    break;
+                }
+                try {
+                    buffer.loaded.awaitNanos(nanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            Segment next = buffer.next;
+            if (next == null) {
+                LOG.warn("id segment prefetch not ready, lease synchronously, bizTag:{}", buffer.bizTag);
+                next = leaseWithRetry(buffer.bizTag);
+                // 还在进行的预取租到的号段比同步租用的小，完成后不能再使用
+                buffer.generation++;
+            }
+            buffer.next = null;
+            buffer.prefetchFailed = false;
+            buffer.current = next;
+        } finally {
+            buffer.lock.unlock();
+        }
+    }
+
+    private static void close(AutoCloseable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            LOG.warn("close jdbc resource error", e);
+        }
+    }
+
+    /**
+     * 号段[start, max]
+     */
+    protected static final class Segment {
+
+        final AtomicLong value;
+
+        final long max;
+
+        /** 分配到该ID时开始预取下一个号段 */
+        final long prefetchAt;
+
+        public Segment(long start, long max, double prefetchRatio) {
+            this.value = new AtomicLong(start);
+            this.max = max;
+            this.prefetchAt = start + (long) ((max - start + 1) * prefetchRatio);
+        }
+    }
+
+    /**
+     * 一个业务标识的双缓冲：正在使用的号段 + 预取好的号段
+     */
+    private static final class SegmentBuffer {
+
+        final String bizTag;
+
+        volatile Segment current;
+
+        volatile Segment next;
+
+        final AtomicBoolean loading = new AtomicBoolean();
+
+        /** 当前号段的预取失败过，切换号段时清除 */
+        volatile boolean prefetchFailed;
+
+        /** 同步租用的次数，只在持有lock时修改 */
+        volatile long generation;
+
+        final ReentrantLock lock = new ReentrantLock();
+
+        final Condition loaded = lock.newCondition();
+
+        SegmentBuffer(String bizTag, Segment current) {
+            this.bizTag = bizTag;
+            this.current = current;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.hz.tgb.id;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 雪花算法机器ID租约。<br>
+ * 1.启动时从随机位置开始依次尝试占用0~1023中空闲的机器ID(高5位为数据中心标识，低5位为服务器标识)，不再需要手工为每个节点配置<br>
+ * 2.租约有过期时间，后台线程每1/3有效期续约一次；节点宕机后租约自动过期，机器ID可以被新节点复用<br>
+ * 3.主存储(Redis)不可用时退回到备用存储(本地文件锁)，此时只能保证共享同一目录的进程之间不重复<br>
+ * 4.没有设置默认租约时{@link #getDefault()}直接报错，不会悄悄使用只在本机有效的文件锁；单机部署可以通过系统属性
+ *   {@value #WORKER_ID_DIR}显式指定文件锁目录。{@link #getDefaultIfPresent()}返回null，由调用方决定退回到固定的机器ID<br>
+ * 续约失败(租约被其他节点占用，或在存储中的有效期到达之前没有续约成功)时{@link #isValid()}返回false，
+ * 使用该租约的雪花算法实例随即停止生成ID，需要告警并重启节点。
+ *
+ * <pre>
+ * WorkerIdLease.setDefault(new WorkerIdLease(new RedisWorkerIdStore(redisService),
+ *         new FileWorkerIdStore(new File("/data/snowflake")), 30));
+ * Snowflake snowflake = SnowflakeUtils.getInstance("order");
+ * </pre>
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午7:03:18
+ */
+public class WorkerIdLease {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WorkerIdLease.class);
+
+    /** 机器ID个数：5位数据中心标识 + 5位服务器标识 */
+    public static final int MAX_WORKER_COUNT = 1 << 10;
+
+    /** 没有设置默认租约时使用的文件锁目录的系统属性，只适用于所有进程都在同一台机器上的部署 */
+    public static final String WORKER_ID_DIR = "snowflake.worker_id_dir";
+
+    private static final int MACHINE_ID_BITS = 5;
+
+    /** 默认租约有效期(秒) */
+    private static final long DEFAULT_TTL_SECONDS = 30L;
+
+    private static volatile WorkerIdLease defaultLease;
+
+    /** 没有设置默认租约的告警只打印一次 */
+    private static boolean notSetWarned;
+
+    private final WorkerIdStore store;
+
+    private final WorkerIdStore fallback;
+
+    private final long ttlSeconds;
+
+    private final String owner;
+
+    private volatile int workerId = -1;
+
+    /** 当前租约所在的存储 */
+    private WorkerIdStore leasedStore;
+
+    /** 本地认为租约到期的时间，比存储中的过期时间提前1/10有效期，租约在存储中过期之前就停止生成ID */
+    private volatile long expireTime;
+
+    private volatile boolean valid;
+
+    private ScheduledExecutorService heartbeat;
+
+    /**
+     * @param store 主存储
+     * @param fallback 主存储不可用时的备用存储，可以为null
+     * @param ttlSeconds 租约有效期(秒)
+     */
+    public WorkerIdLease(WorkerIdStore store, WorkerIdStore fallback, long ttlSeconds) {
+        if (store == null) {
+            throw new IllegalArgumentException("store can't be null");
+        }
+        if (ttlSeconds < 3) {
+            throw new IllegalArgumentException("ttlSeconds can't be less than 3");
+        }
+        this.store = store;
+        this.fallback = fallback;
+        this.ttlSeconds = ttlSeconds;
+        this.owner = getOwner();
+    }
+
+    /**
+     * 设置默认租约(一般在应用启动时用Redis存储初始化)，并立即占用机器ID
+     *
+     * @param lease
+     */
+    public static synchronized void setDefault(WorkerIdLease lease) {
+        lease.acquire();
+        WorkerIdLease old = defaultLease;
+        defaultLease = lease;
+        if (old != null && old != lease) {
+            LOG.warn("default worker id lease replaced, old workerId:{}, new workerId:{}", old.getWorkerId(),
+                    lease.getWorkerId());
+        }
+    }
+
+    /**
+     * 获取默认租约。没有设置时如果指定了系统属性{@value #WORKER_ID_DIR}则使用该目录下的文件锁，否则抛出异常：
+     * 临时目录下的文件锁只在本机有效，多台机器上的节点会分配到相同的机器ID
+     *
+     * @return
+     * @throws IllegalStateException 没有设置默认租约
+     */
+    public static WorkerIdLease getDefault() {
+        WorkerIdLease lease = getDefaultIfPresent();
+        if (lease == null) {
+            throw new IllegalStateException("default worker id lease not set, call WorkerIdLease.setDefault "
+                    + "with a shared store (e.g. RedisWorkerIdStore), or set -D" + WORKER_ID_DIR
+                    + " for single host deployment");
+        }
+        return lease;
+    }
+
+    /**
+     * 获取默认租约，与{@link #getDefault()}相同，但没有设置默认租约、也没有指定系统属性{@value #WORKER_ID_DIR}时
+     * 返回null(第一次时打印告警)
+     *
+     * @return
+     */
+    public static WorkerIdLease getDefaultIfPresent() {
+        WorkerIdLease lease = defaultLease;
+        if (lease != null) {
+            return lease;
+        }
+        synchronized (WorkerIdLease.class) {
+            if (defaultLease == null) {
+                String dir = System.getProperty(WORKER_ID_DIR);
+                if (dir == null || dir.trim().isEmpty()) {
+                    if (!notSetWarned) {
+                        notSetWarned = true;
+                        LOG.warn("default worker id lease not set, call WorkerIdLease.setDefault with a shared store "
+                                + "(e.g. RedisWorkerIdStore), or set -D{} for single host deployment", WORKER_ID_DIR);
+                    }
+                    return null;
+                }
+                LOG.warn("default worker id lease not set, use local file lock:{}", dir);
+                lease = new WorkerIdLease(new FileWorkerIdStore(new File(dir.trim())), null, DEFAULT_TTL_SECONDS);
+                lease.acquire();
+                defaultLease = lease;
+            }
+            return defaultLease;
+        }
+    }
+
+    /**
+     * 占用一个空闲的机器ID并开始续约，已经占用时直接返回
+     *
+     * @return 机器ID，0~1023
+     */
+    public synchronized int acquire() {
+        if (workerId >= 0) {
+            return workerId;
+        }
+        long start = System.currentTimeMillis();
+        int id;
+        try {
+            id = acquireFrom(store);
+            leasedStore = store;
+        } catch (RuntimeException e) {
+            if (fallback == null) {
+                throw e;
+            }
+            LOG.error("acquire worker id error, use fallback store", e);
+            id = acquireFrom(fallback);
+            leasedStore = fallback;
+        }
+        workerId = id;
+        expireTime = expireTimeFrom(start);
+        valid = true;
+        startHeartbeat();
+        LOG.info("acquire worker id:{}, datacenterId:{}, machineId:{}, owner:{}", workerId, getDatacenterId(),
+                getMachineId(), owner);
+        return workerId;
+    }
+
+    /**
+     * 停止续约并释放机器ID
+     */
+    public synchronized void close() {
+        if (workerId < 0) {
+            return;
+        }
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+            heartbeat = null;
+        }
+        try {
+            leasedStore.release(workerId, owner);
+        } catch (RuntimeException e) {
+            LOG.warn("release worker id:{} error", workerId, e);
+        }
+        valid = false;
+        workerId = -1;
+    }
+
+    /**
+     * 机器ID，0~1023
+     *
+     * @return
+     */
+    public int getWorkerId() {
+        return acquire();
+    }
+
+    /**
+     * 数据中心标识，机器ID的高5位
+     *
+     * @return
+     */
+    public long getDatacenterId() {
+        return getWorkerId() >>> MACHINE_ID_BITS;
+    }
+
+    /**
+     * 服务器标识，机器ID的低5位
+     *
+     * @return
+     */
+    public long getMachineId() {
+        return getWorkerId() & ((1 << MACHINE_ID_BITS) - 1);
+    }
+
+    /**
+     * 租约是否仍然有效
+     *
+     * @return
+     */
+    public boolean isValid() {
+        return valid && System.currentTimeMillis() < expireTime;
+    }
+
+    /**
+     * 获取有效租约的机器ID，不会重新占用。使用租约的雪花算法实例每次生成ID前调用
+     *
+     * @return 机器ID，0~1023
+     * @throws IllegalStateException 租约已关闭或已失效，其他节点可能已经占用了这个机器ID
+     */
+    public int checkWorkerId() {
+        int id = workerId;
+        if (id < 0 || !isValid()) {
+            throw new IllegalStateException("worker id:" + id + " lease is not valid, stop issuing ids");
+        }
+        return id;
+    }
+
+    /**
+     * 续约一次，由后台线程定时调用
+     */
+    void renew() {
+        int id;
+        WorkerIdStore current;
+        synchronized (this) {
+            id = workerId;
+            current = leasedStore;
+        }
+        if (id < 0) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            // 续约失败时(如Redis重启丢失了key)尝试重新占用同一个机器ID
+            if (current.renew(id, owner, ttlSeconds) || current.tryAcquire(id, owner, ttlSeconds)) {
+                expireTime = expireTimeFrom(start);
+                if (!valid) {
+                    LOG.warn("worker id:{} lease recovered", id);
+                }
+                valid = true;
+                return;
+            }
+            valid = false;
+            LOG.error("worker id:{} lease is taken by others, ids may be duplicated!", id);
+        } catch (RuntimeException e) {
+            if (System.currentTimeMillis() >= expireTime) {
+                valid = false;
+                LOG.error("renew worker id:{} error, lease expired, ids may be duplicated!", id, e);
+            } else {
+                LOG.warn("renew worker id:{} error, retry later", id, e);
+            }
+        }
+    }
+
+    /**
+     * 存储中的有效期从请求发出时开始计算，本地到期时间再提前1/10有效期
+     */
+    private long expireTimeFrom(long requestTime) {
+        return requestTime + TimeUnit.SECONDS.toMillis(ttlSeconds) * 9 / 10;
+    }
+
+    private int acquireFrom(WorkerIdStore workerIdStore) {
+        // 从随机位置开始，减少同时启动的节点之间的冲突
+        int start = ThreadLocalRandom.current().nextInt(MAX_WORKER_COUNT);
+        for (int i = 0; i < MAX_WORKER_COUNT; i++) {
+            int id = (start + i) % MAX_WORKER_COUNT;
+            if (workerIdStore.tryAcquire(id, owner, ttlSeconds)) {
+                return id;
+            }
+        }
+        throw new IllegalStateException("no free worker id");
+    }
+
+    private void startHeartbeat() {
+        heartbeat = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "worker-id-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        long interval = TimeUnit.SECONDS.toMillis(ttlSeconds) / 3;
+        heartbeat.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                renew();
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 租约持有者标识：主机名 + 进程号 + 随机串
+     */
+    private static String getOwner() {
+        String host = "unknown";
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            LOG.warn("getLocalHost error", e);
+        }
+        return host + "/" + ManagementFactory.getRuntimeMXBean().getName() + "/"
+                + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,38 @@
+package com.hz.tgb.id;
+
+/**
+ * 雪花算法机器ID({@link WorkerIdLease})的租约存储，生产环境由Redis实现，Redis不可用时退回到本地文件锁
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午7:03:18
+ */
+public interface WorkerIdStore {
+
+    /**
+     * 机器ID不存在租约时占用它(原子操作)
+     *
+     * @param workerId 机器ID
+     * @param owner 租约持有者标识
+     * @param ttlSeconds 租约有效期(秒)
+     * @return 是否占用成功
+     */
+    boolean tryAcquire(int workerId, String owner, long ttlSeconds);
+
+    /**
+     * 续约，只有租约仍属于owner时才会成功
+     *
+     * @param workerId
+     * @param owner
+     * @param ttlSeconds
+     * @return 租约已过期或被其他节点占用时返回false
+     */
+    boolean renew(int workerId, String owner, long ttlSeconds);
+
+    /**
+     * 释放租约，只有租约仍属于owner时才会释放
+     *
+     * @param workerId
+     * @param owner
+     */
+    void release(int workerId, String owner);
+}
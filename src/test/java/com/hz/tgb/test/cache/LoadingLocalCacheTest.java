@@ -0,0 +1,168 @@
+package com.hz.tgb.test.cache;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.hz.tgb.cache.LoadingLocalCache;
+import com.hz.tgb.cache.LocalCacheEngine;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 自动加载本地缓存单元测试
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 上午11:05:42
+ */
+public class LoadingLocalCacheTest {
+
+    /**
+     * 同一个key并发未命中时只加载一次
+     */
+    @Test
+    public void testSingleFlight() throws InterruptedException {
+        final AtomicInteger loadCount = new AtomicInteger();
+        final LoadingLocalCache<String> cache = new LoadingLocalCache<String>(new LoadingLocalCache.CacheLoader<String>() {
+            @Override
+            public String load(String key) throws Exception {
+                loadCount.incrementAndGet();
+                Thread.sleep(200L);
+                return "value-" + key;
+            }
+        }, 60000L, 1);
+
+        int threads = 20;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicInteger wrong = new AtomicInteger();
+        for (int i = 0; i < threads; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        if (!"value-hot".equals(cache.get("hot"))) {
+                            wrong.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        wrong.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+
+        Assert.assertEquals(0, wrong.get());
+        Assert.assertEquals(1, loadCount.get());
+    }
+
+    /**
+     * 超过刷新时间后返回旧值，并在后台刷新
+     */
+    @Test
+    public void testRefreshAhead() throws InterruptedException {
+        final AtomicInteger version = new AtomicInteger();
+        LoadingLocalCache<Integer> cache = new LoadingLocalCache<Integer>(new LoadingLocalCache.CacheLoader<Integer>() {
+            @Override
+            public Integer load(String key) throws Exception {
+                Thread.sleep(100L);
+                return version.incrementAndGet();
+            }
+        }, 1000L, 0.2);
+
+        Assert.assertEquals(Integer.valueOf(1), cache.get("key"));
+        Thread.sleep(300L);
+        // 已过刷新时间但未过期：立即返回旧值
+        Assert.assertEquals(Integer.valueOf(1), cache.get("key"));
+        Thread.sleep(300L);
+        Assert.assertEquals(Integer.valueOf(2), cache.get("key"));
+    }
+
+    /**
+     * 加载失败时抛出异常，且不缓存
+     */
+    @Test
+    public void testLoadError() {
+        final AtomicInteger loadCount = new AtomicInteger();
+        LoadingLocalCache<String> cache = new LoadingLocalCache<String>(new LoadingLocalCache.CacheLoader<String>() {
+            @Override
+            public String load(String key) throws Exception {
+                if (loadCount.incrementAndGet() == 1) {
+                    throw new IllegalStateException("backend down");
+                }
+                return "ok";
+            }
+        }, 60000L, 0.8);
+
+        try {
+            cache.get("key");
+            Assert.fail("should throw");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        Assert.assertEquals("ok", cache.get("key"));
+    }
+
+    /**
+     * 加载过程中被删除时，加载完成后不把旧值写回缓存
+     */
+    @Test
+    public void testInvalidateDuringLoad() throws Exception {
+        final AtomicInteger version = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final LoadingLocalCache<Integer> cache = new LoadingLocalCache<Integer>(new LoadingLocalCache.CacheLoader<Integer>() {
+            @Override
+            public Integer load(String key) throws Exception {
+                int value = version.incrementAndGet();
+                if (value == 1) {
+                    loading.countDown();
+                    release.await();
+                }
+                return value;
+            }
+        }, 60000L, 1);
+
+        final Integer[] result = new Integer[1];
+        Thread slow = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                result[0] = cache.get("key");
+            }
+        });
+        slow.start();
+        loading.await();
+        cache.invalidate("key");
+        release.countDown();
+        slow.join();
+
+        // 等待的线程拿到本次加载的结果，但缓存中没有这个旧值
+        Assert.assertEquals(Integer.valueOf(1), result[0]);
+        Assert.assertNull(cache.getIfPresent("key"));
+        Assert.assertEquals(Integer.valueOf(2), cache.get("key"));
+        cache.shutdown();
+    }
+
+    /**
+     * 超过最大个数时淘汰
+     */
+    @Test
+    public void testMaximumSize() {
+        LoadingLocalCache<String> cache = new LoadingLocalCache<String>(new LoadingLocalCache.CacheLoader<String>() {
+            @Override
+            public String load(String key) throws Exception {
+                return "value-" + key;
+            }
+        }, 100, 60000L, 1, Executors.newSingleThreadExecutor());
+        for (int i = 0; i < 10000; i++) {
+            Assert.assertEquals("value-" + i, cache.get(String.valueOf(i)));
+        }
+        // 按段淘汰，每段容量向上取整
+        Assert.assertTrue(cache.size() <= 100 + LocalCacheEngine.DEFAULT_CONCURRENCY_LEVEL);
+        cache.shutdown();
+    }
+}
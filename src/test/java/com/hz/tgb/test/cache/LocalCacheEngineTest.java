@@ -0,0 +1,231 @@
+package com.hz.tgb.test.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.hz.tgb.cache.LocalCacheEngine;
+import com.hz.tgb.cache.LocalCacheObj;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 本地缓存引擎单元测试
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 上午10:12:30
+ */
+public class LocalCacheEngineTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalCacheEngineTest.class);
+
+    /**
+     * 超过最大个数时淘汰最久未访问的缓存
+     */
+    @Test
+    public void testLruEviction() {
+        LocalCacheEngine<String> engine = new LocalCacheEngine<String>(3, 1, 1000L, 8);
+        try {
+            engine.put("a", "1", 60000L);
+            engine.put("b", "2", 60000L);
+            engine.put("c", "3", 60000L);
+            // 访问a，使b成为最久未访问
+            Assert.assertEquals("1", engine.get("a").getT());
+            engine.put("d", "4", 60000L);
+
+            Assert.assertEquals(3, engine.size());
+            Assert.assertNull(engine.get("b"));
+            Assert.assertNotNull(engine.get("a"));
+            Assert.assertNotNull(engine.get("d"));
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    /**
+     * 过期缓存不需要被再次读取，也会被时间轮清理
+     */
+    @Test
+    public void testBackgroundExpire() throws InterruptedException {
+        LocalCacheEngine<String> engine = new LocalCacheEngine<String>(100, 4, 10L, 16);
+        try {
+            for (int i = 0; i < 50; i++) {
+                engine.put("short" + i, "v", 20L);
+            }
+            engine.put("long", "v", 60000L);
+            Thread.sleep(300L);
+
+            Assert.assertEquals(1, engine.size());
+            Assert.assertNotNull(engine.get("long"));
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    /**
+     * 覆盖后的新值不会被旧值的过期时间误删
+     */
+    @Test
+    public void testOverwriteNotExpiredByOldEntry() throws InterruptedException {
+        LocalCacheEngine<String> engine = new LocalCacheEngine<String>(100, 4, 10L, 16);
+        try {
+            engine.put("key", "old", 20L);
+            engine.put("key", "new", 60000L);
+            Thread.sleep(200L);
+
+            LocalCacheObj<String> obj = engine.get("key");
+            Assert.assertNotNull(obj);
+            Assert.assertEquals("new", obj.getT());
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    /**
+     * 多线程并发插入、查询
+     */
+    @Test
+    public void testConcurrentInsert() throws InterruptedException {
+        final LocalCacheEngine<Integer> engine = new LocalCacheEngine<Integer>(100000);
+        final int threads = 8;
+        final int perThread = 10000;
+        final CountDownLatch latch = new CountDownLatch(threads);
+        final AtomicInteger misses = new AtomicInteger();
+        try {
+            for (int t = 0; t < threads; t++) {
+                final int base = t * perThread;
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = base; i < base + perThread; i++) {
+                            engine.put("key" + i, i, 60000L);
+                            LocalCacheObj<Integer> obj = engine.get("key" + i);
+                            if (obj == null || obj.getT() != i) {
+                                misses.incrementAndGet();
+                            }
+                        }
+                        latch.countDown();
+                    }
+                }).start();
+            }
+            latch.await();
+
+            Assert.assertEquals(0, misses.get());
+            Assert.assertEquals(threads * perThread, engine.size());
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    /**
+     * 读取不加锁，命中记录经读缓冲回放后仍然参与LRU：并发读取的热点key不会被淘汰
+     */
+    @Test
+    public void testConcurrentReadsKeepHotKeys() throws InterruptedException {
+        final LocalCacheEngine<Integer> engine = new LocalCacheEngine<Integer>(100, 1, 1000L, 8);
+        final int threads = 4;
+        final CountDownLatch latch = new CountDownLatch(threads);
+        final AtomicInteger misses = new AtomicInteger();
+        try {
+            for (int i = 0; i < 10; i++) {
+                engine.put("hot" + i, i, 60000L);
+            }
+            for (int t = 0; t < threads; t++) {
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < 100000; i++) {
+                            LocalCacheObj<Integer> obj = engine.get("hot" + (i % 10));
+                            if (obj == null || obj.getT() != i % 10) {
+                                misses.incrementAndGet();
+                            }
+                        }
+                        latch.countDown();
+                    }
+                }).start();
+            }
+            // 读取的同时写入冷数据触发淘汰，每写入一个冷key前读一遍热点key
+            for (int i = 0; i < 5000; i++) {
+                for (int j = 0; j < 10; j++) {
+                    engine.get("hot" + j);
+                }
+                engine.put("cold" + i, i, 60000L);
+            }
+            latch.await();
+
+            Assert.assertEquals(0, misses.get());
+            Assert.assertEquals(100, engine.size());
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    /**
+     * 与原HashMap实现（加同步以保证正确性）的多线程读写耗时对比
+     */
+    public static void main(String[] args) throws InterruptedException {
+        final int keys = 100000;
+        final int ops = 2000000;
+        for (int threads = 1; threads <= 16; threads <<= 1) {
+            final LocalCacheEngine<Object> engine = new LocalCacheEngine<Object>(200000);
+            final Map<String, LocalCacheObj<Object>> map = new HashMap<String, LocalCacheObj<Object>>();
+
+            long engineCost = run(threads, ops, new Op() {
+                @Override
+                public void apply(int i) {
+                    String key = "key" + (i % keys);
+                    if (i % 10 == 0) {
+                        engine.put(key, i, 60000L);
+                    } else {
+                        engine.get(key);
+                    }
+                }
+            });
+            long mapCost = run(threads, ops, new Op() {
+                @Override
+                public void apply(int i) {
+                    String key = "key" + (i % keys);
+                    synchronized (map) {
+                        if (i % 10 == 0) {
+                            map.put(key, new LocalCacheObj<Object>(i, System.currentTimeMillis() + 60000L));
+                        } else {
+                            LocalCacheObj<Object> obj = map.get(key);
+                            if (obj != null && System.currentTimeMillis() > obj.getExpireTime()) {
+                                map.remove(key);
+                            }
+                        }
+                    }
+                }
+            });
+            engine.shutdown();
+            logger.info("threads:{} engine cost:{}ms synchronized HashMap cost:{}ms", threads, engineCost, mapCost);
+        }
+    }
+
+    private interface Op {
+        void apply(int i);
+    }
+
+    private static long run(int threads, final int ops, final Op op) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(threads);
+        final int perThread = ops / threads;
+        long startTime = System.currentTimeMillis();
+        for (int t = 0; t < threads; t++) {
+            final int seed = t * 7919;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perThread; i++) {
+                        op.apply(seed + i);
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        return System.currentTimeMillis() - startTime;
+    }
+}
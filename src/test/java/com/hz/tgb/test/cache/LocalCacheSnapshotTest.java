@@ -0,0 +1,137 @@
+package com.hz.tgb.test.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.hz.tgb.cache.CacheSerializer;
+import com.hz.tgb.cache.JdkCacheSerializer;
+import com.hz.tgb.cache.LocalCacheEngine;
+import com.hz.tgb.cache.LocalCacheObj;
+import com.hz.tgb.cache.LocalCacheSnapshot;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * 本地缓存快照单元测试
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午3:41:08
+ */
+public class LocalCacheSnapshotTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("local-cache", ".snapshot");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testSaveAndRestore() throws Exception {
+        LocalCacheEngine<String> engine = new LocalCacheEngine<String>(1000);
+        for (int i = 0; i < 100; i++) {
+            engine.put("key" + i, "value" + i, 60000L);
+        }
+        engine.put("short", "value", 500L);
+        Assert.assertEquals(101, new LocalCacheSnapshot<String>(engine, file, new JdkCacheSerializer<String>()).save());
+        engine.shutdown();
+        Thread.sleep(600L);
+
+        LocalCacheEngine<String> restored = new LocalCacheEngine<String>(1000);
+        try {
+            LocalCacheSnapshot<String> snapshot = new LocalCacheSnapshot<String>(restored, file, new JdkCacheSerializer<String>());
+            // 已过期的缓存不恢复
+            Assert.assertEquals(100, snapshot.restore());
+            // 惰性恢复：被查询之前不在内存中
+            Assert.assertEquals(0, restored.size());
+            Assert.assertEquals("value7", restored.get("key7").getT());
+            Assert.assertEquals(1, restored.size());
+            Assert.assertNull(restored.get("short"));
+
+            // 新写入和删除的key不会被快照中的旧值覆盖
+            restored.put("key8", "new", 60000L);
+            Assert.assertEquals("new", restored.get("key8").getT());
+            restored.remove("key9");
+            Assert.assertNull(restored.get("key9"));
+
+            // 再次保存时，未被访问过的缓存也会保留
+            Assert.assertEquals(99, snapshot.save());
+        } finally {
+            restored.shutdown();
+        }
+    }
+
+    /**
+     * 恢复过程中(已从快照取出，尚未放入缓存)被删除的key不会被恢复回来
+     */
+    @Test
+    public void testRemoveDuringRestore() throws Exception {
+        LocalCacheEngine<String> engine = new LocalCacheEngine<String>(1000);
+        engine.put("key", "value", 60000L);
+        new LocalCacheSnapshot<String>(engine, file, new JdkCacheSerializer<String>()).save();
+        engine.shutdown();
+
+        final LocalCacheEngine<String> restored = new LocalCacheEngine<String>(1000, 1, 1000L, 8);
+        final CountDownLatch deserializing = new CountDownLatch(1);
+        final CountDownLatch removed = new CountDownLatch(1);
+        final JdkCacheSerializer<String> jdk = new JdkCacheSerializer<String>();
+        try {
+            new LocalCacheSnapshot<String>(restored, file, new CacheSerializer<String>() {
+                @Override
+                public byte[] serialize(String value) {
+                    return jdk.serialize(value);
+                }
+
+                @Override
+                public String deserialize(byte[] bytes) {
+                    deserializing.countDown();
+                    try {
+                        removed.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return jdk.deserialize(bytes);
+                }
+            }).restore();
+            final AtomicReference<LocalCacheObj<String>> result = new AtomicReference<LocalCacheObj<String>>();
+            Thread reader = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    result.set(restored.get("key"));
+                }
+            });
+            reader.start();
+            deserializing.await();
+            restored.remove("key");
+            removed.countDown();
+            reader.join();
+
+            Assert.assertNull(result.get());
+            Assert.assertNull(restored.get("key"));
+            Assert.assertEquals(0, restored.size());
+        } finally {
+            restored.shutdown();
+        }
+    }
+
+    @Test
+    public void testRestoreCorruptedFile() throws Exception {
+        Files.write(file.toPath(), new byte[] { 1, 2, 3 });
+        LocalCacheEngine<String> engine = new LocalCacheEngine<String>(1000);
+        try {
+            Assert.assertEquals(0, new LocalCacheSnapshot<String>(engine, file, new JdkCacheSerializer<String>()).restore());
+        } finally {
+            engine.shutdown();
+        }
+    }
+}
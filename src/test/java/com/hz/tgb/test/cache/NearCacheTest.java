@@ -0,0 +1,248 @@
+package com.hz.tgb.test.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.hz.tgb.cache.NearCache;
+import com.hz.tgb.cache.RemoteCacheStore;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 两级近端缓存单元测试，用内存实现代替Redis
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午4:52:37
+ */
+public class NearCacheTest {
+
+    @Test
+    public void testReadThroughAndInvalidate() {
+        InMemoryStore store = new InMemoryStore();
+        NearCache nodeA = new NearCache(store, 1000, 60000L, 0);
+        NearCache nodeB = new NearCache(store, 1000, 60000L, 0);
+        nodeA.start(60000L);
+        nodeB.start(60000L);
+        try {
+            nodeA.set("user:1", "jack");
+            Assert.assertEquals("jack", nodeB.get("user:1"));
+            int remoteGets = store.gets.get();
+            // 第二次读取命中本地
+            Assert.assertEquals("jack", nodeB.get("user:1"));
+            Assert.assertEquals(remoteGets, store.gets.get());
+
+            nodeA.set("user:1", "bob");
+            // 广播之前，B仍是本地旧值
+            Assert.assertEquals("jack", nodeB.get("user:1"));
+            nodeA.flush();
+            Assert.assertEquals("bob", nodeB.get("user:1"));
+
+            nodeA.delete("user:1");
+            nodeA.flush();
+            Assert.assertNull(nodeB.get("user:1"));
+            Assert.assertNull(nodeA.get("user:1"));
+        } finally {
+            nodeA.shutdown();
+            nodeB.shutdown();
+        }
+    }
+
+    /**
+     * 失效通知批量发送
+     */
+    @Test
+    public void testBatchedInvalidation() {
+        InMemoryStore store = new InMemoryStore();
+        NearCache node = new NearCache(store, 1000, 60000L, 0);
+        node.start(60000L);
+        try {
+            for (int i = 0; i < 100; i++) {
+                node.set("key" + i, "value" + i);
+            }
+            node.flush();
+            Assert.assertEquals(1, store.publishes.get());
+        } finally {
+            node.shutdown();
+        }
+    }
+
+    /**
+     * 与删除并发的慢查询读到的旧值，不能放入本地缓存
+     */
+    @Test
+    public void testStaleReadRejected() {
+        final InMemoryStore store = new InMemoryStore();
+        final NearCache nodeA = new NearCache(store, 1000, 60000L, 0);
+        NearCache nodeB = new NearCache(store, 1000, 60000L, 0);
+        nodeA.start(60000L);
+        nodeB.start(60000L);
+        try {
+            nodeA.set("order:1", "paid");
+            // B从Redis读到值之后、放入本地之前，A删除了该key并广播
+            store.afterGet = new Runnable() {
+                @Override
+                public void run() {
+                    store.afterGet = null;
+                    nodeA.delete("order:1");
+                    nodeA.flush();
+                }
+            };
+            Assert.assertEquals("paid", nodeB.get("order:1"));
+            // 旧值没有进入B的本地缓存
+            Assert.assertNull(nodeB.get("order:1"));
+        } finally {
+            nodeA.shutdown();
+            nodeB.shutdown();
+        }
+    }
+
+    /**
+     * 并发写入时先取到版本号的写入后到达Redis，不能覆盖新值；Redis中保存的是原始值
+     */
+    @Test
+    public void testOutOfOrderSetRejected() {
+        final InMemoryStore store = new InMemoryStore();
+        NearCache nodeA = new NearCache(store, 1000, 60000L, 0);
+        final NearCache nodeB = new NearCache(store, 1000, 60000L, 0);
+        nodeA.start(60000L);
+        nodeB.start(60000L);
+        try {
+            // A取到版本号之后、写入Redis之前，B完成了一次更新的写入
+            store.beforeSet = new Runnable() {
+                @Override
+                public void run() {
+                    store.beforeSet = null;
+                    Assert.assertTrue(nodeB.set("user:1", "new"));
+                }
+            };
+            Assert.assertFalse(nodeA.set("user:1", "old"));
+            Assert.assertEquals("new", store.get("user:1"));
+            Assert.assertEquals("new", nodeA.get("user:1"));
+            Assert.assertEquals("new", nodeB.get("user:1"));
+
+            nodeB.flush();
+            nodeA.flush();
+            Assert.assertEquals("new", nodeA.get("user:1"));
+            Assert.assertEquals("new", nodeB.get("user:1"));
+
+            // 删除之后，版本更旧的写入同样被拒绝
+            long version = store.increment(NearCache.VERSION_KEY);
+            Assert.assertTrue(nodeA.delete("user:1"));
+            Assert.assertFalse(store.setIfNewer("user:1", NearCache.versionKeyOf("user:1"), "old", version, 0));
+            nodeA.flush();
+            Assert.assertNull(nodeB.get("user:1"));
+        } finally {
+            nodeA.shutdown();
+            nodeB.shutdown();
+        }
+    }
+
+    /**
+     * Redis的内存替代实现，发布的消息同步投递给所有订阅者
+     */
+    private static class InMemoryStore implements RemoteCacheStore {
+
+        private final Map<String, String> data = new ConcurrentHashMap<String, String>();
+
+        private final Map<String, List<MessageListener>> listeners = new ConcurrentHashMap<String, List<MessageListener>>();
+
+        private final AtomicInteger gets = new AtomicInteger();
+
+        private final AtomicInteger publishes = new AtomicInteger();
+
+        private volatile Runnable afterGet;
+
+        private volatile Runnable beforeSet;
+
+        @Override
+        public String get(String key) {
+            return data.get(key);
+        }
+
+        @Override
+        public List<String> multiGet(String... keys) {
+            gets.incrementAndGet();
+            List<String> values = new ArrayList<String>();
+            synchronized (this) {
+                for (String key : keys) {
+                    values.add(data.get(key));
+                }
+            }
+            Runnable hook = afterGet;
+            if (hook != null) {
+                hook.run();
+            }
+            return values;
+        }
+
+        @Override
+        public boolean setIfNewer(String key, String versionKey, String value, long version, long seconds) {
+            Runnable hook = beforeSet;
+            if (hook != null) {
+                hook.run();
+            }
+            synchronized (this) {
+                String current = data.get(versionKey);
+                if (current != null && Long.parseLong(current) >= version) {
+                    return false;
+                }
+                data.put(key, value);
+                data.put(versionKey, String.valueOf(version));
+                return true;
+            }
+        }
+
+        @Override
+        public synchronized boolean deleteIfNewer(String key, String versionKey, long version, long tombstoneSeconds) {
+            String current = data.get(versionKey);
+            if (current != null && Long.parseLong(current) >= version) {
+                return false;
+            }
+            data.remove(key);
+            data.put(versionKey, String.valueOf(version));
+            return true;
+        }
+
+        @Override
+        public void set(String key, String value, long seconds) {
+            data.put(key, value);
+        }
+
+        @Override
+        public void delete(String key) {
+            data.remove(key);
+        }
+
+        @Override
+        public synchronized long increment(String key) {
+            long value = data.containsKey(key) ? Long.parseLong(data.get(key)) + 1 : 1;
+            data.put(key, String.valueOf(value));
+            return value;
+        }
+
+        @Override
+        public void publish(String channel, String message) {
+            publishes.incrementAndGet();
+            List<MessageListener> list = listeners.get(channel);
+            if (list != null) {
+                for (MessageListener listener : list) {
+                    listener.onMessage(message);
+                }
+            }
+        }
+
+        @Override
+        public synchronized void subscribe(String channel, MessageListener listener) {
+            List<MessageListener> list = listeners.get(channel);
+            if (list == null) {
+                list = new CopyOnWriteArrayList<MessageListener>();
+                listeners.put(channel, list);
+            }
+            list.add(listener);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.hz.tgb.test.cache;
+
+import java.util.concurrent.CountDownLatch;
+
+import com.hz.tgb.cache.CacheSerializer;
+import com.hz.tgb.cache.JdkCacheSerializer;
+import com.hz.tgb.cache.LocalCacheEngine;
+import com.hz.tgb.cache.LocalCacheObj;
+import com.hz.tgb.cache.OffHeapCache;
+import com.hz.tgb.cache.TieredLocalCache;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 堆外缓存单元测试
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午2:20:16
+ */
+public class OffHeapCacheTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapCacheTest.class);
+
+    @Test
+    public void testPutGetRemove() {
+        OffHeapCache<String> cache = new OffHeapCache<String>(1024 * 1024, 4, 64 * 1024, new JdkCacheSerializer<String>());
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(cache.put("key" + i, "value" + i, 60000L));
+        }
+        cache.put("key7", "new", 60000L);
+
+        Assert.assertEquals(1000, cache.size());
+        Assert.assertEquals("value1", cache.get("key1").getT());
+        Assert.assertEquals("new", cache.get("key7").getT());
+        Assert.assertTrue(cache.remove("key1"));
+        Assert.assertNull(cache.get("key1"));
+        Assert.assertEquals(999, cache.size());
+    }
+
+    /**
+     * 超出容量时按写入顺序整块淘汰最早的slab
+     */
+    @Test
+    public void testSlabEviction() {
+        OffHeapCache<String> cache = new OffHeapCache<String>(8 * 1024, 1, 4 * 1024, new JdkCacheSerializer<String>());
+        for (int i = 0; i < 2000; i++) {
+            cache.put("key" + i, "value" + i, 60000L);
+        }
+
+        Assert.assertEquals(8 * 1024, cache.allocatedBytes());
+        Assert.assertNull(cache.get("key0"));
+        Assert.assertEquals("value1999", cache.get("key1999").getT());
+        Assert.assertTrue(cache.size() < 2000);
+    }
+
+    /**
+     * 只指定容量时，分段数和slab大小按容量推算，占用不超过容量
+     */
+    @Test
+    public void testCapacityLayout() {
+        long[] capacities = {64 * 1024, 1024 * 1024, 8 * 1024 * 1024};
+        for (long capacity : capacities) {
+            OffHeapCache<String> cache = new OffHeapCache<String>(capacity, new JdkCacheSerializer<String>());
+            for (int i = 0; i < 100000; i++) {
+                cache.put("key" + i, "value" + i, 60000L);
+            }
+            Assert.assertTrue(cache.allocatedBytes() <= capacity);
+            Assert.assertTrue(cache.allocatedBytes() >= capacity / 2);
+            Assert.assertEquals("value99999", cache.get("key99999").getT());
+        }
+    }
+
+    @Test
+    public void testExpire() throws InterruptedException {
+        OffHeapCache<String> cache = new OffHeapCache<String>(1024 * 1024, new JdkCacheSerializer<String>());
+        cache.put("key", "value", 20L);
+        Thread.sleep(50L);
+
+        Assert.assertNull(cache.get("key"));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    /**
+     * 堆外命中后提升到堆内
+     */
+    @Test
+    public void testTieredPromote() {
+        TieredLocalCache<String> cache = new TieredLocalCache<String>(100, 1024 * 1024, new JdkCacheSerializer<String>());
+        try {
+            cache.put("key", "value", 60000L);
+            Assert.assertNull(cache.getHeapTier().get("key"));
+
+            // 第一次堆外命中不提升，第二次命中才提升
+            LocalCacheObj<String> obj = cache.get("key");
+            Assert.assertEquals("value", obj.getT());
+            Assert.assertNull(cache.getHeapTier().get("key"));
+            Assert.assertEquals("value", cache.get("key").getT());
+            Assert.assertNotNull(cache.getHeapTier().get("key"));
+
+            cache.remove("key");
+            Assert.assertNull(cache.get("key"));
+        } finally {
+            cache.shutdown();
+        }
+    }
+
+    /**
+     * 读取堆外旧值后、提升前被写入新值时，放弃提升，旧值不会出现在堆内层
+     */
+    @Test
+    public void testPromoteRacesWithPut() throws Exception {
+        final CountDownLatch reading = new CountDownLatch(1);
+        final CountDownLatch written = new CountDownLatch(1);
+        CacheSerializer<String> serializer = new JdkCacheSerializer<String>() {
+            @Override
+            public String deserialize(byte[] bytes) {
+                String value = super.deserialize(bytes);
+                if ("old".equals(value) && reading.getCount() > 0) {
+                    reading.countDown();
+                    try {
+                        written.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return value;
+            }
+        };
+        final TieredLocalCache<String> cache = new TieredLocalCache<String>(new LocalCacheEngine<String>(100),
+                new OffHeapCache<String>(1024 * 1024, serializer), 1, 1024);
+        try {
+            cache.put("key", "old", 60000L);
+            Thread reader = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    cache.get("key");
+                }
+            });
+            reader.start();
+            reading.await();
+            cache.put("key", "new", 60000L);
+            written.countDown();
+            reader.join();
+
+            Assert.assertNull(cache.getHeapTier().get("key"));
+            Assert.assertEquals("new", cache.get("key").getT());
+            Assert.assertEquals("new", cache.getHeapTier().get("key").getT());
+        } finally {
+            cache.shutdown();
+        }
+    }
+
+    /**
+     * 堆内缓存与堆外缓存的堆占用、查询耗时对比
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        // 先测堆外缓存，避免堆内缓存留下的垃圾影响堆占用统计
+        long baseHeap = usedHeap();
+        OffHeapCache<String> offHeapCache = new OffHeapCache<String>(512L * 1024 * 1024, new JdkCacheSerializer<String>());
+        for (int i = 0; i < count; i++) {
+            offHeapCache.put("key" + i, "value-" + i, 600000L);
+        }
+        long offHeapCacheHeap = usedHeap() - baseHeap;
+        long offHeapGetCost = getCost(null, offHeapCache, count);
+        long offHeapDirect = offHeapCache.allocatedBytes();
+        offHeapCache.clear();
+
+        baseHeap = usedHeap();
+        LocalCacheEngine<String> heapCache = new LocalCacheEngine<String>(count);
+        for (int i = 0; i < count; i++) {
+            heapCache.put("key" + i, "value-" + i, 600000L);
+        }
+        long heapCacheHeap = usedHeap() - baseHeap;
+        long heapGetCost = getCost(heapCache, null, count);
+        heapCache.shutdown();
+
+        logger.info("entries:{} heap cache: heap {}MB, get {}ns/op", count, heapCacheHeap >> 20, heapGetCost);
+        logger.info("entries:{} off-heap cache: heap {}MB, direct {}MB, get {}ns/op", count, offHeapCacheHeap >> 20,
+                offHeapDirect >> 20, offHeapGetCost);
+    }
+
+    private static long getCost(LocalCacheEngine<String> heapCache, OffHeapCache<String> offHeapCache, int count) {
+        int ops = Math.min(count, 1000000);
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            int k = (int) ((i * 2654435761L) % count);
+            if (heapCache != null) {
+                heapCache.get("key" + k);
+            } else {
+                offHeapCache.get("key" + k);
+            }
+        }
+        return (System.nanoTime() - start) / ops;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,149 @@
+package com.hz.tgb.test.crypto;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.hz.tgb.common.ByteUtil;
+import com.hz.tgb.crypto.FileMD5Util;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 文件摘要单元测试
+ *
+ * @author hezhao
+ * @Time 2026年10月19日 上午12:48:20
+ */
+public class FileMD5UtilTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileMD5UtilTest.class);
+
+    @Test
+    public void testConcurrentMD5() throws Exception {
+        final File[] files = new File[4];
+        final String[] expected = new String[files.length];
+        try {
+            for (int i = 0; i < files.length; i++) {
+                byte[] data = randomBytes(300000 + i * 1000, i);
+                files[i] = createFile(data);
+                expected[i] = hex(MessageDigest.getInstance("MD5").digest(data));
+            }
+            final AtomicInteger errors = new AtomicInteger();
+            final CountDownLatch done = new CountDownLatch(files.length);
+            for (int t = 0; t < files.length; t++) {
+                final int id = t;
+                new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            for (int i = 0; i < 50; i++) {
+                                if (!expected[id].equals(FileMD5Util.getFileMD5String(files[id]))) {
+                                    errors.incrementAndGet();
+                                }
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        } finally {
+                            done.countDown();
+                        }
+                    }
+                }.start();
+            }
+            done.await();
+            Assert.assertEquals(0, errors.get());
+            Assert.assertEquals("900150983cd24fb0d6963f7d28e17f72", FileMD5Util.getMD5String("abc"));
+        } finally {
+            for (File file : files) {
+                if (file != null) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMultipleAndTreeHash() throws Exception {
+        byte[] data = randomBytes(FileMD5Util.TREE_CHUNK_SIZE * 2 + 12345, 7);
+        File file = createFile(data);
+        try {
+            Map<String, String> hashes = FileMD5Util.getFileHashes(file, FileMD5Util.MD5, FileMD5Util.SHA256);
+            Assert.assertEquals(hex(MessageDigest.getInstance("MD5").digest(data)), hashes.get(FileMD5Util.MD5));
+            Assert.assertEquals(hex(MessageDigest.getInstance("SHA-256").digest(data)),
+                    hashes.get(FileMD5Util.SHA256));
+
+            // 重复的算法只计算一次
+            hashes = FileMD5Util.getFileHashes(file, FileMD5Util.MD5, FileMD5Util.SHA256, FileMD5Util.MD5);
+            Assert.assertEquals(2, hashes.size());
+            Assert.assertEquals(hex(MessageDigest.getInstance("MD5").digest(data)), hashes.get(FileMD5Util.MD5));
+
+            // 树形摘要：各8MB块的摘要拼接后再计算摘要
+            MessageDigest root = MessageDigest.getInstance("SHA-256");
+            for (int start = 0; start < data.length; start += FileMD5Util.TREE_CHUNK_SIZE) {
+                int end = Math.min(data.length, start + FileMD5Util.TREE_CHUNK_SIZE);
+                root.update(MessageDigest.getInstance("SHA-256").digest(Arrays.copyOfRange(data, start, end)));
+            }
+            Assert.assertEquals(hex(root.digest()), FileMD5Util.getFileTreeHash(file, FileMD5Util.SHA256, 3));
+            Assert.assertEquals(FileMD5Util.getFileTreeHash(file, FileMD5Util.SHA256, 1),
+                    FileMD5Util.getFileTreeHash(file, FileMD5Util.SHA256, 3));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * 顺序MD5、一次读取MD5+SHA-256、分别读取两次、不同线程数树形摘要的耗时：
+     * java -cp ... FileMD5UtilTest 文件 [线程数,...]
+     */
+    public static void main(String[] args) throws IOException {
+        File file = new File(args[0]);
+        String[] threads = (args.length > 1 ? args[1] : "1,2,4,8").split(",");
+        // 预热
+        for (int i = 0; i < 3; i++) {
+            FileMD5Util.getFileMD5String(file);
+        }
+
+        long start = System.currentTimeMillis();
+        FileMD5Util.getFileMD5String(file);
+        logger.info("md5: {}ms", System.currentTimeMillis() - start);
+
+        start = System.currentTimeMillis();
+        FileMD5Util.getFileHash(file, FileMD5Util.MD5);
+        FileMD5Util.getFileHash(file, FileMD5Util.SHA256);
+        logger.info("md5 then sha-256, two passes: {}ms", System.currentTimeMillis() - start);
+
+        start = System.currentTimeMillis();
+        FileMD5Util.getFileHashes(file, FileMD5Util.MD5, FileMD5Util.SHA256);
+        logger.info("md5 + sha-256, one pass: {}ms", System.currentTimeMillis() - start);
+
+        for (String thread : threads) {
+            start = System.currentTimeMillis();
+            FileMD5Util.getFileTreeHash(file, FileMD5Util.MD5, Integer.parseInt(thread));
+            logger.info("md5 tree hash {} threads: {}ms", thread, System.currentTimeMillis() - start);
+        }
+    }
+
+    private static File createFile(byte[] data) throws IOException {
+        File file = File.createTempFile("file-md5", ".bin");
+        Files.write(file.toPath(), data);
+        return file;
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static String hex(byte[] bytes) {
+        return ByteUtil.bytesToHexString(bytes);
+    }
+}
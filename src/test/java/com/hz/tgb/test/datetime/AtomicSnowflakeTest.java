@@ -0,0 +1,145 @@
+package com.hz.tgb.test.datetime;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+import com.hz.tgb.datetime.AtomicSnowflake;
+import com.hz.tgb.datetime.Snowflake;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 无锁雪花ID生成器单元测试
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午5:36:20
+ */
+public class AtomicSnowflakeTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(AtomicSnowflakeTest.class);
+
+    /**
+     * 单线程生成的ID严格递增
+     */
+    @Test
+    public void testNextIdIncreasing() {
+        AtomicSnowflake snowflake = new AtomicSnowflake(1, 2);
+        long last = 0;
+        for (int i = 0; i < 100000; i++) {
+            long id = snowflake.nextId();
+            Assert.assertTrue(id > last);
+            last = id;
+        }
+    }
+
+    /**
+     * 批量生成的ID与单个生成的ID交替使用时仍严格递增
+     */
+    @Test
+    public void testNextIdsIncreasing() {
+        AtomicSnowflake snowflake = new AtomicSnowflake(1, 2);
+        long[] ids = new long[10000];
+        long last = 0;
+        for (int round = 0; round < 20; round++) {
+            snowflake.nextIds(ids.length, ids);
+            for (long id : ids) {
+                Assert.assertTrue(id > last);
+                last = id;
+            }
+            long id = snowflake.nextId();
+            Assert.assertTrue(id > last);
+            last = id;
+        }
+    }
+
+    /**
+     * 多线程生成的ID不重复
+     */
+    @Test
+    public void testConcurrentUnique() throws InterruptedException {
+        final AtomicSnowflake snowflake = new AtomicSnowflake(3, 4);
+        final int threads = 8;
+        final int perThread = 50000;
+        final long[] ids = new long[threads * perThread];
+        final CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int base = t * perThread;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    if (base % 2 == 0) {
+                        for (int i = 0; i < perThread; i++) {
+                            ids[base + i] = snowflake.nextId();
+                        }
+                    } else {
+                        long[] batch = new long[100];
+                        for (int i = 0; i < perThread; i += batch.length) {
+                            snowflake.nextIds(batch.length, batch);
+                            System.arraycopy(batch, 0, ids, base + i, batch.length);
+                        }
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+
+        Arrays.sort(ids);
+        for (int i = 1; i < ids.length; i++) {
+            Assert.assertTrue("duplicate id " + ids[i], ids[i] != ids[i - 1]);
+        }
+    }
+
+    /**
+     * 1~64个线程下与synchronized版本的吞吐对比
+     */
+    public static void main(String[] args) throws InterruptedException {
+        final int total = 4000000;
+        for (int threads = 1; threads <= 64; threads <<= 1) {
+            final Snowflake snowflake = new Snowflake(1, 1);
+            final AtomicSnowflake atomicSnowflake = new AtomicSnowflake(1, 1);
+            final long[] batch = new long[64];
+
+            long syncCost = run(threads, total, new Runnable() {
+                @Override
+                public void run() {
+                    snowflake.nextId();
+                }
+            });
+            long atomicCost = run(threads, total, new Runnable() {
+                @Override
+                public void run() {
+                    atomicSnowflake.nextId();
+                }
+            });
+            long batchCost = run(threads, total / batch.length, new Runnable() {
+                @Override
+                public void run() {
+                    atomicSnowflake.nextIds(batch.length, new long[batch.length]);
+                }
+            });
+            logger.info("threads:{} synchronized:{}ms atomic:{}ms atomic batch(64):{}ms", threads, syncCost, atomicCost, batchCost);
+        }
+    }
+
+    private static long run(int threads, int total, final Runnable task) throws InterruptedException {
+        final int perThread = total / threads;
+        final CountDownLatch latch = new CountDownLatch(threads);
+        long startTime = System.currentTimeMillis();
+        for (int t = 0; t < threads; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perThread; i++) {
+                        task.run();
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        return System.currentTimeMillis() - startTime;
+    }
+}
@@ -0,0 +1,157 @@
+package com.hz.tgb.test.datetime;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+
+import com.hz.tgb.datetime.CachedClock;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 共享粗粒度时钟单元测试
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午7:48:26
+ */
+public class CachedClockTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachedClockTest.class);
+
+    @After
+    public void tearDown() {
+        CachedClock.stop();
+    }
+
+    @Test
+    public void testCurrentTimeMillis() throws InterruptedException {
+        Assert.assertFalse(CachedClock.isStarted());
+        CachedClock.start(5);
+        Assert.assertTrue(CachedClock.isStarted());
+        long first = CachedClock.currentTimeMillis();
+        Assert.assertTrue(Math.abs(System.currentTimeMillis() - first) < 100);
+        Thread.sleep(50L);
+        // 时钟在后台前进
+        Assert.assertTrue(CachedClock.currentTimeMillis() > first);
+
+        CachedClock.stop();
+        Assert.assertFalse(CachedClock.isStarted());
+        Assert.assertTrue(Math.abs(System.currentTimeMillis() - CachedClock.currentTimeMillis()) < 100);
+    }
+
+    @Test
+    public void testFormat() {
+        CachedClock.start();
+        String pattern = "yyyy-MM-dd HH:mm:ss";
+        for (int i = 0; i < 3; i++) {
+            long before = CachedClock.currentTimeMillis();
+            String formatted = CachedClock.format(pattern);
+            long after = CachedClock.currentTimeMillis();
+            SimpleDateFormat format = new SimpleDateFormat(pattern);
+            // 跨秒时与前后任一时刻一致即可
+            Assert.assertTrue(formatted, formatted.equals(format.format(new Date(before)))
+                    || formatted.equals(format.format(new Date(after))));
+        }
+        Assert.assertSame(CachedClock.format(pattern), CachedClock.format(pattern));
+    }
+
+    /**
+     * 含毫秒的pattern不按秒缓存，否则同一秒内的毫秒部分都是第一次格式化时的值
+     */
+    @Test
+    public void testFormatSubSecond() throws InterruptedException {
+        CachedClock.start();
+        String pattern = "HH:mm:ss.SSS";
+        String first = CachedClock.format(pattern);
+        Thread.sleep(20L);
+        String second = CachedClock.format(pattern);
+        Assert.assertNotEquals(first, second);
+        Assert.assertTrue(second, second.matches("\\d{2}:\\d{2}:\\d{2}\\.\\d{3}"));
+        // 单引号中的字母不是字段
+        Assert.assertSame(CachedClock.format("'Snap' HH:mm:ss"), CachedClock.format("'Snap' HH:mm:ss"));
+    }
+
+    /**
+     * 只有系统属性中列出的组件使用粗粒度时钟
+     */
+    @Test
+    public void testOptIn() {
+        Assert.assertFalse(CachedClock.isOptedIn(CachedClock.LOCAL_CACHE));
+        System.setProperty(CachedClock.COMPONENTS, " dubbo_log , local_cache");
+        try {
+            Assert.assertTrue(CachedClock.isOptedIn(CachedClock.LOCAL_CACHE));
+            Assert.assertTrue(CachedClock.isOptedIn(CachedClock.DUBBO_LOG));
+            Assert.assertFalse(CachedClock.isOptedIn("stop_watch"));
+        } finally {
+            System.clearProperty(CachedClock.COMPONENTS);
+        }
+
+        // 未开启的组件不受start影响，读到的总是精确时间
+        CachedClock.start(200);
+        long before = System.currentTimeMillis();
+        long now = CachedClock.currentTimeMillis(false);
+        Assert.assertTrue(now >= before && now <= System.currentTimeMillis());
+    }
+
+    /**
+     * 1~8个线程下读取时间、格式化时间的耗时对比。
+     * 时钟源较慢的容器上(cat /sys/devices/system/clocksource/clocksource0/current_clocksource 为hpet、xen等)差距更明显
+     */
+    public static void main(String[] args) throws InterruptedException {
+        final int total = 20000000;
+        final long[] sink = new long[1];
+        CachedClock.start(1);
+        for (int threads = 1; threads <= 8; threads <<= 1) {
+            long systemCost = run(threads, total, new Runnable() {
+                @Override
+                public void run() {
+                    sink[0] += System.currentTimeMillis();
+                }
+            });
+            long cachedCost = run(threads, total, new Runnable() {
+                @Override
+                public void run() {
+                    sink[0] += CachedClock.currentTimeMillis();
+                }
+            });
+            long formatCost = run(threads, total / 20, new Runnable() {
+                @Override
+                public void run() {
+                    sink[0] += new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()).length();
+                }
+            });
+            long cachedFormatCost = run(threads, total / 20, new Runnable() {
+                @Override
+                public void run() {
+                    sink[0] += CachedClock.format("yyyy-MM-dd HH:mm:ss").length();
+                }
+            });
+            logger.info("threads:{} currentTimeMillis x{}: system:{}ms cached:{}ms, format x{}: SimpleDateFormat:{}ms cached:{}ms",
+                    threads, total, systemCost, cachedCost, total / 20, formatCost, cachedFormatCost);
+        }
+        CachedClock.stop();
+        logger.info("{}", sink[0]);
+    }
+
+    private static long run(int threads, int total, final Runnable task) throws InterruptedException {
+        final int perThread = total / threads;
+        final CountDownLatch latch = new CountDownLatch(threads);
+        long startTime = System.currentTimeMillis();
+        for (int t = 0; t < threads; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perThread; i++) {
+                        task.run();
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        return System.currentTimeMillis() - startTime;
+    }
+}
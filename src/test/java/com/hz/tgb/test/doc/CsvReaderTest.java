@@ -0,0 +1,341 @@
+package com.hz.tgb.test.doc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.hz.tgb.doc.CSVUtil;
+import com.hz.tgb.doc.CsvBeanBinder;
+import com.hz.tgb.doc.CsvReader;
+import com.hz.tgb.doc.CsvRecord;
+import com.hz.tgb.doc.CsvWriter;
+import com.hz.tgb.file.FileUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * CSV读写单元测试
+ *
+ * @author hezhao
+ * @Time 2026年10月19日 上午5:08:33
+ */
+public class CsvReaderTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CsvReaderTest.class);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testParse() throws Exception {
+        String csv = "\uFEFF订单号,金额,备注\r\n"
+                + "A001,5.00,\"含,逗号\"\r\n"
+                + "\r\n"
+                + "A002,,\"含\"\"引号\"\"\"\n"
+                + "A003,1,\"多行\r\n备注\"\r"
+                + "A004\n";
+        CsvReader reader = new CsvReader(new StringReader(csv));
+        Assert.assertArrayEquals(new String[] {"订单号", "金额", "备注"}, reader.readHeaders());
+        assertRecord(reader.readRecord(), "A001", "5.00", "含,逗号");
+        CsvRecord record = reader.readRecord();
+        assertRecord(record, "A002", "", "含\"引号\"");
+        Assert.assertTrue(record.isEmpty(1));
+        Assert.assertFalse(record.isQuoted(1));
+        Assert.assertTrue(record.isQuoted(2));
+        Assert.assertEquals(3, record.getNumber());
+        assertRecord(reader.readRecord(), "A003", "1", "多行\r\n备注");
+        assertRecord(reader.readRecord(), "A004");
+        Assert.assertNull(reader.readRecord());
+        Assert.assertNull(reader.readRecord());
+        reader.close();
+
+        // 最后一条记录没有换行，最后一个字段为空
+        reader = new CsvReader(new StringReader("a;b;"), ';');
+        assertRecord(reader.readRecord(), "a", "b", "");
+        Assert.assertNull(reader.readRecord());
+    }
+
+    @Test
+    public void testZeroCopyField() throws Exception {
+        CsvReader reader = new CsvReader(new StringReader("abc,\"x\"\"y\"\n"));
+        CsvRecord record = reader.readRecord();
+        CharSequence first = record.get(0);
+        Assert.assertSame(first, record.get(0));
+        Assert.assertEquals(3, first.length());
+        Assert.assertEquals('b', first.charAt(1));
+        Assert.assertEquals("bc", first.subSequence(1, 3).toString());
+        Assert.assertEquals("x\"y", record.get(1).toString());
+        Assert.assertEquals("x\"y", record.getString(1));
+    }
+
+    @Test
+    public void testLargeRecord() throws Exception {
+        // 单个字段超过64K缓冲区，并且每次只能读到很少的字符
+        StringBuilder field = new StringBuilder();
+        for (int i = 0; i < 200000; i++) {
+            field.append((char) ('a' + i % 26));
+            if (i % 1000 == 0) {
+                field.append("\"\n,");
+            }
+        }
+        String value = field.toString();
+        StringWriter out = new StringWriter();
+        CsvWriter writer = new CsvWriter(out);
+        for (int i = 0; i < 3; i++) {
+            writer.writeRecord(String.valueOf(i), value);
+        }
+        writer.close();
+
+        CsvReader reader = new CsvReader(new StringReader(out.toString()) {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                return super.read(cbuf, off, Math.min(len, 777));
+            }
+        });
+        for (int i = 0; i < 3; i++) {
+            assertRecord(reader.readRecord(), String.valueOf(i), value);
+        }
+        Assert.assertNull(reader.readRecord());
+    }
+
+    @Test
+    public void testWriteCSV() throws Exception {
+        List<String[]> contents = new ArrayList<String[]>();
+        contents.add(new String[] {"RM001", "5", "含,逗号"});
+        contents.add(new String[] {"RM002", null, "含\"引号\"\r\n换行"});
+        contents.add(new String[] {""});
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CSVUtil.writeCSV(out, new String[] {"订单号", "金额", "备注"}, contents);
+        byte[] bytes = out.toByteArray();
+
+        // BOM在文件开头
+        Assert.assertEquals((byte) 0xEF, bytes[0]);
+        Assert.assertEquals((byte) 0xBB, bytes[1]);
+        Assert.assertEquals((byte) 0xBF, bytes[2]);
+        Assert.assertTrue(new String(bytes, UTF_8).startsWith("\uFEFF订单号,金额,备注\r\nRM001,5,\"含,逗号\"\r\n"));
+
+        List<String[]> records = CSVUtil.readCSV(new ByteArrayInputStream(bytes), false);
+        Assert.assertEquals(3, records.size());
+        Assert.assertArrayEquals(contents.get(0), records.get(0));
+        Assert.assertArrayEquals(new String[] {"RM002", "", "含\"引号\"\r\n换行"}, records.get(1));
+        Assert.assertArrayEquals(new String[] {""}, records.get(2));
+        Assert.assertEquals(4, CSVUtil.readCSV(new ByteArrayInputStream(bytes), true).size());
+    }
+
+    @Test
+    public void testReadCSVTrim() throws Exception {
+        // 与原javacsv一致：不带引号的字段去掉首尾空白，带引号的字段原样保留
+        byte[] bytes = "\uFEFF 订单号 ,金额\t,备注\r\n RM001 ,\t5.00 ,\"  含空格 \"\r\n".getBytes(UTF_8);
+        List<String[]> records = CSVUtil.readCSV(new ByteArrayInputStream(bytes), true);
+        Assert.assertEquals(2, records.size());
+        Assert.assertArrayEquals(new String[] {"订单号", "金额", "备注"}, records.get(0));
+        Assert.assertArrayEquals(new String[] {"RM001", "5.00", "  含空格 "}, records.get(1));
+
+        File file = Files.createTempFile("trim", ".csv").toFile();
+        try {
+            Files.write(file.toPath(), bytes);
+            records = CSVUtil.readCSV(file.getPath(), false);
+            Assert.assertEquals(1, records.size());
+            Assert.assertArrayEquals(new String[] {"RM001", "5.00", "  含空格 "}, records.get(0));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testBeans() throws Exception {
+        List<Order> orders = new ArrayList<Order>();
+        for (int i = 0; i < 5; i++) {
+            Order order = new Order();
+            order.setOrderNo("RM00" + i);
+            order.setAmount(new BigDecimal("1.5").multiply(BigDecimal.valueOf(i)));
+            order.setCount(i);
+            order.setRemark(i % 2 == 0 ? null : "备注," + i);
+            orders.add(order);
+        }
+        Assert.assertArrayEquals(new String[] {"orderNo", "amount", "count", "remark"},
+                CsvBeanBinder.of(Order.class).getHeaders());
+
+        File file = Files.createTempFile("order", ".csv").toFile();
+        try {
+            CSVUtil.writeBeans(Files.newOutputStream(file.toPath()), Order.class, orders);
+            List<Order> read = CSVUtil.readBeans(file.getPath(), Order.class);
+            Assert.assertEquals(orders.toString(), read.toString());
+
+            // 表头顺序不同、大小写不同，多出的列忽略
+            CsvReader reader = new CsvReader(new StringReader("REMARK,unknown,Count,orderno\nr,x,7,RM9\n,,,RM10\n"));
+            List<Order> beans = reader.stream(Order.class).collect(Collectors.<Order>toList());
+            Assert.assertEquals("[RM9,null,7,r, RM10,null,0,]", beans.toString());
+
+            reader = new CsvReader(new StringReader("count\nabc\n"));
+            try {
+                reader.stream(Order.class).count();
+                Assert.fail();
+            } catch (IllegalArgumentException e) {
+                logger.info(e.getMessage());
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        File file = Files.createTempFile("parallel", ".csv").toFile();
+        try {
+            int records = 20000;
+            CsvWriter writer = CsvWriter.open(file, UTF_8, true);
+            writer.writeRecord("id", "name", "remark");
+            for (int i = 0; i < records; i++) {
+                // 引号中的换行不能作为切分位置
+                writer.writeRecord(String.valueOf(i), "名称" + i, i % 7 == 0 ? "多行\n\n备注" : "备注");
+            }
+            writer.close();
+
+            long[] bounds = CsvReader.split(file, 8);
+            Assert.assertEquals(0, bounds[0]);
+            Assert.assertEquals(file.length(), bounds[bounds.length - 1]);
+            Assert.assertTrue(bounds.length > 2);
+
+            final AtomicLong sum = new AtomicLong();
+            final AtomicLong multiLine = new AtomicLong();
+            long count = CsvReader.forEachParallel(file, UTF_8, true, 4, new CsvReader.RecordHandler() {
+                @Override
+                public void handle(CsvRecord record) {
+                    Assert.assertEquals(3, record.size());
+                    sum.addAndGet(Long.parseLong(record.getString(0)));
+                    if (record.length(2) > 2) {
+                        multiLine.incrementAndGet();
+                    }
+                }
+            });
+            Assert.assertEquals(records, count);
+            Assert.assertEquals((long) records * (records - 1) / 2, sum.get());
+            Assert.assertEquals((records + 6) / 7, multiLine.get());
+
+            Stream<String[]> stream = CsvReader.open(file).stream();
+            Assert.assertEquals(records + 1, stream.count());
+            stream.close();
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * 按行split解析与CsvReader解析同一文件的耗时：java -cp ... CsvReaderTest [记录数]
+     */
+    public static void main(String[] args) throws Exception {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        File file = Files.createTempFile("benchmark", ".csv").toFile();
+        try {
+            CsvWriter writer = CsvWriter.open(file, UTF_8, false);
+            for (int i = 0; i < records; i++) {
+                writer.writeRecord("RM2017091406320320FKYT0Y1A" + i, "GC2017091913582382002000" + i,
+                        "2017/9/19 13:58:00", String.valueOf(i % 1000), "5.00", "现在支付", "退款成功");
+            }
+            writer.close();
+            logger.info("file: {} bytes, {} records", file.length(), records);
+
+            for (int round = 0; round < 3; round++) {
+                long start = System.currentTimeMillis();
+                List<String[]> lines = FileUtil.readTextForList(file, ",");
+                logger.info("readTextForList: {} records, {}ms", lines.size(), System.currentTimeMillis() - start);
+                lines = null;
+
+                start = System.currentTimeMillis();
+                List<String[]> list = CSVUtil.readCSV(file.getPath(), true);
+                logger.info("CSVUtil.readCSV: {} records, {}ms", list.size(), System.currentTimeMillis() - start);
+                list = null;
+
+                start = System.currentTimeMillis();
+                final long[] length = new long[1];
+                CsvReader reader = CsvReader.open(file, UTF_8);
+                long count = reader.forEach(new CsvReader.RecordHandler() {
+                    @Override
+                    public void handle(CsvRecord record) {
+                        length[0] += record.get(3).length();
+                    }
+                });
+                reader.close();
+                logger.info("CsvReader.forEach: {} records, {}ms", count, System.currentTimeMillis() - start);
+
+                start = System.currentTimeMillis();
+                count = CsvReader.forEachParallel(file, UTF_8, false, 4, new CsvReader.RecordHandler() {
+                    @Override
+                    public void handle(CsvRecord record) {
+                        record.get(3).length();
+                    }
+                });
+                logger.info("CsvReader.forEachParallel(4): {} records, {}ms", count, System.currentTimeMillis() - start);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static void assertRecord(CsvRecord record, String... expected) {
+        Assert.assertNotNull(record);
+        Assert.assertEquals(Arrays.toString(expected), Arrays.toString(record.toArray()));
+    }
+
+    public static class Order {
+
+        private String orderNo;
+
+        private BigDecimal amount;
+
+        private int count;
+
+        private String remark;
+
+        public String getOrderNo() {
+            return orderNo;
+        }
+
+        public void setOrderNo(String orderNo) {
+            this.orderNo = orderNo;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public String getRemark() {
+            return remark;
+        }
+
+        public void setRemark(String remark) {
+            this.remark = remark;
+        }
+
+        @Override
+        public String toString() {
+            return orderNo + "," + amount + "," + count + "," + (remark == null ? "" : remark);
+        }
+    }
+}
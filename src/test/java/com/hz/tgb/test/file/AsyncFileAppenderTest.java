@@ -0,0 +1,203 @@
+package com.hz.tgb.test.file;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import com.hz.tgb.file.AsyncFileAppender;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 异步日志文件单元测试
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午11:38:05
+ */
+public class AsyncFileAppenderTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncFileAppenderTest.class);
+
+    @Test
+    public void testConcurrentAppend() throws Exception {
+        Path dir = Files.createTempDirectory("async-appender");
+        try {
+            final AsyncFileAppender appender = new AsyncFileAppender(dir.toFile(), 1024,
+                    AsyncFileAppender.DEFAULT_MAX_FILE_SIZE, AsyncFileAppender.SyncPolicy.PERIODIC);
+            final int threads = 4;
+            final int count = 20000;
+            final CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                final int id = t;
+                new Thread() {
+                    @Override
+                    public void run() {
+                        for (int i = 0; i < count; i++) {
+                            appender.append("thread" + id + "-" + i);
+                        }
+                        done.countDown();
+                    }
+                }.start();
+            }
+            done.await();
+            appender.flush();
+
+            Set<String> lines = new HashSet<String>();
+            for (File file : dir.toFile().listFiles()) {
+                for (String line : Files.readAllLines(file.toPath(), Charset.defaultCharset())) {
+                    Assert.assertTrue(lines.add(line.substring(line.indexOf('\t') + 1)));
+                }
+            }
+            Assert.assertEquals(threads * count, lines.size());
+            Assert.assertTrue(lines.contains("thread3-19999"));
+
+            appender.close();
+            // 关闭后由调用线程同步写入
+            appender.append("closed");
+            Assert.assertTrue(appender.tryAppend("closed again"));
+            Assert.assertEquals(threads * count + 2, readLines(dir.toFile()).size());
+        } finally {
+            delete(dir.toFile());
+        }
+    }
+
+    /**
+     * 写入过程中关闭，所有append都成功返回的日志都要写入文件
+     */
+    @Test
+    public void testCloseWhileAppending() throws Exception {
+        Path dir = Files.createTempDirectory("async-appender");
+        try {
+            final AsyncFileAppender appender = new AsyncFileAppender(dir.toFile(), 256,
+                    AsyncFileAppender.DEFAULT_MAX_FILE_SIZE, AsyncFileAppender.SyncPolicy.NEVER);
+            final int threads = 4;
+            final int count = 20000;
+            final CountDownLatch started = new CountDownLatch(threads);
+            final CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                final int id = t;
+                new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            for (int i = 0; i < count; i++) {
+                                appender.append("thread" + id + "-" + i);
+                                if (i == 100) {
+                                    started.countDown();
+                                }
+                            }
+                        } finally {
+                            done.countDown();
+                        }
+                    }
+                }.start();
+            }
+            started.await();
+            appender.close();
+            done.await();
+
+            Set<String> lines = new HashSet<String>(readLines(dir.toFile()));
+            Assert.assertEquals(threads * count, lines.size());
+        } finally {
+            delete(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testSizeRolling() throws Exception {
+        Path dir = Files.createTempDirectory("async-appender");
+        try {
+            AsyncFileAppender appender = new AsyncFileAppender(dir.toFile(), 64, 1000,
+                    AsyncFileAppender.SyncPolicy.EVERY_BATCH);
+            for (int i = 0; i < 100; i++) {
+                appender.append("line-" + i);
+            }
+            appender.close();
+
+            File[] files = dir.toFile().listFiles();
+            Assert.assertTrue(files.length > 1);
+            int total = 0;
+            for (File file : files) {
+                Assert.assertTrue(file.getName(), file.length() <= 1000);
+                List<String> lines = Files.readAllLines(file.toPath(), Charset.defaultCharset());
+                total += lines.size();
+            }
+            Assert.assertEquals(100, total);
+
+            // 重新打开时接着写最后一个文件
+            appender = new AsyncFileAppender(dir.toFile(), 64, 1000, AsyncFileAppender.SyncPolicy.NEVER);
+            appender.append("again");
+            appender.close();
+            Assert.assertTrue(dir.toFile().listFiles().length <= files.length + 1);
+        } finally {
+            delete(dir.toFile());
+        }
+    }
+
+    /**
+     * 调用方每次写日志的耗时：java -cp ... AsyncFileAppenderTest 目录 [次数]
+     * 对比原来每次打开、追加、关闭文件的方式
+     */
+    public static void main(String[] args) throws IOException {
+        File dir = new File(args[0]);
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+        String txt = "何钊 <hezhao@example.com>发送成功";
+
+        AsyncFileAppender appender = new AsyncFileAppender(dir);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            appender.append(txt);
+        }
+        long appendNanos = System.nanoTime() - start;
+        appender.close();
+        long closeNanos = System.nanoTime() - start;
+        logger.info("async append: {} lines, {}ns per call, {}ms until written", count, appendNanos / count,
+                closeNanos / 1000000);
+
+        File file = new File(dir, "legacy.txt");
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            BufferedWriter writer = new BufferedWriter(new FileWriter(file, true));
+            try {
+                writer.write(txt);
+                writer.newLine();
+                writer.flush();
+            } finally {
+                writer.close();
+            }
+        }
+        long legacyNanos = System.nanoTime() - start;
+        logger.info("open/append/close per call: {} lines, {}ns per call", count, legacyNanos / count);
+    }
+
+    private static List<String> readLines(File dir) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        for (File file : dir.listFiles()) {
+            for (String line : Files.readAllLines(file.toPath(), Charset.defaultCharset())) {
+                lines.add(line.substring(line.indexOf('\t') + 1));
+            }
+        }
+        return lines;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,119 @@
+package com.hz.tgb.test.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import com.hz.tgb.file.CharsetDetector;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 单遍编码检测单元测试
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午8:21:36
+ */
+public class CharsetDetectorTest {
+
+    private static final String TEXT = "获取文件编码格式，如果得分都不超过五十则认为无法识别。"
+            + "每个编码的得分由字符范围和常用字频率两部分组成，中文文本一般都能得到较高的分数。\n";
+
+    @Test
+    public void testDetect() throws IOException {
+        CharsetDetector detector = new CharsetDetector();
+        String text = repeat(TEXT, 20);
+        Assert.assertEquals("UTF-8", detector.detect(text.getBytes("UTF-8")));
+        Assert.assertEquals("GB2312", detector.detect(new ByteArrayInputStream(text.getBytes("GB2312"))));
+        Assert.assertEquals("ASCII", detector.detect(ByteBuffer.wrap("hello world".getBytes("UTF-8"))));
+        Assert.assertEquals("Unicode", detector.detect(text.getBytes("UTF-16")));
+
+        // 直接内存，检测后position不变
+        byte[] bytes = text.getBytes("UTF-8");
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        Assert.assertEquals("UTF-8", detector.detect(direct));
+        Assert.assertEquals(0, direct.position());
+    }
+
+    /**
+     * 最多读取sampleBudget个字节
+     */
+    @Test
+    public void testSampleBudget() throws IOException {
+        byte[] ascii = repeat("0123456789abcdef", 64 * 1024).getBytes("UTF-8");
+        CountingInputStream in = new CountingInputStream(new ByteArrayInputStream(ascii));
+        Assert.assertEquals("ASCII", new CharsetDetector().detect(in));
+        Assert.assertEquals(CharsetDetector.DEFAULT_SAMPLE_BUDGET, in.count);
+
+        // 预算之后的非ASCII字节不参与检测
+        byte[] tail = TEXT.getBytes("UTF-8");
+        byte[] mixed = new byte[1024 + tail.length];
+        System.arraycopy(ascii, 0, mixed, 0, 1024);
+        System.arraycopy(tail, 0, mixed, 1024, tail.length);
+        Assert.assertEquals("ASCII", new CharsetDetector(1024).detect(mixed));
+        Assert.assertEquals("UTF-8", new CharsetDetector(0).detect(mixed));
+    }
+
+    /**
+     * 已经能确定编码时提前结束，不读满预算
+     */
+    @Test
+    public void testEarlyExit() throws IOException {
+        byte[] bytes = repeat(TEXT, 2000).getBytes("UTF-8");
+        CountingInputStream in = new CountingInputStream(new ByteArrayInputStream(bytes));
+        Assert.assertEquals("UTF-8", new CharsetDetector().detect(in));
+        Assert.assertTrue(String.valueOf(in.count), in.count < CharsetDetector.DEFAULT_SAMPLE_BUDGET);
+
+        // UTF-16 BOM
+        in = new CountingInputStream(new ByteArrayInputStream(repeat(TEXT, 2000).getBytes("UTF-16")));
+        Assert.assertEquals("Unicode", new CharsetDetector().detect(in));
+        Assert.assertTrue(String.valueOf(in.count), in.count < CharsetDetector.DEFAULT_SAMPLE_BUDGET / 4);
+    }
+
+    /**
+     * 分多次读取与一次读取的结果相同
+     */
+    @Test
+    public void testSmallReads() throws IOException {
+        String text = repeat(TEXT, 50);
+        for (String charset : new String[] {"UTF-8", "GB2312", "GBK", "BIG5"}) {
+            byte[] bytes = text.getBytes(charset);
+            InputStream in = new FilterInputStream(new ByteArrayInputStream(bytes)) {
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return super.read(b, off, Math.min(len, 3));
+                }
+            };
+            Assert.assertEquals(charset, new CharsetDetector(0).detect(bytes), new CharsetDetector(0).detect(in));
+        }
+    }
+
+    private static String repeat(String str, int times) {
+        StringBuilder sb = new StringBuilder(str.length() * times);
+        for (int i = 0; i < times; i++) {
+            sb.append(str);
+        }
+        return sb.toString();
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.hz.tgb.test.file;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import com.hz.tgb.file.DelimitedTextReader;
+import com.hz.tgb.file.FileUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 流式拆分读取、内存映射读取单元测试
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午10:06:12
+ */
+public class DelimitedTextReaderTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(DelimitedTextReaderTest.class);
+
+    @Test
+    public void testSameAsReadLine() throws IOException {
+        String[] texts = {
+                "",
+                "a,b,c",
+                "a,b,c\n",
+                " a , b ,c \r\n\r\n  \n1,2,,\r3,,4\n\n",
+                "\uFEFFx|y|z\r\nu|v",
+                ",a,,b,,,\r\n\t\n,\r",
+        };
+        for (String text : texts) {
+            assertSame(text, ",");
+            assertSame(text, "\\|");
+            assertSame(text, "\\s*,\\s*");
+        }
+
+        // 超过缓冲区的长行，以及落在缓冲区边界上的\r\n
+        Random random = new Random(7);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            int fields = random.nextInt(i % 500 == 0 ? 20000 : 8);
+            for (int j = 0; j < fields; j++) {
+                sb.append(j > 0 ? "," : "").append(random.nextInt(100000));
+            }
+            sb.append(random.nextBoolean() ? "\r\n" : (random.nextBoolean() ? "\n" : "\r"));
+        }
+        assertSame(sb.toString(), ",");
+    }
+
+    @Test
+    public void testReadTextForStream() throws IOException {
+        File file = File.createTempFile("delimited", ".txt");
+        try {
+            Files.write(file.toPath(), "\uFEFF编号|名称\r\n1|张三\r\n\r\n2|李四".getBytes("UTF-8"));
+            Stream<String[]> stream = FileUtil.readTextForStream(file, "\\|");
+            List<String[]> rows = new ArrayList<String[]>();
+            try {
+                Iterator<String[]> it = stream.iterator();
+                while (it.hasNext()) {
+                    rows.add(it.next());
+                }
+            } finally {
+                stream.close();
+            }
+            Assert.assertEquals(3, rows.size());
+            Assert.assertArrayEquals(new String[] {"编号", "名称"}, rows.get(0));
+            Assert.assertArrayEquals(new String[] {"2", "李四"}, rows.get(2));
+
+            List<String[]> list = FileUtil.readTextForList(file, "\\|");
+            Assert.assertEquals(3, list.size());
+            Assert.assertArrayEquals(new String[] {"1", "张三"}, list.get(1));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadFileByBytesAndMap() throws IOException {
+        File file = File.createTempFile("bytes", ".bin");
+        try {
+            byte[] data = new byte[1024 * 1024 + 3];
+            new Random(3).nextBytes(data);
+            Files.write(file.toPath(), data);
+            Assert.assertArrayEquals(data, FileUtil.readFileByBytes(file));
+
+            MappedByteBuffer buffer = FileUtil.mapFile(file);
+            Assert.assertEquals(data.length, buffer.remaining());
+            byte[] mapped = new byte[data.length];
+            buffer.get(mapped);
+            Assert.assertArrayEquals(data, mapped);
+
+            MappedByteBuffer part = FileUtil.mapFile(file, 1000, 10);
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals(data[1000 + i], part.get(i));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * 与原来的BufferedReader.readLine + trim + split的结果比较
+     */
+    private static void assertSame(String text, String regex) throws IOException {
+        List<String[]> expected = new ArrayList<String[]>();
+        BufferedReader br = new BufferedReader(new StringReader(text.startsWith("\uFEFF") ? text.substring(1) : text));
+        String line;
+        while ((line = br.readLine()) != null) {
+            if (line.trim().length() > 0) {
+                expected.add(line.trim().split(regex));
+            }
+        }
+        DelimitedTextReader reader = new DelimitedTextReader(new StringReader(text), regex);
+        int index = 0;
+        while (reader.hasNext()) {
+            Assert.assertArrayEquals(expected.get(index++), reader.next());
+        }
+        reader.close();
+        Assert.assertEquals(expected.size(), index);
+    }
+
+    /**
+     * 大文件读取的耗时与堆内存峰值：java -Xmx256m -cp ... DelimitedTextReaderTest 文件 [生成的GB数]
+     * 文件不存在时先生成指定大小的对账文件(每行8个字段，以|分隔)
+     */
+    public static void main(String[] args) throws IOException {
+        File file = new File(args[0]);
+        if (!file.exists()) {
+            long size = (long) (Double.parseDouble(args.length > 1 ? args[1] : "2") * 1024 * 1024 * 1024);
+            generate(file, size);
+        }
+
+        resetPeak();
+        long start = System.currentTimeMillis();
+        long rows = 0;
+        long fields = 0;
+        Stream<String[]> stream = FileUtil.readTextForStream(file, "\\|");
+        try {
+            Iterator<String[]> it = stream.iterator();
+            while (it.hasNext()) {
+                rows++;
+                fields += it.next().length;
+            }
+        } finally {
+            stream.close();
+        }
+        long cost = Math.max(System.currentTimeMillis() - start, 1);
+        logger.info("readTextForStream: {} bytes, {} rows, {} fields in {}ms, {}MB/s, heap peak {}MB", file.length(),
+                rows, fields, cost, file.length() * 1000 / cost / 1024 / 1024, peak() / 1024 / 1024);
+
+        resetPeak();
+        start = System.currentTimeMillis();
+        long checksum = 0;
+        long length = file.length();
+        for (long position = 0; position < length; position += Integer.MAX_VALUE) {
+            MappedByteBuffer buffer = FileUtil.mapFile(file, position, Math.min(Integer.MAX_VALUE, length - position));
+            while (buffer.hasRemaining()) {
+                checksum += buffer.get();
+            }
+        }
+        cost = Math.max(System.currentTimeMillis() - start, 1);
+        logger.info("mapFile: {} bytes, checksum {} in {}ms, {}MB/s, heap peak {}MB", length, checksum, cost,
+                length * 1000 / cost / 1024 / 1024, peak() / 1024 / 1024);
+    }
+
+    private static void generate(File file, long size) throws IOException {
+        Random random = new Random(1);
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file.toPath()),
+                Charset.forName("UTF-8")), 1024 * 1024);
+        try {
+            long written = 0;
+            StringBuilder sb = new StringBuilder();
+            for (long i = 0; written < size; i++) {
+                sb.setLength(0);
+                sb.append(i).append('|').append("2026-10-18 10:").append(random.nextInt(60)).append('|')
+                        .append("MCH").append(random.nextInt(100000)).append('|').append(random.nextInt(10000000))
+                        .append('|').append("CNY|SUCCESS|").append(Long.toHexString(random.nextLong())).append('|')
+                        .append("settlement remark ").append(random.nextInt(1000)).append("\r\n");
+                writer.write(sb.toString());
+                written += sb.length();
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void resetPeak() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long peak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,185 @@
+package com.hz.tgb.test.file;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.hz.tgb.file.DirectorySync;
+import com.hz.tgb.file.FileUtil;
+import com.hz.tgb.file.ZipUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 增量目录同步单元测试
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午10:41:26
+ */
+public class DirectorySyncTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectorySyncTest.class);
+
+    @Test
+    public void testSync() throws IOException {
+        Path dir = Files.createTempDirectory("dir-sync");
+        try {
+            Path source = dir.resolve("source");
+            Path target = dir.resolve("target");
+            write(source.resolve("a.txt"), "a");
+            write(source.resolve("sub/b.txt"), "b");
+            write(source.resolve("sub/deep/c.txt"), "c");
+
+            DirectorySync.Changes changes = FileUtil.syncDir(source.toString(), target.toString());
+            Assert.assertEquals(Arrays.asList("a.txt", "sub/b.txt", "sub/deep/c.txt"), changes.getAdded());
+            Assert.assertEquals("c", read(target.resolve("sub/deep/c.txt")));
+            Assert.assertTrue(Files.exists(target.resolve(DirectorySync.MANIFEST_NAME)));
+
+            changes = FileUtil.syncDir(source.toString(), target.toString());
+            Assert.assertTrue(changes.getAdded().isEmpty());
+            Assert.assertTrue(changes.getModified().isEmpty());
+            Assert.assertEquals(3, changes.getUnchanged());
+            Assert.assertEquals(0, changes.getBytesCopied());
+
+            write(source.resolve("a.txt"), "aa");
+            write(source.resolve("sub/d.txt"), "d");
+            Files.delete(source.resolve("sub/deep/c.txt"));
+            changes = FileUtil.syncDir(source.toString(), target.toString());
+            Assert.assertEquals(Collections.singletonList("sub/d.txt"), changes.getAdded());
+            Assert.assertEquals(Collections.singletonList("a.txt"), changes.getModified());
+            Assert.assertEquals(Collections.singletonList("sub/deep/c.txt"), changes.getDeleted());
+            Assert.assertEquals(1, changes.getUnchanged());
+            Assert.assertEquals(3, changes.getBytesCopied());
+            Assert.assertEquals("aa", read(target.resolve("a.txt")));
+            Assert.assertFalse(Files.exists(target.resolve("sub/deep")));
+            Assert.assertTrue(Files.exists(target.resolve("sub/b.txt")));
+        } finally {
+            delete(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testChecksum() throws IOException {
+        Path dir = Files.createTempDirectory("dir-sync");
+        try {
+            Path source = dir.resolve("source");
+            Path file = source.resolve("a.txt");
+            write(file, "abc");
+            DirectorySync sync = new DirectorySync(2, true);
+            sync.sync(source.toFile(), dir.resolve("target").toFile());
+
+            // 只改修改时间
+            Files.setLastModifiedTime(file, FileTime.fromMillis(1500000000000L));
+            DirectorySync.Changes changes = sync.sync(source.toFile(), dir.resolve("target").toFile());
+            Assert.assertTrue(changes.getModified().isEmpty());
+            Assert.assertEquals(1, changes.getUnchanged());
+
+            // 大小不变、内容变化
+            write(file, "abd");
+            Files.setLastModifiedTime(file, FileTime.fromMillis(1600000000000L));
+            changes = sync.sync(source.toFile(), dir.resolve("target").toFile());
+            Assert.assertEquals(Collections.singletonList("a.txt"), changes.getModified());
+            Assert.assertEquals("abd", read(dir.resolve("target/a.txt")));
+        } finally {
+            delete(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testZipIncremental() throws Exception {
+        Path dir = Files.createTempDirectory("dir-sync");
+        try {
+            Path source = dir.resolve("source");
+            String manifest = dir.resolve("zip.manifest").toString();
+            write(source.resolve("a.txt"), "a");
+            write(source.resolve("sub/b.txt"), "b");
+            ZipUtil.zipIncremental(source.toString(), dir.resolve("1.zip").toString(), manifest);
+            Assert.assertEquals(Arrays.asList("a.txt", "sub/b.txt"), entries(dir.resolve("1.zip")));
+
+            write(source.resolve("sub/b.txt"), "bb");
+            Files.delete(source.resolve("a.txt"));
+            ZipUtil.zipIncremental(source.toString(), dir.resolve("2.zip").toString(), manifest);
+            Assert.assertEquals(Arrays.asList(ZipUtil.DELETED_ENTRY, "sub/b.txt"), entries(dir.resolve("2.zip")));
+            ZipFile zip = new ZipFile(dir.resolve("2.zip").toFile());
+            try {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        zip.getInputStream(zip.getEntry(ZipUtil.DELETED_ENTRY)), "UTF-8"));
+                Assert.assertEquals("a.txt", reader.readLine());
+            } finally {
+                zip.close();
+            }
+
+            ZipUtil.zipIncremental(source.toString(), dir.resolve("3.zip").toString(), manifest);
+            Assert.assertTrue(entries(dir.resolve("3.zip")).isEmpty());
+        } finally {
+            delete(dir.toFile());
+        }
+    }
+
+    /**
+     * 未变化目录重复同步的耗时：java -cp ... DirectorySyncTest 源目录 目标目录 [生成的文件数]
+     * 源目录不存在时先生成指定数量的小文件(每个目录1000个)
+     */
+    public static void main(String[] args) throws IOException {
+        File source = new File(args[0]);
+        if (!source.exists()) {
+            int count = args.length > 2 ? Integer.parseInt(args[2]) : 1000000;
+            for (int i = 0; i < count; i++) {
+                write(source.toPath().resolve("d" + (i / 1000)).resolve(i + ".txt"), String.valueOf(i));
+            }
+        }
+        DirectorySync sync = new DirectorySync();
+        for (int i = 0; i < 3; i++) {
+            long start = System.currentTimeMillis();
+            DirectorySync.Changes changes = sync.sync(source, new File(args[1]));
+            logger.info("sync {}: {}ms, {}", i, System.currentTimeMillis() - start, changes);
+        }
+    }
+
+    private static List<String> entries(Path zipFile) throws IOException {
+        List<String> names = new ArrayList<String>();
+        ZipFile zip = new ZipFile(zipFile.toFile());
+        try {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                names.add(entries.nextElement().getName());
+            }
+        } finally {
+            zip.close();
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes("UTF-8"));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), "UTF-8");
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
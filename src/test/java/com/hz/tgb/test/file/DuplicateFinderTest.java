@@ -0,0 +1,97 @@
+package com.hz.tgb.test.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.hz.tgb.file.DuplicateFinder;
+import com.hz.tgb.file.FileUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 重复文件查找单元测试
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午11:12:40
+ */
+public class DuplicateFinderTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(DuplicateFinderTest.class);
+
+    @Test
+    public void testFindDuplicates() throws IOException {
+        Path dir = Files.createTempDirectory("duplicate");
+        try {
+            byte[] small = randomBytes(1000, 1);
+            byte[] large = randomBytes(1024 * 1024, 2);
+            // 大小相同、开头结尾相同、只有中间不同
+            byte[] middle = large.clone();
+            middle[512 * 1024] ^= 1;
+
+            write(dir.resolve("a/small1.txt"), small);
+            write(dir.resolve("b/small2.txt"), small);
+            write(dir.resolve("b/other.txt"), randomBytes(1000, 3));
+            write(dir.resolve("large1.bin"), large);
+            write(dir.resolve("c/d/large2.bin"), large);
+            write(dir.resolve("c/large3.bin"), large);
+            write(dir.resolve("c/middle.bin"), middle);
+            write(dir.resolve("unique.bin"), randomBytes(5000, 4));
+            write(dir.resolve("empty1"), new byte[0]);
+            write(dir.resolve("empty2"), new byte[0]);
+
+            DuplicateFinder.Result result = new DuplicateFinder(2).find(dir);
+            List<List<Path>> groups = result.getGroups();
+            Assert.assertEquals(2, groups.size());
+            Assert.assertEquals(Arrays.asList(dir.resolve("c/d/large2.bin"), dir.resolve("c/large3.bin"),
+                    dir.resolve("large1.bin")), groups.get(0));
+            Assert.assertEquals(Arrays.asList(dir.resolve("a/small1.txt"), dir.resolve("b/small2.txt")),
+                    groups.get(1));
+            Assert.assertEquals(8, result.getFiles());
+            Assert.assertEquals(7, result.getSampled());
+            Assert.assertEquals(4, result.getFullyHashed());
+            Assert.assertEquals(2L * large.length + small.length, result.getWastedBytes());
+
+            Assert.assertEquals(groups, FileUtil.findDuplicates(dir));
+        } finally {
+            delete(dir.toFile());
+        }
+    }
+
+    /**
+     * 查找目录下重复文件的耗时：java -cp ... DuplicateFinderTest 目录 [并行度]
+     */
+    public static void main(String[] args) {
+        int parallelism = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        DuplicateFinder.Result result = new DuplicateFinder(parallelism).find(Paths.get(args[0]));
+        logger.info("{}", result);
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static void write(Path file, byte[] data) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, data);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,373 @@
+package com.hz.tgb.test.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.hz.tgb.file.FtpClientPool;
+import com.hz.tgb.file.FtpTransfer;
+import com.hz.tgb.file.FtpUtil;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.ftpserver.FtpServer;
+import org.apache.ftpserver.FtpServerFactory;
+import org.apache.ftpserver.ftplet.Authority;
+import org.apache.ftpserver.ftplet.DefaultFtpReply;
+import org.apache.ftpserver.ftplet.DefaultFtplet;
+import org.apache.ftpserver.ftplet.FtpException;
+import org.apache.ftpserver.ftplet.FtpReply;
+import org.apache.ftpserver.ftplet.FtpRequest;
+import org.apache.ftpserver.ftplet.FtpSession;
+import org.apache.ftpserver.ftplet.Ftplet;
+import org.apache.ftpserver.ftplet.FtpletResult;
+import org.apache.ftpserver.ftplet.UserManager;
+import org.apache.ftpserver.listener.ListenerFactory;
+import org.apache.ftpserver.usermanager.ClearTextPasswordEncryptor;
+import org.apache.ftpserver.usermanager.PropertiesUserManagerFactory;
+import org.apache.ftpserver.usermanager.impl.BaseUser;
+import org.apache.ftpserver.usermanager.impl.WritePermission;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * FTP连接池、断点续传和FtpUtil单元测试，使用嵌入的Apache FtpServer；传输失败通过Ftplet注入
+ *
+ * @author hezhao
+ * @Time 2026年10月19日 下午3:26:08
+ */
+public class EmbeddedFtpServerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedFtpServerTest.class);
+
+    private Path dir;
+
+    private File home;
+
+    private FtpServer server;
+
+    private int port;
+
+    private final AtomicInteger logins = new AtomicInteger();
+
+    /** 接下来需要失败的上传次数 */
+    private final AtomicInteger uploadFailures = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("ftp");
+        home = dir.resolve("home").toFile();
+        home.mkdirs();
+
+        PropertiesUserManagerFactory userManagerFactory = new PropertiesUserManagerFactory();
+        userManagerFactory.setPasswordEncryptor(new ClearTextPasswordEncryptor());
+        UserManager userManager = userManagerFactory.createUserManager();
+        BaseUser user = new BaseUser();
+        user.setName("user");
+        user.setPassword("password");
+        user.setHomeDirectory(home.getAbsolutePath());
+        List<Authority> authorities = new ArrayList<Authority>();
+        authorities.add(new WritePermission());
+        user.setAuthorities(authorities);
+        userManager.save(user);
+        BaseUser anonymous = new BaseUser();
+        anonymous.setName("anonymous");
+        anonymous.setHomeDirectory(home.getAbsolutePath());
+        anonymous.setAuthorities(authorities);
+        userManager.save(anonymous);
+
+        FtpServerFactory serverFactory = new FtpServerFactory();
+        ListenerFactory listenerFactory = new ListenerFactory();
+        listenerFactory.setServerAddress("127.0.0.1");
+        // 0表示随机端口，启动后从监听器得到实际端口
+        listenerFactory.setPort(0);
+        serverFactory.addListener("default", listenerFactory.createListener());
+        serverFactory.setUserManager(userManager);
+        Map<String, Ftplet> ftplets = new HashMap<String, Ftplet>();
+        ftplets.put("inject", new DefaultFtplet() {
+            @Override
+            public FtpletResult onLogin(FtpSession session, FtpRequest request) {
+                logins.incrementAndGet();
+                return FtpletResult.DEFAULT;
+            }
+
+            @Override
+            public FtpletResult onUploadStart(FtpSession session, FtpRequest request) throws FtpException {
+                if (uploadFailures.getAndDecrement() <= 0) {
+                    return FtpletResult.DEFAULT;
+                }
+                // 模拟传输中断：不接收数据，直接回复426
+                session.getDataConnection().closeDataConnection();
+                session.write(new DefaultFtpReply(FtpReply.REPLY_426_CONNECTION_CLOSED_TRANSFER_ABORTED,
+                        "injected failure"));
+                return FtpletResult.SKIP;
+            }
+        });
+        serverFactory.setFtplets(ftplets);
+        server = serverFactory.createServer();
+        server.start();
+        port = serverFactory.getListener("default").getPort();
+    }
+
+    @After
+    public void tearDown() {
+        FtpUtil.closeAll();
+        server.stop();
+        delete(dir.toFile());
+    }
+
+    @Test
+    public void testPool() throws Exception {
+        FtpClientPool pool = new FtpClientPool("127.0.0.1", port, "user", "password", 2);
+        try {
+            FTPClient first = pool.borrow();
+            FTPClient second = pool.borrow();
+            Assert.assertEquals(2, pool.getActiveCount());
+            try {
+                pool.borrow(100);
+                Assert.fail();
+            } catch (IOException e) {
+                // 超过最大连接数
+            }
+            pool.release(first);
+            Assert.assertSame(first, pool.borrow());
+            pool.invalidate(second);
+            pool.release(first);
+            Assert.assertEquals(0, pool.getActiveCount());
+            Assert.assertEquals(1, pool.getIdleCount());
+            Assert.assertEquals(2, logins.get());
+        } finally {
+            pool.close();
+        }
+        Assert.assertTrue(pool.isClosed());
+    }
+
+    @Test
+    public void testPooledUploadAndDownload() throws Exception {
+        FtpClientPool pool = new FtpClientPool("127.0.0.1", port, "user", "password", 3);
+        try {
+            Map<File, String> uploads = new LinkedHashMap<File, String>();
+            for (int i = 0; i < 20; i++) {
+                Path local = dir.resolve("local/" + i + ".txt");
+                write(local, randomBytes(5000 + i, i));
+                uploads.put(local.toFile(), "/bank/settle/" + (i % 4) + "/" + i + ".txt");
+            }
+            FtpTransfer.Result result = new FtpTransfer(pool).uploadAll(uploads);
+            Assert.assertEquals(20, result.getSucceeded());
+            Assert.assertTrue(result.getFailed().isEmpty());
+            Assert.assertTrue(pool.getIdleCount() <= 3);
+            for (Map.Entry<File, String> file : uploads.entrySet()) {
+                Assert.assertArrayEquals(Files.readAllBytes(file.getKey().toPath()),
+                        Files.readAllBytes(new File(home, file.getValue()).toPath()));
+                Assert.assertFalse(new File(home, file.getValue() + FtpTransfer.PART_SUFFIX).exists());
+                Assert.assertFalse(new File(home, file.getValue() + FtpTransfer.PART_SUFFIX + FtpTransfer.ID_SUFFIX).exists());
+            }
+
+            Map<String, File> downloads = new LinkedHashMap<String, File>();
+            for (Map.Entry<File, String> file : uploads.entrySet()) {
+                downloads.put(file.getValue(), dir.resolve("download" + file.getValue()).toFile());
+            }
+            result = new FtpTransfer(pool).downloadAll(downloads);
+            Assert.assertEquals(20, result.getSucceeded());
+            for (Map.Entry<File, String> file : uploads.entrySet()) {
+                Assert.assertArrayEquals(Files.readAllBytes(file.getKey().toPath()),
+                        Files.readAllBytes(dir.resolve("download" + file.getValue())));
+            }
+
+            // 归还的连接工作目录仍是主目录
+            FTPClient client = pool.borrow();
+            try {
+                Assert.assertEquals("/", client.printWorkingDirectory());
+            } finally {
+                pool.release(client);
+            }
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        FtpClientPool pool = new FtpClientPool("127.0.0.1", port, "user", "password", 2);
+        try {
+            byte[] data = randomBytes(300000, 1);
+            Path local = dir.resolve("statement.txt");
+            write(local, data);
+            FtpTransfer transfer = new FtpTransfer(pool, 1, 0);
+
+            // 模拟上次上传中断：先完整上传得到.id，再把远程文件截断为.part
+            transfer.upload(local.toFile(), "/upload/statement.txt");
+            File target = new File(home, "upload/statement.txt");
+            File part = new File(target.getPath() + FtpTransfer.PART_SUFFIX);
+            write(part.toPath(), Arrays.copyOf(data, 100000));
+            write(new File(part.getPath() + FtpTransfer.ID_SUFFIX).toPath(),
+                    (local.toFile().length() + " " + local.toFile().lastModified()).getBytes("UTF-8"));
+            Assert.assertTrue(target.delete());
+            Assert.assertEquals(data.length - 100000, transfer.upload(local.toFile(), "/upload/statement.txt"));
+            Assert.assertArrayEquals(data, Files.readAllBytes(target.toPath()));
+
+            // 下载：模拟上次下载中断，.id中的标识与远程文件一致时从断点续传
+            File download = dir.resolve("download/statement.txt").toFile();
+            Assert.assertEquals(data.length, transfer.download("/upload/statement.txt", download));
+            File localPart = new File(download.getPath() + FtpTransfer.PART_SUFFIX);
+            File localId = new File(localPart.getPath() + FtpTransfer.ID_SUFFIX);
+            Assert.assertFalse(localId.exists());
+            Assert.assertTrue(download.renameTo(localPart));
+            Files.write(localPart.toPath(), Arrays.copyOf(data, 200000));
+            FTPClient client = pool.borrow();
+            try {
+                String time = client.getModificationTime("/upload/statement.txt");
+                write(localId.toPath(), (data.length + " " + time.trim()).getBytes("UTF-8"));
+            } finally {
+                pool.release(client);
+            }
+            Assert.assertEquals(data.length - 200000, transfer.download("/upload/statement.txt", download));
+            Assert.assertArrayEquals(data, Files.readAllBytes(download.toPath()));
+
+            // 远程文件已修改，断点丢弃
+            Files.write(localPart.toPath(), Arrays.copyOf(data, 200000));
+            write(localId.toPath(), (data.length + " 19700101000000").getBytes("UTF-8"));
+            Assert.assertEquals(data.length, transfer.download("/upload/statement.txt", download));
+            Assert.assertArrayEquals(data, Files.readAllBytes(download.toPath()));
+        } finally {
+            pool.close();
+        }
+    }
+
+    /**
+     * 上传失败后换连接重试，重试次数用完后抛出异常
+     */
+    @Test
+    public void testRetry() throws Exception {
+        FtpClientPool pool = new FtpClientPool("127.0.0.1", port, "user", "password", 2);
+        try {
+            byte[] data = randomBytes(100000, 3);
+            Path local = dir.resolve("retry.txt");
+            write(local, data);
+
+            uploadFailures.set(2);
+            Assert.assertEquals(data.length, new FtpTransfer(pool, 1, 2).upload(local.toFile(), "/retry/a.txt"));
+            Assert.assertArrayEquals(data, Files.readAllBytes(new File(home, "retry/a.txt").toPath()));
+
+            uploadFailures.set(2);
+            try {
+                new FtpTransfer(pool, 1, 1).upload(local.toFile(), "/retry/b.txt");
+                Assert.fail();
+            } catch (IOException e) {
+                // 重试1次后仍然失败
+            }
+            Assert.assertFalse(new File(home, "retry/b.txt").exists());
+            Assert.assertTrue(uploadFailures.get() <= 0);
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testFtpUtil() throws Exception {
+        FtpClientPool pool = FtpUtil.getPool("127.0.0.1", port, "user", "password");
+        try {
+            write(new File(home, "top.txt").toPath(), new byte[] {1});
+            for (int i = 0; i < 3; i++) {
+                // 第二次起目录已存在，makeDirectories会用CWD确认目录
+                Assert.assertTrue(FtpUtil.ftpUpload("127.0.0.1", port, "user", "password", "a/b/",
+                        i + ".txt", new ByteArrayInputStream(new byte[] {(byte) i})));
+            }
+            Assert.assertEquals(1, pool.getIdleCount());
+            // 相对路径相对于主目录，不受上传时切换的工作目录影响
+            Assert.assertTrue(FtpUtil.ftpDel("127.0.0.1", port, "user", "password", "top.txt"));
+            Assert.assertFalse(new File(home, "top.txt").exists());
+            Assert.assertTrue(new File(home, "a/b/2.txt").exists());
+
+            // 错误的密码不会借到正确密码登录的连接
+            Assert.assertFalse(FtpUtil.ftpDel("127.0.0.1", port, "user", "wrong", "a/b/2.txt"));
+            Assert.assertTrue(new File(home, "a/b/2.txt").exists());
+            Assert.assertNotSame(pool, FtpUtil.getPool("127.0.0.1", port, "user", "wrong"));
+
+            // 匿名登录没有密码
+            FtpClientPool anonymous = FtpUtil.getPool("127.0.0.1", port, "anonymous", null);
+            Assert.assertSame(anonymous, FtpUtil.getPool("127.0.0.1", port, "anonymous", null));
+            Assert.assertTrue(FtpUtil.ftpUpload("127.0.0.1", port, "anonymous", null, "anonymous/", "a.txt",
+                    new ByteArrayInputStream(new byte[] {1})));
+            Assert.assertTrue(new File(home, "anonymous/a.txt").exists());
+
+            // 关闭后重新创建
+            FtpUtil.closeAll();
+            Assert.assertTrue(pool.isClosed());
+            Assert.assertTrue(anonymous.isClosed());
+            Assert.assertNotSame(pool, FtpUtil.getPool("127.0.0.1", port, "user", "password"));
+        } finally {
+            pool.close();
+        }
+    }
+
+    /**
+     * 每个文件新建连接与连接池并行上传的耗时：java -cp ... EmbeddedFtpServerTest 服务器 端口 登录名 密码 本地目录 远程目录 [并行数]
+     */
+    public static void main(String[] args) throws Exception {
+        String host = args[0];
+        int port = Integer.parseInt(args[1]);
+        File[] files = new File(args[4]).listFiles();
+        String remote = args[5];
+        int threads = args.length > 6 ? Integer.parseInt(args[6]) : 8;
+
+        long start = System.currentTimeMillis();
+        for (File file : files) {
+            FTPClient ftp = new FTPClient();
+            ftp.connect(host, port);
+            ftp.login(args[2], args[3]);
+            ftp.enterLocalPassiveMode();
+            ftp.setFileType(FTPClient.BINARY_FILE_TYPE);
+            InputStream in = new FileInputStream(file);
+            ftp.storeFile(remote + "/" + file.getName(), in);
+            in.close();
+            ftp.logout();
+            ftp.disconnect();
+        }
+        logger.info("connection per file: {} files, {}ms", files.length, System.currentTimeMillis() - start);
+
+        FtpClientPool pool = new FtpClientPool(host, port, args[2], args[3], threads);
+        Map<File, String> uploads = new LinkedHashMap<File, String>();
+        for (File file : files) {
+            uploads.put(file, remote + "/" + file.getName());
+        }
+        FtpTransfer.Result result = new FtpTransfer(pool).uploadAll(uploads);
+        logger.info("pooled {} threads: {}", threads, result);
+        pool.close();
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static void write(Path file, byte[] data) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, data);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
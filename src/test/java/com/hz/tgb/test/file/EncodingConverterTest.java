@@ -0,0 +1,162 @@
+package com.hz.tgb.test.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.hz.tgb.file.EncodingConverter;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 目录编码批量转换单元测试
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午9:24:15
+ */
+public class EncodingConverterTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(EncodingConverterTest.class);
+
+    private static final String SIMPLIFIED = "批量转换目录下文本文件的编码，先写到临时文件，成功后重命名覆盖原文件。\r\n";
+
+    private static final String TRADITIONAL = "批量轉換目錄下文本文件的編碼，先寫到臨時文件，成功後重命名覆蓋原文件。\n";
+
+    @Test
+    public void testConvert() throws IOException {
+        Path root = Files.createTempDirectory("encoding-converter");
+        try {
+            Path sub = Files.createDirectories(root.resolve("a/b"));
+            write(root.resolve("gbk.txt"), repeat(SIMPLIFIED, 50), "GBK");
+            write(sub.resolve("big5.csv"), repeat(TRADITIONAL, 50), "BIG5");
+            write(sub.resolve("utf8.txt"), repeat(SIMPLIFIED, 50), "UTF-8");
+            write(root.resolve("a/ascii.txt"), "id,name\n1,test\n", "UTF-8");
+            write(root.resolve("a/skip.log"), repeat(SIMPLIFIED, 50), "GBK");
+            Files.write(root.resolve("a/empty.txt"), new byte[0]);
+
+            EncodingConverter.Report report = new EncodingConverter("UTF-8", 4).convert(root.toString(), "txt", "CSV");
+            logger.info("{}", report);
+            Assert.assertEquals(5, report.getFiles());
+            Assert.assertEquals(2, report.getConverted());
+            Assert.assertEquals(3, report.getSkipped());
+            Assert.assertTrue(report.getFailed().isEmpty());
+
+            Assert.assertEquals(repeat(SIMPLIFIED, 50), read(root.resolve("gbk.txt")));
+            Assert.assertEquals(repeat(TRADITIONAL, 50), read(sub.resolve("big5.csv")));
+            Assert.assertEquals(repeat(SIMPLIFIED, 50), read(sub.resolve("utf8.txt")));
+            // 后缀不匹配的文件不处理
+            Assert.assertArrayEquals(repeat(SIMPLIFIED, 50).getBytes("GBK"), Files.readAllBytes(root.resolve("a/skip.log")));
+            // 没有残留的临时文件
+            Assert.assertEquals(6, countFiles(root.toFile()));
+
+            // 再次转换时全部跳过
+            report = new EncodingConverter("UTF-8").convert(root.toString(), "txt", "csv");
+            Assert.assertEquals(0, report.getConverted());
+        } finally {
+            delete(root.toFile());
+        }
+    }
+
+    /**
+     * 含有目标编码无法表示的字符时转换失败，原文件不变
+     */
+    @Test
+    public void testConvertFailed() throws IOException {
+        Path root = Files.createTempDirectory("encoding-converter");
+        try {
+            Path file = root.resolve("gbk.txt");
+            write(file, repeat(SIMPLIFIED, 50), "GBK");
+            byte[] before = Files.readAllBytes(file);
+            EncodingConverter.Report report = new EncodingConverter("ISO-8859-1").convertFile(file.toString());
+            Assert.assertEquals(0, report.getConverted());
+            Assert.assertEquals(1, report.getFailed().size());
+            Assert.assertArrayEquals(before, Files.readAllBytes(file));
+            Assert.assertEquals(1, root.toFile().list().length);
+        } finally {
+            delete(root.toFile());
+        }
+    }
+
+    /**
+     * 无法识别编码的文件默认跳过，并与ISO8859_1区分；指定了无法识别时使用的编码时按该编码转换
+     */
+    @Test
+    public void testUnknownCharset() throws IOException {
+        Path root = Files.createTempDirectory("encoding-converter");
+        try {
+            Path file = root.resolve("latin1.txt");
+            String text = repeat("Caf\u00e9 na\u00efve, Z\u00fcrich \u00e0 la carte; \u00bfqu\u00e9 tal? ni\u00f1o\n", 50);
+            write(file, text, "ISO-8859-1");
+            byte[] before = Files.readAllBytes(file);
+
+            EncodingConverter.Report report = new EncodingConverter("UTF-8").convert(root.toString());
+            Assert.assertEquals(1, report.getUnknown());
+            Assert.assertEquals(Integer.valueOf(1), report.getCharsets().get(EncodingConverter.UNKNOWN));
+            Assert.assertArrayEquals(before, Files.readAllBytes(file));
+
+            report = new EncodingConverter("UTF-8", 1, "ISO-8859-1").convert(root.toString());
+            Assert.assertEquals(1, report.getConverted());
+            Assert.assertEquals(text, read(file));
+            Assert.assertEquals(1, root.toFile().list().length);
+        } finally {
+            delete(root.toFile());
+        }
+    }
+
+    /**
+     * 不同并行度下转换2000个文件的耗时
+     */
+    public static void main(String[] args) throws IOException {
+        for (int parallelism = 1; parallelism <= 8; parallelism <<= 1) {
+            Path root = Files.createTempDirectory("encoding-converter");
+            try {
+                for (int i = 0; i < 2000; i++) {
+                    Path dir = Files.createDirectories(root.resolve(String.valueOf(i % 20)));
+                    write(dir.resolve(i + ".txt"), repeat(i % 2 == 0 ? SIMPLIFIED : TRADITIONAL, 200),
+                            i % 2 == 0 ? "GBK" : "BIG5");
+                }
+                EncodingConverter.Report report = new EncodingConverter("UTF-8", parallelism).convert(root.toString());
+                logger.info("parallelism:{} {}", parallelism, report);
+            } finally {
+                delete(root.toFile());
+            }
+        }
+    }
+
+    private static int countFiles(File dir) {
+        int count = 0;
+        for (File file : dir.listFiles()) {
+            count += file.isDirectory() ? countFiles(file) : 1;
+        }
+        return count;
+    }
+
+    private static void write(Path file, String text, String charset) throws IOException {
+        Files.write(file, text.getBytes(charset));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), "UTF-8");
+    }
+
+    private static String repeat(String str, int times) {
+        StringBuilder sb = new StringBuilder(str.length() * times);
+        for (int i = 0; i < times; i++) {
+            sb.append(str);
+        }
+        return sb.toString();
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
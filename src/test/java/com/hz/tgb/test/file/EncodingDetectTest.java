@@ -0,0 +1,81 @@
+package com.hz.tgb.test.file;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.hz.tgb.file.EncodingDetect;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 文件编码检测、读取单元测试
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午9:10:42
+ */
+public class EncodingDetectTest {
+
+    private static final String SEPARATOR = System.getProperty("line.separator");
+
+    @Test
+    public void testReadFile() throws IOException {
+        String text = "第一行，中文内容\r\n  第二行  \n\r第四行\n";
+        for (String charset : new String[] {"UTF-8", "GBK"}) {
+            File file = write(text, charset);
+            try {
+                Assert.assertEquals("第一行，中文内容" + SEPARATOR + "  第二行  " + SEPARATOR + SEPARATOR + "第四行",
+                        EncodingDetect.readFile(file.getPath()));
+                Assert.assertEquals("第一行，中文内容第二行第四行", EncodingDetect.readFile(file.getPath(), true));
+            } finally {
+                file.delete();
+            }
+        }
+        Assert.assertEquals("", EncodingDetect.readFile(new File("not-exists.txt").getPath()));
+    }
+
+    /**
+     * 大文件走内存映射
+     */
+    @Test
+    public void testReadLargeFile() throws IOException {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 1024 * 1024) {
+            text.append("中文编码检测，大文件使用内存映射读取").append(text.length()).append('\n');
+        }
+        File file = write(text.toString(), "UTF-8");
+        try {
+            String expected = text.substring(0, text.length() - 1).replace("\n", SEPARATOR);
+            Assert.assertEquals(expected, EncodingDetect.readFile(file.getPath()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testGetReader() throws IOException {
+        File file = write("中文第一行\n中文第二行\n", "GBK");
+        BufferedReader reader = EncodingDetect.getReader(file.getPath());
+        try {
+            Assert.assertEquals("中文第一行", reader.readLine());
+            Assert.assertEquals("中文第二行", reader.readLine());
+            Assert.assertNull(reader.readLine());
+        } finally {
+            reader.close();
+            file.delete();
+        }
+    }
+
+    private static File write(String text, String charset) throws IOException {
+        File file = File.createTempFile("encoding", ".txt");
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(text.getBytes(charset));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
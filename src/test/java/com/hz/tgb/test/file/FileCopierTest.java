@@ -0,0 +1,181 @@
+package com.hz.tgb.test.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hz.tgb.file.FileCopier;
+import com.hz.tgb.file.FileUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 零拷贝文件复制单元测试
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午9:47:30
+ */
+public class FileCopierTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileCopierTest.class);
+
+    @Test
+    public void testCopyFile() throws IOException {
+        Path dir = Files.createTempDirectory("file-copier");
+        try {
+            Path source = dir.resolve("source.bin");
+            byte[] data = randomBytes(3 * 1024 * 1024 + 7);
+            Files.write(source, data);
+            FileTime time = FileTime.fromMillis(1500000000000L);
+            Files.setLastModifiedTime(source, time);
+
+            File target = dir.resolve("target.bin").toFile();
+            Assert.assertTrue(FileUtil.copyFile(source.toFile(), target));
+            Assert.assertArrayEquals(data, Files.readAllBytes(target.toPath()));
+            // FileUtil只复制内容
+            Assert.assertNotEquals(time, Files.getLastModifiedTime(target.toPath()));
+            Assert.assertEquals(data.length, FileCopier.copyFile(source.toFile(), target, true, null));
+            Assert.assertEquals(time, Files.getLastModifiedTime(target.toPath()));
+
+            // 覆盖更大的已存在文件
+            Files.write(source, new byte[] {1, 2, 3});
+            FileUtil.fileCopy(source.toFile(), target);
+            Assert.assertArrayEquals(new byte[] {1, 2, 3}, Files.readAllBytes(target.toPath()));
+
+            Assert.assertFalse(FileUtil.copyFile(dir.resolve("not-exists").toFile(), target));
+
+            // 源文件只读时仍然可以重复复制到同一个目标文件
+            if (dir.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                Files.setPosixFilePermissions(source, PosixFilePermissions.fromString("r--r--r--"));
+                FileUtil.copyFile(source.toFile(), target);
+                FileUtil.copyFile(source.toFile(), target);
+                Assert.assertTrue(target.canWrite());
+            }
+        } finally {
+            delete(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testCopyDir() throws IOException {
+        Path dir = Files.createTempDirectory("file-copier");
+        try {
+            Path source = dir.resolve("source");
+            long total = 0;
+            Random random = new Random(1);
+            for (int i = 0; i < 60; i++) {
+                Path sub = Files.createDirectories(source.resolve("d" + (i % 6)).resolve("e" + (i % 2)));
+                byte[] data = randomBytes(random.nextInt(200 * 1024));
+                Files.write(sub.resolve(i + ".bin"), data);
+                total += data.length;
+            }
+            Files.createDirectories(source.resolve("empty"));
+            FileTime time = FileTime.fromMillis(1500000000000L);
+            Files.setLastModifiedTime(source.resolve("d1"), time);
+
+            final AtomicLong lastCopied = new AtomicLong();
+            final AtomicLong lastTotal = new AtomicLong();
+            long copied = FileCopier.copyDir(source.toFile(), dir.resolve("target").toFile(), FileCopier.DEFAULT_THREADS,
+                    true, new FileCopier.ProgressListener() {
+                        @Override
+                        public void onProgress(File file, long copiedBytes, long totalBytes) {
+                            synchronized (this) {
+                                lastCopied.set(Math.max(lastCopied.get(), copiedBytes));
+                                lastTotal.set(totalBytes);
+                            }
+                        }
+                    });
+            Assert.assertEquals(total, copied);
+            Assert.assertEquals(total, lastCopied.get());
+            Assert.assertEquals(total, lastTotal.get());
+            for (int i = 0; i < 60; i++) {
+                String relative = "d" + (i % 6) + "/e" + (i % 2) + "/" + i + ".bin";
+                Assert.assertArrayEquals(Files.readAllBytes(source.resolve(relative)),
+                        Files.readAllBytes(dir.resolve("target").resolve(relative)));
+            }
+            Assert.assertTrue(Files.isDirectory(dir.resolve("target/empty")));
+            Assert.assertEquals(time, Files.getLastModifiedTime(dir.resolve("target/d1")));
+        } finally {
+            delete(dir.toFile());
+        }
+    }
+
+    /**
+     * 一个文件复制失败时抛出异常并取消其余文件，不会一直等待被移出队列的任务
+     */
+    @Test
+    public void testCopyDirFailed() throws Exception {
+        final Path dir = Files.createTempDirectory("file-copier");
+        try {
+            Path source = Files.createDirectories(dir.resolve("source"));
+            for (int i = 0; i < 200; i++) {
+                Files.write(source.resolve(i + ".bin"), randomBytes(1024 + i));
+            }
+            // 目标路径是目录，无法写入
+            Files.createDirectories(dir.resolve("target/3.bin/sub"));
+
+            final Throwable[] error = new Throwable[1];
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        FileCopier.copyDir(dir.resolve("source").toFile(), dir.resolve("target").toFile(), 1, null);
+                    } catch (Throwable e) {
+                        error[0] = e;
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+            thread.join(10000L);
+            Assert.assertFalse("copyDir hangs", thread.isAlive());
+            Assert.assertTrue(String.valueOf(error[0]), error[0] instanceof IOException);
+        } finally {
+            delete(dir.toFile());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCopyDirIntoItself() throws IOException {
+        Path dir = Files.createTempDirectory("file-copier");
+        try {
+            FileCopier.copyDir(dir.toFile(), dir.resolve("sub").toFile(), 2, null);
+        } finally {
+            delete(dir.toFile());
+        }
+    }
+
+    /**
+     * 复制目录的耗时：java -cp ... FileCopierTest 源目录 目标目录 [线程数]
+     */
+    public static void main(String[] args) throws IOException {
+        long start = System.currentTimeMillis();
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : FileCopier.DEFAULT_THREADS;
+        long bytes = FileCopier.copyDir(new File(args[0]), new File(args[1]), threads, null);
+        long cost = Math.max(System.currentTimeMillis() - start, 1);
+        logger.info("copy {} bytes in {}ms, {}MB/s", bytes, cost, bytes * 1000 / cost / 1024 / 1024);
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
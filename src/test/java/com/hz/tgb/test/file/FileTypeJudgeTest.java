@@ -0,0 +1,117 @@
+package com.hz.tgb.test.file;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import com.hz.tgb.common.ByteUtil;
+import com.hz.tgb.file.FileType;
+import com.hz.tgb.file.FileTypeJudge;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 文件类型判断单元测试
+ *
+ * @author hezhao
+ * @Time 2026年10月19日 上午1:06:42
+ */
+public class FileTypeJudgeTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileTypeJudgeTest.class);
+
+    private static final byte[] PNG = {(byte) 0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0x0D};
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 0x10, 0x4A, 0x46};
+
+    @Test
+    public void testGetType() throws Exception {
+        Assert.assertEquals(FileType.PNG, FileTypeJudge.getType(PNG));
+        Assert.assertEquals(FileType.JPEG, FileTypeJudge.getType(JPEG));
+        Assert.assertEquals(FileType.BMP, FileTypeJudge.getType(new byte[] {0x42, 0x4D, 0x36}));
+        Assert.assertEquals(FileType.TIFF, FileTypeJudge.getType(new byte[] {0x49, 0x49, 0x2A, 0x00}));
+        Assert.assertEquals(FileType.GIF, FileTypeJudge.getType("GIF89a".getBytes("ISO-8859-1")));
+        // 文件头不完整、不匹配
+        Assert.assertNull(FileTypeJudge.getType(new byte[] {(byte) 0x89, 0x50, 0x4E}));
+        Assert.assertNull(FileTypeJudge.getType(new byte[] {0x42, 0x4E}));
+        Assert.assertNull(FileTypeJudge.getType(new byte[0]));
+
+        byte[] padded = new byte[PNG.length + 3];
+        System.arraycopy(PNG, 0, padded, 3, PNG.length);
+        Assert.assertEquals(FileType.PNG, FileTypeJudge.getType(padded, 3, PNG.length));
+
+        ByteBuffer buffer = ByteBuffer.wrap(padded);
+        buffer.position(3);
+        Assert.assertEquals(FileType.PNG, FileTypeJudge.getType(buffer));
+        Assert.assertEquals(3, buffer.position());
+
+        Assert.assertEquals(FileType.JPEG, FileTypeJudge.getType(new ByteArrayInputStream(JPEG)));
+    }
+
+    @Test
+    public void testSniff() throws Exception {
+        InputStream in = new BufferedInputStream(new ByteArrayInputStream(PNG));
+        Assert.assertEquals(FileType.PNG, FileTypeJudge.sniff(in));
+        // 流没有被消耗
+        byte[] data = new byte[PNG.length];
+        Assert.assertEquals(PNG.length, in.read(data));
+        Assert.assertArrayEquals(PNG, data);
+
+        try {
+            FileTypeJudge.sniff(new FileInputStream(FileDescriptor.in));
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // 不支持mark/reset
+        }
+    }
+
+    @Test
+    public void testSetValue() {
+        String value = FileType.BMP.getValue();
+        try {
+            FileType.BMP.setValue("424D36");
+            Assert.assertNull(FileTypeJudge.getType(new byte[] {0x42, 0x4D, 0x00}));
+            Assert.assertEquals(FileType.BMP, FileTypeJudge.getType(new byte[] {0x42, 0x4D, 0x36}));
+        } finally {
+            FileType.BMP.setValue(value);
+        }
+    }
+
+    /**
+     * 原来转16进制字符串逐个startsWith的方式与前缀树的耗时：java -cp ... FileTypeJudgeTest [次数]
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+        byte[] head = new byte[28];
+        System.arraycopy(PNG, 0, head, 0, PNG.length);
+        for (int round = 0; round < 3; round++) {
+            int found = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                String fileHead = ByteUtil.bytesToHexString(head).toUpperCase();
+                for (FileType type : FileType.values()) {
+                    if (fileHead.startsWith(type.getValue())) {
+                        found++;
+                        break;
+                    }
+                }
+            }
+            long hexNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                if (FileTypeJudge.getType(head) != null) {
+                    found++;
+                }
+            }
+            long trieNanos = System.nanoTime() - start;
+            logger.info("hex string: {}ns per call, trie: {}ns per call ({})", (double) hexNanos / count,
+                    (double) trieNanos / count, found);
+        }
+    }
+}
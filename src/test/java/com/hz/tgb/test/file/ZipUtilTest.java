@@ -0,0 +1,252 @@
+package com.hz.tgb.test.file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import com.hz.tgb.file.ZipUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * zip工具类单元测试
+ *
+ * @author hezhao
+ * @Time 2026年10月19日 上午12:05:31
+ */
+public class ZipUtilTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZipUtilTest.class);
+
+    private static final Charset GBK = Charset.forName("GBK");
+
+    @Test
+    public void testZipParallel() throws Exception {
+        Path dir = Files.createTempDirectory("zip-util");
+        try {
+            Path source = dir.resolve("source");
+            byte[] text = statement(200000);
+            byte[] image = randomBytes(300000);
+            write(source.resolve("对账单.txt"), text);
+            write(source.resolve("img/photo.JPG"), image);
+            write(source.resolve("sub/deep/b.csv"), text);
+            Files.createDirectories(source.resolve("empty"));
+
+            File zipFile = dir.resolve("out.zip").toFile();
+            ZipUtil.zipParallel(new String[] {source.toString()}, zipFile.getPath(), 3);
+
+            ZipFile zip = new ZipFile(zipFile, GBK);
+            try {
+                ZipEntry txt = zip.getEntry("source/对账单.txt");
+                Assert.assertEquals(ZipEntry.DEFLATED, txt.getMethod());
+                Assert.assertTrue(txt.getCompressedSize() < text.length / 2);
+                Assert.assertArrayEquals(text, read(zip, txt));
+
+                ZipEntry jpg = zip.getEntry("source/img/photo.JPG");
+                Assert.assertEquals(ZipEntry.STORED, jpg.getMethod());
+                Assert.assertArrayEquals(image, read(zip, jpg));
+
+                Assert.assertArrayEquals(text, read(zip, zip.getEntry("source/sub/deep/b.csv")));
+                Assert.assertTrue(zip.getEntry("source/empty/").isDirectory());
+            } finally {
+                zip.close();
+            }
+
+            // 压缩单个目录时条目相对于该目录，与zip相同
+            ZipUtil.zipParallel(source.toString(), zipFile.getPath());
+            zip = new ZipFile(zipFile, GBK);
+            try {
+                Assert.assertNotNull(zip.getEntry("对账单.txt"));
+                Assert.assertNotNull(zip.getEntry("sub/deep/b.csv"));
+                Assert.assertNull(zip.getEntry("source/"));
+            } finally {
+                zip.close();
+            }
+        } finally {
+            delete(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testRandomAccess() throws Exception {
+        Path dir = Files.createTempDirectory("zip-util");
+        try {
+            Path source = dir.resolve("source");
+            byte[] text = statement(20000);
+            write(source.resolve("对账单.txt"), text);
+            write(source.resolve("img/a.jpg"), randomBytes(1000));
+            write(source.resolve("img/b.png"), randomBytes(2000));
+            write(source.resolve("img/sub/c.jpg"), randomBytes(3000));
+            String zipFile = dir.resolve("out.zip").toString();
+            ZipUtil.zipParallel(source.toString(), zipFile);
+
+            List<String> names = ZipUtil.listEntries(zipFile);
+            Assert.assertTrue(names.containsAll(Arrays.asList("对账单.txt", "img/a.jpg", "img/sub/c.jpg")));
+
+            InputStream in = ZipUtil.openEntry(zipFile, "对账单.txt");
+            try {
+                Assert.assertArrayEquals(text, readFully(in));
+            } finally {
+                in.close();
+            }
+            Assert.assertNull(ZipUtil.openEntry(zipFile, "missing.txt"));
+
+            // *不跨目录，**跨目录
+            Path subset = dir.resolve("subset");
+            Assert.assertEquals(1, ZipUtil.unZip(zipFile, subset.toString(), "img/*.jpg"));
+            Assert.assertTrue(Files.exists(subset.resolve("img/a.jpg")));
+            Assert.assertFalse(Files.exists(subset.resolve("img/sub/c.jpg")));
+            Assert.assertEquals(3, ZipUtil.unZip(zipFile, subset.toString(), "img/**.{jpg,png}"));
+            Assert.assertTrue(Files.exists(subset.resolve("img/sub/c.jpg")));
+            Assert.assertFalse(Files.exists(subset.resolve("对账单.txt")));
+
+            Path all = dir.resolve("all");
+            Assert.assertEquals(4, ZipUtil.unZip(zipFile, all.toString(), null, 3));
+            Assert.assertArrayEquals(text, Files.readAllBytes(all.resolve("对账单.txt")));
+            Assert.assertArrayEquals(Files.readAllBytes(source.resolve("img/sub/c.jpg")),
+                    Files.readAllBytes(all.resolve("img/sub/c.jpg")));
+        } finally {
+            delete(dir.toFile());
+        }
+    }
+
+    @Test
+    public void testUnZipRejectsTraversal() throws Exception {
+        Path dir = Files.createTempDirectory("zip-util");
+        try {
+            File zipFile = dir.resolve("evil.zip").toFile();
+            ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zipFile));
+            try {
+                out.putNextEntry(new ZipEntry("good.txt"));
+                out.write(1);
+                out.putNextEntry(new ZipEntry("sub/dir/"));
+                out.putNextEntry(new ZipEntry("../evil.txt"));
+                out.write(2);
+            } finally {
+                out.close();
+            }
+
+            try {
+                ZipUtil.unZip(zipFile.getPath(), dir.resolve("out").toString());
+                Assert.fail();
+            } catch (IOException e) {
+                // 路径在目标文件夹之外
+            }
+            Assert.assertFalse(Files.exists(dir.resolve("evil.txt")));
+            // 检查阶段不创建任何目录
+            Assert.assertFalse(Files.exists(dir.resolve("out")));
+        } finally {
+            delete(dir.toFile());
+        }
+    }
+
+    /**
+     * 串行与不同线程数并行压缩、随机读取单个条目、并行解压的耗时：java -cp ... ZipUtilTest 源目录 输出目录 [线程数,...]
+     */
+    public static void main(String[] args) throws Exception {
+        String source = args[0];
+        File out = new File(args[1]);
+        out.mkdirs();
+        String[] threads = (args.length > 2 ? args[2] : "1,2,4,8,16").split(",");
+
+        long start = System.currentTimeMillis();
+        ZipUtil.zip(source, new File(out, "serial.zip").getPath());
+        logger.info("zip serial: {}ms, {} bytes", System.currentTimeMillis() - start,
+                new File(out, "serial.zip").length());
+        for (String thread : threads) {
+            File zipFile = new File(out, "parallel-" + thread + ".zip");
+            start = System.currentTimeMillis();
+            ZipUtil.zipParallel(new String[] {source}, zipFile.getPath(), Integer.parseInt(thread));
+            logger.info("zipParallel {} threads: {}ms, {} bytes", thread, System.currentTimeMillis() - start,
+                    zipFile.length());
+        }
+        File serial = new File(out, "serial.zip");
+        List<String> names = ZipUtil.listEntries(serial.getPath());
+        String last = names.get(names.size() - 1);
+        start = System.currentTimeMillis();
+        InputStream in = ZipUtil.openEntry(serial.getPath(), last);
+        int size = in == null ? 0 : readFully(in).length;
+        if (in != null) {
+            in.close();
+        }
+        logger.info("openEntry {}: {}ms, {} bytes", last, System.currentTimeMillis() - start, size);
+        for (String thread : threads) {
+            start = System.currentTimeMillis();
+            int count = ZipUtil.unZip(serial.getPath(), new File(out, "unzip-" + thread).getPath(), null,
+                    Integer.parseInt(thread));
+            logger.info("unZip {} threads: {}ms, {} files", thread, System.currentTimeMillis() - start, count);
+        }
+    }
+
+    /**
+     * 可压缩的文本(模拟对账单)
+     */
+    private static byte[] statement(int lines) {
+        Random random = new Random(lines);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append(i).append("|2026-10-18|MCH").append(random.nextInt(1000)).append('|')
+                    .append(random.nextInt(100000)).append("|CNY|SUCCESS\n");
+        }
+        return sb.toString().getBytes(GBK);
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    private static byte[] read(ZipFile zip, ZipEntry entry) throws IOException {
+        InputStream in = zip.getInputStream(entry);
+        try {
+            byte[] data = new byte[(int) entry.getSize()];
+            int offset = 0;
+            int n;
+            while (offset < data.length && (n = in.read(data, offset, data.length - offset)) != -1) {
+                offset += n;
+            }
+            return data;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static void write(Path file, byte[] data) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, data);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
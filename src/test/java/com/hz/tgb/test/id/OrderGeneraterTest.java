@@ -1,7 +1,11 @@
 package com.hz.tgb.test.id;
 
+import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import com.hz.tgb.id.OrderGenerater;
 import org.junit.Assert;
@@ -44,9 +48,100 @@ public class OrderGeneraterTest {
     }
 
     /**
-     * 验证订单号生成是否会重复和耗时(多线程)
+     * 验证默认格式下多线程生成的订单号不重复，默认格式每毫秒最多100个，同一分段用尽时借用后续毫秒
      */
-    public static void main(String[] args) {
+    @Test
+    public void testGenerateOrderUnique() throws InterruptedException {
+        long[] ids = generate(100000);
+        Arrays.sort(ids);
+        for (int i = 1; i < ids.length; i++) {
+            Assert.assertTrue("订单号重复！", ids[i] != ids[i - 1]);
+        }
+    }
+
+    /**
+     * 时钟回拨10秒（模拟为所有分段的毫秒数领先10秒且序列号用尽）时不会等待时钟追上，订单号仍然递增
+     */
+    @Test
+    public void testClockBackwards() throws Exception {
+        Field field = OrderGenerater.class.getDeclaredField("SEQUENCES");
+        field.setAccessible(true);
+        AtomicLongArray sequences = (AtomicLongArray) field.get(null);
+        long ahead = (System.currentTimeMillis() + 10000L) << 20 | ((1 << 20) - 1);
+        for (int i = 0; i < sequences.length(); i++) {
+            sequences.set(i, ahead);
+        }
+        try {
+            long start = System.currentTimeMillis();
+            String last = OrderGenerater.generateOrder();
+            for (int i = 0; i < 100; i++) {
+                String orderId = OrderGenerater.generateOrder();
+                Assert.assertTrue(orderId.substring(0, 15).compareTo(last.substring(0, 15)) >= 0);
+                last = orderId;
+            }
+            Assert.assertTrue(System.currentTimeMillis() - start < 5000L);
+        } finally {
+            for (int i = 0; i < sequences.length(); i++) {
+                sequences.set(i, 0L);
+            }
+        }
+    }
+
+    /**
+     * 多线程生成订单号，去掉机器号后(时间戳 + 随机数 + 自增序列，共19位)转成long，便于排序查重
+     */
+    private static long[] generate(int total) throws InterruptedException {
+        final int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        final int perThread = total / threads;
+        final long[] ids = new long[perThread * threads];
+        final CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int base = t * perThread;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perThread; i++) {
+                        String orderId = OrderGenerater.generateOrder();
+                        long id = 0;
+                        for (int j = 0; j < orderId.length(); j++) {
+                            if (j != 15 && j != 16) {
+                                id = id * 10 + (orderId.charAt(j) - '0');
+                            }
+                        }
+                        ids[base + i] = id;
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        return ids;
+    }
+
+    /**
+     * 验证订单号生成是否会重复和耗时(多线程)，以及多线程吞吐量：java -cp ... OrderGeneraterTest [订单号个数]<br>
+     * 吞吐量受自增序列位数限制，未指定系统属性时按4位测试，默认的2位每毫秒最多100个
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (System.getProperty(OrderGenerater.ORDER_SEQUENCE_DIGITS) == null) {
+            System.setProperty(OrderGenerater.ORDER_SEQUENCE_DIGITS, "4");
+        }
+        int total = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        // 预热
+        generate(total / 10);
+        long start = System.nanoTime();
+        long[] ids = generate(total);
+        long cost = System.nanoTime() - start;
+        Arrays.sort(ids);
+        int duplicates = 0;
+        for (int i = 1; i < ids.length; i++) {
+            if (ids[i] == ids[i - 1]) {
+                duplicates++;
+            }
+        }
+        logger.info("generateOrder {} ids cost:{}ms, {} ids/s, duplicates:{}", new Object[] { ids.length,
+                cost / 1000000, ids.length * 1000000000L / cost, duplicates });
+
         List<String> list = new ArrayList<String>();
         long startTime = System.currentTimeMillis();
         // 模拟1000个并发请求
@@ -0,0 +1,218 @@
+package com.hz.tgb.test.id;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.hz.tgb.id.SegmentIdAllocator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * 号段ID分配器单元测试，使用H2内存数据库
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午6:12:45
+ */
+public class SegmentIdAllocatorTest {
+
+    private static final String URL = "jdbc:h2:mem:segment_id;DB_CLOSE_DELAY=-1";
+
+    @Before
+    public void setUp() throws Exception {
+        Class.forName("org.h2.Driver");
+        execute("CREATE TABLE id_segment (biz_tag VARCHAR(128) NOT NULL PRIMARY KEY, max_id BIGINT NOT NULL, "
+                + "step INT NOT NULL, update_time TIMESTAMP)");
+        execute("INSERT INTO id_segment(biz_tag, max_id, step) VALUES ('order', 0, 1000)");
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        execute("DROP TABLE id_segment");
+    }
+
+    /**
+     * 单线程跨越多个号段时严格递增且连续
+     */
+    @Test
+    public void testNextIdIncreasing() {
+        SegmentIdAllocator allocator = new SegmentIdAllocator(URL, "sa", "");
+        for (long expect = 1; expect <= 5500; expect++) {
+            Assert.assertEquals(expect, allocator.nextId("order"));
+        }
+    }
+
+    /**
+     * 多个分配器（模拟多个节点）、多线程并发时ID不重复
+     */
+    @Test
+    public void testConcurrentUnique() throws InterruptedException {
+        final SegmentIdAllocator[] allocators = {
+                new SegmentIdAllocator(URL, "sa", ""), new SegmentIdAllocator(URL, "sa", "") };
+        final int threads = 8;
+        final int perThread = 20000;
+        final long[] ids = new long[threads * perThread];
+        final CountDownLatch latch = new CountDownLatch(threads);
+        final AtomicInteger errors = new AtomicInteger();
+        for (int t = 0; t < threads; t++) {
+            final int index = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        SegmentIdAllocator allocator = allocators[index % allocators.length];
+                        long last = 0;
+                        for (int i = 0; i < perThread; i++) {
+                            long id = allocator.nextId("order");
+                            // 同一个分配器在同一线程内看到的ID严格递增
+                            if (id <= last) {
+                                throw new IllegalStateException("id not increasing:" + id);
+                            }
+                            last = id;
+                            ids[index * perThread + i] = id;
+                        }
+                    } catch (RuntimeException e) {
+                        errors.incrementAndGet();
+                        throw e;
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }).start();
+        }
+        latch.await();
+
+        Assert.assertEquals(0, errors.get());
+        Arrays.sort(ids);
+        for (int i = 1; i < ids.length; i++) {
+            Assert.assertTrue("duplicate id " + ids[i], ids[i] != ids[i - 1]);
+        }
+    }
+
+    /**
+     * 预取超时后同步租用，超时的预取之后才返回时结果被丢弃，ID仍然严格递增
+     */
+    @Test
+    public void testLatePrefetchDiscarded() throws Exception {
+        final CountDownLatch synchronousLeased = new CountDownLatch(1);
+        final CountDownLatch prefetchDone = new CountDownLatch(1);
+        final AtomicInteger prefetches = new AtomicInteger();
+        SegmentIdAllocator allocator = new SegmentIdAllocator(null, URL, "sa", "", SegmentIdAllocator.DEFAULT_TABLE, 0.2,
+                Executors.newSingleThreadExecutor()) {
+            @Override
+            protected Segment lease(String bizTag) throws SQLException {
+                if (!Thread.currentThread().getName().startsWith("pool-")) {
+                    Segment segment = super.lease(bizTag);
+                    if (prefetches.get() > 0) {
+                        synchronousLeased.countDown();
+                    }
+                    return segment;
+                }
+                if (prefetches.incrementAndGet() > 1) {
+                    return super.lease(bizTag);
+                }
+                // 第一次预取先租到[1001, 2000]，但直到同步租用[2001, 3000]之后才返回
+                Segment segment = super.lease(bizTag);
+                try {
+                    synchronousLeased.await();
+                    return segment;
+                } catch (InterruptedException e) {
+                    throw new SQLException(e);
+                } finally {
+                    prefetchDone.countDown();
+                }
+            }
+        };
+
+        long last = 0;
+        for (int i = 0; i < 1000; i++) {
+            last = allocator.nextId("order");
+        }
+        Assert.assertEquals(1000, last);
+        // 等待预取超时，同步租用[2001, 3000]
+        Assert.assertEquals(2001, allocator.nextId("order"));
+        prefetchDone.await();
+        Thread.sleep(100L);
+        last = 2001;
+        for (int i = 0; i < 3000; i++) {
+            long id = allocator.nextId("order");
+            Assert.assertTrue("id not increasing:" + id, id > last);
+            last = id;
+        }
+    }
+
+    /**
+     * 预取失败后当前号段不再重复预取，用完时同步租用；同步租用失败时有限次重试
+     */
+    @Test
+    public void testPrefetchFailure() throws Exception {
+        final AtomicInteger prefetches = new AtomicInteger();
+        final AtomicInteger leases = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger(1);
+        SegmentIdAllocator allocator = new SegmentIdAllocator(null, URL, "sa", "", SegmentIdAllocator.DEFAULT_TABLE, 0.2,
+                Executors.newSingleThreadExecutor()) {
+            @Override
+            protected Segment lease(String bizTag) throws SQLException {
+                if (Thread.currentThread().getName().startsWith("pool-")) {
+                    prefetches.incrementAndGet();
+                    throw new SQLException("prefetch failed");
+                }
+                if (leases.get() > 0 && failures.getAndDecrement() > 0) {
+                    throw new SQLException("lease failed");
+                }
+                long max = leases.incrementAndGet() * 1000L;
+                return new Segment(max - 999, max, 0.2);
+            }
+        };
+
+        for (long expect = 1; expect <= 1000; expect++) {
+            Assert.assertEquals(expect, allocator.nextId("order"));
+            if (expect == 500) {
+                // 等待预取失败
+                Thread.sleep(100L);
+            }
+        }
+        Assert.assertEquals(1, prefetches.get());
+        // 同步租用第一次失败，重试成功
+        Assert.assertEquals(1001, allocator.nextId("order"));
+        Assert.assertEquals(2, leases.get());
+        for (int i = 0; i < 999; i++) {
+            allocator.nextId("order");
+        }
+        Thread.sleep(100L);
+        // 切换号段后重新预取
+        Assert.assertEquals(2, prefetches.get());
+
+        failures.set(Integer.MAX_VALUE);
+        try {
+            allocator.nextId("order");
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getCause() instanceof SQLException);
+        }
+        Assert.assertEquals(Integer.MAX_VALUE - 3, failures.get());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testUnknownBizTag() {
+        new SegmentIdAllocator(URL, "sa", "").nextId("unknown");
+    }
+
+    private static void execute(String sql) throws SQLException {
+        Connection conn = DriverManager.getConnection(URL, "sa", "");
+        try {
+            Statement statement = conn.createStatement();
+            statement.execute(sql);
+            statement.close();
+        } finally {
+            conn.close();
+        }
+    }
+}
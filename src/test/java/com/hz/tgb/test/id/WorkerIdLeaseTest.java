@@ -0,0 +1,192 @@
+package com.hz.tgb.test.id;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.hz.tgb.datetime.Snowflake;
+import com.hz.tgb.datetime.SnowflakeUtils;
+import com.hz.tgb.id.FileWorkerIdStore;
+import com.hz.tgb.id.GenerateOrderNoUtil;
+import com.hz.tgb.id.WorkerIdLease;
+import com.hz.tgb.id.WorkerIdStore;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 雪花算法机器ID租约单元测试，用内存实现代替Redis
+ *
+ * @author hezhao
+ * @Time 2026年10月18日 下午7:03:18
+ */
+public class WorkerIdLeaseTest {
+
+    /**
+     * 40个节点分配到的机器ID不重复
+     */
+    @Test
+    public void testUniqueWorkerIds() {
+        InMemoryStore store = new InMemoryStore();
+        List<WorkerIdLease> leases = new ArrayList<WorkerIdLease>();
+        Set<Integer> ids = new HashSet<Integer>();
+        try {
+            for (int i = 0; i < 40; i++) {
+                WorkerIdLease lease = new WorkerIdLease(store, null, 30);
+                leases.add(lease);
+                int id = lease.acquire();
+                Assert.assertTrue(id >= 0 && id < WorkerIdLease.MAX_WORKER_COUNT);
+                Assert.assertTrue("duplicate worker id " + id, ids.add(id));
+                Assert.assertEquals(id, lease.getDatacenterId() * 32 + lease.getMachineId());
+            }
+            Assert.assertEquals(40, store.owners.size());
+        } finally {
+            for (WorkerIdLease lease : leases) {
+                lease.close();
+            }
+        }
+        Assert.assertEquals(0, store.owners.size());
+    }
+
+    /**
+     * 租约丢失后由心跳重新占用；被其他节点占用时租约失效
+     */
+    @Test
+    public void testHeartbeat() throws InterruptedException {
+        InMemoryStore store = new InMemoryStore();
+        WorkerIdLease lease = new WorkerIdLease(store, null, 3);
+        int id = lease.acquire();
+        try {
+            // 模拟Redis重启丢失数据
+            store.owners.clear();
+            Thread.sleep(1500L);
+            Assert.assertTrue(lease.isValid());
+            Assert.assertTrue(store.owners.containsKey(id));
+
+            // 租约被其他节点占用
+            store.owners.put(id, "other");
+            Thread.sleep(1200L);
+            Assert.assertFalse(lease.isValid());
+        } finally {
+            lease.close();
+        }
+        Assert.assertEquals("other", store.owners.get(id));
+    }
+
+    /**
+     * 租约失效或关闭后，使用租约的雪花算法实例不再生成ID
+     */
+    @Test
+    public void testSnowflakeStopsWhenLeaseLost() throws InterruptedException {
+        InMemoryStore store = new InMemoryStore();
+        WorkerIdLease lease = new WorkerIdLease(store, null, 3);
+        int id = lease.acquire();
+        Snowflake snowflake = new Snowflake(lease);
+        try {
+            long first = snowflake.nextId();
+            Assert.assertEquals(id, (first >>> 12) & (WorkerIdLease.MAX_WORKER_COUNT - 1));
+            Assert.assertTrue(snowflake.nextId() > first);
+
+            store.owners.put(id, "other");
+            Thread.sleep(1200L);
+            try {
+                snowflake.nextId();
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                Assert.assertFalse(lease.isValid());
+            }
+
+            // 其他节点释放后重新占用同一个机器ID，恢复生成
+            store.owners.remove(id);
+            Thread.sleep(1200L);
+            Assert.assertTrue(snowflake.nextId() > first);
+        } finally {
+            lease.close();
+        }
+        try {
+            snowflake.nextId();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // 已关闭
+        }
+    }
+
+    /**
+     * 没有设置默认租约、也没有指定文件锁目录时直接报错
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testDefaultNotSet() {
+        Assert.assertNull(System.getProperty(WorkerIdLease.WORKER_ID_DIR));
+        WorkerIdLease.getDefault();
+    }
+
+    /**
+     * 没有设置默认租约时订单号仍然可以生成，使用固定的机器ID
+     */
+    @Test
+    public void testOrderNoWithoutDefault() {
+        Assert.assertNull(WorkerIdLease.getDefaultIfPresent());
+        Set<String> orderNos = new HashSet<String>();
+        for (int i = 0; i < 1000; i++) {
+            String orderNo = GenerateOrderNoUtil.getOrderNo(27);
+            Assert.assertEquals(27, orderNo.length());
+            Assert.assertTrue("duplicate order no " + orderNo, orderNos.add(orderNo));
+        }
+        Assert.assertTrue(SnowflakeUtils.getInstance("order").nextId() > 0);
+    }
+
+    /**
+     * 主存储不可用时使用本地文件锁
+     */
+    @Test
+    public void testFallbackToFile() throws Exception {
+        File dir = Files.createTempDirectory("worker-id").toFile();
+        WorkerIdStore broken = new InMemoryStore() {
+            @Override
+            public boolean tryAcquire(int workerId, String owner, long ttlSeconds) {
+                throw new IllegalStateException("redis is down");
+            }
+        };
+        FileWorkerIdStore fileStore = new FileWorkerIdStore(dir);
+        WorkerIdLease first = new WorkerIdLease(broken, fileStore, 30);
+        WorkerIdLease second = new WorkerIdLease(broken, fileStore, 30);
+        try {
+            Assert.assertNotEquals(first.acquire(), second.acquire());
+            Assert.assertTrue(new File(dir, "worker-" + first.getWorkerId() + ".lock").exists());
+        } finally {
+            first.close();
+            second.close();
+            for (File file : dir.listFiles()) {
+                file.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    /**
+     * 不过期的内存实现，通过修改owners模拟过期和抢占
+     */
+    private static class InMemoryStore implements WorkerIdStore {
+
+        private final Map<Integer, String> owners = new ConcurrentHashMap<Integer, String>();
+
+        @Override
+        public boolean tryAcquire(int workerId, String owner, long ttlSeconds) {
+            return owners.putIfAbsent(workerId, owner) == null;
+        }
+
+        @Override
+        public boolean renew(int workerId, String owner, long ttlSeconds) {
+            return owner.equals(owners.get(workerId));
+        }
+
+        @Override
+        public void release(int workerId, String owner) {
+            owners.remove(workerId, owner);
+        }
+    }
+}